@@ -0,0 +1,237 @@
+package mil.nga.geopackage.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH CSV results (-rf csv) against a baseline run and reports
+ * benchmarks that regressed by more than a threshold percentage. Exits with
+ * status 1 when any benchmark regressed.
+ *
+ * <pre>
+ * java -cp geopackage-*-benchmarks.jar mil.nga.geopackage.benchmark.BenchmarkComparison baseline.csv current.csv [threshold_percent]
+ * </pre>
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class BenchmarkComparison {
+
+	/**
+	 * Default regression threshold percentage
+	 */
+	public static final double DEFAULT_THRESHOLD = 10.0;
+
+	/**
+	 * Throughput mode, where higher scores are better
+	 */
+	private static final String THROUGHPUT_MODE = "thrpt";
+
+	/**
+	 * Main method
+	 *
+	 * @param args
+	 *            baseline csv, current csv, optional threshold percentage
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2 || args.length > 3) {
+			System.out.println("USAGE: BenchmarkComparison baseline.csv current.csv [threshold_percent]");
+			System.exit(2);
+		}
+
+		double threshold = args.length > 2 ? Double.parseDouble(args[2])
+				: DEFAULT_THRESHOLD;
+
+		Map<String, Result> baseline = read(new File(args[0]));
+		Map<String, Result> current = read(new File(args[1]));
+
+		List<String> regressions = compare(baseline, current, threshold);
+
+		System.out.println();
+		if (regressions.isEmpty()) {
+			System.out.println("No regressions over " + threshold + "%");
+		} else {
+			System.out.println(regressions.size() + " regression"
+					+ (regressions.size() > 1 ? "s" : "") + " over "
+					+ threshold + "%:");
+			for (String regression : regressions) {
+				System.out.println("\t" + regression);
+			}
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Compare the current results against the baseline, printing each
+	 * benchmark change
+	 *
+	 * @param baseline
+	 *            baseline results
+	 * @param current
+	 *            current results
+	 * @param threshold
+	 *            regression threshold percentage
+	 * @return regressed benchmark keys
+	 */
+	public static List<String> compare(Map<String, Result> baseline,
+			Map<String, Result> current, double threshold) {
+
+		List<String> regressions = new ArrayList<>();
+
+		for (Map.Entry<String, Result> entry : current.entrySet()) {
+			String key = entry.getKey();
+			Result result = entry.getValue();
+			Result baselineResult = baseline.get(key);
+			if (baselineResult == null) {
+				System.out.println(String.format("%-70s %12.3f %s (new)", key,
+						result.score, result.unit));
+				continue;
+			}
+
+			// Positive change is an improvement for every mode
+			double change = (result.score - baselineResult.score)
+					/ baselineResult.score * 100.0;
+			if (!THROUGHPUT_MODE.equals(result.mode)) {
+				change = -change;
+			}
+
+			System.out.println(String.format(
+					"%-70s %12.3f -> %12.3f %s %+7.1f%%", key,
+					baselineResult.score, result.score, result.unit, change));
+
+			if (change < -threshold) {
+				regressions.add(key);
+			}
+		}
+
+		for (String key : baseline.keySet()) {
+			if (!current.containsKey(key)) {
+				System.out.println(String.format("%-70s (removed)", key));
+			}
+		}
+
+		return regressions;
+	}
+
+	/**
+	 * Read JMH CSV results
+	 *
+	 * @param file
+	 *            csv file
+	 * @return results by benchmark, mode, and parameters
+	 * @throws IOException
+	 */
+	public static Map<String, Result> read(File file) throws IOException {
+
+		Map<String, Result> results = new LinkedHashMap<>();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+			String line = reader.readLine();
+			if (line == null) {
+				return results;
+			}
+			List<String> header = parseLine(line);
+			int benchmarkIndex = header.indexOf("Benchmark");
+			int modeIndex = header.indexOf("Mode");
+			int scoreIndex = header.indexOf("Score");
+			int unitIndex = header.indexOf("Unit");
+			if (benchmarkIndex < 0 || modeIndex < 0 || scoreIndex < 0
+					|| unitIndex < 0) {
+				throw new IOException("Not a JMH CSV result file: " + file);
+			}
+
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				List<String> values = parseLine(line);
+				StringBuilder key = new StringBuilder(
+						values.get(benchmarkIndex));
+				key.append(" ").append(values.get(modeIndex));
+				for (int i = 0; i < header.size(); i++) {
+					String column = header.get(i);
+					if (column.startsWith("Param: ") && i < values.size()
+							&& !values.get(i).isEmpty()) {
+						key.append(" ")
+								.append(column.substring("Param: ".length()))
+								.append("=").append(values.get(i));
+					}
+				}
+				Result result = new Result();
+				result.mode = values.get(modeIndex);
+				result.score = Double.parseDouble(values.get(scoreIndex));
+				result.unit = values.get(unitIndex);
+				results.put(key.toString(), result);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Parse a CSV line of optionally quoted values
+	 *
+	 * @param line
+	 *            line
+	 * @return values
+	 */
+	private static List<String> parseLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && i + 1 < line.length()
+						&& line.charAt(i + 1) == '"') {
+					value.append(c);
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == ',' && !quoted) {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	/**
+	 * Benchmark result
+	 */
+	public static class Result {
+
+		/**
+		 * Benchmark mode
+		 */
+		private String mode;
+
+		/**
+		 * Score
+		 */
+		private double score;
+
+		/**
+		 * Score unit
+		 */
+		private String unit;
+
+	}
+
+}
@@ -0,0 +1,368 @@
+package mil.nga.geopackage.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.attributes.AttributesColumn;
+import mil.nga.geopackage.attributes.AttributesDao;
+import mil.nga.geopackage.attributes.AttributesRow;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.manager.GeoPackageManager;
+import mil.nga.geopackage.schema.TableColumnKey;
+import mil.nga.geopackage.user.UserRow;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.LineString;
+import mil.nga.sf.LinearRing;
+import mil.nga.sf.Point;
+import mil.nga.sf.Polygon;
+import mil.nga.sf.projection.ProjectionConstants;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
+
+/**
+ * Synthetic GeoPackages for the benchmarks. Feature and attributes tables of
+ * a configurable size are filled with seeded random values so runs are
+ * comparable against a baseline.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class BenchmarkGeoPackages {
+
+	/**
+	 * Feature table name
+	 */
+	public static final String FEATURE_TABLE = "benchmark_features";
+
+	/**
+	 * Attributes table name
+	 */
+	public static final String ATTRIBUTES_TABLE = "benchmark_attributes";
+
+	/**
+	 * Text column name
+	 */
+	public static final String TEXT_COLUMN = "name";
+
+	/**
+	 * Real column name
+	 */
+	public static final String REAL_COLUMN = "value";
+
+	/**
+	 * Integer column name
+	 */
+	public static final String INTEGER_COLUMN = "category";
+
+	/**
+	 * Random seed
+	 */
+	public static final long SEED = 1;
+
+	/**
+	 * Longitude range of the generated geometries
+	 */
+	public static final double MAX_LONGITUDE = 180.0;
+
+	/**
+	 * Latitude range of the generated geometries
+	 */
+	public static final double MAX_LATITUDE = 85.0;
+
+	/**
+	 * Create a new GeoPackage in a temporary file
+	 *
+	 * @return GeoPackage
+	 * @throws IOException
+	 *             upon failure to create the file
+	 */
+	public static GeoPackage create() throws IOException {
+		File file = File.createTempFile("benchmark", ".gpkg");
+		if (!file.delete() || !GeoPackageManager.create(file)) {
+			throw new GeoPackageException(
+					"Failed to create benchmark GeoPackage: " + file);
+		}
+		return GeoPackageManager.open(file);
+	}
+
+	/**
+	 * Close and delete a GeoPackage created by {@link #create()}
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 */
+	public static void delete(GeoPackage geoPackage) {
+		if (geoPackage != null) {
+			File file = new File(geoPackage.getPath());
+			geoPackage.close();
+			file.delete();
+		}
+	}
+
+	/**
+	 * Create and fill the feature table
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 * @param count
+	 *            number of features
+	 * @param geometryType
+	 *            geometry type of the features
+	 * @param points
+	 *            number of points per line string or polygon ring
+	 * @return feature dao
+	 * @throws SQLException
+	 *             upon failure to create the table
+	 */
+	public static FeatureDao createFeatureTable(GeoPackage geoPackage,
+			int count, GeometryType geometryType, int points)
+			throws SQLException {
+
+		GeometryColumns geometryColumns = new GeometryColumns();
+		geometryColumns.setId(new TableColumnKey(FEATURE_TABLE, "geom"));
+		geometryColumns.setGeometryType(geometryType);
+		geometryColumns.setZ((byte) 0);
+		geometryColumns.setM((byte) 0);
+
+		geoPackage.createFeatureTableWithMetadata(geometryColumns, "id",
+				featureColumns(), new GeometryEnvelope(-MAX_LONGITUDE,
+						-MAX_LATITUDE, MAX_LONGITUDE, MAX_LATITUDE),
+				ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
+
+		FeatureDao featureDao = geoPackage.getFeatureDao(FEATURE_TABLE);
+		featureDao.insertBatch(featureRows(featureDao, count, geometryType,
+				points, new Random(SEED)));
+
+		return featureDao;
+	}
+
+	/**
+	 * Create and fill the attributes table
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 * @param count
+	 *            number of attribute rows
+	 * @return attributes dao
+	 */
+	public static AttributesDao createAttributesTable(GeoPackage geoPackage,
+			int count) {
+
+		List<AttributesColumn> columns = new ArrayList<>();
+		columns.add(AttributesColumn.createColumn(1, TEXT_COLUMN,
+				GeoPackageDataType.TEXT, false, null));
+		columns.add(AttributesColumn.createColumn(2, REAL_COLUMN,
+				GeoPackageDataType.REAL, false, null));
+		columns.add(AttributesColumn.createColumn(3, INTEGER_COLUMN,
+				GeoPackageDataType.INTEGER, false, null));
+		geoPackage.createAttributesTableWithId(ATTRIBUTES_TABLE, columns);
+
+		AttributesDao attributesDao = geoPackage
+				.getAttributesDao(ATTRIBUTES_TABLE);
+		Random random = new Random(SEED);
+		List<AttributesRow> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			AttributesRow row = attributesDao.newRow();
+			setValues(row, i, random);
+			rows.add(row);
+		}
+		attributesDao.insertBatch(rows);
+
+		return attributesDao;
+	}
+
+	/**
+	 * Create a new feature row with random values
+	 *
+	 * @param featureDao
+	 *            feature dao
+	 * @param geometryType
+	 *            geometry type
+	 * @param points
+	 *            number of points per line string or polygon ring
+	 * @param random
+	 *            random
+	 * @return feature row
+	 */
+	public static FeatureRow newFeatureRow(FeatureDao featureDao,
+			GeometryType geometryType, int points, Random random) {
+		FeatureRow row = featureDao.newRow();
+		row.setGeometry(createGeometryData(geometryType, points, random));
+		setValues(row, random.nextInt(), random);
+		return row;
+	}
+
+	/**
+	 * Create geometry data with a random geometry
+	 *
+	 * @param geometryType
+	 *            point, line string, or polygon geometry type
+	 * @param points
+	 *            number of points per line string or polygon ring
+	 * @param random
+	 *            random
+	 * @return geometry data
+	 */
+	public static GeoPackageGeometryData createGeometryData(
+			GeometryType geometryType, int points, Random random) {
+		GeoPackageGeometryData geometryData = new GeoPackageGeometryData(
+				ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
+		Geometry geometry = createGeometry(geometryType, points, random);
+		geometryData.setGeometry(geometry);
+		geometryData.setEnvelope(GeometryEnvelopeBuilder
+				.buildEnvelope(geometry));
+		return geometryData;
+	}
+
+	/**
+	 * Create a random geometry around a random center
+	 *
+	 * @param geometryType
+	 *            point, line string, or polygon geometry type
+	 * @param points
+	 *            number of points per line string or polygon ring
+	 * @param random
+	 *            random
+	 * @return geometry
+	 */
+	public static Geometry createGeometry(GeometryType geometryType,
+			int points, Random random) {
+		double x = (random.nextDouble() * 2.0 - 1.0) * MAX_LONGITUDE * 0.99;
+		double y = (random.nextDouble() * 2.0 - 1.0) * MAX_LATITUDE * 0.99;
+		Geometry geometry;
+		switch (geometryType) {
+		case POINT:
+			geometry = new Point(x, y);
+			break;
+		case LINESTRING:
+			LineString lineString = new LineString(false, false);
+			for (int i = 0; i < points; i++) {
+				lineString.addPoint(new Point(x + random.nextDouble(), y
+						+ random.nextDouble()));
+			}
+			geometry = lineString;
+			break;
+		case POLYGON:
+			LinearRing ring = new LinearRing(false, false);
+			for (int i = 0; i < points; i++) {
+				double angle = 2.0 * Math.PI * i / points;
+				ring.addPoint(new Point(x + Math.cos(angle), y
+						+ Math.sin(angle)));
+			}
+			ring.addPoint(new Point(x + 1.0, y));
+			Polygon polygon = new Polygon(false, false);
+			polygon.addRing(ring);
+			geometry = polygon;
+			break;
+		default:
+			throw new GeoPackageException(
+					"Unsupported benchmark geometry type: " + geometryType);
+		}
+		return geometry;
+	}
+
+	/**
+	 * Create a bounding box covering the fraction of the generated area
+	 *
+	 * @param fraction
+	 *            fraction of the width and height, 0.0 to 1.0
+	 * @return bounding box
+	 */
+	public static GeometryEnvelope boundingBox(double fraction) {
+		return new GeometryEnvelope(-MAX_LONGITUDE * fraction, -MAX_LATITUDE
+				* fraction, MAX_LONGITUDE * fraction, MAX_LATITUDE * fraction);
+	}
+
+	/**
+	 * Create the additional feature columns
+	 *
+	 * @return columns
+	 */
+	private static List<FeatureColumn> featureColumns() {
+		List<FeatureColumn> columns = new ArrayList<>();
+		columns.add(FeatureColumn.createColumn(2, TEXT_COLUMN,
+				GeoPackageDataType.TEXT, false, null));
+		columns.add(FeatureColumn.createColumn(3, REAL_COLUMN,
+				GeoPackageDataType.REAL, false, null));
+		columns.add(FeatureColumn.createColumn(4, INTEGER_COLUMN,
+				GeoPackageDataType.INTEGER, false, null));
+		return columns;
+	}
+
+	/**
+	 * Set the text, real, and integer values of a row
+	 *
+	 * @param row
+	 *            row
+	 * @param number
+	 *            row number
+	 * @param random
+	 *            random
+	 */
+	private static void setValues(UserRow<?, ?> row, int number,
+			Random random) {
+		row.setValue(TEXT_COLUMN, "row " + number);
+		row.setValue(REAL_COLUMN, random.nextDouble() * 1000.0);
+		row.setValue(INTEGER_COLUMN, (long) random.nextInt(100));
+	}
+
+	/**
+	 * Iterate new feature rows without holding them all in memory
+	 *
+	 * @param featureDao
+	 *            feature dao
+	 * @param count
+	 *            number of rows
+	 * @param geometryType
+	 *            geometry type
+	 * @param points
+	 *            number of points per line string or polygon ring
+	 * @param random
+	 *            random
+	 * @return feature rows
+	 */
+	private static Iterator<FeatureRow> featureRows(
+			final FeatureDao featureDao, final int count,
+			final GeometryType geometryType, final int points,
+			final Random random) {
+		return new Iterator<FeatureRow>() {
+
+			private int created = 0;
+
+			@Override
+			public boolean hasNext() {
+				return created < count;
+			}
+
+			@Override
+			public FeatureRow next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				created++;
+				return newFeatureRow(featureDao, geometryType, points, random);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,166 @@
+package mil.nga.geopackage.benchmark;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
+import mil.nga.geopackage.extension.index.GeometryIndex;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.j256.ormlite.dao.CloseableIterator;
+
+/**
+ * Feature table index build and bounding box query benchmarks
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureIndexBenchmark {
+
+	/**
+	 * Number of features
+	 */
+	@Param({ "10000", "100000" })
+	public int rows;
+
+	/**
+	 * Fraction of the generated area width and height queried
+	 */
+	@Param({ "0.1" })
+	public double queryFraction;
+
+	/**
+	 * GeoPackage
+	 */
+	private GeoPackage geoPackage;
+
+	/**
+	 * Feature table index
+	 */
+	private FeatureTableIndex featureTableIndex;
+
+	/**
+	 * Feature table index using the in-memory packed R-tree
+	 */
+	private FeatureTableIndex memoryFeatureTableIndex;
+
+	/**
+	 * Query bounding box
+	 */
+	private GeometryEnvelope boundingBox;
+
+	/**
+	 * Create and index the GeoPackage table
+	 *
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SQLException {
+		geoPackage = BenchmarkGeoPackages.create();
+		featureTableIndex = new FeatureTableIndex(geoPackage,
+				BenchmarkGeoPackages.createFeatureTable(geoPackage, rows,
+						GeometryType.POLYGON, 10));
+		featureTableIndex.index();
+		memoryFeatureTableIndex = new FeatureTableIndex(geoPackage,
+				geoPackage.getFeatureDao(BenchmarkGeoPackages.FEATURE_TABLE));
+		memoryFeatureTableIndex.setInMemory(true);
+		memoryFeatureTableIndex.getPackedRTree();
+		boundingBox = BenchmarkGeoPackages.boundingBox(queryFraction);
+	}
+
+	/**
+	 * Delete the GeoPackage
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		featureTableIndex.close();
+		memoryFeatureTableIndex.close();
+		BenchmarkGeoPackages.delete(geoPackage);
+	}
+
+	/**
+	 * Index the full table
+	 *
+	 * @return indexed features
+	 */
+	@Benchmark
+	public int indexTable() {
+		return featureTableIndex.index(true);
+	}
+
+	/**
+	 * Count the features in the bounding box
+	 *
+	 * @return count
+	 */
+	@Benchmark
+	public long count() {
+		return featureTableIndex.count(boundingBox);
+	}
+
+	/**
+	 * Query the geometry index rows in the bounding box
+	 *
+	 * @param blackhole
+	 *            blackhole
+	 * @throws IOException
+	 */
+	@Benchmark
+	public void query(Blackhole blackhole) throws IOException {
+		CloseableIterator<GeometryIndex> results = featureTableIndex
+				.query(boundingBox);
+		try {
+			while (results.hasNext()) {
+				blackhole.consume(results.next());
+			}
+		} finally {
+			results.close();
+		}
+	}
+
+	/**
+	 * Query the feature ids in the bounding box from the geometry index table
+	 *
+	 * @return feature ids
+	 */
+	@Benchmark
+	public long[] queryIds() {
+		return featureTableIndex.queryIds(boundingBox);
+	}
+
+	/**
+	 * Query the feature ids in the bounding box from the packed R-tree
+	 *
+	 * @return feature ids
+	 */
+	@Benchmark
+	public long[] queryIdsInMemory() {
+		return memoryFeatureTableIndex.queryIds(boundingBox);
+	}
+
+}
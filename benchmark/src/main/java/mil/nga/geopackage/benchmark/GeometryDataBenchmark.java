@@ -0,0 +1,103 @@
+package mil.nga.geopackage.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.sf.GeometryType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GeoPackage geometry data parse and serialize benchmarks
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeometryDataBenchmark {
+
+	/**
+	 * Geometry type
+	 */
+	@Param({ "POINT", "LINESTRING", "POLYGON" })
+	public GeometryType geometryType;
+
+	/**
+	 * Number of points per line string or polygon ring
+	 */
+	@Param({ "100" })
+	public int points;
+
+	/**
+	 * Geometry data
+	 */
+	private GeoPackageGeometryData geometryData;
+
+	/**
+	 * Geometry data bytes
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Create the geometry data and bytes
+	 *
+	 * @throws IOException
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		geometryData = BenchmarkGeoPackages.createGeometryData(geometryType,
+				points, new Random(BenchmarkGeoPackages.SEED));
+		bytes = geometryData.toBytes();
+	}
+
+	/**
+	 * Parse the header and geometry
+	 *
+	 * @return geometry data
+	 */
+	@Benchmark
+	public GeoPackageGeometryData parse() {
+		return new GeoPackageGeometryData(bytes);
+	}
+
+	/**
+	 * Parse only the header
+	 *
+	 * @return geometry header
+	 */
+	@Benchmark
+	public GeoPackageGeometryHeader parseHeader() {
+		return new GeoPackageGeometryHeader(bytes);
+	}
+
+	/**
+	 * Serialize the header and geometry
+	 *
+	 * @return bytes
+	 * @throws IOException
+	 */
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return geometryData.toBytes();
+	}
+
+}
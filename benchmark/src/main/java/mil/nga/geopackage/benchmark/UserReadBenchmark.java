@@ -0,0 +1,181 @@
+package mil.nga.geopackage.benchmark;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.attributes.AttributesDao;
+import mil.nga.geopackage.attributes.AttributesResultSet;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.sf.GeometryType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Feature and attributes table read benchmarks, measuring a full table
+ * iteration per operation
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UserReadBenchmark {
+
+	/**
+	 * Number of rows in each table
+	 */
+	@Param({ "1000", "100000" })
+	public int rows;
+
+	/**
+	 * GeoPackage
+	 */
+	private GeoPackage geoPackage;
+
+	/**
+	 * Feature dao
+	 */
+	private FeatureDao featureDao;
+
+	/**
+	 * Attributes dao
+	 */
+	private AttributesDao attributesDao;
+
+	/**
+	 * Create the GeoPackage tables
+	 *
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SQLException {
+		geoPackage = BenchmarkGeoPackages.create();
+		featureDao = BenchmarkGeoPackages.createFeatureTable(geoPackage, rows,
+				GeometryType.POINT, 1);
+		attributesDao = BenchmarkGeoPackages.createAttributesTable(geoPackage,
+				rows);
+	}
+
+	/**
+	 * Delete the GeoPackage
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkGeoPackages.delete(geoPackage);
+	}
+
+	/**
+	 * Iterate all features reading the id and geometry bytes
+	 *
+	 * @param blackhole
+	 *            blackhole
+	 */
+	@Benchmark
+	public void featureQueryForAll(Blackhole blackhole) {
+		FeatureResultSet resultSet = featureDao.queryForAll();
+		try {
+			while (resultSet.moveToNext()) {
+				blackhole.consume(resultSet.getLong(0));
+				blackhole.consume(resultSet.getBlob(1));
+			}
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Iterate all features reading each row
+	 *
+	 * @param blackhole
+	 *            blackhole
+	 */
+	@Benchmark
+	public void featureGetRow(Blackhole blackhole) {
+		FeatureResultSet resultSet = featureDao.queryForAll();
+		try {
+			while (resultSet.moveToNext()) {
+				blackhole.consume(resultSet.getRow());
+			}
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Iterate all features reading each row and parsing the geometry
+	 *
+	 * @param blackhole
+	 *            blackhole
+	 */
+	@Benchmark
+	public void featureGetGeometry(Blackhole blackhole) {
+		FeatureResultSet resultSet = featureDao.queryForAll();
+		try {
+			while (resultSet.moveToNext()) {
+				blackhole.consume(resultSet.getRow().getGeometry()
+						.getGeometry());
+			}
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Iterate all features reading each row into a recycled row
+	 *
+	 * @param blackhole
+	 *            blackhole
+	 */
+	@Benchmark
+	public void featureGetRecycledRow(Blackhole blackhole) {
+		FeatureResultSet resultSet = featureDao.queryForAll();
+		try {
+			resultSet.setRecycleRows(true);
+			while (resultSet.moveToNext()) {
+				blackhole.consume(resultSet.getRow());
+			}
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Iterate all attribute rows
+	 *
+	 * @param blackhole
+	 *            blackhole
+	 */
+	@Benchmark
+	public void attributesGetRow(Blackhole blackhole) {
+		AttributesResultSet resultSet = attributesDao.queryForAll();
+		try {
+			while (resultSet.moveToNext()) {
+				blackhole.consume(resultSet.getRow());
+			}
+		} finally {
+			resultSet.close();
+		}
+	}
+
+}
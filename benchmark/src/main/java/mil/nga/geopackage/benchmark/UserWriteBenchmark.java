@@ -0,0 +1,148 @@
+package mil.nga.geopackage.benchmark;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.sf.GeometryType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feature table insert and update benchmarks, measured per row
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UserWriteBenchmark {
+
+	/**
+	 * Number of rows per batch insert
+	 */
+	private static final int BATCH_ROWS = 1000;
+
+	/**
+	 * Number of rows in the table before the writes
+	 */
+	@Param({ "10000" })
+	public int rows;
+
+	/**
+	 * GeoPackage
+	 */
+	private GeoPackage geoPackage;
+
+	/**
+	 * Feature dao
+	 */
+	private FeatureDao featureDao;
+
+	/**
+	 * Row to insert
+	 */
+	private FeatureRow insertRow;
+
+	/**
+	 * Rows to batch insert
+	 */
+	private List<FeatureRow> batchRows;
+
+	/**
+	 * Row to update
+	 */
+	private FeatureRow updateRow;
+
+	/**
+	 * Update value
+	 */
+	private long updateValue;
+
+	/**
+	 * Create the GeoPackage table and rows to write
+	 *
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SQLException {
+		geoPackage = BenchmarkGeoPackages.create();
+		featureDao = BenchmarkGeoPackages.createFeatureTable(geoPackage, rows,
+				GeometryType.POINT, 1);
+		Random random = new Random(BenchmarkGeoPackages.SEED);
+		insertRow = BenchmarkGeoPackages.newFeatureRow(featureDao,
+				GeometryType.POINT, 1, random);
+		batchRows = new ArrayList<>(BATCH_ROWS);
+		for (int i = 0; i < BATCH_ROWS; i++) {
+			batchRows.add(BenchmarkGeoPackages.newFeatureRow(featureDao,
+					GeometryType.POINT, 1, random));
+		}
+		updateRow = featureDao.queryForIdRow(1);
+	}
+
+	/**
+	 * Delete the GeoPackage
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkGeoPackages.delete(geoPackage);
+	}
+
+	/**
+	 * Insert a single row
+	 *
+	 * @return row id
+	 */
+	@Benchmark
+	public long insert() {
+		insertRow.resetId();
+		return featureDao.insert(insertRow);
+	}
+
+	/**
+	 * Insert rows in a batch
+	 *
+	 * @return inserted rows
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH_ROWS)
+	public int insertBatch() {
+		return featureDao.insertBatch(batchRows, false);
+	}
+
+	/**
+	 * Update a single row
+	 *
+	 * @return updated rows
+	 */
+	@Benchmark
+	public int update() {
+		updateRow.setValue(BenchmarkGeoPackages.INTEGER_COLUMN, updateValue++);
+		return featureDao.update(updateRow);
+	}
+
+}
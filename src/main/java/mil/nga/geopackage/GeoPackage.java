@@ -1,10 +1,12 @@
 package mil.nga.geopackage;
 
 import java.sql.ResultSet;
+import java.util.concurrent.Callable;
 
 import mil.nga.geopackage.attributes.AttributesDao;
 import mil.nga.geopackage.core.contents.Contents;
 import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.user.FeatureChangeListener;
 import mil.nga.geopackage.features.user.FeatureDao;
 
 /**
@@ -95,4 +97,96 @@ public interface GeoPackage extends GeoPackageCore {
 	 */
 	public ResultSet quickCheck();
 
+	/**
+	 * Clear the cached feature and attributes table metadata, forcing the
+	 * table schemas to be read again. Each DAO request returns a new DAO
+	 * around the cached metadata. The cache is also cleared when the database
+	 * schema version changes.
+	 *
+	 * @since 1.2.4
+	 */
+	public void clearDaoCache();
+
+	/**
+	 * Clear the cached feature or attributes table metadata for the table
+	 *
+	 * @param tableName
+	 *            table name
+	 * @since 1.2.4
+	 */
+	public void clearDaoCache(String tableName);
+
+	/**
+	 * Begin a transaction on the connection used by the feature and attributes
+	 * DAOs, so user table writes are committed together instead of each in
+	 * its own auto commit transaction. Transactions may be nested, with inner
+	 * transactions using savepoints. Each begin must be matched by a
+	 * {@link #commit()} or {@link #rollback()}. Metadata DAOs share the same
+	 * connection and join the transaction.
+	 *
+	 * @since 1.2.4
+	 */
+	public void beginTransaction();
+
+	/**
+	 * Commit the innermost transaction
+	 *
+	 * @since 1.2.4
+	 */
+	public void commit();
+
+	/**
+	 * Roll back the innermost transaction
+	 *
+	 * @since 1.2.4
+	 */
+	public void rollback();
+
+	/**
+	 * Determine if a transaction is open on the user table connection
+	 *
+	 * @return true if in a transaction
+	 * @since 1.2.4
+	 */
+	public boolean inTransaction();
+
+	/**
+	 * Call the callable within a transaction on the user table connection,
+	 * committing when it returns and rolling back when it throws
+	 *
+	 * @param callable
+	 *            callable
+	 * @return callable result
+	 * @since 1.2.4
+	 */
+	public <T> T inTransaction(Callable<T> callable);
+
+	/**
+	 * Add a listener notified of features inserted, updated, or deleted in the
+	 * table through any feature DAO of this GeoPackage. Changes within a
+	 * transaction are notified after the outermost transaction commits and
+	 * are discarded when rolled back.
+	 *
+	 * @param tableName
+	 *            feature table name
+	 * @param listener
+	 *            feature change listener
+	 * @since 1.2.4
+	 */
+	public void addFeatureChangeListener(String tableName,
+			FeatureChangeListener listener);
+
+	/**
+	 * Remove a feature change listener of the table
+	 *
+	 * @param tableName
+	 *            feature table name
+	 * @param listener
+	 *            feature change listener
+	 * @return true if removed
+	 * @since 1.2.4
+	 */
+	public boolean removeFeatureChangeListener(String tableName,
+			FeatureChangeListener listener);
+
 }
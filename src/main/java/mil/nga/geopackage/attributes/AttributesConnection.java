@@ -1,5 +1,6 @@
 package mil.nga.geopackage.attributes;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 
 import mil.nga.geopackage.db.GeoPackageConnection;
@@ -28,8 +29,10 @@ public class AttributesConnection
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected AttributesResultSet createResult(ResultSet resultSet, int count) {
-		return new AttributesResultSet(table, resultSet, count);
+	protected AttributesResultSet createResult(ResultSet resultSet,
+			Connection connection, String sql, String[] selectionArgs) {
+		return new AttributesResultSet(table, resultSet, connection, sql,
+				selectionArgs);
 	}
 
 }
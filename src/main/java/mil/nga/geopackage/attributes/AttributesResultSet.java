@@ -1,5 +1,6 @@
 package mil.nga.geopackage.attributes;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 
 import mil.nga.geopackage.user.UserResultSet;
@@ -28,6 +29,27 @@ public class AttributesResultSet extends
 		super(table, resultSet, count);
 	}
 
+	/**
+	 * Constructor which counts the results on the first call to
+	 * {@link #getCount()}
+	 * 
+	 * @param table
+	 *            attributes table
+	 * @param resultSet
+	 *            result set
+	 * @param connection
+	 *            connection
+	 * @param sql
+	 *            query SQL, null to not count the results
+	 * @param selectionArgs
+	 *            query selection arguments
+	 * @since 1.2.4
+	 */
+	public AttributesResultSet(AttributesTable table, ResultSet resultSet,
+			Connection connection, String sql, String[] selectionArgs) {
+		super(table, resultSet, connection, sql, selectionArgs);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -4,9 +4,23 @@ import java.io.File;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.features.user.FeatureChangeListener;
+import mil.nga.geopackage.user.ContentValues;
+
 import com.j256.ormlite.support.ConnectionSource;
 
 /**
@@ -27,6 +41,11 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	private static final String NAME_COLUMN = "name";
 
+	/**
+	 * Nested transaction savepoint name prefix
+	 */
+	private static final String SAVEPOINT_PREFIX = "gpkg_savepoint_";
+
 	/**
 	 * GeoPackage file
 	 */
@@ -42,6 +61,26 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	private final ConnectionSource connectionSource;
 
+	/**
+	 * Prepared statement cache
+	 */
+	private final PreparedStatementCache statementCache;
+
+	/**
+	 * Read connection pool, null when all queries use the connection
+	 */
+	private GeoPackageConnectionPool connectionPool;
+
+	/**
+	 * Open transactions from outermost to innermost
+	 */
+	private final List<Transaction> transactions = new ArrayList<>();
+
+	/**
+	 * Feature change listeners by table name
+	 */
+	private final ConcurrentMap<String, List<FeatureChangeListener>> featureChangeListeners = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructor
 	 *
@@ -52,6 +91,7 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 		this.file = file;
 		this.connection = connection;
 		this.connectionSource = connectionSource;
+		this.statementCache = new PreparedStatementCache(connection);
 	}
 
 	/**
@@ -63,6 +103,331 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 		return connection;
 	}
 
+	/**
+	 * Get the prepared statement cache
+	 * 
+	 * @return prepared statement cache
+	 * @since 1.2.4
+	 */
+	public PreparedStatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	/**
+	 * Get the read connection pool
+	 * 
+	 * @return read connection pool, null if not pooled
+	 * @since 1.2.4
+	 */
+	public GeoPackageConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * Set a read connection pool. User queries run on pooled read connections
+	 * while this connection is not within a transaction.
+	 * 
+	 * @param connectionPool
+	 *            read connection pool, null to not pool
+	 * @since 1.2.4
+	 */
+	public void setConnectionPool(GeoPackageConnectionPool connectionPool) {
+		this.connectionPool = connectionPool;
+	}
+
+	/**
+	 * Enable the write ahead logging journal mode, allowing readers on other
+	 * connections to run concurrently with the writer
+	 * 
+	 * @return true if enabled
+	 * @since 1.2.4
+	 */
+	public boolean enableWriteAheadLogging() {
+		String journalMode = querySingleStringResult(
+				"PRAGMA journal_mode=WAL", null);
+		return "wal".equalsIgnoreCase(journalMode);
+	}
+
+	/**
+	 * Determine if the write ahead logging journal mode is enabled
+	 * 
+	 * @return true if enabled
+	 * @since 1.2.4
+	 */
+	public boolean isWriteAheadLogging() {
+		String journalMode = querySingleStringResult("PRAGMA journal_mode",
+				null);
+		return "wal".equalsIgnoreCase(journalMode);
+	}
+
+	/**
+	 * Determine if this connection is within a transaction, in which case
+	 * reads must use this connection to see uncommitted changes
+	 * 
+	 * @return true if in a transaction
+	 * @since 1.2.4
+	 */
+	public boolean inTransaction() {
+		try {
+			return !connection.getAutoCommit();
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to determine the connection auto commit mode", e);
+		}
+	}
+
+	/**
+	 * Begin a transaction on the connection used by the user DAOs. The
+	 * outermost transaction started in auto commit mode disables auto commit
+	 * until it is committed or rolled back. Nested transactions, or
+	 * transactions started while the caller manages auto commit, use
+	 * savepoints. Each begin must be matched by a {@link #commit()} or
+	 * {@link #rollback()}.
+	 * 
+	 * @since 1.2.4
+	 */
+	public synchronized void beginTransaction() {
+		try {
+			Savepoint savepoint = null;
+			if (!transactions.isEmpty() || !connection.getAutoCommit()) {
+				savepoint = connection.setSavepoint(SAVEPOINT_PREFIX
+						+ transactions.size());
+			} else {
+				connection.setAutoCommit(false);
+			}
+			transactions.add(new Transaction(savepoint));
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to begin transaction", e);
+		}
+	}
+
+	/**
+	 * Commit the innermost transaction, releasing its savepoint when nested.
+	 * Actions registered with {@link #afterCommit(Object, Runnable)} are
+	 * passed to the enclosing transaction, or run after the outermost
+	 * transaction commits.
+	 * 
+	 * @since 1.2.4
+	 */
+	public void commit() {
+		List<Runnable> actions = null;
+		synchronized (this) {
+			Transaction transaction = endTransaction("commit");
+			Savepoint savepoint = transaction.savepoint;
+			try {
+				if (savepoint != null) {
+					connection.releaseSavepoint(savepoint);
+				} else {
+					try {
+						connection.commit();
+					} finally {
+						connection.setAutoCommit(true);
+					}
+				}
+			} catch (SQLException e) {
+				throw new GeoPackageException("Failed to commit transaction",
+						e);
+			}
+			if (!transactions.isEmpty()) {
+				Map<Object, Runnable> parentActions = transactions
+						.get(transactions.size() - 1).commitActions;
+				for (Map.Entry<Object, Runnable> action : transaction.commitActions
+						.entrySet()) {
+					Object key = action.getKey();
+					if (parentActions.containsKey(key)) {
+						key = new Object();
+					}
+					parentActions.put(key, action.getValue());
+				}
+			} else if (!transaction.commitActions.isEmpty()) {
+				actions = new ArrayList<>(transaction.commitActions.values());
+			}
+		}
+		if (actions != null) {
+			for (Runnable action : actions) {
+				try {
+					action.run();
+				} catch (RuntimeException e) {
+					log.log(Level.WARNING,
+							"Failed to run action after transaction commit", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Roll back the innermost transaction, to its savepoint when nested,
+	 * discarding its actions registered with
+	 * {@link #afterCommit(Object, Runnable)}
+	 * 
+	 * @since 1.2.4
+	 */
+	public synchronized void rollback() {
+		Savepoint savepoint = endTransaction("rollback").savepoint;
+		try {
+			if (savepoint != null) {
+				connection.rollback(savepoint);
+				connection.releaseSavepoint(savepoint);
+			} else {
+				try {
+					connection.rollback();
+				} finally {
+					connection.setAutoCommit(true);
+				}
+			}
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to rollback transaction", e);
+		}
+	}
+
+	/**
+	 * Get the number of open transactions begun on this connection
+	 * 
+	 * @return transaction depth, 0 when not in a transaction
+	 * @since 1.2.4
+	 */
+	public synchronized int getTransactionDepth() {
+		return transactions.size();
+	}
+
+	/**
+	 * Register an action to run after the outermost transaction begun on this
+	 * connection commits. The action is discarded if its transaction, or an
+	 * enclosing transaction, is rolled back. Only the first action registered
+	 * with the key in the innermost transaction is kept.
+	 * 
+	 * @param key
+	 *            action key within the innermost transaction
+	 * @param action
+	 *            action
+	 * @return registered action of the key, or null when not in a transaction
+	 *         begun on this connection and the caller should run the action
+	 * @since 1.2.4
+	 */
+	public synchronized Runnable afterCommit(Object key, Runnable action) {
+		Runnable registered = null;
+		if (!transactions.isEmpty()) {
+			Map<Object, Runnable> actions = transactions.get(transactions
+					.size() - 1).commitActions;
+			registered = actions.get(key);
+			if (registered == null) {
+				actions.put(key, action);
+				registered = action;
+			}
+		}
+		return registered;
+	}
+
+	/**
+	 * Add a listener notified of features inserted, updated, or deleted in the
+	 * table through any feature DAO of this connection
+	 * 
+	 * @param tableName
+	 *            feature table name
+	 * @param listener
+	 *            feature change listener
+	 * @since 1.2.4
+	 */
+	public void addFeatureChangeListener(String tableName,
+			FeatureChangeListener listener) {
+		List<FeatureChangeListener> listeners = featureChangeListeners
+				.get(tableName);
+		if (listeners == null) {
+			listeners = new CopyOnWriteArrayList<>();
+			List<FeatureChangeListener> existing = featureChangeListeners
+					.putIfAbsent(tableName, listeners);
+			if (existing != null) {
+				listeners = existing;
+			}
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a feature change listener of the table
+	 * 
+	 * @param tableName
+	 *            feature table name
+	 * @param listener
+	 *            feature change listener
+	 * @return true if removed
+	 * @since 1.2.4
+	 */
+	public boolean removeFeatureChangeListener(String tableName,
+			FeatureChangeListener listener) {
+		List<FeatureChangeListener> listeners = featureChangeListeners
+				.get(tableName);
+		return listeners != null && listeners.remove(listener);
+	}
+
+	/**
+	 * Get the feature change listeners of the table
+	 * 
+	 * @param tableName
+	 *            feature table name
+	 * @return unmodifiable feature change listeners
+	 * @since 1.2.4
+	 */
+	public List<FeatureChangeListener> getFeatureChangeListeners(
+			String tableName) {
+		List<FeatureChangeListener> listeners = featureChangeListeners
+				.get(tableName);
+		if (listeners == null) {
+			listeners = Collections.emptyList();
+		}
+		return Collections.unmodifiableList(listeners);
+	}
+
+	/**
+	 * Call the callable within a transaction, committing when it returns and
+	 * rolling back when it throws. Calls may be nested.
+	 * 
+	 * @param callable
+	 *            callable
+	 * @return callable result
+	 * @since 1.2.4
+	 */
+	public <T> T callInTransaction(Callable<T> callable) {
+		beginTransaction();
+		T result;
+		try {
+			result = callable.call();
+		} catch (RuntimeException | Error e) {
+			rollbackQuietly();
+			throw e;
+		} catch (Exception e) {
+			rollbackQuietly();
+			throw new GeoPackageException("Failed to call in transaction", e);
+		}
+		commit();
+		return result;
+	}
+
+	/**
+	 * Remove the innermost transaction
+	 * 
+	 * @param action
+	 *            transaction action
+	 * @return transaction
+	 */
+	private Transaction endTransaction(String action) {
+		if (transactions.isEmpty()) {
+			throw new GeoPackageException("No transaction to " + action);
+		}
+		return transactions.remove(transactions.size() - 1);
+	}
+
+	/**
+	 * Roll back the innermost transaction, logging failures
+	 */
+	private void rollbackQuietly() {
+		try {
+			rollback();
+		} catch (GeoPackageException e) {
+			log.log(Level.WARNING, "Failed to rollback transaction", e);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -84,7 +449,49 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public int delete(String table, String whereClause, String[] whereArgs) {
-		return SQLUtils.delete(connection, table, whereClause, whereArgs);
+		return SQLUtils.delete(connection, statementCache, table, whereClause,
+				whereArgs);
+	}
+
+	/**
+	 * Update table rows
+	 * 
+	 * @param table
+	 * @param values
+	 * @param whereClause
+	 * @param whereArgs
+	 * @return updated count
+	 * @since 1.2.4
+	 */
+	public int update(String table, ContentValues values, String whereClause,
+			String[] whereArgs) {
+		return SQLUtils.update(connection, statementCache, table, values,
+				whereClause, whereArgs);
+	}
+
+	/**
+	 * Insert a new row
+	 * 
+	 * @param table
+	 * @param values
+	 * @return row id or -1 on an exception
+	 * @since 1.2.4
+	 */
+	public long insert(String table, ContentValues values) {
+		return SQLUtils.insert(connection, statementCache, table, values);
+	}
+
+	/**
+	 * Insert a new row
+	 * 
+	 * @param table
+	 * @param values
+	 * @return row id
+	 * @since 1.2.4
+	 */
+	public long insertOrThrow(String table, ContentValues values) {
+		return SQLUtils.insertOrThrow(connection, statementCache, table,
+				values);
 	}
 
 	/**
@@ -92,7 +499,8 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public int count(String table, String where, String[] args) {
-		return SQLUtils.count(connection, table, where, args);
+		return SQLUtils.count(connection, statementCache, table, where,
+				args);
 	}
 
 	/**
@@ -100,7 +508,8 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public Integer min(String table, String column, String where, String[] args) {
-		return SQLUtils.min(connection, table, column, where, args);
+		return SQLUtils.min(connection, statementCache, table, column,
+				where, args);
 	}
 
 	/**
@@ -108,7 +517,8 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public Integer max(String table, String column, String where, String[] args) {
-		return SQLUtils.max(connection, table, column, where, args);
+		return SQLUtils.max(connection, statementCache, table, column,
+				where, args);
 	}
 
 	/**
@@ -116,6 +526,10 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public void close() {
+		if (connectionPool != null) {
+			connectionPool.close();
+		}
+		statementCache.close();
 		connectionSource.closeQuietly();
 		try {
 			connection.close();
@@ -165,7 +579,8 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public String querySingleStringResult(String sql, String[] args) {
-		return SQLUtils.querySingleStringResult(connection, sql, args);
+		return SQLUtils.querySingleStringResult(connection,
+				statementCache, sql, args);
 	}
 
 	/**
@@ -173,7 +588,8 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 	 */
 	@Override
 	public Integer querySingleIntResult(String sql, String[] args) {
-		return SQLUtils.querySingleIntResult(connection, sql, args);
+		return SQLUtils.querySingleIntResult(connection, statementCache,
+				sql, args);
 	}
 
 	/**
@@ -188,4 +604,31 @@ public class GeoPackageConnection extends GeoPackageCoreConnection {
 		return SQLUtils.query(connection, sql, args);
 	}
 
+	/**
+	 * Open transaction
+	 */
+	private static class Transaction {
+
+		/**
+		 * Savepoint, null for a transaction started from auto commit mode
+		 */
+		private final Savepoint savepoint;
+
+		/**
+		 * Actions to run after commit by key, in registration order
+		 */
+		private final Map<Object, Runnable> commitActions = new LinkedHashMap<>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param savepoint
+		 *            savepoint, null when started from auto commit mode
+		 */
+		private Transaction(Savepoint savepoint) {
+			this.savepoint = savepoint;
+		}
+
+	}
+
 }
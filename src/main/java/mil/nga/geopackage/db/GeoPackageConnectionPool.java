@@ -0,0 +1,321 @@
+package mil.nga.geopackage.db;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mil.nga.geopackage.GeoPackageException;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteOpenMode;
+
+/**
+ * Bounded pool of read only SQLite connections to a GeoPackage. Connections
+ * are opened as needed up to the max size. When all are in use, callers wait
+ * up to the acquire timeout for a released connection. A thread already
+ * holding a pooled connection does not wait, as it may hold the connections
+ * being waited on. Callers not acquiring a connection fall back to the writer
+ * connection. Intended for use with a write ahead logging journal so readers
+ * do not block the single writer connection.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class GeoPackageConnectionPool {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger
+			.getLogger(GeoPackageConnectionPool.class.getName());
+
+	/**
+	 * Default milliseconds to wait for a released connection when all are in
+	 * use
+	 */
+	public static final long DEFAULT_ACQUIRE_TIMEOUT = 1000;
+
+	/**
+	 * GeoPackage file
+	 */
+	private final File file;
+
+	/**
+	 * Max number of read connections
+	 */
+	private final int maxSize;
+
+	/**
+	 * Database url
+	 */
+	private final String databaseUrl;
+
+	/**
+	 * Pragma statements executed on each opened read connection
+	 */
+	private final List<String> pragmas;
+
+	/**
+	 * Idle read connections
+	 */
+	private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+
+	/**
+	 * All opened read connections
+	 */
+	private final List<Connection> connections = new ArrayList<>();
+
+	/**
+	 * Threads holding the acquired read connections
+	 */
+	private final Map<Connection, Thread> owners = new IdentityHashMap<>();
+
+	/**
+	 * Milliseconds to wait for a released connection when all are in use
+	 */
+	private volatile long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+
+	/**
+	 * Closed flag
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file
+	 *            GeoPackage file
+	 * @param maxSize
+	 *            max number of read connections
+	 */
+	public GeoPackageConnectionPool(File file, int maxSize) {
+		this(file, "jdbc:sqlite:" + file.getPath(), maxSize, null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param file
+	 *            GeoPackage file
+	 * @param databaseUrl
+	 *            database url
+	 * @param maxSize
+	 *            max number of read connections
+	 * @param pragmas
+	 *            pragma statements executed on each opened read connection,
+	 *            null for none
+	 */
+	public GeoPackageConnectionPool(File file, String databaseUrl,
+			int maxSize, List<String> pragmas) {
+		if (maxSize < 1) {
+			throw new GeoPackageException(
+					"Connection pool size must be at least 1: " + maxSize);
+		}
+		this.file = file;
+		this.databaseUrl = databaseUrl;
+		this.maxSize = maxSize;
+		this.pragmas = pragmas != null ? new ArrayList<>(pragmas)
+				: new ArrayList<String>();
+	}
+
+	/**
+	 * Get the GeoPackage file
+	 *
+	 * @return file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Get the max number of read connections
+	 *
+	 * @return max size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Get the number of opened read connections
+	 *
+	 * @return opened connections
+	 */
+	public synchronized int size() {
+		return connections.size();
+	}
+
+	/**
+	 * Get the number of idle read connections
+	 *
+	 * @return idle connections
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Get the milliseconds to wait for a released connection when all are in
+	 * use
+	 *
+	 * @return acquire timeout
+	 */
+	public long getAcquireTimeout() {
+		return acquireTimeout;
+	}
+
+	/**
+	 * Set the milliseconds to wait for a released connection when all are in
+	 * use
+	 *
+	 * @param acquireTimeout
+	 *            acquire timeout, 0 to not wait
+	 */
+	public void setAcquireTimeout(long acquireTimeout) {
+		this.acquireTimeout = acquireTimeout;
+	}
+
+	/**
+	 * Acquire a read connection, opening a new connection if none are idle
+	 * and the pool is not full, or waiting up to the acquire timeout for a
+	 * released connection. Threads already holding a pooled connection do not
+	 * wait.
+	 *
+	 * @return read only connection, null if none is available and the caller
+	 *         should use the writer connection
+	 */
+	public Connection acquire() {
+
+		Thread thread = Thread.currentThread();
+		Connection connection;
+		boolean wait = false;
+		synchronized (this) {
+			if (closed) {
+				throw new GeoPackageException(
+						"Connection pool is closed for GeoPackage: "
+								+ file.getAbsolutePath());
+			}
+			connection = idle.poll();
+			if (connection == null) {
+				if (connections.size() < maxSize) {
+					connection = open();
+					connections.add(connection);
+				} else {
+					wait = !owners.containsValue(thread);
+				}
+			}
+			if (connection != null) {
+				owners.put(connection, thread);
+			}
+		}
+
+		if (wait && acquireTimeout > 0) {
+			try {
+				connection = idle.poll(acquireTimeout, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GeoPackageException(
+						"Interrupted waiting for a read connection to GeoPackage: "
+								+ file.getAbsolutePath(), e);
+			}
+			if (connection != null) {
+				synchronized (this) {
+					owners.put(connection, thread);
+				}
+			}
+		}
+
+		return connection;
+	}
+
+	/**
+	 * Release a read connection back to the pool
+	 *
+	 * @param connection
+	 *            read connection
+	 */
+	public void release(Connection connection) {
+		boolean close;
+		synchronized (this) {
+			owners.remove(connection);
+			close = closed;
+			if (!close) {
+				idle.offer(connection);
+			}
+		}
+		if (close) {
+			close(connection);
+		}
+	}
+
+	/**
+	 * Close the pool and all read connections. Connections in use are closed
+	 * when released.
+	 */
+	public void close() {
+		List<Connection> idleConnections = new ArrayList<>();
+		synchronized (this) {
+			closed = true;
+			idle.drainTo(idleConnections);
+		}
+		for (Connection connection : idleConnections) {
+			close(connection);
+		}
+	}
+
+	/**
+	 * Open a new read only connection
+	 *
+	 * @return connection
+	 */
+	private Connection open() {
+		SQLiteConfig config = new SQLiteConfig();
+		config.setReadOnly(true);
+		config.setOpenMode(SQLiteOpenMode.OPEN_URI);
+		Connection connection;
+		try {
+			connection = DriverManager.getConnection(databaseUrl,
+					config.toProperties());
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to get read connection to the SQLite file: "
+							+ file.getAbsolutePath(), e);
+		}
+		try {
+			for (String pragma : pragmas) {
+				SQLUtils.execSQL(connection, pragma);
+			}
+		} catch (RuntimeException e) {
+			close(connection);
+			throw e;
+		}
+		return connection;
+	}
+
+	/**
+	 * Close a read connection
+	 *
+	 * @param connection
+	 *            read connection
+	 */
+	private void close(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			log.log(Level.WARNING,
+					"Failed to close GeoPackage read connection to: "
+							+ file.getAbsolutePath(), e);
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package mil.nga.geopackage.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.jdbc.JdbcSingleConnectionSource;
+
+/**
+ * ORMLite connection source backed by the JDBC connection used for user
+ * tables, so the metadata DAOs and user DAOs share a single SQLite handle,
+ * page cache, and transaction. ORMLite transactions started within an open
+ * transaction release their savepoint on commit rather than committing the
+ * connection, so they join the outer transaction.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class GeoPackageConnectionSource extends JdbcSingleConnectionSource {
+
+	/**
+	 * JDBC connection, null while the super constructor initializes
+	 */
+	private Connection jdbcConnection;
+
+	/**
+	 * Constructor
+	 *
+	 * @param databaseUrl
+	 *            database url of the connection
+	 * @param jdbcConnection
+	 *            JDBC connection, not closed by this connection source
+	 * @throws SQLException
+	 *             upon failure to initialize
+	 */
+	public GeoPackageConnectionSource(String databaseUrl,
+			Connection jdbcConnection) throws SQLException {
+		super(databaseUrl, jdbcConnection);
+		this.jdbcConnection = jdbcConnection;
+		// The super constructor initializes before the connection is set
+		initialize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize() throws SQLException {
+		super.initialize();
+		if (jdbcConnection != null) {
+			connection = new SavepointDatabaseConnection(jdbcConnection);
+		}
+	}
+
+	/**
+	 * Get the JDBC connection
+	 *
+	 * @return JDBC connection
+	 */
+	public Connection getJdbcConnection() {
+		return jdbcConnection;
+	}
+
+	/**
+	 * ORMLite database connection that commits savepoints by releasing them
+	 */
+	private static class SavepointDatabaseConnection extends
+			JdbcDatabaseConnection {
+
+		/**
+		 * JDBC connection
+		 */
+		private final Connection jdbcConnection;
+
+		/**
+		 * Constructor
+		 *
+		 * @param jdbcConnection
+		 *            JDBC connection
+		 */
+		public SavepointDatabaseConnection(Connection jdbcConnection) {
+			super(jdbcConnection);
+			this.jdbcConnection = jdbcConnection;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void commit(Savepoint savePoint) throws SQLException {
+			if (savePoint == null) {
+				super.commit(null);
+			} else {
+				jdbcConnection.releaseSavepoint(savePoint);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void rollback(Savepoint savePoint) throws SQLException {
+			super.rollback(savePoint);
+			if (savePoint != null) {
+				jdbcConnection.releaseSavepoint(savePoint);
+			}
+		}
+
+	}
+
+}
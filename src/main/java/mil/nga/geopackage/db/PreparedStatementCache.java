@@ -0,0 +1,238 @@
+package mil.nga.geopackage.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, least recently used cache of prepared statements keyed by SQL.
+ * Statements are checked out of the cache while in use and returned when
+ * released, so a statement is never shared by two callers at once.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class PreparedStatementCache {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger
+			.getLogger(PreparedStatementCache.class.getName());
+
+	/**
+	 * Default max number of cached statements
+	 */
+	public static final int DEFAULT_MAX_SIZE = 32;
+
+	/**
+	 * Connection
+	 */
+	private final Connection connection;
+
+	/**
+	 * Max number of cached statements, 0 to disable caching
+	 */
+	private int maxSize;
+
+	/**
+	 * Access ordered statements, least recently used first
+	 */
+	private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(
+			16, 0.75f, true);
+
+	/**
+	 * Cache hits
+	 */
+	private long hits = 0;
+
+	/**
+	 * Cache misses
+	 */
+	private long misses = 0;
+
+	/**
+	 * Closed flag
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param connection
+	 *            connection
+	 */
+	public PreparedStatementCache(Connection connection) {
+		this(connection, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param connection
+	 *            connection
+	 * @param maxSize
+	 *            max number of cached statements, 0 to disable caching
+	 */
+	public PreparedStatementCache(Connection connection, int maxSize) {
+		this.connection = connection;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Acquire a prepared statement for the SQL, from the cache if available.
+	 * The statement must be returned by {@link #release(String, PreparedStatement)}
+	 * or closed when no longer in use.
+	 *
+	 * @param sql
+	 *            SQL statement
+	 * @return prepared statement
+	 * @throws SQLException
+	 *             upon failure to prepare the statement
+	 */
+	public PreparedStatement acquire(String sql) throws SQLException {
+		PreparedStatement statement;
+		synchronized (this) {
+			statement = statements.remove(sql);
+			if (statement != null) {
+				hits++;
+			} else {
+				misses++;
+			}
+		}
+		if (statement == null) {
+			statement = connection.prepareStatement(sql);
+		}
+		return statement;
+	}
+
+	/**
+	 * Release a prepared statement back to the cache. The statement parameters
+	 * are cleared. The statement is closed when the cache is disabled, closed,
+	 * or already holds a statement for the SQL.
+	 *
+	 * @param sql
+	 *            SQL statement
+	 * @param statement
+	 *            prepared statement
+	 */
+	public void release(String sql, PreparedStatement statement) {
+		if (statement == null) {
+			return;
+		}
+		boolean cached = false;
+		try {
+			if (!statement.isClosed()) {
+				statement.clearParameters();
+				synchronized (this) {
+					if (!closed && maxSize > 0
+							&& !statements.containsKey(sql)) {
+						statements.put(sql, statement);
+						cached = true;
+						evict();
+					}
+				}
+			}
+		} catch (SQLException e) {
+			log.log(Level.WARNING, "Failed to release SQL Statement: " + sql,
+					e);
+		}
+		if (!cached) {
+			SQLUtils.closeStatement(statement, sql);
+		}
+	}
+
+	/**
+	 * Get the max number of cached statements
+	 *
+	 * @return max size
+	 */
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Set the max number of cached statements, evicting least recently used
+	 * statements above the new size
+	 *
+	 * @param maxSize
+	 *            max size, 0 to disable caching
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * Get the number of cached statements
+	 *
+	 * @return cached statement count
+	 */
+	public synchronized int size() {
+		return statements.size();
+	}
+
+	/**
+	 * Get the number of acquired statements found in the cache
+	 *
+	 * @return hit count
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of acquired statements not found in the cache
+	 *
+	 * @return miss count
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Reset the hit and miss counters
+	 */
+	public synchronized void resetCounts() {
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Close and remove all cached statements
+	 */
+	public synchronized void clear() {
+		for (Map.Entry<String, PreparedStatement> entry : statements
+				.entrySet()) {
+			SQLUtils.closeStatement(entry.getValue(), entry.getKey());
+		}
+		statements.clear();
+	}
+
+	/**
+	 * Close all cached statements and stop caching released statements
+	 */
+	public synchronized void close() {
+		closed = true;
+		clear();
+	}
+
+	/**
+	 * Close the least recently used statements above the max size
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, PreparedStatement>> iterator = statements
+				.entrySet().iterator();
+		while (statements.size() > maxSize && iterator.hasNext()) {
+			Map.Entry<String, PreparedStatement> eldest = iterator.next();
+			iterator.remove();
+			SQLUtils.closeStatement(eldest.getValue(), eldest.getKey());
+		}
+	}
+
+}
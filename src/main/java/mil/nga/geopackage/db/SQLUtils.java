@@ -84,6 +84,24 @@ public class SQLUtils {
 	 */
 	public static int count(Connection connection, String sql,
 			String[] selectionArgs) {
+		return count(connection, (PreparedStatementCache) null, sql,
+				selectionArgs);
+	}
+
+	/**
+	 * Attempt to count the results of the query, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param sql
+	 * @param selectionArgs
+	 * @return count if known, -1 if not able to determine
+	 * @since 1.2.4
+	 */
+	public static int count(Connection connection,
+			PreparedStatementCache statementCache, String sql,
+			String[] selectionArgs) {
 
 		if (!sql.toLowerCase().contains(" count(*) ")) {
 			int index = sql.toLowerCase().indexOf(" from ");
@@ -93,7 +111,8 @@ public class SQLUtils {
 			sql = "select count(*)" + sql.substring(index);
 		}
 
-		int count = singleResultQuery(connection, sql, selectionArgs);
+		int count = singleResultQuery(connection, statementCache, sql,
+				selectionArgs);
 
 		return count;
 	}
@@ -109,6 +128,24 @@ public class SQLUtils {
 	 */
 	public static int count(Connection connection, String table, String where,
 			String[] args) {
+		return count(connection, null, table, where, args);
+	}
+
+	/**
+	 * Get the query count, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param where
+	 * @param args
+	 * @return count
+	 * @since 1.2.4
+	 */
+	public static int count(Connection connection,
+			PreparedStatementCache statementCache, String table, String where,
+			String[] args) {
 		StringBuilder countQuery = new StringBuilder();
 		countQuery.append("select count(*) from ").append(
 				CoreSQLUtils.quoteWrap(table));
@@ -117,7 +154,7 @@ public class SQLUtils {
 		}
 		String sql = countQuery.toString();
 
-		int count = singleResultQuery(connection, sql, args);
+		int count = singleResultQuery(connection, statementCache, sql, args);
 
 		return count;
 	}
@@ -135,9 +172,28 @@ public class SQLUtils {
 	 */
 	public static Integer min(Connection connection, String table,
 			String column, String where, String[] args) {
+		return min(connection, null, table, column, where, args);
+	}
+
+	/**
+	 * Get the min query result, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param column
+	 * @param where
+	 * @param args
+	 * @return min or null
+	 * @since 1.2.4
+	 */
+	public static Integer min(Connection connection,
+			PreparedStatementCache statementCache, String table,
+			String column, String where, String[] args) {
 
 		Integer min = null;
-		if (count(connection, table, where, args) > 0) {
+		if (count(connection, statementCache, table, where, args) > 0) {
 			StringBuilder minQuery = new StringBuilder();
 			minQuery.append("select min(")
 					.append(CoreSQLUtils.quoteWrap(column)).append(") from ")
@@ -147,7 +203,7 @@ public class SQLUtils {
 			}
 			String sql = minQuery.toString();
 
-			min = singleResultQuery(connection, sql, args);
+			min = singleResultQuery(connection, statementCache, sql, args);
 		}
 
 		return min;
@@ -166,9 +222,28 @@ public class SQLUtils {
 	 */
 	public static Integer max(Connection connection, String table,
 			String column, String where, String[] args) {
+		return max(connection, null, table, column, where, args);
+	}
+
+	/**
+	 * Get the max query result, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param column
+	 * @param where
+	 * @param args
+	 * @return max or null
+	 * @since 1.2.4
+	 */
+	public static Integer max(Connection connection,
+			PreparedStatementCache statementCache, String table,
+			String column, String where, String[] args) {
 
 		Integer max = null;
-		if (count(connection, table, where, args) > 0) {
+		if (count(connection, statementCache, table, where, args) > 0) {
 			StringBuilder maxQuery = new StringBuilder();
 			maxQuery.append("select max(")
 					.append(CoreSQLUtils.quoteWrap(column)).append(") from ")
@@ -178,7 +253,7 @@ public class SQLUtils {
 			}
 			String sql = maxQuery.toString();
 
-			max = singleResultQuery(connection, sql, args);
+			max = singleResultQuery(connection, statementCache, sql, args);
 		}
 
 		return max;
@@ -192,15 +267,42 @@ public class SQLUtils {
 	 * @param args
 	 * @return Integer result, null if no result
 	 */
-	private static int singleResultQuery(Connection connection, String sql,
-			String[] args) {
+	private static int singleResultQuery(Connection connection,
+			PreparedStatementCache statementCache, String sql, String[] args) {
+		return querySingleResult(connection, statementCache, sql, args, true);
+	}
 
-		ResultSet resultSet = query(connection, sql, args);
+	/**
+	 * Query the SQL for a single result object of the first column
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param sql
+	 * @param args
+	 * @param integer
+	 *            true for an integer result, false for a string
+	 * @return result
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T querySingleResult(Connection connection,
+			PreparedStatementCache statementCache, String sql, String[] args,
+			boolean integer) {
 
-		int result = 0;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		Object result = null;
 		try {
+			statement = prepareStatement(connection, statementCache, sql);
+			setArguments(statement, args);
+			resultSet = statement.executeQuery();
 			if (resultSet.next()) {
-				result = resultSet.getInt(1);
+				if (integer) {
+					result = resultSet.getInt(1);
+				} else {
+					result = resultSet.getString(1);
+				}
 			} else {
 				throw new GeoPackageException(
 						"Failed to query for single result. SQL: " + sql);
@@ -209,10 +311,11 @@ public class SQLUtils {
 			throw new GeoPackageException(
 					"Failed to query for single result. SQL: " + sql, e);
 		} finally {
-			closeResultSetStatement(resultSet, sql);
+			closeResultSet(resultSet, sql);
+			releaseStatement(statementCache, statement, sql);
 		}
 
-		return result;
+		return (T) result;
 	}
 
 	/**
@@ -226,25 +329,23 @@ public class SQLUtils {
 	 */
 	public static String querySingleStringResult(Connection connection,
 			String sql, String[] args) {
+		return querySingleStringResult(connection, null, sql, args);
+	}
 
-		ResultSet resultSet = query(connection, sql, args);
-
-		String result = null;
-		try {
-			if (resultSet.next()) {
-				result = resultSet.getString(1);
-			} else {
-				throw new GeoPackageException(
-						"Failed to query for single result. SQL: " + sql);
-			}
-		} catch (SQLException e) {
-			throw new GeoPackageException(
-					"Failed to query for single result. SQL: " + sql, e);
-		} finally {
-			closeResultSetStatement(resultSet, sql);
-		}
-
-		return result;
+	/**
+	 * Query the SQL for a single result string, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param sql
+	 * @param args
+	 * @return string result, null if no result
+	 * @since 1.2.4
+	 */
+	public static String querySingleStringResult(Connection connection,
+			PreparedStatementCache statementCache, String sql, String[] args) {
+		return querySingleResult(connection, statementCache, sql, args, false);
 	}
 
 	/**
@@ -258,25 +359,23 @@ public class SQLUtils {
 	 */
 	public static Integer querySingleIntResult(Connection connection,
 			String sql, String[] args) {
+		return querySingleIntResult(connection, null, sql, args);
+	}
 
-		ResultSet resultSet = query(connection, sql, args);
-
-		Integer result = null;
-		try {
-			if (resultSet.next()) {
-				result = resultSet.getInt(1);
-			} else {
-				throw new GeoPackageException(
-						"Failed to query for single result. SQL: " + sql);
-			}
-		} catch (SQLException e) {
-			throw new GeoPackageException(
-					"Failed to query for single result. SQL: " + sql, e);
-		} finally {
-			closeResultSetStatement(resultSet, sql);
-		}
-
-		return result;
+	/**
+	 * Query the SQL for a single result int, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param sql
+	 * @param args
+	 * @return integer result, null if no result
+	 * @since 1.2.4
+	 */
+	public static Integer querySingleIntResult(Connection connection,
+			PreparedStatementCache statementCache, String sql, String[] args) {
+		return querySingleResult(connection, statementCache, sql, args, true);
 	}
 	
 	/**
@@ -290,6 +389,24 @@ public class SQLUtils {
 	 */
 	public static int delete(Connection connection, String table, String where,
 			String[] args) {
+		return delete(connection, null, table, where, args);
+	}
+
+	/**
+	 * Execute a deletion, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param where
+	 * @param args
+	 * @return deleted count
+	 * @since 1.2.4
+	 */
+	public static int delete(Connection connection,
+			PreparedStatementCache statementCache, String table, String where,
+			String[] args) {
 		StringBuilder delete = new StringBuilder();
 		delete.append("delete from ").append(CoreSQLUtils.quoteWrap(table));
 		if (where != null) {
@@ -301,14 +418,14 @@ public class SQLUtils {
 
 		int count = 0;
 		try {
-			statement = connection.prepareStatement(sql);
+			statement = prepareStatement(connection, statementCache, sql);
 			setArguments(statement, args);
 			count = statement.executeUpdate();
 		} catch (SQLException e) {
 			throw new GeoPackageException(
 					"Failed to execute SQL delete statement: " + sql, e);
 		} finally {
-			closeStatement(statement, sql);
+			releaseStatement(statementCache, statement, sql);
 		}
 
 		return count;
@@ -326,6 +443,25 @@ public class SQLUtils {
 	 */
 	public static int update(Connection connection, String table,
 			ContentValues values, String whereClause, String[] whereArgs) {
+		return update(connection, null, table, values, whereClause, whereArgs);
+	}
+
+	/**
+	 * Update table rows, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param values
+	 * @param whereClause
+	 * @param whereArgs
+	 * @return updated count
+	 * @since 1.2.4
+	 */
+	public static int update(Connection connection,
+			PreparedStatementCache statementCache, String table,
+			ContentValues values, String whereClause, String[] whereArgs) {
 
 		StringBuilder update = new StringBuilder();
 		update.append("update ").append(CoreSQLUtils.quoteWrap(table))
@@ -357,14 +493,14 @@ public class SQLUtils {
 
 		int count = 0;
 		try {
-			statement = connection.prepareStatement(sql);
+			statement = prepareStatement(connection, statementCache, sql);
 			setArguments(statement, args);
 			count = statement.executeUpdate();
 		} catch (SQLException e) {
 			throw new GeoPackageException(
 					"Failed to execute SQL update statement: " + sql, e);
 		} finally {
-			closeStatement(statement, sql);
+			releaseStatement(statementCache, statement, sql);
 		}
 
 		return count;
@@ -380,8 +516,25 @@ public class SQLUtils {
 	 */
 	public static long insert(Connection connection, String table,
 			ContentValues values) {
+		return insert(connection, null, table, values);
+	}
+
+	/**
+	 * Insert a new row, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param values
+	 * @return row id or -1 on an exception
+	 * @since 1.2.4
+	 */
+	public static long insert(Connection connection,
+			PreparedStatementCache statementCache, String table,
+			ContentValues values) {
 		try {
-			return insertOrThrow(connection, table, values);
+			return insertOrThrow(connection, statementCache, table, values);
 		} catch (Exception e) {
 			log.log(Level.WARNING, "Error inserting into table: " + table
 					+ ", Values: " + values, e);
@@ -399,35 +552,41 @@ public class SQLUtils {
 	 */
 	public static long insertOrThrow(Connection connection, String table,
 			ContentValues values) {
+		return insertOrThrow(connection, null, table, values);
+	}
 
-		StringBuilder insert = new StringBuilder();
-		insert.append("insert into ").append(CoreSQLUtils.quoteWrap(table))
-				.append("(");
+	/**
+	 * Insert a new row, using the statement cache
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param table
+	 * @param values
+	 * @return row id
+	 * @since 1.2.4
+	 */
+	public static long insertOrThrow(Connection connection,
+			PreparedStatementCache statementCache, String table,
+			ContentValues values) {
 
-		Object[] args = null;
 		int size = (values != null && values.size() > 0) ? values.size() : 0;
 
-		args = new Object[size];
+		String[] columns = new String[size];
+		Object[] args = new Object[size];
 		int i = 0;
 		for (String colName : values.keySet()) {
-			insert.append((i > 0) ? "," : "");
-			insert.append(CoreSQLUtils.quoteWrap(colName));
+			columns[i] = colName;
 			args[i++] = values.get(colName);
 		}
-		insert.append(')');
-		insert.append(" values (");
-		for (i = 0; i < size; i++) {
-			insert.append((i > 0) ? ",?" : "?");
-		}
-		insert.append(')');
 
-		String sql = insert.toString();
+		String sql = insertSQL(table, columns);
 
 		PreparedStatement statement = null;
 
 		long id = 0;
 		try {
-			statement = connection.prepareStatement(sql);
+			statement = prepareStatement(connection, statementCache, sql);
 			setArguments(statement, args);
 			int count = statement.executeUpdate();
 
@@ -450,12 +609,80 @@ public class SQLUtils {
 			throw new GeoPackageException(
 					"Failed to execute SQL insert statement: " + sql, e);
 		} finally {
-			closeStatement(statement, sql);
+			releaseStatement(statementCache, statement, sql);
 		}
 
 		return id;
 	}
 
+	/**
+	 * Build a parameterized insert statement for the table columns
+	 * 
+	 * @param table
+	 * @param columns
+	 * @return insert SQL
+	 * @since 1.2.4
+	 */
+	public static String insertSQL(String table, String[] columns) {
+
+		StringBuilder insert = new StringBuilder();
+		insert.append("insert into ").append(CoreSQLUtils.quoteWrap(table))
+				.append("(");
+		for (int i = 0; i < columns.length; i++) {
+			insert.append((i > 0) ? "," : "");
+			insert.append(CoreSQLUtils.quoteWrap(columns[i]));
+		}
+		insert.append(')');
+		insert.append(" values (");
+		for (int i = 0; i < columns.length; i++) {
+			insert.append((i > 0) ? ",?" : "?");
+		}
+		insert.append(')');
+
+		return insert.toString();
+	}
+
+	/**
+	 * Prepare the statement, acquiring from the statement cache when provided
+	 * 
+	 * @param connection
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param sql
+	 * @return prepared statement
+	 * @throws SQLException
+	 */
+	private static PreparedStatement prepareStatement(Connection connection,
+			PreparedStatementCache statementCache, String sql)
+			throws SQLException {
+		PreparedStatement statement;
+		if (statementCache != null) {
+			statement = statementCache.acquire(sql);
+		} else {
+			statement = connection.prepareStatement(sql);
+		}
+		return statement;
+	}
+
+	/**
+	 * Release the statement back to the statement cache when provided, close
+	 * otherwise
+	 * 
+	 * @param statementCache
+	 *            prepared statement cache, null to not cache
+	 * @param statement
+	 * @param sql
+	 */
+	private static void releaseStatement(
+			PreparedStatementCache statementCache, PreparedStatement statement,
+			String sql) {
+		if (statementCache != null) {
+			statementCache.release(sql, statement);
+		} else {
+			closeStatement(statement, sql);
+		}
+	}
+
 	/**
 	 * Set the prepared statement arguments
 	 * 
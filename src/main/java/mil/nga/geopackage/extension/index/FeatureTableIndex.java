@@ -1,16 +1,27 @@
 package mil.nga.geopackage.extension.index;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.CoreSQLUtils;
 import mil.nga.geopackage.features.user.FeatureDao;
 import mil.nga.geopackage.features.user.FeatureResultSet;
 import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.LazyGeoPackageGeometryData;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
+import mil.nga.geopackage.io.ChunkPipeline;
+import mil.nga.sf.Geometry;
 import mil.nga.sf.GeometryEnvelope;
 import mil.nga.sf.projection.Projection;
-import mil.nga.sf.projection.ProjectionTransform;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
 
 import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.misc.TransactionManager;
@@ -33,6 +44,44 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 	 */
 	private final FeatureDao featureDao;
 
+	/**
+	 * Geometry index subquery alias of feature queries
+	 */
+	private static final String INDEX_ALIAS = "gpkg_index";
+
+	/**
+	 * Number of rows read per parallel index chunk
+	 */
+	private static final int INDEX_CHUNK_SIZE = 500;
+
+	/**
+	 * Number of worker threads used to read geometry envelopes when indexing
+	 */
+	private int indexThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * In-memory R-tree flag, when true bounding box queries for ids and counts
+	 * are answered from a packed R-tree
+	 */
+	private boolean inMemory = false;
+
+	/**
+	 * Packed R-tree, built when first needed and cleared when the index
+	 * changes
+	 */
+	private volatile PackedRTree rTree;
+
+	/**
+	 * Packed R-tree invalidation count, trees built across an invalidation
+	 * are not kept
+	 */
+	private volatile long rTreeInvalidations;
+
+	/**
+	 * Lock publishing and invalidating the packed R-tree
+	 */
+	private final Object rTreeLock = new Object();
+
 	/**
 	 * Constructor
 	 * 
@@ -68,6 +117,7 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 							+ getTableName());
 		}
 		boolean indexed = index(tableIndex, row.getId(), row.getGeometry());
+		invalidatePackedRTree();
 
 		// Update the last indexed time
 		updateLastIndexed();
@@ -81,6 +131,8 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 	@Override
 	protected int indexTable(final TableIndex tableIndex) {
 
+		invalidatePackedRTree();
+
 		int count = 0;
 
 		try {
@@ -90,28 +142,15 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 			count = TransactionManager.callInTransaction(connectionSource,
 					new Callable<Integer>() {
 						public Integer call() throws Exception {
-							int count = 0;
-							FeatureResultSet resultSet = featureDao
-									.queryForAll();
-							try {
-								while ((progress == null || progress.isActive())
-										&& resultSet.moveToNext()) {
-									FeatureRow row = resultSet.getRow();
-									boolean indexed = index(tableIndex,
-											row.getId(), row.getGeometry());
-									if (indexed) {
-										count++;
-									}
-									if (progress != null) {
-										progress.addProgress(1);
-									}
-								}
-							} finally {
-								resultSet.close();
+							int count;
+							if (indexThreads > 1) {
+								count = indexRowsParallel(tableIndex);
+							} else {
+								count = indexRows(tableIndex);
 							}
 
 							// Update the last indexed time
-							if (progress == null || progress.isActive()) {
+							if (isActive()) {
 								updateLastIndexed();
 							}
 							return count;
@@ -126,6 +165,199 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 		return count;
 	}
 
+	/**
+	 * Get the number of worker threads used to read geometry envelopes when
+	 * indexing the table
+	 * 
+	 * @return index threads
+	 * @since 1.2.4
+	 */
+	public int getIndexThreads() {
+		return indexThreads;
+	}
+
+	/**
+	 * Set the number of worker threads used to read geometry envelopes when
+	 * indexing the table. A value of 1 or less indexes on the calling thread
+	 * only.
+	 * 
+	 * @param indexThreads
+	 *            index threads
+	 * @since 1.2.4
+	 */
+	public void setIndexThreads(int indexThreads) {
+		this.indexThreads = indexThreads;
+	}
+
+	/**
+	 * Determine if indexing is active, not cancelled by the progress
+	 * 
+	 * @return true if active
+	 */
+	private boolean isActive() {
+		return progress == null || progress.isActive();
+	}
+
+	/**
+	 * Index the table rows on the calling thread
+	 * 
+	 * @param tableIndex
+	 *            table index
+	 * @return indexed count
+	 */
+	private int indexRows(TableIndex tableIndex) {
+		int count = 0;
+		FeatureResultSet resultSet = featureDao.queryForAll();
+		// Only parse geometries without header envelopes
+		resultSet.setLazyGeometry(true);
+		int pkIndex = featureDao.getTable().getPkColumnIndex();
+		try {
+			while (isActive() && resultSet.moveToNext()) {
+				boolean indexed = index(tableIndex, resultSet.getLong(pkIndex),
+						resultSet.getGeometry());
+				if (indexed) {
+					count++;
+				}
+				if (progress != null) {
+					progress.addProgress(1);
+				}
+			}
+		} finally {
+			resultSet.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Index the table rows as a {@link ChunkPipeline} of a single producer
+	 * thread reading id and geometry blob chunks, a pool of worker threads
+	 * reading the geometry envelopes, and the calling thread writing the chunk
+	 * indices in order
+	 * 
+	 * @param tableIndex
+	 *            table index
+	 * @return indexed count
+	 * @throws Exception
+	 */
+	private int indexRowsParallel(final TableIndex tableIndex) throws Exception {
+
+		final FeatureResultSet resultSet = featureDao.queryForAll();
+		final int pkIndex = featureDao.getTable().getPkColumnIndex();
+		final int geometryIndex = featureDao.getTable().getGeometryColumnIndex();
+		final int[] count = new int[1];
+
+		ChunkPipeline<IndexChunk> pipeline = new ChunkPipeline<IndexChunk>(
+				indexThreads) {
+
+			@Override
+			protected IndexChunk read() {
+				IndexChunk chunk = new IndexChunk();
+				while (chunk.size < INDEX_CHUNK_SIZE && resultSet.moveToNext()) {
+					chunk.add(resultSet.getLong(pkIndex),
+							resultSet.getBlob(geometryIndex));
+				}
+				return chunk.size > 0 ? chunk : null;
+			}
+
+			@Override
+			protected void process(IndexChunk chunk) {
+				chunk.readEnvelopes();
+			}
+
+			@Override
+			protected void write(IndexChunk chunk) {
+				for (int i = 0; i < chunk.size && isActive(); i++) {
+					boolean indexed = index(tableIndex, chunk.ids[i],
+							chunk.geometries[i]);
+					if (indexed) {
+						count[0]++;
+					}
+					if (progress != null) {
+						progress.addProgress(1);
+					}
+				}
+			}
+
+			@Override
+			protected boolean isActive() {
+				return FeatureTableIndex.this.isActive();
+			}
+
+		};
+
+		try {
+			pipeline.run();
+		} finally {
+			resultSet.close();
+		}
+
+		return count[0];
+	}
+
+	/**
+	 * Chunk of feature ids and geometries to index
+	 */
+	private static class IndexChunk {
+
+		/**
+		 * Feature ids
+		 */
+		private final long[] ids = new long[INDEX_CHUNK_SIZE];
+
+		/**
+		 * Geometry blobs, cleared once read
+		 */
+		private final byte[][] blobs = new byte[INDEX_CHUNK_SIZE][];
+
+		/**
+		 * Geometry data with envelopes
+		 */
+		private final GeoPackageGeometryData[] geometries = new GeoPackageGeometryData[INDEX_CHUNK_SIZE];
+
+		/**
+		 * Number of rows in the chunk
+		 */
+		private int size = 0;
+
+		/**
+		 * Add a row to the chunk
+		 * 
+		 * @param id
+		 *            feature id
+		 * @param blob
+		 *            geometry blob
+		 */
+		private void add(long id, byte[] blob) {
+			ids[size] = id;
+			blobs[size] = blob;
+			size++;
+		}
+
+		/**
+		 * Read the geometry data header envelopes, building envelopes from
+		 * the geometries only when not included in the header
+		 */
+		private void readEnvelopes() {
+			for (int i = 0; i < size; i++) {
+				byte[] blob = blobs[i];
+				if (blob != null) {
+					GeoPackageGeometryData geometryData = new LazyGeoPackageGeometryData(
+							blob);
+					if (geometryData.getEnvelope() == null) {
+						Geometry geometry = geometryData.getGeometry();
+						if (geometry != null) {
+							geometryData.setEnvelope(GeometryEnvelopeBuilder
+									.buildEnvelope(geometry));
+						}
+					}
+					geometries[i] = geometryData;
+					blobs[i] = null;
+				}
+			}
+		}
+
+	}
+
 	/**
 	 * Delete the index for the feature row
 	 *
@@ -136,6 +368,241 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 		return deleteIndex(row.getId());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deleteIndex(long geomId) {
+		int deleted = super.deleteIndex(geomId);
+		invalidatePackedRTree();
+		return deleted;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteIndex() {
+		boolean deleted = super.deleteIndex();
+		invalidatePackedRTree();
+		return deleted;
+	}
+
+	/**
+	 * Is the in-memory packed R-tree used for id and count queries
+	 * 
+	 * @return true if in memory
+	 * @since 1.2.4
+	 */
+	public boolean isInMemory() {
+		return inMemory;
+	}
+
+	/**
+	 * Set whether id and count bounding box queries are answered from an
+	 * in-memory packed R-tree instead of querying the geometry index table.
+	 * The R-tree is built on first use and rebuilt after the index changes.
+	 * R-tree queries compare only the x and y bounds.
+	 * 
+	 * @param inMemory
+	 *            true to use the in-memory R-tree
+	 * @since 1.2.4
+	 */
+	public void setInMemory(boolean inMemory) {
+		this.inMemory = inMemory;
+		if (!inMemory) {
+			invalidatePackedRTree();
+		}
+	}
+
+	/**
+	 * Get the in-memory packed R-tree, building it if needed. The R-tree is
+	 * built from the geometry index when the table is indexed, or from the
+	 * feature geometry envelopes otherwise.
+	 * 
+	 * @return packed R-tree
+	 * @since 1.2.4
+	 */
+	public PackedRTree getPackedRTree() {
+		PackedRTree tree = rTree;
+		if (tree == null) {
+			synchronized (this) {
+				tree = rTree;
+				if (tree == null) {
+					long invalidationCount = rTreeInvalidations;
+					tree = buildPackedRTree();
+					synchronized (rTreeLock) {
+						if (invalidationCount == rTreeInvalidations) {
+							rTree = tree;
+						}
+					}
+				}
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Clear the in-memory packed R-tree so it is rebuilt on next use. Call
+	 * when the feature table or geometry index is changed outside of this
+	 * table index. A tree being built during the invalidation is returned to
+	 * its caller without being kept.
+	 * 
+	 * @since 1.2.4
+	 */
+	public void invalidatePackedRTree() {
+		synchronized (rTreeLock) {
+			rTreeInvalidations++;
+			rTree = null;
+		}
+	}
+
+	/**
+	 * Build a packed R-tree from the geometry index or feature envelopes
+	 * 
+	 * @return packed R-tree
+	 */
+	private PackedRTree buildPackedRTree() {
+
+		int capacity = 16;
+		long[] ids = new long[capacity];
+		double[] bounds = new double[capacity * 4];
+		int size = 0;
+
+		if (isIndexed()) {
+			CloseableIterator<GeometryIndex> geometryIndices = query();
+			try {
+				while (geometryIndices.hasNext()) {
+					GeometryIndex geometryIndex = geometryIndices.next();
+					if (size == capacity) {
+						capacity *= 2;
+						ids = Arrays.copyOf(ids, capacity);
+						bounds = Arrays.copyOf(bounds, capacity * 4);
+					}
+					ids[size] = geometryIndex.getGeomId();
+					int b = size * 4;
+					bounds[b] = geometryIndex.getMinX();
+					bounds[b + 1] = geometryIndex.getMinY();
+					bounds[b + 2] = geometryIndex.getMaxX();
+					bounds[b + 3] = geometryIndex.getMaxY();
+					size++;
+				}
+			} finally {
+				try {
+					geometryIndices.close();
+				} catch (IOException e) {
+					throw new GeoPackageException(
+							"Failed to close geometry index query. GeoPackage: "
+									+ getGeoPackage().getName() + ", Table: "
+									+ getTableName(), e);
+				}
+			}
+		} else {
+			FeatureResultSet resultSet = featureDao.queryForAll();
+			int pkIndex = featureDao.getTable().getPkColumnIndex();
+			try {
+				while (resultSet.moveToNext()) {
+					GeometryEnvelope envelope = resultSet.getGeometryEnvelope();
+					if (envelope == null) {
+						continue;
+					}
+					if (size == capacity) {
+						capacity *= 2;
+						ids = Arrays.copyOf(ids, capacity);
+						bounds = Arrays.copyOf(bounds, capacity * 4);
+					}
+					ids[size] = resultSet.getLong(pkIndex);
+					int b = size * 4;
+					bounds[b] = envelope.getMinX();
+					bounds[b + 1] = envelope.getMinY();
+					bounds[b + 2] = envelope.getMaxX();
+					bounds[b + 3] = envelope.getMaxY();
+					size++;
+				}
+			} finally {
+				resultSet.close();
+			}
+		}
+
+		return new PackedRTree(ids, bounds, size, PackedRTree.DEFAULT_NODE_SIZE);
+	}
+
+	/**
+	 * Query for the ids of the features within the bounding box. Uses the
+	 * in-memory packed R-tree when enabled.
+	 * 
+	 * @param boundingBox
+	 *            bounding box in the feature projection
+	 * @return feature ids
+	 * @since 1.2.4
+	 */
+	public long[] queryIds(GeometryEnvelope boundingBox) {
+
+		long[] ids;
+
+		if (inMemory) {
+			ids = getPackedRTree().query(boundingBox);
+		} else {
+			long[] results = new long[16];
+			int count = 0;
+			CloseableIterator<GeometryIndex> geometryIndices = query(boundingBox);
+			try {
+				while (geometryIndices.hasNext()) {
+					if (count == results.length) {
+						results = Arrays.copyOf(results, count * 2);
+					}
+					results[count++] = geometryIndices.next().getGeomId();
+				}
+			} finally {
+				try {
+					geometryIndices.close();
+				} catch (IOException e) {
+					throw new GeoPackageException(
+							"Failed to close geometry index query. GeoPackage: "
+									+ getGeoPackage().getName() + ", Table: "
+									+ getTableName(), e);
+				}
+			}
+			ids = Arrays.copyOf(results, count);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Query for the ids of the features within the bounding box, projected
+	 * correctly. Uses the in-memory packed R-tree when enabled.
+	 * 
+	 * @param boundingBox
+	 * @param projection
+	 *            projection of the provided bounding box
+	 * @return feature ids
+	 * @since 1.2.4
+	 */
+	public long[] queryIds(GeometryEnvelope boundingBox, Projection projection) {
+
+		GeometryEnvelope featureBoundingBox = getFeatureBoundingBox(boundingBox,
+				projection);
+
+		return queryIds(featureBoundingBox);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Uses the in-memory packed R-tree when enabled
+	 */
+	@Override
+	public long count(GeometryEnvelope envelope) {
+		long count;
+		if (inMemory) {
+			count = getPackedRTree().count(envelope);
+		} else {
+			count = super.count(envelope);
+		}
+		return count;
+	}
+
 	/**
 	 * Query for Geometry Index objects within the bounding box, projected
 	 * correctly
@@ -175,6 +642,179 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 		return count;
 	}
 
+	/**
+	 * Query for the feature rows within the bounding box, joining the geometry
+	 * index and feature table in a single query
+	 * 
+	 * @param boundingBox
+	 *            bounding box in the feature projection
+	 * @return feature results
+	 * @since 1.2.4
+	 */
+	public FeatureResultSet queryFeatures(GeometryEnvelope boundingBox) {
+		return queryFeatures(boundingBox, null, null, null, null);
+	}
+
+	/**
+	 * Query for the feature rows within the bounding box, projected correctly,
+	 * joining the geometry index and feature table in a single query
+	 * 
+	 * @param boundingBox
+	 *            bounding box
+	 * @param projection
+	 *            projection of the provided bounding box
+	 * @return feature results
+	 * @since 1.2.4
+	 */
+	public FeatureResultSet queryFeatures(GeometryEnvelope boundingBox,
+			Projection projection) {
+		return queryFeatures(boundingBox, projection, null, null, null, null);
+	}
+
+	/**
+	 * Query for the feature rows within the bounding box, projected correctly,
+	 * joining the geometry index and feature table in a single query
+	 * 
+	 * @param boundingBox
+	 *            bounding box
+	 * @param projection
+	 *            projection of the provided bounding box
+	 * @param where
+	 *            feature table where clause, null for all rows
+	 * @param whereArgs
+	 *            where arguments
+	 * @param columns
+	 *            feature columns to read, null for all columns
+	 * @param limit
+	 *            max number of rows, null for no limit
+	 * @return feature results
+	 * @since 1.2.4
+	 */
+	public FeatureResultSet queryFeatures(GeometryEnvelope boundingBox,
+			Projection projection, String where, String[] whereArgs,
+			String[] columns, Integer limit) {
+
+		GeometryEnvelope featureBoundingBox = getFeatureBoundingBox(boundingBox,
+				projection);
+
+		return queryFeatures(featureBoundingBox, where, whereArgs, columns,
+				limit);
+	}
+
+	/**
+	 * Query for the feature rows within the bounding box, joining the geometry
+	 * index and feature table in a single query instead of querying each
+	 * feature row by geometry index id. The where clause is applied to the
+	 * feature table columns. When columns are provided, the primary key and
+	 * requested columns are read and the remaining row values are null, so
+	 * unread columns are not decoded.
+	 * 
+	 * @param boundingBox
+	 *            bounding box in the feature projection
+	 * @param where
+	 *            feature table where clause, null for all rows
+	 * @param whereArgs
+	 *            where arguments
+	 * @param columns
+	 *            feature columns to read, null for all columns
+	 * @param limit
+	 *            max number of rows, null for no limit
+	 * @return feature results
+	 * @since 1.2.4
+	 */
+	public FeatureResultSet queryFeatures(GeometryEnvelope boundingBox,
+			String where, String[] whereArgs, String[] columns, Integer limit) {
+
+		FeatureTable table = featureDao.getTable();
+		String featureTable = CoreSQLUtils.quoteWrap(getTableName());
+
+		boolean[] selected = null;
+		if (columns != null) {
+			selected = new boolean[table.columnCount()];
+			selected[table.getPkColumnIndex()] = true;
+			for (String column : columns) {
+				selected[table.getColumnIndex(column)] = true;
+			}
+		}
+
+		StringBuilder sql = new StringBuilder("SELECT ");
+		for (int i = 0; i < table.columnCount(); i++) {
+			if (i > 0) {
+				sql.append(", ");
+			}
+			String column = CoreSQLUtils.quoteWrap(table.getColumnName(i));
+			if (selected == null || selected[i]) {
+				sql.append(featureTable).append('.').append(column);
+			} else {
+				sql.append("NULL AS ").append(column);
+			}
+		}
+
+		List<String> args = new ArrayList<>();
+		args.add(getTableName());
+		args.add(String.valueOf(boundingBox.getMaxX()));
+		args.add(String.valueOf(boundingBox.getMinX()));
+		args.add(String.valueOf(boundingBox.getMaxY()));
+		args.add(String.valueOf(boundingBox.getMinY()));
+
+		// Join the feature table to an index subquery exposing only the
+		// geometry id, so feature where clauses are not ambiguous
+		sql.append(" FROM (SELECT ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_GEOM_ID))
+				.append(" FROM ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.TABLE_NAME))
+				.append(" WHERE ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_TABLE_NAME))
+				.append(" = ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_X))
+				.append(" <= ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_X))
+				.append(" >= ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_Y))
+				.append(" <= ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_Y))
+				.append(" >= ?");
+		if (boundingBox.hasZ() && boundingBox.getMinZ() != null
+				&& boundingBox.getMaxZ() != null) {
+			sql.append(" AND ")
+					.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_Z))
+					.append(" <= ? AND ")
+					.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_Z))
+					.append(" >= ?");
+			args.add(String.valueOf(boundingBox.getMaxZ()));
+			args.add(String.valueOf(boundingBox.getMinZ()));
+		}
+		if (boundingBox.hasM() && boundingBox.getMinM() != null
+				&& boundingBox.getMaxM() != null) {
+			sql.append(" AND ")
+					.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_M))
+					.append(" <= ? AND ")
+					.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_M))
+					.append(" >= ?");
+			args.add(String.valueOf(boundingBox.getMaxM()));
+			args.add(String.valueOf(boundingBox.getMinM()));
+		}
+		sql.append(") AS ").append(INDEX_ALIAS).append(" INNER JOIN ")
+				.append(featureTable).append(" ON ").append(featureTable)
+				.append('.')
+				.append(CoreSQLUtils.quoteWrap(table.getPkColumn().getName()))
+				.append(" = ").append(INDEX_ALIAS).append('.')
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_GEOM_ID));
+
+		if (where != null) {
+			sql.append(" WHERE ").append(where);
+			if (whereArgs != null) {
+				args.addAll(Arrays.asList(whereArgs));
+			}
+		}
+		if (limit != null) {
+			sql.append(" LIMIT ").append(limit.intValue());
+		}
+
+		return featureDao.getFeatureDb().rawQuery(sql.toString(),
+				args.toArray(new String[args.size()]));
+	}
+
 	/**
 	 * Get the bounding box in the feature projection from the bounding box in
 	 * the provided projection
@@ -185,10 +825,8 @@ public class FeatureTableIndex extends FeatureTableCoreIndex {
 	 */
 	private GeometryEnvelope getFeatureBoundingBox(GeometryEnvelope boundingBox,
 			Projection projection) {
-		ProjectionTransform projectionTransform = projection
-				.getTransformation(featureDao.getProjection());
-		GeometryEnvelope featureBoundingBox = projectionTransform
-				.transform(boundingBox);
+		GeometryEnvelope featureBoundingBox = ProjectionTransformCache
+				.transform(projection, featureDao.getProjection(), boundingBox);
 		return featureBoundingBox;
 	}
 
@@ -0,0 +1,476 @@
+package mil.nga.geopackage.extension.index;
+
+import java.util.Arrays;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.sf.GeometryEnvelope;
+
+/**
+ * Immutable in-memory R-tree of 2D bounding boxes packed with the
+ * Sort-Tile-Recursive (STR) algorithm. Entries are sorted into vertical slices
+ * by x center and then by y center within each slice, and packed into full
+ * leaf nodes. Parent levels group consecutive child nodes. All ids and bounds
+ * are stored in primitive arrays for compact, allocation free searches.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class PackedRTree {
+
+	/**
+	 * Default max number of children per node
+	 */
+	public static final int DEFAULT_NODE_SIZE = 16;
+
+	/**
+	 * Max number of children per node
+	 */
+	private final int nodeSize;
+
+	/**
+	 * Number of entries
+	 */
+	private final int size;
+
+	/**
+	 * Entry ids in packed order
+	 */
+	private final long[] ids;
+
+	/**
+	 * Entry bounds in packed order, as min x, min y, max x, max y
+	 */
+	private final double[] entryBounds;
+
+	/**
+	 * Node bounds of all levels from the leaves to the root, as min x, min y,
+	 * max x, max y
+	 */
+	private final double[] nodeBounds;
+
+	/**
+	 * Node index where each level starts, leaf level first, with a final
+	 * entry of the total node count
+	 */
+	private final int[] levelOffsets;
+
+	/**
+	 * Constructor
+	 *
+	 * @param ids
+	 *            entry ids
+	 * @param bounds
+	 *            entry bounds, four values per id as min x, min y, max x, max
+	 *            y
+	 */
+	public PackedRTree(long[] ids, double[] bounds) {
+		this(ids, bounds, ids.length, DEFAULT_NODE_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param ids
+	 *            entry ids
+	 * @param bounds
+	 *            entry bounds, four values per id as min x, min y, max x, max
+	 *            y
+	 * @param size
+	 *            number of entries to use from the arrays
+	 * @param nodeSize
+	 *            max number of children per node
+	 */
+	public PackedRTree(long[] ids, double[] bounds, int size, int nodeSize) {
+
+		if (nodeSize < 2) {
+			throw new GeoPackageException(
+					"Node size must be at least 2: " + nodeSize);
+		}
+		if (size < 0 || ids.length < size || bounds.length < size * 4) {
+			throw new GeoPackageException("Invalid R-tree entry size: " + size
+					+ ", ids: " + ids.length + ", bounds: " + bounds.length);
+		}
+
+		this.nodeSize = nodeSize;
+		this.size = size;
+
+		int[] order = strOrder(bounds, size, nodeSize);
+
+		this.ids = new long[size];
+		this.entryBounds = new double[size * 4];
+		for (int i = 0; i < size; i++) {
+			int entry = order[i];
+			this.ids[i] = ids[entry];
+			System.arraycopy(bounds, entry * 4, entryBounds, i * 4, 4);
+		}
+
+		// Determine the number of nodes at each level
+		int levels = 1;
+		int levelCount = nodeCount(size, nodeSize);
+		int totalNodes = levelCount;
+		while (levelCount > 1) {
+			levelCount = nodeCount(levelCount, nodeSize);
+			totalNodes += levelCount;
+			levels++;
+		}
+		levelOffsets = new int[levels + 1];
+		nodeBounds = new double[totalNodes * 4];
+
+		// Leaf nodes bound the entries
+		int leafCount = nodeCount(size, nodeSize);
+		for (int node = 0; node < leafCount; node++) {
+			int start = node * nodeSize;
+			int end = Math.min(start + nodeSize, size);
+			union(entryBounds, start, end, node);
+		}
+		levelOffsets[1] = leafCount;
+
+		// Parent nodes bound consecutive child nodes
+		for (int level = 1; level < levels; level++) {
+			int childOffset = levelOffsets[level - 1];
+			int childCount = levelOffsets[level] - childOffset;
+			int count = nodeCount(childCount, nodeSize);
+			for (int node = 0; node < count; node++) {
+				int start = childOffset + node * nodeSize;
+				int end = Math.min(start + nodeSize, childOffset + childCount);
+				union(nodeBounds, start, end, levelOffsets[level] + node);
+			}
+			levelOffsets[level + 1] = levelOffsets[level] + count;
+		}
+	}
+
+	/**
+	 * Get the number of entries
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the max number of children per node
+	 *
+	 * @return node size
+	 */
+	public int getNodeSize() {
+		return nodeSize;
+	}
+
+	/**
+	 * Get the number of tree levels including the leaf level
+	 *
+	 * @return levels
+	 */
+	public int getLevels() {
+		return levelOffsets.length - 1;
+	}
+
+	/**
+	 * Get the bounding envelope of all entries
+	 *
+	 * @return envelope, null if empty
+	 */
+	public GeometryEnvelope getEnvelope() {
+		GeometryEnvelope envelope = null;
+		if (size > 0) {
+			int root = (levelOffsets[levelOffsets.length - 1] - 1) * 4;
+			envelope = new GeometryEnvelope(nodeBounds[root],
+					nodeBounds[root + 1], nodeBounds[root + 2],
+					nodeBounds[root + 3]);
+		}
+		return envelope;
+	}
+
+	/**
+	 * Query for the ids of entries intersecting the envelope
+	 *
+	 * @param envelope
+	 *            envelope
+	 * @return entry ids
+	 */
+	public long[] query(GeometryEnvelope envelope) {
+		return query(envelope.getMinX(), envelope.getMinY(),
+				envelope.getMaxX(), envelope.getMaxY());
+	}
+
+	/**
+	 * Query for the ids of entries intersecting the bounds
+	 *
+	 * @param minX
+	 *            min x
+	 * @param minY
+	 *            min y
+	 * @param maxX
+	 *            max x
+	 * @param maxY
+	 *            max y
+	 * @return entry ids
+	 */
+	public long[] query(double minX, double minY, double maxX, double maxY) {
+		long[] results = new long[Math.min(size, 64)];
+		int count = search(minX, minY, maxX, maxY, results);
+		if (count > results.length) {
+			results = new long[count];
+			search(minX, minY, maxX, maxY, results);
+		}
+		return count == results.length ? results : Arrays.copyOf(results,
+				count);
+	}
+
+	/**
+	 * Count the entries intersecting the envelope
+	 *
+	 * @param envelope
+	 *            envelope
+	 * @return count
+	 */
+	public int count(GeometryEnvelope envelope) {
+		return count(envelope.getMinX(), envelope.getMinY(),
+				envelope.getMaxX(), envelope.getMaxY());
+	}
+
+	/**
+	 * Count the entries intersecting the bounds
+	 *
+	 * @param minX
+	 *            min x
+	 * @param minY
+	 *            min y
+	 * @param maxX
+	 *            max x
+	 * @param maxY
+	 *            max y
+	 * @return count
+	 */
+	public int count(double minX, double minY, double maxX, double maxY) {
+		return search(minX, minY, maxX, maxY, null);
+	}
+
+	/**
+	 * Search the tree for entries intersecting the bounds
+	 *
+	 * @param minX
+	 *            min x
+	 * @param minY
+	 *            min y
+	 * @param maxX
+	 *            max x
+	 * @param maxY
+	 *            max y
+	 * @param results
+	 *            results array to fill while space remains, null to only
+	 *            count
+	 * @return number of intersecting entries
+	 */
+	private int search(double minX, double minY, double maxX, double maxY,
+			long[] results) {
+
+		int count = 0;
+
+		if (size == 0) {
+			return count;
+		}
+
+		int levels = getLevels();
+		int[] nodeStack = new int[levels * nodeSize];
+		int[] levelStack = new int[levels * nodeSize];
+		int stackSize = 0;
+
+		// Start at the root node
+		nodeStack[stackSize] = levelOffsets[levels] - 1;
+		levelStack[stackSize] = levels - 1;
+		stackSize++;
+
+		while (stackSize > 0) {
+			stackSize--;
+			int node = nodeStack[stackSize];
+			int level = levelStack[stackSize];
+
+			if (!intersects(nodeBounds, node, minX, minY, maxX, maxY)) {
+				continue;
+			}
+
+			int child = (node - levelOffsets[level]) * nodeSize;
+			if (level == 0) {
+				int end = Math.min(child + nodeSize, size);
+				for (int entry = child; entry < end; entry++) {
+					if (intersects(entryBounds, entry, minX, minY, maxX, maxY)) {
+						if (results != null && count < results.length) {
+							results[count] = ids[entry];
+						}
+						count++;
+					}
+				}
+			} else {
+				int childOffset = levelOffsets[level - 1];
+				int end = Math.min(childOffset + child + nodeSize,
+						levelOffsets[level]);
+				for (int childNode = childOffset + child; childNode < end; childNode++) {
+					nodeStack[stackSize] = childNode;
+					levelStack[stackSize] = level - 1;
+					stackSize++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Determine if the bounds at the index intersect the query bounds
+	 *
+	 * @param bounds
+	 *            bounds array
+	 * @param index
+	 *            bounds index
+	 * @param minX
+	 *            min x
+	 * @param minY
+	 *            min y
+	 * @param maxX
+	 *            max x
+	 * @param maxY
+	 *            max y
+	 * @return true if intersecting
+	 */
+	private static boolean intersects(double[] bounds, int index, double minX,
+			double minY, double maxX, double maxY) {
+		int i = index * 4;
+		return bounds[i] <= maxX && bounds[i + 1] <= maxY
+				&& bounds[i + 2] >= minX && bounds[i + 3] >= minY;
+	}
+
+	/**
+	 * Set the node bounds to the union of the bounds range
+	 *
+	 * @param bounds
+	 *            bounds array
+	 * @param start
+	 *            start bounds index, inclusive
+	 * @param end
+	 *            end bounds index, exclusive
+	 * @param node
+	 *            node index
+	 */
+	private void union(double[] bounds, int start, int end, int node) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = start * 4; i < end * 4; i += 4) {
+			minX = Math.min(minX, bounds[i]);
+			minY = Math.min(minY, bounds[i + 1]);
+			maxX = Math.max(maxX, bounds[i + 2]);
+			maxY = Math.max(maxY, bounds[i + 3]);
+		}
+		int n = node * 4;
+		nodeBounds[n] = minX;
+		nodeBounds[n + 1] = minY;
+		nodeBounds[n + 2] = maxX;
+		nodeBounds[n + 3] = maxY;
+	}
+
+	/**
+	 * Get the number of nodes needed to hold the children
+	 *
+	 * @param children
+	 *            number of children
+	 * @param nodeSize
+	 *            max children per node
+	 * @return node count, at least 1
+	 */
+	private static int nodeCount(int children, int nodeSize) {
+		return Math.max(1, (children + nodeSize - 1) / nodeSize);
+	}
+
+	/**
+	 * Determine the Sort-Tile-Recursive packed order of the entries
+	 *
+	 * @param bounds
+	 *            entry bounds
+	 * @param size
+	 *            number of entries
+	 * @param nodeSize
+	 *            max children per node
+	 * @return entry indices in packed order
+	 */
+	private static int[] strOrder(double[] bounds, int size, int nodeSize) {
+
+		int[] order = new int[size];
+		double[] centerX = new double[size];
+		double[] centerY = new double[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+			int b = i * 4;
+			centerX[i] = (bounds[b] + bounds[b + 2]) / 2.0;
+			centerY[i] = (bounds[b + 1] + bounds[b + 3]) / 2.0;
+		}
+
+		// Sort into vertical slices by x, then each slice by y
+		sort(order, centerX, 0, size - 1);
+		int leafCount = nodeCount(size, nodeSize);
+		int slices = (int) Math.ceil(Math.sqrt(leafCount));
+		int sliceSize = slices * nodeSize;
+		for (int start = 0; start < size; start += sliceSize) {
+			int end = Math.min(start + sliceSize, size);
+			sort(order, centerY, start, end - 1);
+		}
+
+		return order;
+	}
+
+	/**
+	 * Sort the order range by the key values of the ordered indices
+	 *
+	 * @param order
+	 *            indices to sort
+	 * @param keys
+	 *            key values by index
+	 * @param low
+	 *            low range index, inclusive
+	 * @param high
+	 *            high range index, inclusive
+	 */
+	private static void sort(int[] order, double[] keys, int low, int high) {
+		while (high - low > 16) {
+			double pivot = keys[order[(low + high) >>> 1]];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (keys[order[i]] < pivot) {
+					i++;
+				}
+				while (keys[order[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int temp = order[i];
+					order[i] = order[j];
+					order[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			// Recurse on the smaller range, loop on the larger
+			if (j - low < high - i) {
+				sort(order, keys, low, j);
+				low = i;
+			} else {
+				sort(order, keys, i, high);
+				high = j;
+			}
+		}
+		for (int i = low + 1; i <= high; i++) {
+			int value = order[i];
+			double key = keys[value];
+			int j = i - 1;
+			while (j >= low && keys[order[j]] > key) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = value;
+		}
+	}
+
+}
@@ -0,0 +1,28 @@
+package mil.nga.geopackage.features.user;
+
+import mil.nga.sf.GeometryEnvelope;
+
+/**
+ * Listener notified when features are inserted, updated, or deleted through a
+ * {@link FeatureDao}. Listeners are registered per table on the GeoPackage.
+ * Changes within a GeoPackage transaction are combined and notified after the
+ * outermost transaction commits, and are discarded when it is rolled back.
+ * 
+ * @author osbornb
+ * @since 1.2.4
+ */
+public interface FeatureChangeListener {
+
+	/**
+	 * Features within the envelope were changed. Row changes without
+	 * geometries before or after the change are not notified.
+	 * 
+	 * @param featureDao
+	 *            feature DAO of the change
+	 * @param envelope
+	 *            envelope of the changed feature geometries in the feature
+	 *            projection, null when the changed extent is unknown
+	 */
+	public void featuresChanged(FeatureDao featureDao, GeometryEnvelope envelope);
+
+}
@@ -1,6 +1,8 @@
 package mil.nga.geopackage.features.user;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.util.List;
 
 import mil.nga.geopackage.db.GeoPackageConnection;
 import mil.nga.geopackage.user.UserConnection;
@@ -27,8 +29,31 @@ public class FeatureConnection
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected FeatureResultSet createResult(ResultSet resultSet, int count) {
-		return new FeatureResultSet(table, resultSet, count);
+	protected FeatureResultSet createResult(ResultSet resultSet,
+			Connection connection, String sql, String[] selectionArgs) {
+		return new FeatureResultSet(table, resultSet, connection, sql,
+				selectionArgs);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected FeatureProjectedResultSet createProjectedResult(
+			List<FeatureColumn> columns, ResultSet resultSet,
+			Connection connection) {
+		return new FeatureProjectedResultSet(columns, resultSet, connection);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FeatureProjectedResultSet queryProjected(String[] columns,
+			String selection, String[] selectionArgs, String orderBy,
+			String limit) {
+		return (FeatureProjectedResultSet) super.queryProjected(columns,
+				selection, selectionArgs, orderBy, limit);
 	}
 
 }
@@ -1,16 +1,26 @@
 package mil.nga.geopackage.features.user;
 
+import java.util.Iterator;
+
 import mil.nga.geopackage.GeoPackageException;
 import mil.nga.geopackage.core.contents.Contents;
 import mil.nga.geopackage.core.srs.SpatialReferenceSystem;
+import mil.nga.geopackage.db.CoreSQLUtils;
 import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.extension.index.GeometryIndex;
 import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
+import mil.nga.geopackage.user.ContentValues;
 import mil.nga.geopackage.user.UserDao;
+import mil.nga.geopackage.user.UserPage;
+import mil.nga.sf.Geometry;
 import mil.nga.sf.GeometryEnvelope;
 import mil.nga.sf.GeometryType;
 import mil.nga.sf.projection.Projection;
 import mil.nga.sf.projection.ProjectionFactory;
-import mil.nga.sf.projection.ProjectionTransform;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
 
 /**
  * Feature DAO for reading feature user data tables
@@ -30,6 +40,16 @@ public class FeatureDao extends
 	 */
 	private final GeometryColumns geometryColumns;
 
+	/**
+	 * GeoPackage connection holding the feature change listeners
+	 */
+	private final GeoPackageConnection db;
+
+	/**
+	 * Key of the pending feature change notification within a transaction
+	 */
+	private final String changeKey;
+
 	/**
 	 * Constructor
 	 * 
@@ -44,7 +64,9 @@ public class FeatureDao extends
 			FeatureTable table) {
 		super(database, db, featureDb, table);
 
+		this.db = db;
 		this.featureDb = featureDb;
+		this.changeKey = "feature_change:" + table.getTableName();
 		this.geometryColumns = geometryColumns;
 		if (geometryColumns.getContents() == null) {
 			throw new GeoPackageException(GeometryColumns.class.getSimpleName()
@@ -69,12 +91,8 @@ public class FeatureDao extends
 		Projection contentsProjection = ProjectionFactory
 				.getProjection(contents.getSrs());
 
-		GeometryEnvelope boundingBox = contents.getBoundingBox();
-		if (projection.getEpsg() != contentsProjection.getEpsg()) {
-			ProjectionTransform transform = contentsProjection
-					.getTransformation(projection);
-			boundingBox = transform.transform(boundingBox);
-		}
+		GeometryEnvelope boundingBox = ProjectionTransformCache.transform(
+				contentsProjection, projection, contents.getBoundingBox());
 
 		return boundingBox;
 	}
@@ -123,4 +141,508 @@ public class FeatureDao extends
 		return geometryColumns.getGeometryType();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FeatureProjectedResultSet queryProjected(String[] columns) {
+		return queryProjected(columns, null, null, null, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FeatureProjectedResultSet queryProjected(String[] columns,
+			String where, String[] whereArgs) {
+		return queryProjected(columns, where, whereArgs, null, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FeatureProjectedResultSet queryProjected(String[] columns,
+			String where, String[] whereArgs, String orderBy, String limit) {
+		return featureDb.queryProjected(columns, where, whereArgs, orderBy,
+				limit);
+	}
+
+	/**
+	 * Query for a page of rows with geometry index envelopes overlapping the
+	 * bounding box, ordered by primary key
+	 * 
+	 * @param boundingBox
+	 *            bounding box in the feature projection
+	 * @param continuationToken
+	 *            continuation token from the previous page, null for the first
+	 *            page
+	 * @param limit
+	 *            max number of rows in the page
+	 * @return page
+	 * @since 1.2.4
+	 */
+	public UserPage<FeatureRow> queryForPage(GeometryEnvelope boundingBox,
+			String continuationToken, int limit) {
+		return queryForPage(boundingBox, null, null, continuationToken, limit);
+	}
+
+	/**
+	 * Query for a page of rows matching the where clause with geometry index
+	 * envelopes overlapping the bounding box, ordered by primary key. The
+	 * spatial filter probes the geometry index by feature id for each
+	 * candidate row, so the table must be indexed with the geometry index
+	 * extension and rows not indexed are excluded.
+	 * 
+	 * @param boundingBox
+	 *            bounding box in the feature projection
+	 * @param where
+	 *            where clause, null for all rows
+	 * @param whereArgs
+	 *            where arguments
+	 * @param continuationToken
+	 *            continuation token from the previous page, null for the first
+	 *            page
+	 * @param limit
+	 *            max number of rows in the page
+	 * @return page
+	 * @since 1.2.4
+	 */
+	public UserPage<FeatureRow> queryForPage(GeometryEnvelope boundingBox,
+			String where, String[] whereArgs, String continuationToken,
+			int limit) {
+
+		if (!getDb().tableExists(GeometryIndex.TABLE_NAME)) {
+			throw new GeoPackageException(
+					"Feature table is not indexed for spatial page queries. Table: "
+							+ getTableName());
+		}
+
+		String indexTable = CoreSQLUtils.quoteWrap(GeometryIndex.TABLE_NAME);
+		StringBuilder spatialWhere = new StringBuilder("EXISTS (SELECT 1 FROM ")
+				.append(indexTable).append(" WHERE ").append(indexTable)
+				.append('.')
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_TABLE_NAME))
+				.append(" = ? AND ").append(indexTable).append('.')
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_GEOM_ID))
+				.append(" = ").append(CoreSQLUtils.quoteWrap(getTableName()))
+				.append('.')
+				.append(CoreSQLUtils.quoteWrap(getTable().getPkColumn()
+						.getName())).append(" AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_X))
+				.append(" <= ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_X))
+				.append(" >= ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_Y))
+				.append(" <= ? AND ")
+				.append(CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_Y))
+				.append(" >= ?)");
+		if (where != null) {
+			spatialWhere.append(" AND (").append(where).append(")");
+		}
+
+		int argCount = whereArgs != null ? whereArgs.length : 0;
+		String[] args = new String[argCount + 5];
+		args[0] = getTableName();
+		args[1] = String.valueOf(boundingBox.getMaxX());
+		args[2] = String.valueOf(boundingBox.getMinX());
+		args[3] = String.valueOf(boundingBox.getMaxY());
+		args[4] = String.valueOf(boundingBox.getMinY());
+		for (int i = 0; i < argCount; i++) {
+			args[i + 5] = whereArgs[i];
+		}
+
+		return queryForPage(spatialWhere.toString(), args, continuationToken,
+				limit);
+	}
+
+	/**
+	 * Add a listener notified of the envelopes of features inserted, updated,
+	 * or deleted in this DAO table through any feature DAO of the GeoPackage.
+	 * The listener is registered on the GeoPackage connection, and remains
+	 * registered when the DAO is replaced.
+	 * 
+	 * @param listener
+	 *            feature change listener
+	 * @since 1.2.4
+	 */
+	public void addChangeListener(FeatureChangeListener listener) {
+		db.addFeatureChangeListener(getTableName(), listener);
+	}
+
+	/**
+	 * Remove a feature change listener of this DAO table
+	 * 
+	 * @param listener
+	 *            feature change listener
+	 * @return true if removed
+	 * @since 1.2.4
+	 */
+	public boolean removeChangeListener(FeatureChangeListener listener) {
+		return db.removeFeatureChangeListener(getTableName(), listener);
+	}
+
+	/**
+	 * Determine if change listeners are registered for this DAO table
+	 * 
+	 * @return true if listeners
+	 */
+	private boolean hasChangeListeners() {
+		return !db.getFeatureChangeListeners(getTableName()).isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners of the inserted geometry envelope
+	 */
+	@Override
+	public long insert(FeatureRow row) {
+		long id = super.insert(row);
+		if (hasChangeListeners()) {
+			featuresChanged(envelope(row.getGeometry()));
+		}
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners of the inserted geometry envelope
+	 */
+	@Override
+	public long insert(ContentValues values) {
+		long id = super.insert(values);
+		if (id != -1 && hasChangeListeners()) {
+			featuresChanged(envelope(values.get(getGeometryColumnName())));
+		}
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners of the inserted geometry envelope
+	 */
+	@Override
+	public long insertOrThrow(ContentValues values) {
+		long id = super.insertOrThrow(values);
+		if (hasChangeListeners()) {
+			featuresChanged(envelope(values.get(getGeometryColumnName())));
+		}
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners of the combined envelope of the inserted
+	 * geometries
+	 */
+	@Override
+	public int insertBatch(final Iterator<FeatureRow> rows, boolean setIds) {
+		if (!hasChangeListeners()) {
+			return super.insertBatch(rows, setIds);
+		}
+		final GeometryEnvelope[] envelope = new GeometryEnvelope[1];
+		int inserted = super.insertBatch(new Iterator<FeatureRow>() {
+
+			@Override
+			public boolean hasNext() {
+				return rows.hasNext();
+			}
+
+			@Override
+			public FeatureRow next() {
+				FeatureRow row = rows.next();
+				envelope[0] = union(envelope[0], envelope(row.getGeometry()));
+				return row;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		}, setIds);
+		if (inserted > 0) {
+			featuresChanged(envelope[0]);
+		}
+		return inserted;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners of the combined envelope of the previous and
+	 * updated geometries
+	 */
+	@Override
+	public int update(FeatureRow row) {
+		if (!hasChangeListeners()) {
+			return super.update(row);
+		}
+		GeometryEnvelope previous = queryEnvelope(row.getId());
+		int updated = super.update(row);
+		if (updated > 0) {
+			featuresChanged(union(previous, envelope(row.getGeometry())));
+		}
+		return updated;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners with an unknown envelope
+	 */
+	@Override
+	public int update(ContentValues values, String whereClause,
+			String[] whereArgs) {
+		int updated = super.update(values, whereClause, whereArgs);
+		if (updated > 0) {
+			featuresChangedUnknown();
+		}
+		return updated;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners of the deleted geometry envelope
+	 */
+	@Override
+	public int deleteById(long id) {
+		if (!hasChangeListeners()) {
+			return super.deleteById(id);
+		}
+		GeometryEnvelope previous = queryEnvelope(id);
+		int deleted = super.deleteById(id);
+		if (deleted > 0) {
+			featuresChanged(previous);
+		}
+		return deleted;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Notifies change listeners with an unknown envelope
+	 */
+	@Override
+	public int delete(String whereClause, String[] whereArgs) {
+		int deleted = super.delete(whereClause, whereArgs);
+		if (deleted > 0) {
+			featuresChangedUnknown();
+		}
+		return deleted;
+	}
+
+	/**
+	 * Notify change listeners of changed features within the envelope
+	 * 
+	 * @param envelope
+	 *            changed envelope, null if no changed geometries
+	 */
+	private void featuresChanged(GeometryEnvelope envelope) {
+		if (envelope != null) {
+			notifyChange(envelope, false);
+		}
+	}
+
+	/**
+	 * Notify change listeners of changed features with an unknown envelope
+	 */
+	private void featuresChangedUnknown() {
+		if (hasChangeListeners()) {
+			notifyChange(null, true);
+		}
+	}
+
+	/**
+	 * Notify change listeners of the change, after the transaction commits
+	 * when within a transaction begun on the GeoPackage. Changes within a
+	 * transaction are combined into a single notification.
+	 * 
+	 * @param envelope
+	 *            changed envelope
+	 * @param unknown
+	 *            true if the changed envelope is unknown
+	 */
+	private void notifyChange(GeometryEnvelope envelope, boolean unknown) {
+		FeatureChangeNotification notification = new FeatureChangeNotification(
+				envelope, unknown);
+		Runnable pending = db.afterCommit(changeKey, notification);
+		if (pending == null) {
+			notification.run();
+		} else if (pending != notification) {
+			if (!(pending instanceof FeatureChangeNotification)
+					|| !((FeatureChangeNotification) pending).add(envelope,
+							unknown)) {
+				notification.run();
+			}
+		}
+	}
+
+	/**
+	 * Feature change notification combining the changes of a transaction
+	 */
+	private class FeatureChangeNotification implements Runnable {
+
+		/**
+		 * Combined changed envelope
+		 */
+		private GeometryEnvelope envelope;
+
+		/**
+		 * True if the changed envelope is unknown
+		 */
+		private boolean unknown;
+
+		/**
+		 * True once the listeners were notified
+		 */
+		private boolean notified;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param envelope
+		 *            changed envelope
+		 * @param unknown
+		 *            true if the changed envelope is unknown
+		 */
+		private FeatureChangeNotification(GeometryEnvelope envelope,
+				boolean unknown) {
+			this.envelope = envelope;
+			this.unknown = unknown;
+		}
+
+		/**
+		 * Add a change to the pending notification
+		 * 
+		 * @param changed
+		 *            changed envelope
+		 * @param changedUnknown
+		 *            true if the changed envelope is unknown
+		 * @return true if added, false if already notified
+		 */
+		private synchronized boolean add(GeometryEnvelope changed,
+				boolean changedUnknown) {
+			if (!notified) {
+				unknown = unknown || changedUnknown;
+				envelope = union(envelope, changed);
+			}
+			return !notified;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			GeometryEnvelope changed;
+			synchronized (this) {
+				notified = true;
+				changed = unknown ? null : envelope;
+			}
+			for (FeatureChangeListener listener : db
+					.getFeatureChangeListeners(getTableName())) {
+				listener.featuresChanged(FeatureDao.this, changed);
+			}
+		}
+
+	}
+
+	/**
+	 * Query for the current geometry envelope of a feature row
+	 * 
+	 * @param id
+	 *            feature id
+	 * @return envelope, null if no row or geometry
+	 */
+	private GeometryEnvelope queryEnvelope(long id) {
+		GeometryEnvelope envelope = null;
+		FeatureResultSet resultSet = queryForId(id);
+		try {
+			if (resultSet.moveToNext()) {
+				envelope = envelope(resultSet.getGeometryHeader());
+			}
+		} finally {
+			resultSet.close();
+		}
+		return envelope;
+	}
+
+	/**
+	 * Get the envelope of a geometry value
+	 * 
+	 * @param value
+	 *            geometry data or bytes
+	 * @return envelope, null if no or empty geometry
+	 */
+	private static GeometryEnvelope envelope(Object value) {
+		GeometryEnvelope envelope = null;
+		if (value instanceof byte[]) {
+			envelope = envelope(new GeoPackageGeometryHeader((byte[]) value));
+		} else if (value instanceof GeoPackageGeometryData) {
+			GeoPackageGeometryData geometryData = (GeoPackageGeometryData) value;
+			envelope = geometryData.getEnvelope();
+			if (envelope == null) {
+				Geometry geometry = geometryData.getGeometry();
+				if (geometry != null) {
+					envelope = GeometryEnvelopeBuilder.buildEnvelope(geometry);
+				}
+			}
+		}
+		return envelope;
+	}
+
+	/**
+	 * Get the envelope from a geometry header, reading the geometry when the
+	 * header has no envelope
+	 * 
+	 * @param header
+	 *            geometry header
+	 * @return envelope, null if no or empty geometry
+	 */
+	private static GeometryEnvelope envelope(GeoPackageGeometryHeader header) {
+		GeometryEnvelope envelope = null;
+		if (header != null && !header.isEmpty()) {
+			envelope = header.getEnvelope();
+			if (envelope == null) {
+				Geometry geometry = header.readGeometry();
+				if (geometry != null) {
+					envelope = GeometryEnvelopeBuilder.buildEnvelope(geometry);
+				}
+			}
+		}
+		return envelope;
+	}
+
+	/**
+	 * Get the union of two envelopes
+	 * 
+	 * @param envelope1
+	 *            envelope, may be null
+	 * @param envelope2
+	 *            envelope, may be null
+	 * @return union envelope, null if both are null
+	 */
+	private static GeometryEnvelope union(GeometryEnvelope envelope1,
+			GeometryEnvelope envelope2) {
+		GeometryEnvelope union;
+		if (envelope1 == null) {
+			union = envelope2;
+		} else if (envelope2 == null) {
+			union = envelope1;
+		} else {
+			union = new GeometryEnvelope(Math.min(envelope1.getMinX(),
+					envelope2.getMinX()), Math.min(envelope1.getMinY(),
+					envelope2.getMinY()), Math.max(envelope1.getMaxX(),
+					envelope2.getMaxX()), Math.max(envelope1.getMaxY(),
+					envelope2.getMaxY()));
+		}
+		return union;
+	}
+
 }
@@ -0,0 +1,127 @@
+package mil.nga.geopackage.features.user;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.LazyGeoPackageGeometryData;
+import mil.nga.geopackage.user.UserProjectedResultSet;
+
+/**
+ * Feature Result Set of a query selecting only projected columns, reading a
+ * projected geometry column as geometry data
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureProjectedResultSet extends
+		UserProjectedResultSet<FeatureColumn> {
+
+	/**
+	 * Projected geometry column index, -1 when not projected
+	 */
+	private final int geometryIndex;
+
+	/**
+	 * Lazy geometry flag, when true geometry data defers parsing the
+	 * Well-Known Binary geometry until requested
+	 */
+	private boolean lazyGeometry = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param columns
+	 *            projected columns in select order
+	 * @param resultSet
+	 *            result set
+	 * @param connection
+	 *            connection the query was executed on
+	 */
+	public FeatureProjectedResultSet(List<FeatureColumn> columns,
+			ResultSet resultSet, Connection connection) {
+		super(columns, resultSet, connection);
+		int index = -1;
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i).isGeometry()) {
+				index = i;
+				break;
+			}
+		}
+		geometryIndex = index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Handles geometries
+	 */
+	@Override
+	public Object getValue(int index) {
+		Object value;
+		if (index == geometryIndex) {
+			value = getGeometry();
+		} else {
+			value = super.getValue(index);
+		}
+		return value;
+	}
+
+	/**
+	 * Determine if the geometry column is projected
+	 *
+	 * @return true if the geometry is projected
+	 */
+	public boolean hasGeometry() {
+		return geometryIndex >= 0;
+	}
+
+	/**
+	 * Get the geometry
+	 *
+	 * @return geometry data
+	 */
+	public GeoPackageGeometryData getGeometry() {
+
+		if (geometryIndex < 0) {
+			throw new GeoPackageException("Geometry column is not projected");
+		}
+
+		byte[] geometryBytes = getBlob(geometryIndex);
+
+		GeoPackageGeometryData geometry = null;
+		if (geometryBytes != null) {
+			if (lazyGeometry) {
+				geometry = new LazyGeoPackageGeometryData(geometryBytes);
+			} else {
+				geometry = new GeoPackageGeometryData(geometryBytes);
+			}
+		}
+
+		return geometry;
+	}
+
+	/**
+	 * Is lazy geometry parsing enabled
+	 *
+	 * @return true if geometry data is lazily parsed
+	 */
+	public boolean isLazyGeometry() {
+		return lazyGeometry;
+	}
+
+	/**
+	 * Set lazy geometry parsing. When enabled, {@link #getGeometry()} and
+	 * rows return {@link LazyGeoPackageGeometryData} which reads only the
+	 * header until the geometry is requested.
+	 *
+	 * @param lazyGeometry
+	 *            true to lazily parse geometries
+	 */
+	public void setLazyGeometry(boolean lazyGeometry) {
+		this.lazyGeometry = lazyGeometry;
+	}
+
+}
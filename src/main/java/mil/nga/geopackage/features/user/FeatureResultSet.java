@@ -1,9 +1,16 @@
 package mil.nga.geopackage.features.user;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 
 import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.geom.LazyGeoPackageGeometryData;
 import mil.nga.geopackage.user.UserResultSet;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
 
 /**
  * Feature Result Set to wrap a database ResultSet for feature queries
@@ -13,6 +20,12 @@ import mil.nga.geopackage.user.UserResultSet;
 public class FeatureResultSet extends
 		UserResultSet<FeatureColumn, FeatureTable, FeatureRow> {
 
+	/**
+	 * Lazy geometry flag, when true geometry data defers parsing the
+	 * Well-Known Binary geometry until requested
+	 */
+	private boolean lazyGeometry = false;
+
 	/**
 	 * Constructor
 	 * 
@@ -24,6 +37,23 @@ public class FeatureResultSet extends
 		super(table, resultSet, count);
 	}
 
+	/**
+	 * Constructor which counts the results on the first call to
+	 * {@link #getCount()}
+	 * 
+	 * @param table
+	 * @param resultSet
+	 * @param connection
+	 * @param sql
+	 *            query SQL, null to not count the results
+	 * @param selectionArgs
+	 * @since 1.2.4
+	 */
+	public FeatureResultSet(FeatureTable table, ResultSet resultSet,
+			Connection connection, String sql, String[] selectionArgs) {
+		super(table, resultSet, connection, sql, selectionArgs);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -60,10 +90,99 @@ public class FeatureResultSet extends
 
 		GeoPackageGeometryData geometry = null;
 		if (geometryBytes != null) {
-			geometry = new GeoPackageGeometryData(geometryBytes);
+			if (lazyGeometry) {
+				geometry = new LazyGeoPackageGeometryData(geometryBytes);
+			} else {
+				geometry = new GeoPackageGeometryData(geometryBytes);
+			}
 		}
 
 		return geometry;
 	}
 
+	/**
+	 * Is lazy geometry parsing enabled
+	 * 
+	 * @return true if geometry data is lazily parsed
+	 * @since 1.2.4
+	 */
+	public boolean isLazyGeometry() {
+		return lazyGeometry;
+	}
+
+	/**
+	 * Set lazy geometry parsing. When enabled, {@link #getGeometry()} and
+	 * rows return {@link LazyGeoPackageGeometryData} which reads only the
+	 * header until the geometry is requested.
+	 * 
+	 * @param lazyGeometry
+	 *            true to lazily parse geometries
+	 * @since 1.2.4
+	 */
+	public void setLazyGeometry(boolean lazyGeometry) {
+		this.lazyGeometry = lazyGeometry;
+	}
+
+	/**
+	 * Get the geometry header without parsing the geometry
+	 * 
+	 * @return geometry header, null if no geometry
+	 * @since 1.2.4
+	 */
+	public GeoPackageGeometryHeader getGeometryHeader() {
+
+		byte[] geometryBytes = getBlob(getTable().getGeometryColumnIndex());
+
+		GeoPackageGeometryHeader header = null;
+		if (geometryBytes != null) {
+			header = new GeoPackageGeometryHeader(geometryBytes);
+		}
+
+		return header;
+	}
+
+	/**
+	 * Get the geometry envelope from the geometry header. The geometry is only
+	 * parsed to build the envelope when the header does not contain one.
+	 * 
+	 * @return geometry envelope, null if no geometry or an empty geometry
+	 * @since 1.2.4
+	 */
+	public GeometryEnvelope getGeometryEnvelope() {
+
+		GeometryEnvelope envelope = null;
+
+		GeoPackageGeometryHeader header = getGeometryHeader();
+		if (header != null) {
+			envelope = header.getEnvelope();
+			if (envelope == null && !header.isEmpty()) {
+				Geometry geometry = header.readGeometry();
+				if (geometry != null) {
+					envelope = GeometryEnvelopeBuilder.buildEnvelope(geometry);
+				}
+			}
+		}
+
+		return envelope;
+	}
+
+	/**
+	 * Get the geometry type from the geometry bytes without parsing the
+	 * geometry
+	 * 
+	 * @return geometry type, null if no geometry
+	 * @since 1.2.4
+	 */
+	public GeometryType getGeometryType() {
+
+		GeometryType geometryType = null;
+
+		GeoPackageGeometryHeader header = getGeometryHeader();
+		if (header != null) {
+			geometryType = header.getGeometryType();
+		}
+
+		return geometryType;
+	}
+
 }
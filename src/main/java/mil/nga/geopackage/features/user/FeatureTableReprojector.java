@@ -0,0 +1,579 @@
+package mil.nga.geopackage.features.user;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.core.contents.ContentsDao;
+import mil.nga.geopackage.core.srs.SpatialReferenceSystem;
+import mil.nga.geopackage.db.CoreSQLUtils;
+import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.SQLUtils;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
+import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.columns.GeometryColumnsDao;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
+import mil.nga.geopackage.io.ChunkPipeline;
+import mil.nga.geopackage.io.GeoPackageProgress;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.projection.Projection;
+import mil.nga.sf.projection.ProjectionFactory;
+import mil.nga.sf.projection.ProjectionTransform;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
+
+/**
+ * Reprojects the geometries of a feature table in place into a new spatial
+ * reference system. Rows are read in primary key ordered chunks by a single
+ * producer thread, geometries are parsed, transformed, and serialized by a
+ * pool of worker threads, and the calling thread writes the chunks in order
+ * with batched updates. The reprojection runs as a single GeoPackage
+ * transaction along with the geometry columns, contents, and geometry index
+ * updates, and is rolled back when it fails or is cancelled.
+ *
+ * Feature DAOs of the table obtained before the reprojection retain the
+ * previous projection; get a new DAO from the GeoPackage afterwards. Each
+ * reprojection reads the current table projection from the GeoPackage.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureTableReprojector {
+
+	/**
+	 * Default number of rows read, transformed, and written per chunk
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	/**
+	 * GeoPackage
+	 */
+	private final GeoPackage geoPackage;
+
+	/**
+	 * Feature table name
+	 */
+	private final String tableName;
+
+	/**
+	 * Number of worker threads transforming geometries
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Number of rows read, transformed, and written per chunk
+	 */
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * Constructor
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 * @param featureDao
+	 *            feature DAO of the table to reproject
+	 */
+	public FeatureTableReprojector(GeoPackage geoPackage, FeatureDao featureDao) {
+		this.geoPackage = geoPackage;
+		this.tableName = featureDao.getTableName();
+	}
+
+	/**
+	 * Get the number of worker threads transforming geometries
+	 *
+	 * @return threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of worker threads transforming geometries. A value of 1
+	 * or less reprojects on the calling thread only.
+	 *
+	 * @param threads
+	 *            threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Get the number of rows read, transformed, and written per chunk
+	 *
+	 * @return chunk size
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Set the number of rows read, transformed, and written per chunk
+	 *
+	 * @param chunkSize
+	 *            chunk size
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new GeoPackageException("Chunk size must be positive: "
+					+ chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Set the progress, cancelling rolls back the reprojection
+	 *
+	 * @param progress
+	 *            progress
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Reproject the feature table into the EPSG spatial reference system,
+	 * creating the spatial reference system if needed
+	 *
+	 * @param epsg
+	 *            EPSG code
+	 * @return number of reprojected geometries, including empty geometries
+	 *         rewritten with the new spatial reference system id, 0 when
+	 *         cancelled
+	 */
+	public int reproject(long epsg) {
+		SpatialReferenceSystem srs;
+		try {
+			srs = geoPackage.getSpatialReferenceSystemDao().getOrCreate(epsg);
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to get or create the spatial reference system for EPSG: "
+							+ epsg, e);
+		}
+		return reproject(srs);
+	}
+
+	/**
+	 * Reproject the feature table into the spatial reference system
+	 *
+	 * @param srs
+	 *            spatial reference system in the GeoPackage
+	 * @return number of reprojected geometries, including empty geometries
+	 *         rewritten with the new spatial reference system id, 0 when
+	 *         cancelled
+	 */
+	public synchronized int reproject(SpatialReferenceSystem srs) {
+
+		// Get the current table DAO, as previous reprojections change the
+		// table projection
+		FeatureDao featureDao = geoPackage.getFeatureDao(tableName);
+		GeometryColumns geometryColumns = featureDao.getGeometryColumns();
+		if (geometryColumns.getSrsId() == srs.getId()) {
+			return 0;
+		}
+
+		Projection from = featureDao.getProjection();
+		Projection to = ProjectionFactory.getProjection(srs);
+		int srsId = (int) srs.getId();
+
+		FeatureTableIndex tableIndex = new FeatureTableIndex(geoPackage,
+				featureDao);
+		boolean indexed = tableIndex.getTableIndex() != null;
+
+		Connection connection = ((GeoPackageConnection) geoPackage
+				.getDatabase()).getConnection();
+		String pkColumn = CoreSQLUtils.quoteWrap(featureDao.getTable()
+				.getPkColumn().getName());
+		String geometryColumn = CoreSQLUtils.quoteWrap(featureDao
+				.getGeometryColumnName());
+		String table = CoreSQLUtils.quoteWrap(tableName);
+		String selectSql = "SELECT " + pkColumn + ", " + geometryColumn
+				+ " FROM " + table + " WHERE " + pkColumn + " > ? ORDER BY "
+				+ pkColumn + " LIMIT " + chunkSize;
+		String updateSql = "UPDATE " + table + " SET " + geometryColumn
+				+ " = ? WHERE " + pkColumn + " = ?";
+
+		int count = 0;
+		boolean success = false;
+		geoPackage.beginTransaction();
+		PreparedStatement select = null;
+		PreparedStatement update = null;
+		try {
+			select = connection.prepareStatement(selectSql);
+			update = connection.prepareStatement(updateSql);
+
+			double[] envelope = new double[] { Double.POSITIVE_INFINITY,
+					Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+					Double.NEGATIVE_INFINITY };
+			if (threads > 1) {
+				count = reprojectParallel(select, update, from, to, srsId,
+						envelope);
+			} else {
+				count = reprojectChunks(select, update, from, to, srsId,
+						envelope);
+			}
+
+			if (isActive()) {
+				updateMetadata(srs, envelope);
+				geoPackage.clearDaoCache(tableName);
+				if (indexed) {
+					FeatureTableIndex reprojectedIndex = new FeatureTableIndex(
+							geoPackage, geoPackage.getFeatureDao(tableName));
+					reprojectedIndex.index(true);
+				}
+				success = true;
+			}
+		} catch (GeoPackageException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new GeoPackageException(
+					"Failed to reproject feature table. GeoPackage: "
+							+ geoPackage.getName() + ", Table: " + tableName
+							+ ", SRS: " + srs.getId(), e);
+		} finally {
+			SQLUtils.closeStatement(select, selectSql);
+			SQLUtils.closeStatement(update, updateSql);
+			if (success) {
+				geoPackage.commit();
+			} else {
+				geoPackage.rollback();
+				geoPackage.clearDaoCache(tableName);
+			}
+		}
+
+		return success ? count : 0;
+	}
+
+	/**
+	 * Determine if the reprojection is active, not cancelled by the progress
+	 *
+	 * @return true if active
+	 */
+	private boolean isActive() {
+		return progress == null || progress.isActive();
+	}
+
+	/**
+	 * Reproject the table chunks on the calling thread
+	 *
+	 * @param select
+	 *            chunk select statement
+	 * @param update
+	 *            geometry update statement
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param srsId
+	 *            spatial reference system id
+	 * @param envelope
+	 *            table envelope to expand
+	 * @return reprojected count
+	 * @throws Exception
+	 *             upon failure
+	 */
+	private int reprojectChunks(PreparedStatement select,
+			PreparedStatement update, Projection from, Projection to,
+			int srsId, double[] envelope) throws Exception {
+		int count = 0;
+		long lastId = Long.MIN_VALUE;
+		ReprojectChunk chunk;
+		while (isActive() && (chunk = readChunk(select, lastId)) != null) {
+			chunk.transform(ProjectionTransformCache.getTransform(from, to),
+					srsId);
+			count += write(update, chunk, envelope);
+			lastId = chunk.ids[chunk.size - 1];
+		}
+		return count;
+	}
+
+	/**
+	 * Reproject the table as a {@link ChunkPipeline} of a single producer
+	 * thread reading id and geometry blob chunks, a pool of worker threads
+	 * transforming the geometries, and the calling thread writing the chunks
+	 * in order
+	 *
+	 * @param select
+	 *            chunk select statement
+	 * @param update
+	 *            geometry update statement
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param srsId
+	 *            spatial reference system id
+	 * @param envelope
+	 *            table envelope to expand
+	 * @return reprojected count
+	 * @throws Exception
+	 *             upon failure
+	 */
+	private int reprojectParallel(final PreparedStatement select,
+			final PreparedStatement update,
+			final Projection from, final Projection to, final int srsId,
+			final double[] envelope) throws Exception {
+
+		final int[] count = new int[1];
+
+		ChunkPipeline<ReprojectChunk> pipeline = new ChunkPipeline<ReprojectChunk>(
+				threads) {
+
+			private long lastId = Long.MIN_VALUE;
+
+			@Override
+			protected ReprojectChunk read() throws SQLException {
+				ReprojectChunk chunk = readChunk(select, lastId);
+				if (chunk != null) {
+					lastId = chunk.ids[chunk.size - 1];
+				}
+				return chunk;
+			}
+
+			@Override
+			protected void process(ReprojectChunk chunk) {
+				chunk.transform(
+						ProjectionTransformCache.getTransform(from, to), srsId);
+			}
+
+			@Override
+			protected void write(ReprojectChunk chunk) throws SQLException {
+				count[0] += FeatureTableReprojector.this.write(update, chunk,
+						envelope);
+			}
+
+			@Override
+			protected boolean isActive() {
+				return FeatureTableReprojector.this.isActive();
+			}
+
+		};
+		pipeline.run();
+
+		return count[0];
+	}
+
+	/**
+	 * Read the next chunk of ids and geometry blobs. Each chunk query is
+	 * fully read before returning so no cursor remains open on the table
+	 * while it is updated.
+	 *
+	 * @param select
+	 *            chunk select statement
+	 * @param lastId
+	 *            last id of the previous chunk
+	 * @return chunk, null when no rows remain
+	 * @throws SQLException
+	 *             upon failure
+	 */
+	private ReprojectChunk readChunk(PreparedStatement select, long lastId)
+			throws SQLException {
+		ReprojectChunk chunk = new ReprojectChunk(chunkSize);
+		select.setLong(1, lastId);
+		ResultSet resultSet = select.executeQuery();
+		try {
+			while (resultSet.next()) {
+				chunk.add(resultSet.getLong(1), resultSet.getBytes(2));
+			}
+		} finally {
+			resultSet.close();
+		}
+		return chunk.size > 0 ? chunk : null;
+	}
+
+	/**
+	 * Write the transformed chunk geometries as a batch
+	 *
+	 * @param update
+	 *            geometry update statement
+	 * @param chunk
+	 *            transformed chunk
+	 * @param envelope
+	 *            table envelope to expand
+	 * @return reprojected count
+	 * @throws SQLException
+	 *             upon failure
+	 */
+	private int write(PreparedStatement update, ReprojectChunk chunk,
+			double[] envelope) throws SQLException {
+		int count = 0;
+		for (int i = 0; i < chunk.size; i++) {
+			byte[] blob = chunk.blobs[i];
+			if (blob != null) {
+				update.setBytes(1, blob);
+				update.setLong(2, chunk.ids[i]);
+				update.addBatch();
+				count++;
+			}
+		}
+		if (count > 0) {
+			update.executeBatch();
+		}
+		envelope[0] = Math.min(envelope[0], chunk.envelope[0]);
+		envelope[1] = Math.min(envelope[1], chunk.envelope[1]);
+		envelope[2] = Math.max(envelope[2], chunk.envelope[2]);
+		envelope[3] = Math.max(envelope[3], chunk.envelope[3]);
+		if (progress != null) {
+			progress.addProgress(chunk.size);
+		}
+		return count;
+	}
+
+	/**
+	 * Update the geometry columns and contents spatial reference system, and
+	 * the contents bounding box from the reprojected geometries
+	 *
+	 * @param srs
+	 *            spatial reference system
+	 * @param envelope
+	 *            min x, min y, max x, max y of the reprojected geometries
+	 * @throws SQLException
+	 *             upon failure
+	 */
+	private void updateMetadata(SpatialReferenceSystem srs, double[] envelope)
+			throws SQLException {
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+		GeometryColumns geometryColumns = geometryColumnsDao
+				.queryForTableName(tableName);
+		geometryColumns.setSrs(srs);
+		geometryColumnsDao.update(geometryColumns);
+
+		ContentsDao contentsDao = geoPackage.getContentsDao();
+		Contents contents = contentsDao.queryForId(tableName);
+		contents.setSrs(srs);
+		if (envelope[0] <= envelope[2]) {
+			contents.setMinX(envelope[0]);
+			contents.setMinY(envelope[1]);
+			contents.setMaxX(envelope[2]);
+			contents.setMaxY(envelope[3]);
+		} else {
+			contents.setMinX(null);
+			contents.setMinY(null);
+			contents.setMaxX(null);
+			contents.setMaxY(null);
+		}
+		contents.setLastChange(new Date());
+		contentsDao.update(contents);
+	}
+
+	/**
+	 * Chunk of feature ids and geometry blobs to reproject
+	 */
+	private static class ReprojectChunk {
+
+		/**
+		 * Feature ids
+		 */
+		private final long[] ids;
+
+		/**
+		 * Geometry blobs, replaced by the reprojected blobs or null when the
+		 * row has no geometry
+		 */
+		private final byte[][] blobs;
+
+		/**
+		 * Min x, min y, max x, max y of the reprojected geometries
+		 */
+		private final double[] envelope = new double[] {
+				Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+		/**
+		 * Number of rows in the chunk
+		 */
+		private int size = 0;
+
+		/**
+		 * Constructor
+		 *
+		 * @param capacity
+		 *            chunk capacity
+		 */
+		private ReprojectChunk(int capacity) {
+			ids = new long[capacity];
+			blobs = new byte[capacity][];
+		}
+
+		/**
+		 * Add a row to the chunk
+		 *
+		 * @param id
+		 *            feature id
+		 * @param blob
+		 *            geometry blob
+		 */
+		private void add(long id, byte[] blob) {
+			ids[size] = id;
+			blobs[size] = blob;
+			size++;
+		}
+
+		/**
+		 * Transform the geometries, replacing the blobs with geometry data in
+		 * the new spatial reference system including header envelopes. Empty
+		 * geometries are rewritten with the new spatial reference system id.
+		 *
+		 * @param transform
+		 *            projection transform owned by the calling thread, null
+		 *            when the projections are the same
+		 * @param srsId
+		 *            spatial reference system id
+		 */
+		private void transform(ProjectionTransform transform, int srsId) {
+			for (int i = 0; i < size; i++) {
+				byte[] blob = blobs[i];
+				blobs[i] = null;
+				if (blob == null) {
+					continue;
+				}
+				GeoPackageGeometryData geometryData = new GeoPackageGeometryData(
+						blob);
+				Geometry geometry = geometryData.getGeometry();
+				GeometryEnvelope geometryEnvelope = null;
+				geometryData.setSrsId(srsId);
+				if (geometry != null) {
+					Geometry transformed = transform != null ? transform
+							.transform(geometry) : geometry;
+					geometryEnvelope = GeometryEnvelopeBuilder
+							.buildEnvelope(transformed);
+					geometryData.setGeometry(transformed);
+					geometryData.setEnvelope(geometryEnvelope);
+				}
+				try {
+					blobs[i] = geometryData.toBytes();
+				} catch (IOException e) {
+					throw new GeoPackageException(
+							"Failed to write reprojected geometry data for feature id: "
+									+ ids[i], e);
+				}
+				if (geometryEnvelope != null) {
+					envelope[0] = Math.min(envelope[0],
+							geometryEnvelope.getMinX());
+					envelope[1] = Math.min(envelope[1],
+							geometryEnvelope.getMinY());
+					envelope[2] = Math.max(envelope[2],
+							geometryEnvelope.getMaxX());
+					envelope[3] = Math.max(envelope[3],
+							geometryEnvelope.getMaxY());
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,400 @@
+package mil.nga.geopackage.geom;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.util.ByteReader;
+import mil.nga.sf.wkb.GeometryReader;
+
+/**
+ * GeoPackage Geometry Header read directly from the GeoPackage binary blob
+ * bytes without parsing the Well-Known Binary geometry. Provides the flags,
+ * SRS id, envelope, and geometry type.
+ * 
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class GeoPackageGeometryHeader {
+
+	/**
+	 * Expected magic number
+	 */
+	private static final String GEOPACKAGE_GEOMETRY_MAGIC_NUMBER = "GP";
+
+	/**
+	 * Expected version 1 value
+	 */
+	private static final byte GEOPACKAGE_GEOMETRY_VERSION_1 = 0;
+
+	/**
+	 * Fixed header length before the envelope
+	 */
+	private static final int HEADER_LENGTH = 8;
+
+	/**
+	 * Geometry blob bytes
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * True if an extended geometry, false if standard
+	 */
+	private final boolean extended;
+
+	/**
+	 * True if the geometry is empty
+	 */
+	private final boolean empty;
+
+	/**
+	 * Byte ordering of header values
+	 */
+	private final ByteOrder byteOrder;
+
+	/**
+	 * Spatial Reference System Id
+	 */
+	private final int srsId;
+
+	/**
+	 * Envelope, null when not included in the header
+	 */
+	private final GeometryEnvelope envelope;
+
+	/**
+	 * Index of the start of the Well-Known Binary geometry bytes
+	 */
+	private final int wkbGeometryIndex;
+
+	/**
+	 * Constructor, reads the header from the geometry blob bytes
+	 * 
+	 * @param bytes
+	 *            geometry blob bytes
+	 */
+	public GeoPackageGeometryHeader(byte[] bytes) {
+
+		this.bytes = bytes;
+
+		if (bytes == null || bytes.length < HEADER_LENGTH) {
+			throw new GeoPackageException(
+					"Geometry bytes are too short to contain a GeoPackage Geometry header");
+		}
+
+		String magic = new String(bytes, 0, 2);
+		if (!magic.equals(GEOPACKAGE_GEOMETRY_MAGIC_NUMBER)) {
+			throw new GeoPackageException(
+					"Unexpected GeoPackage Geometry magic number: " + magic
+							+ ", Expected: " + GEOPACKAGE_GEOMETRY_MAGIC_NUMBER);
+		}
+
+		byte version = bytes[2];
+		if (version != GEOPACKAGE_GEOMETRY_VERSION_1) {
+			throw new GeoPackageException(
+					"Unexpected GeoPackage Geometry version: " + version
+							+ ", Expected: " + GEOPACKAGE_GEOMETRY_VERSION_1);
+		}
+
+		int flags = bytes[3];
+
+		// Bits 5, 4, 3-1, and 0 are the extended, empty, envelope indicator,
+		// and byte order flags
+		extended = ((flags >> 5) & 1) == 1;
+		empty = ((flags >> 4) & 1) == 1;
+		int envelopeIndicator = (flags >> 1) & 7;
+		byteOrder = (flags & 1) == 0 ? ByteOrder.BIG_ENDIAN
+				: ByteOrder.LITTLE_ENDIAN;
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(byteOrder);
+		buffer.position(4);
+		srsId = buffer.getInt();
+
+		boolean hasZ = false;
+		boolean hasM = false;
+		switch (envelopeIndicator) {
+		case 0:
+		case 1:
+			break;
+		case 2:
+			hasZ = true;
+			break;
+		case 3:
+			hasM = true;
+			break;
+		case 4:
+			hasZ = true;
+			hasM = true;
+			break;
+		default:
+			throw new GeoPackageException(
+					"Unexpected GeoPackage Geometry envelope indicator: "
+							+ envelopeIndicator);
+		}
+
+		int envelopeLength = envelopeIndicator == 0 ? 0 : 32 + (hasZ ? 16 : 0)
+				+ (hasM ? 16 : 0);
+		if (bytes.length < HEADER_LENGTH + envelopeLength) {
+			throw new GeoPackageException(
+					"Geometry bytes are too short to contain the GeoPackage Geometry envelope");
+		}
+
+		if (envelopeIndicator > 0) {
+			envelope = new GeometryEnvelope(hasZ, hasM);
+			envelope.setMinX(buffer.getDouble());
+			envelope.setMaxX(buffer.getDouble());
+			envelope.setMinY(buffer.getDouble());
+			envelope.setMaxY(buffer.getDouble());
+			if (hasZ) {
+				envelope.setMinZ(buffer.getDouble());
+				envelope.setMaxZ(buffer.getDouble());
+			}
+			if (hasM) {
+				envelope.setMinM(buffer.getDouble());
+				envelope.setMaxM(buffer.getDouble());
+			}
+		} else {
+			envelope = null;
+		}
+
+		wkbGeometryIndex = HEADER_LENGTH + envelopeLength;
+	}
+
+	/**
+	 * Get the geometry blob bytes
+	 * 
+	 * @return bytes
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Is the geometry extended
+	 * 
+	 * @return true if extended
+	 */
+	public boolean isExtended() {
+		return extended;
+	}
+
+	/**
+	 * Is the geometry empty
+	 * 
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Get the byte order of the header values
+	 * 
+	 * @return byte order
+	 */
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	/**
+	 * Get the Spatial Reference System Id
+	 * 
+	 * @return srs id
+	 */
+	public int getSrsId() {
+		return srsId;
+	}
+
+	/**
+	 * Get the header envelope
+	 * 
+	 * @return envelope, null when not included in the header
+	 */
+	public GeometryEnvelope getEnvelope() {
+		return envelope;
+	}
+
+	/**
+	 * Determine if the header includes an envelope
+	 * 
+	 * @return true if an envelope is included
+	 */
+	public boolean hasEnvelope() {
+		return envelope != null;
+	}
+
+	/**
+	 * Get the index of the start of the Well-Known Binary geometry bytes
+	 * 
+	 * @return wkb geometry index
+	 */
+	public int getWkbGeometryIndex() {
+		return wkbGeometryIndex;
+	}
+
+	/**
+	 * Get the index of the start of the Well-Known Binary geometry bytes of a
+	 * geometry blob within a larger byte array, determined from the header
+	 * flags without reading the envelope
+	 *
+	 * @param bytes
+	 *            bytes containing the geometry blob
+	 * @param offset
+	 *            offset of the geometry blob within the bytes
+	 * @param length
+	 *            geometry blob length
+	 * @return wkb geometry index relative to the geometry blob offset
+	 */
+	public static int getWkbGeometryIndex(byte[] bytes, int offset, int length) {
+
+		if (length < HEADER_LENGTH || bytes[offset] != 'G'
+				|| bytes[offset + 1] != 'P') {
+			throw new GeoPackageException(
+					"Bytes do not contain a GeoPackage Geometry header");
+		}
+
+		int envelopeLength;
+		switch ((bytes[offset + 3] >> 1) & 7) {
+		case 0:
+			envelopeLength = 0;
+			break;
+		case 1:
+			envelopeLength = 32;
+			break;
+		case 2:
+		case 3:
+			envelopeLength = 48;
+			break;
+		case 4:
+			envelopeLength = 64;
+			break;
+		default:
+			throw new GeoPackageException(
+					"Unexpected GeoPackage Geometry envelope indicator: "
+							+ ((bytes[offset + 3] >> 1) & 7));
+		}
+
+		int wkbIndex = HEADER_LENGTH + envelopeLength;
+		if (length < wkbIndex) {
+			throw new GeoPackageException(
+					"Geometry bytes are too short to contain the GeoPackage Geometry envelope");
+		}
+
+		return wkbIndex;
+	}
+
+	/**
+	 * Get the geometry type from the Well-Known Binary geometry type code,
+	 * without parsing the geometry
+	 * 
+	 * @return geometry type, null when the geometry bytes are not present
+	 */
+	public GeometryType getGeometryType() {
+
+		GeometryType geometryType = null;
+
+		if (bytes.length >= wkbGeometryIndex + 5) {
+			ByteOrder wkbByteOrder = bytes[wkbGeometryIndex] == 0 ? ByteOrder.BIG_ENDIAN
+					: ByteOrder.LITTLE_ENDIAN;
+			int code = ByteBuffer.wrap(bytes, wkbGeometryIndex + 1, 4)
+					.order(wkbByteOrder).getInt();
+			geometryType = getGeometryType(code);
+		}
+
+		return geometryType;
+	}
+
+	/**
+	 * Read the Well-Known Binary geometry
+	 * 
+	 * @return geometry, null when the geometry bytes are not present
+	 */
+	public Geometry readGeometry() {
+		Geometry geometry = null;
+		if (bytes.length > wkbGeometryIndex) {
+			ByteReader reader = new ByteReader(bytes);
+			reader.setNextByte(wkbGeometryIndex);
+			geometry = GeometryReader.readGeometry(reader);
+		}
+		return geometry;
+	}
+
+	/**
+	 * Get the geometry type from the Well-Known Binary geometry type code,
+	 * ignoring the z and m dimension thousands values
+	 * 
+	 * @param code
+	 *            geometry type code
+	 * @return geometry type
+	 */
+	private static GeometryType getGeometryType(int code) {
+
+		GeometryType geometryType;
+
+		switch (code % 1000) {
+		case 0:
+			geometryType = GeometryType.GEOMETRY;
+			break;
+		case 1:
+			geometryType = GeometryType.POINT;
+			break;
+		case 2:
+			geometryType = GeometryType.LINESTRING;
+			break;
+		case 3:
+			geometryType = GeometryType.POLYGON;
+			break;
+		case 4:
+			geometryType = GeometryType.MULTIPOINT;
+			break;
+		case 5:
+			geometryType = GeometryType.MULTILINESTRING;
+			break;
+		case 6:
+			geometryType = GeometryType.MULTIPOLYGON;
+			break;
+		case 7:
+			geometryType = GeometryType.GEOMETRYCOLLECTION;
+			break;
+		case 8:
+			geometryType = GeometryType.CIRCULARSTRING;
+			break;
+		case 9:
+			geometryType = GeometryType.COMPOUNDCURVE;
+			break;
+		case 10:
+			geometryType = GeometryType.CURVEPOLYGON;
+			break;
+		case 11:
+			geometryType = GeometryType.MULTICURVE;
+			break;
+		case 12:
+			geometryType = GeometryType.MULTISURFACE;
+			break;
+		case 13:
+			geometryType = GeometryType.CURVE;
+			break;
+		case 14:
+			geometryType = GeometryType.SURFACE;
+			break;
+		case 15:
+			geometryType = GeometryType.POLYHEDRALSURFACE;
+			break;
+		case 16:
+			geometryType = GeometryType.TIN;
+			break;
+		case 17:
+			geometryType = GeometryType.TRIANGLE;
+			break;
+		default:
+			throw new GeoPackageException(
+					"Unsupported Well-Known Binary geometry type code: " + code);
+		}
+
+		return geometryType;
+	}
+
+}
@@ -0,0 +1,266 @@
+package mil.nga.geopackage.geom;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+
+/**
+ * GeoPackage Geometry Data which reads only the header when created and
+ * defers parsing the Well-Known Binary geometry until {@link #getGeometry()}
+ * is first called. Unmodified geometry data returns the original bytes
+ * without rewriting them.
+ * 
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class LazyGeoPackageGeometryData extends GeoPackageGeometryData {
+
+	/**
+	 * Header read from the geometry bytes
+	 */
+	private final GeoPackageGeometryHeader header;
+
+	/**
+	 * True once the geometry has been read or set
+	 */
+	private boolean geometryRead = false;
+
+	/**
+	 * True once any value has been changed from the original bytes
+	 */
+	private boolean modified = false;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param bytes
+	 *            geometry blob bytes
+	 */
+	public LazyGeoPackageGeometryData(byte[] bytes) {
+		this(new GeoPackageGeometryHeader(bytes));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param header
+	 *            geometry header
+	 */
+	public LazyGeoPackageGeometryData(GeoPackageGeometryHeader header) {
+		super(header.getSrsId());
+		this.header = header;
+		super.setExtended(header.isExtended());
+		super.setEmpty(header.isEmpty());
+		super.setByteOrder(header.getByteOrder());
+		super.setSrsId(header.getSrsId());
+		super.setEnvelope(header.getEnvelope());
+	}
+
+	/**
+	 * Get the geometry header
+	 * 
+	 * @return header
+	 */
+	public GeoPackageGeometryHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * Determine if the Well-Known Binary geometry has been read
+	 * 
+	 * @return true if read
+	 */
+	public boolean isGeometryRead() {
+		return geometryRead;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Reads the geometry from the Well-Known Binary bytes on the first call
+	 */
+	@Override
+	public Geometry getGeometry() {
+		if (!geometryRead) {
+			geometryRead = true;
+			super.setGeometry(header.readGeometry());
+		}
+		return super.getGeometry();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setGeometry(Geometry geometry) {
+		geometryRead = true;
+		modified = true;
+		super.setGeometry(geometry);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setEnvelope(GeometryEnvelope envelope) {
+		modified = true;
+		super.setEnvelope(envelope);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setSrsId(int srsId) {
+		modified = true;
+		super.setSrsId(srsId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setExtended(boolean extended) {
+		modified = true;
+		super.setExtended(extended);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setEmpty(boolean empty) {
+		modified = true;
+		super.setEmpty(empty);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setByteOrder(ByteOrder byteOrder) {
+		modified = true;
+		super.setByteOrder(byteOrder);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void fromBytes(byte[] bytes) {
+		geometryRead = true;
+		modified = true;
+		super.fromBytes(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Returns the original bytes when unmodified
+	 */
+	@Override
+	public byte[] toBytes() throws IOException {
+		byte[] bytes;
+		if (modified) {
+			getGeometry();
+			bytes = super.toBytes();
+		} else {
+			bytes = header.getBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] getBytes() {
+		byte[] bytes = super.getBytes();
+		if (bytes == null) {
+			bytes = header.getBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] getHeaderBytes() {
+		byte[] headerBytes;
+		if (super.getBytes() != null) {
+			headerBytes = super.getHeaderBytes();
+		} else {
+			headerBytes = Arrays.copyOfRange(header.getBytes(), 0,
+					header.getWkbGeometryIndex());
+		}
+		return headerBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ByteBuffer getHeaderByteBuffer() {
+		ByteBuffer headerBuffer;
+		if (super.getBytes() != null) {
+			headerBuffer = super.getHeaderByteBuffer();
+		} else {
+			headerBuffer = ByteBuffer.wrap(header.getBytes(), 0,
+					header.getWkbGeometryIndex()).order(header.getByteOrder());
+		}
+		return headerBuffer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] getWkbBytes() {
+		byte[] wkbBytes;
+		if (super.getBytes() != null) {
+			wkbBytes = super.getWkbBytes();
+		} else {
+			byte[] bytes = header.getBytes();
+			wkbBytes = Arrays.copyOfRange(bytes, header.getWkbGeometryIndex(),
+					bytes.length);
+		}
+		return wkbBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ByteBuffer getWkbByteBuffer() {
+		ByteBuffer wkbBuffer;
+		if (super.getBytes() != null) {
+			wkbBuffer = super.getWkbByteBuffer();
+		} else {
+			byte[] bytes = header.getBytes();
+			int wkbIndex = header.getWkbGeometryIndex();
+			wkbBuffer = ByteBuffer.wrap(bytes, wkbIndex,
+					bytes.length - wkbIndex).order(header.getByteOrder());
+		}
+		return wkbBuffer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getWkbGeometryIndex() {
+		int wkbGeometryIndex;
+		if (super.getBytes() != null) {
+			wkbGeometryIndex = super.getWkbGeometryIndex();
+		} else {
+			wkbGeometryIndex = header.getWkbGeometryIndex();
+		}
+		return wkbGeometryIndex;
+	}
+
+}
@@ -0,0 +1,315 @@
+package mil.nga.geopackage.geom;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.projection.Projection;
+import mil.nga.sf.projection.ProjectionTransform;
+
+/**
+ * Per thread cache of projection transforms keyed by the source and target
+ * EPSG codes, avoiding a transformation lookup per bounding box or coordinate
+ * request. The underlying coordinate transforms are not thread safe, so each
+ * thread caches and uses its own transforms without synchronization.
+ *
+ * Coordinates can be transformed in bulk through primitive arrays of
+ * interleaved x and y values, and envelopes through arrays of min x, min y,
+ * max x, max y values.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class ProjectionTransformCache {
+
+	/**
+	 * Cache generation, incremented to clear the cached transforms of all
+	 * threads
+	 */
+	private static volatile int generation = 0;
+
+	/**
+	 * Cached transforms of the current thread
+	 */
+	private static final ThreadLocal<ThreadTransforms> transforms = new ThreadLocal<ThreadTransforms>() {
+		@Override
+		protected ThreadTransforms initialValue() {
+			return new ThreadTransforms();
+		}
+	};
+
+	/**
+	 * Get the transform between the projections for the current thread,
+	 * creating and caching it if needed. The returned transform must only be
+	 * used by the current thread.
+	 *
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @return projection transform, null when the projections are the same
+	 */
+	public static ProjectionTransform getTransform(Projection from,
+			Projection to) {
+		ProjectionTransform transform = null;
+		if (from.getEpsg() != to.getEpsg()) {
+			Map<TransformKey, ProjectionTransform> threadTransforms = getThreadTransforms();
+			TransformKey key = new TransformKey(from.getEpsg(), to.getEpsg());
+			transform = threadTransforms.get(key);
+			if (transform == null) {
+				transform = from.getTransformation(to);
+				threadTransforms.put(key, transform);
+			}
+		}
+		return transform;
+	}
+
+	/**
+	 * Transform the envelope between the projections
+	 *
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param envelope
+	 *            envelope in the source projection
+	 * @return envelope in the target projection, the same envelope when the
+	 *         projections are the same
+	 */
+	public static GeometryEnvelope transform(Projection from, Projection to,
+			GeometryEnvelope envelope) {
+		GeometryEnvelope transformed = envelope;
+		ProjectionTransform transform = getTransform(from, to);
+		if (transform != null) {
+			transformed = transform.transform(envelope);
+		}
+		return transformed;
+	}
+
+	/**
+	 * Transform coordinates in place between the projections
+	 *
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param coordinates
+	 *            interleaved x and y coordinates
+	 */
+	public static void transformCoordinates(Projection from, Projection to,
+			double[] coordinates) {
+		transformCoordinates(from, to, coordinates, 0, coordinates.length / 2);
+	}
+
+	/**
+	 * Transform coordinates in place between the projections
+	 *
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param coordinates
+	 *            interleaved x and y coordinates
+	 * @param offset
+	 *            array index of the first x value
+	 * @param count
+	 *            number of coordinates
+	 */
+	public static void transformCoordinates(Projection from, Projection to,
+			double[] coordinates, int offset, int count) {
+		validateRange(coordinates, offset, count * 2);
+		ProjectionTransform transform = getTransform(from, to);
+		if (transform != null) {
+			int end = offset + count * 2;
+			for (int i = offset; i < end; i += 2) {
+				double[] transformed = transform.transform(coordinates[i],
+						coordinates[i + 1]);
+				coordinates[i] = transformed[0];
+				coordinates[i + 1] = transformed[1];
+			}
+		}
+	}
+
+	/**
+	 * Transform envelopes in place between the projections by transforming
+	 * all four corners of each envelope
+	 *
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param envelopes
+	 *            min x, min y, max x, max y values of each envelope
+	 */
+	public static void transformEnvelopes(Projection from, Projection to,
+			double[] envelopes) {
+		transformEnvelopes(from, to, envelopes, 0, envelopes.length / 4);
+	}
+
+	/**
+	 * Transform envelopes in place between the projections by transforming
+	 * all four corners of each envelope
+	 *
+	 * @param from
+	 *            source projection
+	 * @param to
+	 *            target projection
+	 * @param envelopes
+	 *            min x, min y, max x, max y values of each envelope
+	 * @param offset
+	 *            array index of the first min x value
+	 * @param count
+	 *            number of envelopes
+	 */
+	public static void transformEnvelopes(Projection from, Projection to,
+			double[] envelopes, int offset, int count) {
+		validateRange(envelopes, offset, count * 4);
+		ProjectionTransform transform = getTransform(from, to);
+		if (transform != null) {
+			int end = offset + count * 4;
+			for (int i = offset; i < end; i += 4) {
+				double minX = Double.POSITIVE_INFINITY;
+				double minY = Double.POSITIVE_INFINITY;
+				double maxX = Double.NEGATIVE_INFINITY;
+				double maxY = Double.NEGATIVE_INFINITY;
+				for (int corner = 0; corner < 4; corner++) {
+					double[] transformed = transform.transform(
+							envelopes[i + (corner & 1) * 2],
+							envelopes[i + 1 + (corner >> 1) * 2]);
+					minX = Math.min(minX, transformed[0]);
+					minY = Math.min(minY, transformed[1]);
+					maxX = Math.max(maxX, transformed[0]);
+					maxY = Math.max(maxY, transformed[1]);
+				}
+				envelopes[i] = minX;
+				envelopes[i + 1] = minY;
+				envelopes[i + 2] = maxX;
+				envelopes[i + 3] = maxY;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of cached transforms of the current thread
+	 *
+	 * @return cached transforms
+	 */
+	public static int size() {
+		return getThreadTransforms().size();
+	}
+
+	/**
+	 * Clear the cached transforms of all threads
+	 */
+	public static synchronized void clear() {
+		generation++;
+		transforms.remove();
+	}
+
+	/**
+	 * Get the cached transforms of the current thread, clearing them when the
+	 * cache was cleared since last used
+	 *
+	 * @return cached transforms
+	 */
+	private static Map<TransformKey, ProjectionTransform> getThreadTransforms() {
+		ThreadTransforms threadTransforms = transforms.get();
+		int currentGeneration = generation;
+		if (threadTransforms.generation != currentGeneration) {
+			threadTransforms.transforms.clear();
+			threadTransforms.generation = currentGeneration;
+		}
+		return threadTransforms.transforms;
+	}
+
+	/**
+	 * Validate the array range
+	 *
+	 * @param values
+	 *            values
+	 * @param offset
+	 *            range offset
+	 * @param length
+	 *            range length
+	 */
+	private static void validateRange(double[] values, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > values.length) {
+			throw new GeoPackageException("Invalid coordinate range. Offset: "
+					+ offset + ", Length: " + length + ", Array Length: "
+					+ values.length);
+		}
+	}
+
+	/**
+	 * Cached transforms of a thread
+	 */
+	private static class ThreadTransforms {
+
+		/**
+		 * Cache generation of the transforms
+		 */
+		private int generation = ProjectionTransformCache.generation;
+
+		/**
+		 * Cached transforms
+		 */
+		private final Map<TransformKey, ProjectionTransform> transforms = new HashMap<>();
+
+	}
+
+	/**
+	 * Source and target EPSG code key
+	 */
+	private static class TransformKey {
+
+		/**
+		 * Source EPSG code
+		 */
+		private final long from;
+
+		/**
+		 * Target EPSG code
+		 */
+		private final long to;
+
+		/**
+		 * Constructor
+		 *
+		 * @param from
+		 *            source EPSG code
+		 * @param to
+		 *            target EPSG code
+		 */
+		public TransformKey(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return 31 * (int) (from ^ (from >>> 32))
+					+ (int) (to ^ (to >>> 32));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TransformKey)) {
+				return false;
+			}
+			TransformKey other = (TransformKey) obj;
+			return from == other.from && to == other.to;
+		}
+
+	}
+
+}
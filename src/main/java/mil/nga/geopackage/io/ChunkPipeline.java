@@ -0,0 +1,261 @@
+package mil.nga.geopackage.io;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline of a single producer thread reading chunks, a pool of worker
+ * threads processing the chunks, and the calling thread writing the processed
+ * chunks in read order. At most two chunks per worker are pending at a time.
+ * When the writer stops, from cancellation or a failure, the producer stops
+ * reading, pending chunks are cancelled, and the pipeline threads are shut
+ * down before returning.
+ *
+ * @param <T>
+ *            chunk type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public abstract class ChunkPipeline<T> {
+
+	/**
+	 * Milliseconds the producer waits for queue space before checking if the
+	 * writer stopped
+	 */
+	private static final long OFFER_TIMEOUT = 100;
+
+	/**
+	 * Number of worker threads
+	 */
+	private final int threads;
+
+	/**
+	 * Writer stopped flag
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * Constructor
+	 *
+	 * @param threads
+	 *            number of worker threads
+	 */
+	public ChunkPipeline(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Read the next chunk on the producer thread
+	 *
+	 * @return chunk, null when no chunks remain
+	 * @throws Exception
+	 *             upon failure
+	 */
+	protected abstract T read() throws Exception;
+
+	/**
+	 * Process the chunk on a worker thread
+	 *
+	 * @param chunk
+	 *            chunk
+	 * @throws Exception
+	 *             upon failure
+	 */
+	protected abstract void process(T chunk) throws Exception;
+
+	/**
+	 * Write the processed chunk on the calling thread
+	 *
+	 * @param chunk
+	 *            processed chunk
+	 * @throws Exception
+	 *             upon failure
+	 */
+	protected abstract void write(T chunk) throws Exception;
+
+	/**
+	 * Determine if the pipeline is active, checked before reading and writing
+	 * each chunk
+	 *
+	 * @return true if active, false to stop
+	 */
+	protected boolean isActive() {
+		return true;
+	}
+
+	/**
+	 * Run the pipeline until all chunks are written, the pipeline is no
+	 * longer active, or a read, process, or write fails
+	 *
+	 * @throws Exception
+	 *             upon failure
+	 */
+	public void run() throws Exception {
+
+		stopped = false;
+
+		final ExecutorService workers = Executors.newFixedThreadPool(threads,
+				new PipelineThreadFactory("worker"));
+		ExecutorService producer = Executors
+				.newSingleThreadExecutor(new PipelineThreadFactory("producer"));
+		final BlockingQueue<Future<T>> chunks = new ArrayBlockingQueue<>(
+				threads * 2);
+		final Future<T> end = new FutureTask<T>(new Callable<T>() {
+			public T call() {
+				return null;
+			}
+		});
+
+		Future<Void> production = producer.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				try {
+					T next;
+					while (!stopped && isActive() && (next = read()) != null) {
+						final T chunk = next;
+						Future<T> future = workers.submit(new Callable<T>() {
+							public T call() throws Exception {
+								process(chunk);
+								return chunk;
+							}
+						});
+						if (!offer(chunks, future)) {
+							future.cancel(true);
+							break;
+						}
+					}
+				} finally {
+					offer(chunks, end);
+				}
+				return null;
+			}
+		});
+
+		try {
+			while (isActive()) {
+				Future<T> future = chunks.take();
+				if (future == end) {
+					// Surface any producer failure
+					production.get();
+					break;
+				}
+				write(future.get());
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		} finally {
+			stop(producer, workers, chunks);
+		}
+
+	}
+
+	/**
+	 * Offer the chunk future to the queue, waiting for space until the writer
+	 * stops
+	 *
+	 * @param chunks
+	 *            chunk queue
+	 * @param future
+	 *            chunk future
+	 * @return true if queued, false if the writer stopped
+	 */
+	private boolean offer(BlockingQueue<Future<T>> chunks, Future<T> future) {
+		boolean queued = false;
+		try {
+			while (!queued && !stopped) {
+				queued = chunks.offer(future, OFFER_TIMEOUT,
+						TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return queued;
+	}
+
+	/**
+	 * Stop the pipeline, cancelling pending chunks and waiting for the
+	 * producer to finish its current read
+	 *
+	 * @param producer
+	 *            producer executor
+	 * @param workers
+	 *            worker executor
+	 * @param chunks
+	 *            chunk queue
+	 */
+	private void stop(ExecutorService producer, ExecutorService workers,
+			BlockingQueue<Future<T>> chunks) {
+		stopped = true;
+		producer.shutdown();
+		Future<T> pending;
+		while ((pending = chunks.poll()) != null) {
+			pending.cancel(true);
+		}
+		workers.shutdownNow();
+		try {
+			// The producer may be reading from a connection the caller uses
+			// next, wait for the current read to complete
+			while (!producer.awaitTermination(OFFER_TIMEOUT,
+					TimeUnit.MILLISECONDS)) {
+				while ((pending = chunks.poll()) != null) {
+					pending.cancel(true);
+				}
+			}
+		} catch (InterruptedException e) {
+			producer.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		while ((pending = chunks.poll()) != null) {
+			pending.cancel(true);
+		}
+	}
+
+	/**
+	 * Daemon thread factory of pipeline threads
+	 */
+	private static class PipelineThreadFactory implements ThreadFactory {
+
+		/**
+		 * Thread name prefix
+		 */
+		private final String name;
+
+		/**
+		 * Constructor
+		 *
+		 * @param name
+		 *            thread name prefix
+		 */
+		private PipelineThreadFactory(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "geopackage-pipeline-"
+					+ name);
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
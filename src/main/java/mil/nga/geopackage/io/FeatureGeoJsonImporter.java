@@ -0,0 +1,1449 @@
+package mil.nga.geopackage.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.core.contents.ContentsDao;
+import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.db.SQLUtils;
+import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.columns.GeometryColumnsDao;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.schema.TableColumnKey;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.projection.ProjectionConstants;
+
+/**
+ * Streams GeoJSON and newline delimited GeoJSON features into a new feature
+ * table. Columns are inferred from a sample of the first features, then the
+ * remaining features are parsed one at a time and written with batched
+ * inserts in large transactions. Geometries are encoded directly from the
+ * parsed coordinates into GeoPackage geometry blobs. A failed import deletes
+ * the new table and its metadata.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureGeoJsonImporter {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger
+			.getLogger(FeatureGeoJsonImporter.class.getName());
+
+	/**
+	 * Default number of features sampled to infer the columns
+	 */
+	public static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+	/**
+	 * Default number of features per insert batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Default number of features per transaction
+	 */
+	public static final int DEFAULT_TRANSACTION_SIZE = 100000;
+
+	/**
+	 * Character buffer size
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Well-Known Binary geometry type codes
+	 */
+	private static final int WKB_POINT = 1, WKB_LINESTRING = 2,
+			WKB_POLYGON = 3, WKB_MULTIPOINT = 4, WKB_MULTILINESTRING = 5,
+			WKB_MULTIPOLYGON = 6, WKB_GEOMETRYCOLLECTION = 7;
+
+	/**
+	 * GeoPackage
+	 */
+	private final GeoPackage geoPackage;
+
+	/**
+	 * Number of features sampled to infer the columns
+	 */
+	private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+	/**
+	 * Number of features per insert batch
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Number of features per transaction
+	 */
+	private int transactionSize = DEFAULT_TRANSACTION_SIZE;
+
+	/**
+	 * Spatial reference system id of the coordinates
+	 */
+	private long srsId = ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM;
+
+	/**
+	 * Id column name
+	 */
+	private String idColumnName = "id";
+
+	/**
+	 * Geometry column name
+	 */
+	private String geometryColumnName = "geom";
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * JSON reader of the current import
+	 */
+	private JsonReader reader;
+
+	/**
+	 * Table name of the current import
+	 */
+	private String tableName;
+
+	/**
+	 * Sampled features, null once the table is created
+	 */
+	private List<SampleFeature> samples;
+
+	/**
+	 * Sampled properties of the current feature
+	 */
+	private Map<String, Object> sampleProperties;
+
+	/**
+	 * Insert argument index by property name
+	 */
+	private Map<String, Integer> propertyIndexes;
+
+	/**
+	 * Insert arguments of the current feature, geometry first
+	 */
+	private Object[] values;
+
+	/**
+	 * Properties not matching a sampled column
+	 */
+	private Set<String> ignoredProperties;
+
+	/**
+	 * Connection
+	 */
+	private Connection connection;
+
+	/**
+	 * Batch insert statement
+	 */
+	private PreparedStatement statement;
+
+	/**
+	 * True when transactions are managed by the import
+	 */
+	private boolean transaction;
+
+	/**
+	 * Features in the current batch
+	 */
+	private int batchCount;
+
+	/**
+	 * Features imported
+	 */
+	private int count;
+
+	/**
+	 * Geometry blob of the current feature
+	 */
+	private byte[] geometry;
+
+	/**
+	 * Geometry types imported, null when mixed
+	 */
+	private GeometryType geometryType;
+
+	/**
+	 * True when no geometry type has been imported
+	 */
+	private boolean noGeometryType;
+
+	/**
+	 * True when any imported geometry has z values
+	 */
+	private boolean importHasZ;
+
+	/**
+	 * Envelope of all imported geometries, min x, max x, min y, max y
+	 */
+	private final double[] importEnvelope = new double[4];
+
+	/**
+	 * Envelope of the current feature, min x, max x, min y, max y, min z, max
+	 * z
+	 */
+	private final double[] featureEnvelope = new double[6];
+
+	/**
+	 * True when the current feature has positions
+	 */
+	private boolean featureHasPositions;
+
+	/**
+	 * True when the current feature has z values
+	 */
+	private boolean featureHasZ;
+
+	/**
+	 * Parsed coordinates, x, y, and z (NaN when absent) per position
+	 */
+	private double[] coordinates = new double[3 * 256];
+
+	/**
+	 * Number of parsed coordinate values
+	 */
+	private int coordinateCount;
+
+	/**
+	 * Parsed coordinate array structure in document order, the child count of
+	 * nested arrays or -1 for a position
+	 */
+	private int[] structure = new int[256];
+
+	/**
+	 * Number of parsed structure entries
+	 */
+	private int structureCount;
+
+	/**
+	 * Structure index while writing a geometry
+	 */
+	private int structureIndex;
+
+	/**
+	 * Coordinate index while writing a geometry
+	 */
+	private int coordinateIndex;
+
+	/**
+	 * Well-Known Binary bytes of the current feature geometry
+	 */
+	private byte[] wkb = new byte[4096];
+
+	/**
+	 * Number of Well-Known Binary bytes
+	 */
+	private int wkbLength;
+
+	/**
+	 * Constructor
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 */
+	public FeatureGeoJsonImporter(GeoPackage geoPackage) {
+		this.geoPackage = geoPackage;
+	}
+
+	/**
+	 * Get the number of features sampled to infer the columns
+	 *
+	 * @return sample size
+	 */
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	/**
+	 * Set the number of features sampled to infer the columns. Properties
+	 * first appearing after the sample are not imported.
+	 *
+	 * @param sampleSize
+	 *            sample size
+	 */
+	public void setSampleSize(int sampleSize) {
+		if (sampleSize < 1) {
+			throw new GeoPackageException("Sample size must be at least 1: "
+					+ sampleSize);
+		}
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * Get the number of features per insert batch
+	 *
+	 * @return batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the number of features per insert batch
+	 *
+	 * @param batchSize
+	 *            batch size
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new GeoPackageException("Batch size must be at least 1: "
+					+ batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Get the number of features per transaction
+	 *
+	 * @return transaction size
+	 */
+	public int getTransactionSize() {
+		return transactionSize;
+	}
+
+	/**
+	 * Set the number of features per transaction
+	 *
+	 * @param transactionSize
+	 *            transaction size
+	 */
+	public void setTransactionSize(int transactionSize) {
+		if (transactionSize < 1) {
+			throw new GeoPackageException(
+					"Transaction size must be at least 1: " + transactionSize);
+		}
+		this.transactionSize = transactionSize;
+	}
+
+	/**
+	 * Get the spatial reference system id of the coordinates
+	 *
+	 * @return srs id
+	 */
+	public long getSrsId() {
+		return srsId;
+	}
+
+	/**
+	 * Set the spatial reference system id of the coordinates, defaults to
+	 * WGS84
+	 *
+	 * @param srsId
+	 *            srs id, must exist in the GeoPackage
+	 */
+	public void setSrsId(long srsId) {
+		this.srsId = srsId;
+	}
+
+	/**
+	 * Get the id column name
+	 *
+	 * @return id column name
+	 */
+	public String getIdColumnName() {
+		return idColumnName;
+	}
+
+	/**
+	 * Set the id column name
+	 *
+	 * @param idColumnName
+	 *            id column name
+	 */
+	public void setIdColumnName(String idColumnName) {
+		this.idColumnName = idColumnName;
+	}
+
+	/**
+	 * Get the geometry column name
+	 *
+	 * @return geometry column name
+	 */
+	public String getGeometryColumnName() {
+		return geometryColumnName;
+	}
+
+	/**
+	 * Set the geometry column name
+	 *
+	 * @param geometryColumnName
+	 *            geometry column name
+	 */
+	public void setGeometryColumnName(String geometryColumnName) {
+		this.geometryColumnName = geometryColumnName;
+	}
+
+	/**
+	 * Set the progress. Cancelling keeps the features imported before the
+	 * cancellation.
+	 *
+	 * @param progress
+	 *            progress
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Import GeoJSON features from a file into a new feature table
+	 *
+	 * @param file
+	 *            GeoJSON or newline delimited GeoJSON file
+	 * @param tableName
+	 *            new feature table name
+	 * @return number of imported features
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	public int importFeatures(File file, String tableName) throws IOException {
+		try (InputStream inputStream = new FileInputStream(file)) {
+			return importFeatures(inputStream, tableName);
+		}
+	}
+
+	/**
+	 * Import GeoJSON features from an input stream into a new feature table.
+	 * The stream may contain a feature collection, a feature, or a sequence
+	 * of newline or record separated features. The stream is not closed.
+	 *
+	 * @param inputStream
+	 *            UTF-8 GeoJSON input stream
+	 * @param tableName
+	 *            new feature table name
+	 * @return number of imported features
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	public synchronized int importFeatures(InputStream inputStream,
+			String tableName) throws IOException {
+
+		if (geoPackage.isTableExists(tableName)) {
+			throw new GeoPackageException("Table already exists: "
+					+ tableName);
+		}
+
+		Reader characterReader = new InputStreamReader(inputStream,
+				StandardCharsets.UTF_8);
+		reader = new JsonReader(characterReader, BUFFER_SIZE);
+		this.tableName = tableName;
+		samples = new ArrayList<>();
+		propertyIndexes = null;
+		values = null;
+		ignoredProperties = new TreeSet<>();
+		connection = ((GeoPackageConnection) geoPackage.getDatabase())
+				.getConnection();
+		statement = null;
+		transaction = false;
+		batchCount = 0;
+		count = 0;
+		geometryType = null;
+		noGeometryType = true;
+		importHasZ = false;
+		importEnvelope[0] = Double.POSITIVE_INFINITY;
+		importEnvelope[1] = Double.NEGATIVE_INFINITY;
+		importEnvelope[2] = Double.POSITIVE_INFINITY;
+		importEnvelope[3] = Double.NEGATIVE_INFINITY;
+
+		boolean imported = false;
+		try {
+
+			String sql = null;
+			boolean success = false;
+			try {
+
+				while (reader.peek() != -1 && isActive()) {
+					readTopLevel();
+				}
+
+				if (samples != null) {
+					sql = createTable();
+				}
+
+				if (batchCount > 0) {
+					statement.executeBatch();
+					batchCount = 0;
+				}
+				if (transaction) {
+					connection.commit();
+				}
+				success = true;
+
+			} catch (SQLException e) {
+				throw new GeoPackageException(
+						"Failed to import GeoJSON features into table: "
+								+ tableName, e);
+			} finally {
+				finish(sql, success);
+			}
+
+			updateMetadata();
+			imported = true;
+
+		} finally {
+			if (!imported) {
+				deleteTable();
+			}
+		}
+
+		if (!ignoredProperties.isEmpty()) {
+			log.log(Level.WARNING, "Properties not found in the first "
+					+ sampleSize + " features were not imported into table "
+					+ tableName + ": " + ignoredProperties);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Determine if the import is active, not cancelled by the progress
+	 *
+	 * @return true if active
+	 */
+	private boolean isActive() {
+		return progress == null || progress.isActive();
+	}
+
+	/**
+	 * Read a top level value, a feature collection or a feature
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 * @throws SQLException
+	 *             upon failure to insert
+	 */
+	private void readTopLevel() throws IOException, SQLException {
+		if (reader.peek() != '{') {
+			reader.skipValue();
+			return;
+		}
+		reader.beginObject();
+		startFeature();
+		boolean feature = false;
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			switch (name) {
+			case "features":
+				if (!reader.readNull()) {
+					reader.beginArray();
+					while (reader.hasNext() && isActive()) {
+						readFeature();
+					}
+					if (isActive()) {
+						reader.endArray();
+					}
+				}
+				break;
+			case "geometry":
+				readFeatureGeometry();
+				feature = true;
+				break;
+			case "properties":
+				readProperties();
+				feature = true;
+				break;
+			default:
+				reader.skipValue();
+			}
+			if (!isActive()) {
+				return;
+			}
+		}
+		reader.endObject();
+		if (feature) {
+			endFeature();
+		}
+	}
+
+	/**
+	 * Read a feature
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 * @throws SQLException
+	 *             upon failure to insert
+	 */
+	private void readFeature() throws IOException, SQLException {
+		reader.beginObject();
+		startFeature();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			switch (name) {
+			case "geometry":
+				readFeatureGeometry();
+				break;
+			case "properties":
+				readProperties();
+				break;
+			default:
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		endFeature();
+	}
+
+	/**
+	 * Start reading a feature
+	 */
+	private void startFeature() {
+		geometry = null;
+		if (samples != null) {
+			sampleProperties = new LinkedHashMap<>();
+		} else {
+			Arrays.fill(values, null);
+		}
+	}
+
+	/**
+	 * Finish reading a feature, sampling or inserting it
+	 *
+	 * @throws SQLException
+	 *             upon failure to insert
+	 */
+	private void endFeature() throws SQLException {
+		if (samples != null) {
+			samples.add(new SampleFeature(geometry, sampleProperties));
+			sampleProperties = null;
+			if (samples.size() >= sampleSize) {
+				createTable();
+			}
+		} else {
+			values[0] = geometry;
+			insert();
+		}
+	}
+
+	/**
+	 * Insert the current feature values
+	 *
+	 * @throws SQLException
+	 *             upon failure to insert
+	 */
+	private void insert() throws SQLException {
+		SQLUtils.setArguments(statement, values);
+		statement.addBatch();
+		batchCount++;
+		count++;
+		if (batchCount >= batchSize) {
+			statement.executeBatch();
+			batchCount = 0;
+		}
+		if (transaction && count % transactionSize == 0) {
+			if (batchCount > 0) {
+				statement.executeBatch();
+				batchCount = 0;
+			}
+			connection.commit();
+		}
+		if (progress != null) {
+			progress.addProgress(1);
+		}
+	}
+
+	/**
+	 * Read the feature properties
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private void readProperties() throws IOException {
+		if (reader.readNull()) {
+			return;
+		}
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			Object value = readValue();
+			if (samples != null) {
+				sampleProperties.put(name, value);
+			} else {
+				Integer index = propertyIndexes.get(name);
+				if (index != null) {
+					values[index] = value;
+				} else if (value != null) {
+					ignoredProperties.add(name);
+				}
+			}
+		}
+		reader.endObject();
+	}
+
+	/**
+	 * Read a property value. Objects and arrays are read as JSON text.
+	 *
+	 * @return value
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private Object readValue() throws IOException {
+		Object value;
+		switch (reader.peek()) {
+		case 'n':
+			reader.readNull();
+			value = null;
+			break;
+		case 't':
+		case 'f':
+			value = reader.readBoolean();
+			break;
+		case '"':
+			value = reader.readString();
+			break;
+		case '{':
+		case '[':
+			value = reader.readRaw();
+			break;
+		default:
+			double number = reader.readNumber();
+			if (reader.isIntegral()) {
+				value = reader.getLongValue();
+			} else {
+				value = number;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Read the feature geometry into a GeoPackage geometry blob
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private void readFeatureGeometry() throws IOException {
+
+		wkbLength = 0;
+		coordinateCount = 0;
+		structureCount = 0;
+		featureHasPositions = false;
+		featureHasZ = false;
+		featureEnvelope[0] = Double.POSITIVE_INFINITY;
+		featureEnvelope[1] = Double.NEGATIVE_INFINITY;
+		featureEnvelope[2] = Double.POSITIVE_INFINITY;
+		featureEnvelope[3] = Double.NEGATIVE_INFINITY;
+		featureEnvelope[4] = Double.POSITIVE_INFINITY;
+		featureEnvelope[5] = Double.NEGATIVE_INFINITY;
+
+		GeometryType type = readGeometry();
+		if (type == null) {
+			geometry = null;
+			return;
+		}
+
+		if (noGeometryType) {
+			geometryType = type;
+			noGeometryType = false;
+		} else if (geometryType != type) {
+			geometryType = null;
+		}
+
+		geometry = geometryBlob();
+	}
+
+	/**
+	 * Read a geometry object, writing the Well-Known Binary geometry
+	 *
+	 * @return geometry type, null for a null geometry
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private GeometryType readGeometry() throws IOException {
+
+		if (reader.readNull()) {
+			return null;
+		}
+
+		int structureStart = structureCount;
+		int coordinateStart = coordinateCount;
+		int wkbStart = wkbLength;
+		String type = null;
+		int geometries = -1;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			switch (name) {
+			case "type":
+				type = reader.readString();
+				break;
+			case "coordinates":
+				if (!reader.readNull()) {
+					readCoordinates();
+				}
+				break;
+			case "geometries":
+				// Write the collection header, the count and z flag are set
+				// after the member geometries are written
+				writeByte((byte) 1);
+				writeInt(WKB_GEOMETRYCOLLECTION);
+				writeInt(0);
+				geometries = 0;
+				boolean hasZ = false;
+				reader.beginArray();
+				while (reader.hasNext()) {
+					int memberStart = wkbLength;
+					if (readGeometry() != null) {
+						geometries++;
+						hasZ = hasZ || readInt(memberStart + 1) > 1000;
+					}
+				}
+				reader.endArray();
+				writeInt(wkbStart + 1, WKB_GEOMETRYCOLLECTION
+						+ (hasZ ? 1000 : 0));
+				writeInt(wkbStart + 5, geometries);
+				break;
+			default:
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		GeometryType geometryType;
+		if (geometries >= 0) {
+			geometryType = GeometryType.GEOMETRYCOLLECTION;
+		} else {
+			if (type == null) {
+				throw new GeoPackageException(
+						"GeoJSON geometry is missing a type in table "
+								+ tableName);
+			}
+			geometryType = writeGeometry(type, structureStart,
+					coordinateStart);
+		}
+
+		structureCount = structureStart;
+		coordinateCount = coordinateStart;
+
+		return geometryType;
+	}
+
+	/**
+	 * Read a coordinates array, recording the array structure and positions
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private void readCoordinates() throws IOException {
+		reader.beginArray();
+		int slot = structureCount;
+		addStructure(0);
+		int c = reader.peek();
+		if (c == '[') {
+			int children = 0;
+			while (reader.hasNext()) {
+				readCoordinates();
+				children++;
+			}
+			structure[slot] = children;
+		} else if (c != ']') {
+			if (coordinateCount + 3 > coordinates.length) {
+				coordinates = Arrays.copyOf(coordinates,
+						coordinates.length * 2);
+			}
+			int ordinates = 0;
+			while (reader.hasNext()) {
+				double value = reader.readNumber();
+				if (ordinates < 3) {
+					coordinates[coordinateCount + ordinates] = value;
+				}
+				ordinates++;
+			}
+			if (ordinates < 2) {
+				throw new GeoPackageException(
+						"GeoJSON position requires at least two values in table "
+								+ tableName);
+			}
+			if (ordinates == 2) {
+				coordinates[coordinateCount + 2] = Double.NaN;
+			}
+			coordinateCount += 3;
+			structure[slot] = -1;
+		}
+		reader.endArray();
+	}
+
+	/**
+	 * Add a structure entry
+	 *
+	 * @param value
+	 *            structure value
+	 */
+	private void addStructure(int value) {
+		if (structureCount == structure.length) {
+			structure = Arrays.copyOf(structure, structure.length * 2);
+		}
+		structure[structureCount++] = value;
+	}
+
+	/**
+	 * Write the Well-Known Binary geometry from the parsed coordinates
+	 *
+	 * @param type
+	 *            GeoJSON geometry type
+	 * @param structureStart
+	 *            first structure entry of the geometry
+	 * @param coordinateStart
+	 *            first coordinate of the geometry
+	 * @return geometry type
+	 */
+	private GeometryType writeGeometry(String type, int structureStart,
+			int coordinateStart) {
+
+		structureIndex = structureStart;
+		coordinateIndex = coordinateStart;
+
+		boolean hasZ = false;
+		for (int i = coordinateStart + 2; i < coordinateCount; i += 3) {
+			if (!Double.isNaN(coordinates[i])) {
+				hasZ = true;
+				break;
+			}
+		}
+
+		GeometryType geometryType;
+		switch (type) {
+		case "Point":
+			geometryType = GeometryType.POINT;
+			writeGeometryHeader(WKB_POINT, hasZ);
+			writePoint(hasZ);
+			break;
+		case "LineString":
+			geometryType = GeometryType.LINESTRING;
+			writeGeometryHeader(WKB_LINESTRING, hasZ);
+			writePositions(hasZ);
+			break;
+		case "Polygon":
+			geometryType = GeometryType.POLYGON;
+			writeGeometryHeader(WKB_POLYGON, hasZ);
+			writeRings(hasZ);
+			break;
+		case "MultiPoint":
+			geometryType = GeometryType.MULTIPOINT;
+			writeGeometryHeader(WKB_MULTIPOINT, hasZ);
+			int points = nextStructure();
+			writeInt(points);
+			for (int i = 0; i < points; i++) {
+				writeGeometryHeader(WKB_POINT, hasZ);
+				writePoint(hasZ);
+			}
+			break;
+		case "MultiLineString":
+			geometryType = GeometryType.MULTILINESTRING;
+			writeGeometryHeader(WKB_MULTILINESTRING, hasZ);
+			int lineStrings = nextStructure();
+			writeInt(lineStrings);
+			for (int i = 0; i < lineStrings; i++) {
+				writeGeometryHeader(WKB_LINESTRING, hasZ);
+				writePositions(hasZ);
+			}
+			break;
+		case "MultiPolygon":
+			geometryType = GeometryType.MULTIPOLYGON;
+			writeGeometryHeader(WKB_MULTIPOLYGON, hasZ);
+			int polygons = nextStructure();
+			writeInt(polygons);
+			for (int i = 0; i < polygons; i++) {
+				writeGeometryHeader(WKB_POLYGON, hasZ);
+				writeRings(hasZ);
+			}
+			break;
+		default:
+			throw new GeoPackageException("Unsupported GeoJSON geometry type: "
+					+ type + " in table " + tableName);
+		}
+
+		return geometryType;
+	}
+
+	/**
+	 * Write a Well-Known Binary geometry byte order and type
+	 *
+	 * @param code
+	 *            geometry type code
+	 * @param hasZ
+	 *            has z values
+	 */
+	private void writeGeometryHeader(int code, boolean hasZ) {
+		writeByte((byte) 1);
+		writeInt(code + (hasZ ? 1000 : 0));
+	}
+
+	/**
+	 * Write a point position, or NaN coordinates for an empty point
+	 *
+	 * @param hasZ
+	 *            has z values
+	 */
+	private void writePoint(boolean hasZ) {
+		if (nextStructure() == -1) {
+			writePosition(hasZ);
+		} else {
+			writeDouble(Double.NaN);
+			writeDouble(Double.NaN);
+			if (hasZ) {
+				writeDouble(Double.NaN);
+			}
+		}
+	}
+
+	/**
+	 * Write polygon rings
+	 *
+	 * @param hasZ
+	 *            has z values
+	 */
+	private void writeRings(boolean hasZ) {
+		int rings = nextStructure();
+		writeInt(rings);
+		for (int i = 0; i < rings; i++) {
+			writePositions(hasZ);
+		}
+	}
+
+	/**
+	 * Write a counted list of positions
+	 *
+	 * @param hasZ
+	 *            has z values
+	 */
+	private void writePositions(boolean hasZ) {
+		int positions = nextStructure();
+		writeInt(positions);
+		for (int i = 0; i < positions; i++) {
+			if (nextStructure() != -1) {
+				throw new GeoPackageException(
+						"GeoJSON coordinates are nested too deeply in table "
+								+ tableName);
+			}
+			writePosition(hasZ);
+		}
+	}
+
+	/**
+	 * Write the next position, expanding the feature envelope
+	 *
+	 * @param hasZ
+	 *            has z values
+	 */
+	private void writePosition(boolean hasZ) {
+		double x = coordinates[coordinateIndex];
+		double y = coordinates[coordinateIndex + 1];
+		double z = coordinates[coordinateIndex + 2];
+		coordinateIndex += 3;
+		writeDouble(x);
+		writeDouble(y);
+		featureHasPositions = true;
+		featureEnvelope[0] = Math.min(featureEnvelope[0], x);
+		featureEnvelope[1] = Math.max(featureEnvelope[1], x);
+		featureEnvelope[2] = Math.min(featureEnvelope[2], y);
+		featureEnvelope[3] = Math.max(featureEnvelope[3], y);
+		if (hasZ) {
+			if (Double.isNaN(z)) {
+				z = 0;
+			}
+			writeDouble(z);
+			featureHasZ = true;
+			featureEnvelope[4] = Math.min(featureEnvelope[4], z);
+			featureEnvelope[5] = Math.max(featureEnvelope[5], z);
+		}
+	}
+
+	/**
+	 * Get the next structure entry
+	 *
+	 * @return structure entry, 0 when there are no more entries
+	 */
+	private int nextStructure() {
+		int value = 0;
+		if (structureIndex < structureCount) {
+			value = structure[structureIndex++];
+		}
+		return value;
+	}
+
+	/**
+	 * Build the GeoPackage geometry blob from the Well-Known Binary geometry
+	 * and feature envelope
+	 *
+	 * @return geometry blob
+	 */
+	private byte[] geometryBlob() {
+
+		int envelopeIndicator = 0;
+		if (featureHasPositions) {
+			envelopeIndicator = featureHasZ ? 2 : 1;
+		}
+		int envelopeLength = envelopeIndicator == 0 ? 0
+				: envelopeIndicator == 1 ? 32 : 48;
+
+		byte[] blob = new byte[8 + envelopeLength + wkbLength];
+		ByteBuffer buffer = ByteBuffer.wrap(blob).order(
+				ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 'G');
+		buffer.put((byte) 'P');
+		buffer.put((byte) 0);
+		int flags = 1 | envelopeIndicator << 1;
+		if (!featureHasPositions) {
+			flags |= 1 << 4;
+		}
+		buffer.put((byte) flags);
+		buffer.putInt((int) srsId);
+		for (int i = 0; i < envelopeLength / 8; i++) {
+			buffer.putDouble(featureEnvelope[i]);
+		}
+		buffer.put(wkb, 0, wkbLength);
+
+		if (featureHasPositions) {
+			importEnvelope[0] = Math.min(importEnvelope[0], featureEnvelope[0]);
+			importEnvelope[1] = Math.max(importEnvelope[1], featureEnvelope[1]);
+			importEnvelope[2] = Math.min(importEnvelope[2], featureEnvelope[2]);
+			importEnvelope[3] = Math.max(importEnvelope[3], featureEnvelope[3]);
+			importHasZ = importHasZ || featureHasZ;
+		}
+
+		return blob;
+	}
+
+	/**
+	 * Create the feature table from the sampled features, prepare the insert
+	 * statement, and insert the sampled features
+	 *
+	 * @return insert SQL
+	 * @throws SQLException
+	 *             upon failure to create or insert
+	 */
+	private String createTable() throws SQLException {
+
+		// Infer the column data types from the sampled values
+		Map<String, GeoPackageDataType> dataTypes = new LinkedHashMap<>();
+		for (SampleFeature sample : samples) {
+			for (Map.Entry<String, Object> property : sample.properties
+					.entrySet()) {
+				String name = property.getKey();
+				dataTypes.put(name,
+						dataType(dataTypes.get(name), property.getValue()));
+			}
+		}
+
+		// Create unique column names for the properties
+		Set<String> columnNames = new HashSet<>();
+		columnNames.add(idColumnName.toLowerCase(Locale.US));
+		columnNames.add(geometryColumnName.toLowerCase(Locale.US));
+		List<FeatureColumn> additionalColumns = new ArrayList<>();
+		List<String> insertColumns = new ArrayList<>();
+		insertColumns.add(geometryColumnName);
+		propertyIndexes = new LinkedHashMap<>();
+		for (Map.Entry<String, GeoPackageDataType> dataType : dataTypes
+				.entrySet()) {
+			String name = dataType.getKey();
+			String columnName = name;
+			for (int i = 1; columnNames.contains(columnName
+					.toLowerCase(Locale.US)); i++) {
+				columnName = name + "_" + i;
+			}
+			columnNames.add(columnName.toLowerCase(Locale.US));
+			GeoPackageDataType type = dataType.getValue();
+			if (type == null) {
+				type = GeoPackageDataType.TEXT;
+			}
+			additionalColumns.add(FeatureColumn.createColumn(
+					additionalColumns.size() + 2, columnName, type, false,
+					null));
+			propertyIndexes.put(name, insertColumns.size());
+			insertColumns.add(columnName);
+		}
+		values = new Object[insertColumns.size()];
+
+		// Create the table, updating the geometry type and envelope after the
+		// import
+		GeometryColumns geometryColumns = new GeometryColumns();
+		geometryColumns.setId(new TableColumnKey(tableName,
+				geometryColumnName));
+		geometryColumns.setGeometryType(GeometryType.GEOMETRY);
+		geometryColumns.setZ((byte) 2);
+		geometryColumns.setM((byte) 0);
+		geoPackage.createFeatureTableWithMetadata(geometryColumns,
+				idColumnName, additionalColumns, new GeometryEnvelope(0, 0, 0,
+						0), srsId);
+
+		String sql = SQLUtils.insertSQL(tableName,
+				insertColumns.toArray(new String[insertColumns.size()]));
+		statement = connection.prepareStatement(sql);
+
+		transaction = connection.getAutoCommit();
+		if (transaction) {
+			connection.setAutoCommit(false);
+		}
+
+		List<SampleFeature> sampled = samples;
+		samples = null;
+		for (SampleFeature sample : sampled) {
+			Arrays.fill(values, null);
+			values[0] = sample.geometry;
+			for (Map.Entry<String, Object> property : sample.properties
+					.entrySet()) {
+				values[propertyIndexes.get(property.getKey())] = property
+						.getValue();
+			}
+			insert();
+		}
+
+		return sql;
+	}
+
+	/**
+	 * Merge the data type of a sampled value into the inferred data type
+	 *
+	 * @param dataType
+	 *            inferred data type, null when only null values were sampled
+	 * @param value
+	 *            sampled value
+	 * @return merged data type
+	 */
+	private static GeoPackageDataType dataType(GeoPackageDataType dataType,
+			Object value) {
+		GeoPackageDataType valueType;
+		if (value == null) {
+			return dataType;
+		} else if (value instanceof Long) {
+			valueType = GeoPackageDataType.INTEGER;
+		} else if (value instanceof Double) {
+			valueType = GeoPackageDataType.REAL;
+		} else if (value instanceof Boolean) {
+			valueType = GeoPackageDataType.BOOLEAN;
+		} else {
+			valueType = GeoPackageDataType.TEXT;
+		}
+
+		GeoPackageDataType merged;
+		if (dataType == null || dataType == valueType) {
+			merged = valueType;
+		} else if ((dataType == GeoPackageDataType.INTEGER && valueType == GeoPackageDataType.REAL)
+				|| (dataType == GeoPackageDataType.REAL && valueType == GeoPackageDataType.INTEGER)) {
+			merged = GeoPackageDataType.REAL;
+		} else {
+			merged = GeoPackageDataType.TEXT;
+		}
+		return merged;
+	}
+
+	/**
+	 * Finish the import, closing the statement and restoring the connection
+	 *
+	 * @param sql
+	 *            insert SQL
+	 * @param success
+	 *            true if the import succeeded
+	 */
+	private void finish(String sql, boolean success) {
+		if (transaction) {
+			try {
+				if (!success) {
+					connection.rollback();
+				}
+				connection.setAutoCommit(true);
+			} catch (SQLException e) {
+				log.log(Level.WARNING,
+						"Failed to restore auto commit after GeoJSON import into table: "
+								+ tableName, e);
+			}
+		}
+		SQLUtils.closeStatement(statement, sql);
+		statement = null;
+		reader = null;
+		samples = null;
+		sampleProperties = null;
+		connection = null;
+	}
+
+	/**
+	 * Delete the partially imported table and its metadata after a failed
+	 * import, as features committed in earlier transactions remain
+	 */
+	private void deleteTable() {
+		try {
+			if (geoPackage.isTableExists(tableName)
+					|| geoPackage.getContentsDao().queryForId(tableName) != null) {
+				geoPackage.deleteTable(tableName);
+			}
+		} catch (Exception e) {
+			log.log(Level.WARNING,
+					"Failed to delete the partially imported GeoJSON table: "
+							+ tableName, e);
+		}
+	}
+
+	/**
+	 * Update the geometry columns type and z flag, and the contents bounding
+	 * box, from the imported geometries
+	 */
+	private void updateMetadata() {
+		try {
+
+			GeometryColumnsDao geometryColumnsDao = geoPackage
+					.getGeometryColumnsDao();
+			GeometryColumns geometryColumns = geometryColumnsDao
+					.queryForTableName(tableName);
+			if (geometryType != null) {
+				geometryColumns.setGeometryType(geometryType);
+			}
+			geometryColumns.setZ((byte) (importHasZ ? 2 : 0));
+			geometryColumnsDao.update(geometryColumns);
+
+			if (importEnvelope[0] <= importEnvelope[1]) {
+				ContentsDao contentsDao = geoPackage.getContentsDao();
+				Contents contents = contentsDao.queryForId(tableName);
+				contents.setMinX(importEnvelope[0]);
+				contents.setMaxX(importEnvelope[1]);
+				contents.setMinY(importEnvelope[2]);
+				contents.setMaxY(importEnvelope[3]);
+				contentsDao.update(contents);
+			}
+
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to update the feature metadata for imported table: "
+							+ tableName, e);
+		}
+	}
+
+	/**
+	 * Write a byte to the Well-Known Binary bytes
+	 *
+	 * @param value
+	 *            byte value
+	 */
+	private void writeByte(byte value) {
+		ensureWkb(1);
+		wkb[wkbLength++] = value;
+	}
+
+	/**
+	 * Write a little endian int to the Well-Known Binary bytes
+	 *
+	 * @param value
+	 *            int value
+	 */
+	private void writeInt(int value) {
+		ensureWkb(4);
+		writeInt(wkbLength, value);
+		wkbLength += 4;
+	}
+
+	/**
+	 * Write a little endian int at an offset in the Well-Known Binary bytes
+	 *
+	 * @param offset
+	 *            byte offset
+	 * @param value
+	 *            int value
+	 */
+	private void writeInt(int offset, int value) {
+		wkb[offset] = (byte) value;
+		wkb[offset + 1] = (byte) (value >> 8);
+		wkb[offset + 2] = (byte) (value >> 16);
+		wkb[offset + 3] = (byte) (value >> 24);
+	}
+
+	/**
+	 * Read a little endian int at an offset in the Well-Known Binary bytes
+	 *
+	 * @param offset
+	 *            byte offset
+	 * @return int value
+	 */
+	private int readInt(int offset) {
+		return (wkb[offset] & 0xff) | (wkb[offset + 1] & 0xff) << 8
+				| (wkb[offset + 2] & 0xff) << 16 | (wkb[offset + 3] & 0xff) << 24;
+	}
+
+	/**
+	 * Write a little endian double to the Well-Known Binary bytes
+	 *
+	 * @param value
+	 *            double value
+	 */
+	private void writeDouble(double value) {
+		ensureWkb(8);
+		long bits = Double.doubleToRawLongBits(value);
+		writeInt(wkbLength, (int) bits);
+		writeInt(wkbLength + 4, (int) (bits >>> 32));
+		wkbLength += 8;
+	}
+
+	/**
+	 * Ensure the Well-Known Binary bytes have room for the number of bytes
+	 *
+	 * @param bytes
+	 *            number of bytes
+	 */
+	private void ensureWkb(int bytes) {
+		if (wkbLength + bytes > wkb.length) {
+			wkb = Arrays.copyOf(wkb, Math.max(wkb.length * 2, wkbLength
+					+ bytes));
+		}
+	}
+
+	/**
+	 * Sampled feature geometry and properties
+	 */
+	private static class SampleFeature {
+
+		/**
+		 * Geometry blob
+		 */
+		private final byte[] geometry;
+
+		/**
+		 * Properties
+		 */
+		private final Map<String, Object> properties;
+
+		/**
+		 * Constructor
+		 *
+		 * @param geometry
+		 *            geometry blob
+		 * @param properties
+		 *            properties
+		 */
+		private SampleFeature(byte[] geometry, Map<String, Object> properties) {
+			this.geometry = geometry;
+			this.properties = properties;
+		}
+
+	}
+
+}
@@ -0,0 +1,1371 @@
+package mil.nga.geopackage.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.CoreSQLUtils;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
+import mil.nga.geopackage.extension.index.GeometryIndex;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
+import mil.nga.geopackage.user.UserCoreResultUtils;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.projection.Projection;
+import mil.nga.sf.projection.ProjectionTransform;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
+
+/**
+ * Streams a feature table as GeoJSON or newline delimited GeoJSON to an output
+ * stream. Rows are read one at a time from a feature result set and the
+ * Well-Known Binary geometries are encoded directly from the geometry bytes
+ * into a reusable buffer, so memory use is constant regardless of the table
+ * size.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureGeoJsonWriter {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger
+			.getLogger(FeatureGeoJsonWriter.class.getName());
+
+	/**
+	 * Default buffer size in bytes
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Feature collection start
+	 */
+	private static final byte[] COLLECTION_START = bytes("{\"type\":\"FeatureCollection\",\"features\":[");
+
+	/**
+	 * Feature collection end
+	 */
+	private static final byte[] COLLECTION_END = bytes("]}");
+
+	/**
+	 * Feature start
+	 */
+	private static final byte[] FEATURE_START = bytes("{\"type\":\"Feature\"");
+
+	/**
+	 * Feature id member
+	 */
+	private static final byte[] ID = bytes(",\"id\":");
+
+	/**
+	 * Feature geometry member
+	 */
+	private static final byte[] GEOMETRY = bytes(",\"geometry\":");
+
+	/**
+	 * Feature properties member
+	 */
+	private static final byte[] PROPERTIES = bytes(",\"properties\":{");
+
+	/**
+	 * Geometry type member start
+	 */
+	private static final byte[] TYPE = bytes("{\"type\":\"");
+
+	/**
+	 * Geometry coordinates member
+	 */
+	private static final byte[] COORDINATES = bytes("\",\"coordinates\":");
+
+	/**
+	 * Geometry collection geometries member
+	 */
+	private static final byte[] GEOMETRIES = bytes("\",\"geometries\":[");
+
+	/**
+	 * Null value
+	 */
+	private static final byte[] NULL = bytes("null");
+
+	/**
+	 * True value
+	 */
+	private static final byte[] TRUE = bytes("true");
+
+	/**
+	 * False value
+	 */
+	private static final byte[] FALSE = bytes("false");
+
+	/**
+	 * Hex digits for escaped characters
+	 */
+	private static final byte[] HEX = bytes("0123456789abcdef");
+
+	/**
+	 * Base64 alphabet for blob values
+	 */
+	private static final byte[] BASE64 = bytes("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+
+	/**
+	 * Well-Known Binary geometry type codes
+	 */
+	private static final int WKB_POINT = 1, WKB_LINESTRING = 2,
+			WKB_POLYGON = 3, WKB_MULTIPOINT = 4, WKB_MULTILINESTRING = 5,
+			WKB_MULTIPOLYGON = 6, WKB_GEOMETRYCOLLECTION = 7,
+			WKB_POLYHEDRALSURFACE = 15, WKB_TIN = 16, WKB_TRIANGLE = 17;
+
+	/**
+	 * Feature DAO
+	 */
+	private final FeatureDao featureDao;
+
+	/**
+	 * Output buffer, reused across writes
+	 */
+	private final byte[] buffer;
+
+	/**
+	 * Number of bytes in the output buffer
+	 */
+	private int length = 0;
+
+	/**
+	 * Current output stream
+	 */
+	private OutputStream out;
+
+	/**
+	 * Newline delimited output flag, one feature per line without a feature
+	 * collection
+	 */
+	private boolean delimited = false;
+
+	/**
+	 * Bounding box filter in the feature projection
+	 */
+	private GeometryEnvelope boundingBox;
+
+	/**
+	 * Feature table index used for bounding box queries when indexed
+	 */
+	private FeatureTableIndex featureIndex;
+
+	/**
+	 * Output projection, null to write in the feature projection
+	 */
+	private Projection projection;
+
+	/**
+	 * Output projection transform of the current write, null to write in the
+	 * feature projection
+	 */
+	private ProjectionTransform transform;
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * Geometry bytes being encoded
+	 */
+	private byte[] wkb;
+
+	/**
+	 * Position in the geometry bytes
+	 */
+	private int wkbPosition;
+
+	/**
+	 * Byte order of the most recently read geometry, each geometry records
+	 * its own byte order
+	 */
+	private boolean littleEndian;
+
+	/**
+	 * Constructor
+	 *
+	 * @param featureDao
+	 *            feature DAO
+	 */
+	public FeatureGeoJsonWriter(FeatureDao featureDao) {
+		this(featureDao, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param featureDao
+	 *            feature DAO
+	 * @param bufferSize
+	 *            output buffer size in bytes
+	 */
+	public FeatureGeoJsonWriter(FeatureDao featureDao, int bufferSize) {
+		if (bufferSize < 64) {
+			throw new GeoPackageException(
+					"GeoJSON buffer size must be at least 64: " + bufferSize);
+		}
+		this.featureDao = featureDao;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Get the feature DAO
+	 *
+	 * @return feature DAO
+	 */
+	public FeatureDao getFeatureDao() {
+		return featureDao;
+	}
+
+	/**
+	 * Is newline delimited output enabled
+	 *
+	 * @return true if newline delimited
+	 */
+	public boolean isDelimited() {
+		return delimited;
+	}
+
+	/**
+	 * Set newline delimited output, writing one feature per line instead of a
+	 * feature collection
+	 *
+	 * @param delimited
+	 *            true for newline delimited GeoJSON
+	 */
+	public void setDelimited(boolean delimited) {
+		this.delimited = delimited;
+	}
+
+	/**
+	 * Get the bounding box filter in the feature projection
+	 *
+	 * @return bounding box, null when not filtered
+	 */
+	public GeometryEnvelope getBoundingBox() {
+		return boundingBox;
+	}
+
+	/**
+	 * Set the bounding box filter in the feature projection
+	 *
+	 * @param boundingBox
+	 *            bounding box, null to not filter
+	 */
+	public void setBoundingBox(GeometryEnvelope boundingBox) {
+		this.boundingBox = boundingBox;
+	}
+
+	/**
+	 * Set the bounding box filter in the provided projection
+	 *
+	 * @param boundingBox
+	 *            bounding box
+	 * @param projection
+	 *            projection of the bounding box
+	 */
+	public void setBoundingBox(GeometryEnvelope boundingBox,
+			Projection projection) {
+		this.boundingBox = ProjectionTransformCache.transform(projection,
+				featureDao.getProjection(), boundingBox);
+	}
+
+	/**
+	 * Get the feature table index
+	 *
+	 * @return feature table index, null if not set
+	 */
+	public FeatureTableIndex getFeatureIndex() {
+		return featureIndex;
+	}
+
+	/**
+	 * Set the feature table index used for bounding box filtering. When not
+	 * set or not indexed, bounding boxes are filtered by scanning the geometry
+	 * header envelopes.
+	 *
+	 * @param featureIndex
+	 *            feature table index
+	 */
+	public void setFeatureIndex(FeatureTableIndex featureIndex) {
+		this.featureIndex = featureIndex;
+	}
+
+	/**
+	 * Set the output projection, null to write in the feature projection
+	 *
+	 * @param projection
+	 *            output projection
+	 */
+	public void setProjection(Projection projection) {
+		this.projection = projection;
+	}
+
+	/**
+	 * Get the output projection
+	 *
+	 * @return output projection, null when writing in the feature projection
+	 */
+	public Projection getProjection() {
+		return projection;
+	}
+
+	/**
+	 * Get the output projection transform from the projection transform
+	 * cache, for use by the calling thread
+	 *
+	 * @return projection transform, null when writing in the feature
+	 *         projection
+	 */
+	public ProjectionTransform getProjectionTransform() {
+		ProjectionTransform projectionTransform = null;
+		if (projection != null) {
+			projectionTransform = ProjectionTransformCache.getTransform(
+					featureDao.getProjection(), projection);
+		}
+		return projectionTransform;
+	}
+
+	/**
+	 * Set the progress
+	 *
+	 * @param progress
+	 *            progress
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Write the features to a file
+	 *
+	 * @param file
+	 *            output file
+	 * @return number of features written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public int write(File file) throws IOException {
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			return write(outputStream);
+		}
+	}
+
+	/**
+	 * Write the features to an output stream. The stream is flushed but not
+	 * closed.
+	 *
+	 * @param outputStream
+	 *            output stream
+	 * @return number of features written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public synchronized int write(OutputStream outputStream)
+			throws IOException {
+
+		out = outputStream;
+		length = 0;
+		transform = getProjectionTransform();
+
+		int count = 0;
+		FeatureResultSet resultSet = query();
+		try {
+
+			FeatureTable table = featureDao.getTable();
+			int pkIndex = table.getPkColumnIndex();
+			int geometryIndex = table.getGeometryColumnIndex();
+			byte[][] propertyNames = propertyNames(table, pkIndex,
+					geometryIndex);
+			boolean filter = boundingBox != null && !isIndexQuery();
+
+			if (!delimited) {
+				write(COLLECTION_START);
+			}
+
+			while ((progress == null || progress.isActive())
+					&& resultSet.moveToNext()) {
+
+				byte[] geometryBytes = resultSet.getBlob(geometryIndex);
+				GeoPackageGeometryHeader header = null;
+				if (geometryBytes != null) {
+					header = new GeoPackageGeometryHeader(geometryBytes);
+				}
+				if (filter && !intersects(header)) {
+					continue;
+				}
+
+				if (count > 0 && !delimited) {
+					write((byte) ',');
+				}
+				writeFeature(resultSet, header, propertyNames, pkIndex);
+				if (delimited) {
+					write((byte) '\n');
+				}
+				count++;
+
+				if (progress != null) {
+					progress.addProgress(1);
+				}
+			}
+
+			if (!delimited) {
+				write(COLLECTION_END);
+			}
+			flush();
+
+		} finally {
+			resultSet.close();
+			out = null;
+			wkb = null;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Query for the features to write
+	 *
+	 * @return feature result set
+	 */
+	private FeatureResultSet query() {
+		FeatureResultSet resultSet;
+		if (isIndexQuery()) {
+			String where = CoreSQLUtils.quoteWrap(featureDao.getTable()
+					.getPkColumn().getName())
+					+ " IN (SELECT "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_GEOM_ID)
+					+ " FROM "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.TABLE_NAME)
+					+ " WHERE "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_TABLE_NAME)
+					+ " = ? AND "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_X)
+					+ " <= ? AND "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_X)
+					+ " >= ? AND "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MIN_Y)
+					+ " <= ? AND "
+					+ CoreSQLUtils.quoteWrap(GeometryIndex.COLUMN_MAX_Y)
+					+ " >= ?)";
+			String[] whereArgs = new String[] { featureDao.getTableName(),
+					String.valueOf(boundingBox.getMaxX()),
+					String.valueOf(boundingBox.getMinX()),
+					String.valueOf(boundingBox.getMaxY()),
+					String.valueOf(boundingBox.getMinY()) };
+			resultSet = featureDao.query(where, whereArgs);
+		} else {
+			resultSet = featureDao.queryForAll();
+		}
+		return resultSet;
+	}
+
+	/**
+	 * Determine if the bounding box filter is queried through the feature
+	 * table index
+	 *
+	 * @return true if queried through the index
+	 */
+	private boolean isIndexQuery() {
+		return boundingBox != null && featureIndex != null
+				&& featureIndex.isIndexed();
+	}
+
+	/**
+	 * Determine if the geometry envelope intersects the bounding box filter
+	 *
+	 * @param header
+	 *            geometry header
+	 * @return true if intersects
+	 */
+	private boolean intersects(GeoPackageGeometryHeader header) {
+		boolean intersects = false;
+		if (header != null && !header.isEmpty()) {
+			GeometryEnvelope envelope = header.getEnvelope();
+			if (envelope == null) {
+				Geometry geometry = header.readGeometry();
+				if (geometry != null) {
+					envelope = GeometryEnvelopeBuilder.buildEnvelope(geometry);
+				}
+			}
+			intersects = envelope != null
+					&& envelope.getMinX() <= boundingBox.getMaxX()
+					&& envelope.getMaxX() >= boundingBox.getMinX()
+					&& envelope.getMinY() <= boundingBox.getMaxY()
+					&& envelope.getMaxY() >= boundingBox.getMinY();
+		}
+		return intersects;
+	}
+
+	/**
+	 * Build the encoded property member names, null for the primary key and
+	 * geometry columns
+	 *
+	 * @param table
+	 *            feature table
+	 * @param pkIndex
+	 *            primary key column index
+	 * @param geometryIndex
+	 *            geometry column index
+	 * @return property member names by column index
+	 */
+	private static byte[][] propertyNames(FeatureTable table, int pkIndex,
+			int geometryIndex) {
+		byte[][] propertyNames = new byte[table.columnCount()][];
+		for (int i = 0; i < propertyNames.length; i++) {
+			if (i != pkIndex && i != geometryIndex) {
+				StringBuilder name = new StringBuilder();
+				name.append('"');
+				appendEscaped(name, table.getColumnName(i));
+				name.append("\":");
+				propertyNames[i] = bytes(name.toString());
+			}
+		}
+		return propertyNames;
+	}
+
+	/**
+	 * Write the current feature row
+	 *
+	 * @param resultSet
+	 *            feature result set
+	 * @param header
+	 *            geometry header, null for no geometry
+	 * @param propertyNames
+	 *            property member names by column index
+	 * @param pkIndex
+	 *            primary key column index
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeFeature(FeatureResultSet resultSet,
+			GeoPackageGeometryHeader header, byte[][] propertyNames,
+			int pkIndex) throws IOException {
+
+		write(FEATURE_START);
+		if (pkIndex >= 0) {
+			write(ID);
+			writeLong(resultSet.getLong(pkIndex));
+		}
+
+		write(GEOMETRY);
+		writeGeometry(header);
+
+		write(PROPERTIES);
+		FeatureTable table = featureDao.getTable();
+		boolean first = true;
+		for (int i = 0; i < propertyNames.length; i++) {
+			byte[] propertyName = propertyNames[i];
+			if (propertyName == null) {
+				continue;
+			}
+			if (!first) {
+				write((byte) ',');
+			}
+			first = false;
+			write(propertyName);
+
+			FeatureColumn column = table.getColumn(i);
+			switch (resultSet.getType(i)) {
+			case UserCoreResultUtils.FIELD_TYPE_INTEGER:
+				long value = resultSet.getLong(i);
+				if (resultSet.wasNull()) {
+					write(NULL);
+				} else if (column.getDataType() == GeoPackageDataType.BOOLEAN) {
+					write(value != 0 ? TRUE : FALSE);
+				} else {
+					writeLong(value);
+				}
+				break;
+			case UserCoreResultUtils.FIELD_TYPE_FLOAT:
+				double doubleValue = resultSet.getDouble(i);
+				if (resultSet.wasNull()) {
+					write(NULL);
+				} else {
+					writeDouble(doubleValue);
+				}
+				break;
+			case UserCoreResultUtils.FIELD_TYPE_STRING:
+				writeString(resultSet.getString(i));
+				break;
+			case UserCoreResultUtils.FIELD_TYPE_BLOB:
+				writeBase64(resultSet.getBlob(i));
+				break;
+			default:
+				write(NULL);
+			}
+		}
+		write((byte) '}');
+		write((byte) '}');
+	}
+
+	/**
+	 * Write the geometry from the geometry bytes
+	 *
+	 * @param header
+	 *            geometry header, null for no geometry
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeGeometry(GeoPackageGeometryHeader header)
+			throws IOException {
+
+		if (header == null || header.isEmpty()
+				|| header.getBytes().length < header.getWkbGeometryIndex() + 5) {
+			write(NULL);
+			return;
+		}
+
+		wkb = header.getBytes();
+		wkbPosition = header.getWkbGeometryIndex();
+
+		// Check the geometry and all member geometries are supported and
+		// complete before writing
+		if (skipWkbGeometry(wkbPosition) < 0) {
+			log.log(Level.WARNING,
+					"Unsupported or incomplete GeoJSON geometry in table "
+							+ featureDao.getTableName()
+							+ ", writing a null geometry");
+			write(NULL);
+			return;
+		}
+
+		writeWkbGeometry();
+	}
+
+	/**
+	 * Write the Well-Known Binary geometry at the current position
+	 *
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeWkbGeometry() throws IOException {
+
+		int code = readGeometryCode();
+		boolean littleEndian = this.littleEndian;
+		boolean hasZ = hasZ(code);
+		boolean hasM = hasM(code);
+		int type = geometryType(code);
+
+		switch (type) {
+		case WKB_POINT:
+			writeType("Point");
+			write(COORDINATES);
+			writePoint(hasZ, hasM);
+			write((byte) '}');
+			break;
+		case WKB_LINESTRING:
+			writeType("LineString");
+			write(COORDINATES);
+			writePositions(hasZ, hasM);
+			write((byte) '}');
+			break;
+		case WKB_POLYGON:
+		case WKB_TRIANGLE:
+			writeType("Polygon");
+			write(COORDINATES);
+			writeRings(hasZ, hasM);
+			write((byte) '}');
+			break;
+		case WKB_MULTIPOINT:
+			writeType("MultiPoint");
+			write(COORDINATES);
+			writeMulti(WKB_POINT);
+			write((byte) '}');
+			break;
+		case WKB_MULTILINESTRING:
+			writeType("MultiLineString");
+			write(COORDINATES);
+			writeMulti(WKB_LINESTRING);
+			write((byte) '}');
+			break;
+		case WKB_MULTIPOLYGON:
+		case WKB_POLYHEDRALSURFACE:
+		case WKB_TIN:
+			writeType("MultiPolygon");
+			write(COORDINATES);
+			writeMulti(WKB_POLYGON);
+			write((byte) '}');
+			break;
+		case WKB_GEOMETRYCOLLECTION:
+			writeType("GeometryCollection");
+			write(GEOMETRIES);
+			int count = readInt(littleEndian);
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					write((byte) ',');
+				}
+				writeWkbGeometry();
+			}
+			write((byte) ']');
+			write((byte) '}');
+			break;
+		default:
+			throw new GeoPackageException(
+					"Unsupported GeoJSON geometry type code " + type
+							+ " in table " + featureDao.getTableName());
+		}
+	}
+
+	/**
+	 * Write the coordinates of the multi geometry members at the current
+	 * position
+	 *
+	 * @param memberType
+	 *            point, line string, or polygon member type
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeMulti(int memberType) throws IOException {
+		int count = readInt(littleEndian);
+		write((byte) '[');
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				write((byte) ',');
+			}
+			int code = readGeometryCode();
+			boolean hasZ = hasZ(code);
+			boolean hasM = hasM(code);
+			switch (memberType) {
+			case WKB_POINT:
+				writePoint(hasZ, hasM);
+				break;
+			case WKB_LINESTRING:
+				writePositions(hasZ, hasM);
+				break;
+			default:
+				writeRings(hasZ, hasM);
+			}
+		}
+		write((byte) ']');
+	}
+
+	/**
+	 * Write polygon rings at the current position
+	 *
+	 * @param hasZ
+	 *            has z values
+	 * @param hasM
+	 *            has m values
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeRings(boolean hasZ, boolean hasM) throws IOException {
+		int count = readInt(littleEndian);
+		write((byte) '[');
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				write((byte) ',');
+			}
+			writePositions(hasZ, hasM);
+		}
+		write((byte) ']');
+	}
+
+	/**
+	 * Write a counted list of positions at the current position
+	 *
+	 * @param hasZ
+	 *            has z values
+	 * @param hasM
+	 *            has m values
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writePositions(boolean hasZ, boolean hasM)
+			throws IOException {
+		int count = readInt(littleEndian);
+		write((byte) '[');
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				write((byte) ',');
+			}
+			writePosition(hasZ, hasM);
+		}
+		write((byte) ']');
+	}
+
+	/**
+	 * Write a point position, or an empty array for an empty point
+	 *
+	 * @param hasZ
+	 *            has z values
+	 * @param hasM
+	 *            has m values
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writePoint(boolean hasZ, boolean hasM) throws IOException {
+		double x = readDouble(wkbPosition, littleEndian);
+		double y = readDouble(wkbPosition + 8, littleEndian);
+		if (Double.isNaN(x) && Double.isNaN(y)) {
+			wkbPosition += 16 + (hasZ ? 8 : 0) + (hasM ? 8 : 0);
+			write((byte) '[');
+			write((byte) ']');
+		} else {
+			writePosition(hasZ, hasM);
+		}
+	}
+
+	/**
+	 * Write a position, transforming when an output projection is set. M
+	 * values are not part of GeoJSON and are skipped.
+	 *
+	 * @param hasZ
+	 *            has z values
+	 * @param hasM
+	 *            has m values
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writePosition(boolean hasZ, boolean hasM) throws IOException {
+		double x = readDouble(wkbPosition, littleEndian);
+		double y = readDouble(wkbPosition + 8, littleEndian);
+		wkbPosition += 16;
+		if (transform != null) {
+			double[] transformed = transform.transform(x, y);
+			x = transformed[0];
+			y = transformed[1];
+		}
+		write((byte) '[');
+		writeDouble(x);
+		write((byte) ',');
+		writeDouble(y);
+		if (hasZ) {
+			write((byte) ',');
+			writeDouble(readDouble(wkbPosition, littleEndian));
+			wkbPosition += 8;
+		}
+		if (hasM) {
+			wkbPosition += 8;
+		}
+		write((byte) ']');
+	}
+
+	/**
+	 * Write a geometry type member
+	 *
+	 * @param type
+	 *            GeoJSON geometry type
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeType(String type) throws IOException {
+		write(TYPE);
+		writeAscii(type);
+	}
+
+	/**
+	 * Read the byte order and geometry type code of the geometry at the
+	 * current position, skipping an Extended Well-Known Binary SRID
+	 *
+	 * @return geometry type code
+	 */
+	private int readGeometryCode() {
+		boolean littleEndian = wkb[wkbPosition++] == 1;
+		int code = readInt(littleEndian);
+		if ((code & 0x20000000) != 0) {
+			wkbPosition += 4;
+		}
+		return code;
+	}
+
+	/**
+	 * Determine if a geometry type code has z values, from the ISO dimension
+	 * or the Extended Well-Known Binary flag
+	 *
+	 * @param code
+	 *            geometry type code
+	 * @return true if has z values
+	 */
+	private static boolean hasZ(int code) {
+		int dimension = (code & 0x0FFFFFFF) / 1000;
+		return (code & 0x80000000) != 0 || dimension == 1 || dimension == 3;
+	}
+
+	/**
+	 * Determine if a geometry type code has m values, from the ISO dimension
+	 * or the Extended Well-Known Binary flag
+	 *
+	 * @param code
+	 *            geometry type code
+	 * @return true if has m values
+	 */
+	private static boolean hasM(int code) {
+		int dimension = (code & 0x0FFFFFFF) / 1000;
+		return (code & 0x40000000) != 0 || dimension == 2 || dimension == 3;
+	}
+
+	/**
+	 * Read an int at the current position, advancing the position
+	 *
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return int value
+	 */
+	private int readInt(boolean littleEndian) {
+		this.littleEndian = littleEndian;
+		int value = readInt(wkbPosition, littleEndian);
+		wkbPosition += 4;
+		return value;
+	}
+
+	/**
+	 * Read an int from the geometry bytes
+	 *
+	 * @param offset
+	 *            byte offset
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return int value
+	 */
+	private int readInt(int offset, boolean littleEndian) {
+		int value;
+		if (littleEndian) {
+			value = (wkb[offset] & 0xff) | (wkb[offset + 1] & 0xff) << 8
+					| (wkb[offset + 2] & 0xff) << 16
+					| (wkb[offset + 3] & 0xff) << 24;
+		} else {
+			value = (wkb[offset] & 0xff) << 24
+					| (wkb[offset + 1] & 0xff) << 16
+					| (wkb[offset + 2] & 0xff) << 8
+					| (wkb[offset + 3] & 0xff);
+		}
+		return value;
+	}
+
+	/**
+	 * Read a double from the geometry bytes
+	 *
+	 * @param offset
+	 *            byte offset
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return double value
+	 */
+	private double readDouble(int offset, boolean littleEndian) {
+		long low = readInt(offset, littleEndian) & 0xffffffffL;
+		long high = readInt(offset + 4, littleEndian) & 0xffffffffL;
+		long bits = littleEndian ? high << 32 | low : low << 32 | high;
+		return Double.longBitsToDouble(bits);
+	}
+
+	/**
+	 * Get the geometry type from a Well-Known Binary geometry type code
+	 *
+	 * @param code
+	 *            geometry type code
+	 * @return geometry type
+	 */
+	private static int geometryType(int code) {
+		return (code & 0x0FFFFFFF) % 1000;
+	}
+
+	/**
+	 * Skip the Well-Known Binary geometry at the position without writing,
+	 * validating the geometry and all member geometry types are supported and
+	 * the geometry bytes are complete
+	 *
+	 * @param position
+	 *            geometry byte position
+	 * @return position after the geometry, -1 if not supported or incomplete
+	 */
+	private int skipWkbGeometry(int position) {
+
+		if (position + 5 > wkb.length) {
+			return -1;
+		}
+		boolean littleEndian = wkb[position] == 1;
+		int code = readInt(position + 1, littleEndian);
+		position += 5;
+		if ((code & 0x20000000) != 0) {
+			position += 4;
+		}
+		int positionSize = 16 + (hasZ(code) ? 8 : 0) + (hasM(code) ? 8 : 0);
+
+		switch (geometryType(code)) {
+		case WKB_POINT:
+			position += positionSize;
+			break;
+		case WKB_LINESTRING:
+			position = skipCounted(position, littleEndian, positionSize);
+			break;
+		case WKB_POLYGON:
+		case WKB_TRIANGLE:
+			position = skipRings(position, littleEndian, positionSize);
+			break;
+		case WKB_MULTIPOINT:
+			position = skipMembers(position, littleEndian, WKB_POINT,
+					WKB_POINT);
+			break;
+		case WKB_MULTILINESTRING:
+			position = skipMembers(position, littleEndian, WKB_LINESTRING,
+					WKB_LINESTRING);
+			break;
+		case WKB_MULTIPOLYGON:
+		case WKB_POLYHEDRALSURFACE:
+		case WKB_TIN:
+			position = skipMembers(position, littleEndian, WKB_POLYGON,
+					WKB_TRIANGLE);
+			break;
+		case WKB_GEOMETRYCOLLECTION:
+			int count = readCount(position, littleEndian);
+			position = count < 0 ? -1 : position + 4;
+			for (int i = 0; i < count && position >= 0; i++) {
+				position = skipWkbGeometry(position);
+			}
+			break;
+		default:
+			position = -1;
+		}
+
+		return position <= wkb.length ? position : -1;
+	}
+
+	/**
+	 * Skip the multi geometry members at the position, validating each
+	 * member is of one of the member types
+	 *
+	 * @param position
+	 *            member count byte position
+	 * @param littleEndian
+	 *            true if little endian
+	 * @param memberType
+	 *            member type
+	 * @param alternateMemberType
+	 *            alternate member type
+	 * @return position after the members, -1 if not supported or incomplete
+	 */
+	private int skipMembers(int position, boolean littleEndian,
+			int memberType, int alternateMemberType) {
+		int count = readCount(position, littleEndian);
+		position = count < 0 ? -1 : position + 4;
+		for (int i = 0; i < count && position >= 0; i++) {
+			if (position + 5 > wkb.length) {
+				return -1;
+			}
+			int type = geometryType(readInt(position + 1, wkb[position] == 1));
+			if (type != memberType && type != alternateMemberType) {
+				return -1;
+			}
+			position = skipWkbGeometry(position);
+		}
+		return position;
+	}
+
+	/**
+	 * Skip the polygon rings at the position
+	 *
+	 * @param position
+	 *            ring count byte position
+	 * @param littleEndian
+	 *            true if little endian
+	 * @param positionSize
+	 *            bytes per position
+	 * @return position after the rings, -1 if incomplete
+	 */
+	private int skipRings(int position, boolean littleEndian, int positionSize) {
+		int count = readCount(position, littleEndian);
+		position = count < 0 ? -1 : position + 4;
+		for (int i = 0; i < count && position >= 0; i++) {
+			position = skipCounted(position, littleEndian, positionSize);
+		}
+		return position;
+	}
+
+	/**
+	 * Skip a counted list of positions at the position
+	 *
+	 * @param position
+	 *            position count byte position
+	 * @param littleEndian
+	 *            true if little endian
+	 * @param positionSize
+	 *            bytes per position
+	 * @return position after the positions, -1 if incomplete
+	 */
+	private int skipCounted(int position, boolean littleEndian,
+			int positionSize) {
+		int count = readCount(position, littleEndian);
+		if (count < 0) {
+			return -1;
+		}
+		long end = position + 4 + (long) count * positionSize;
+		return end <= wkb.length ? (int) end : -1;
+	}
+
+	/**
+	 * Read a count at the position
+	 *
+	 * @param position
+	 *            count byte position
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return count, -1 if incomplete or negative
+	 */
+	private int readCount(int position, boolean littleEndian) {
+		int count = -1;
+		if (position >= 0 && position + 4 <= wkb.length) {
+			count = Math.max(-1, readInt(position, littleEndian));
+		}
+		return count;
+	}
+
+	/**
+	 * Write a long value
+	 *
+	 * @param value
+	 *            long value
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+		ensure(20);
+		if (value < 0) {
+			buffer[length++] = '-';
+			value = -value;
+		}
+		int start = length;
+		do {
+			buffer[length++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		for (int i = start, j = length - 1; i < j; i++, j--) {
+			byte digit = buffer[i];
+			buffer[i] = buffer[j];
+			buffer[j] = digit;
+		}
+	}
+
+	/**
+	 * Write a double value, null when not a finite number
+	 *
+	 * @param value
+	 *            double value
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeDouble(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			write(NULL);
+		} else if (value == (long) value && Math.abs(value) < 1e15) {
+			writeLong((long) value);
+		} else {
+			writeAscii(Double.toString(value));
+		}
+	}
+
+	/**
+	 * Write an escaped string value encoded as UTF-8
+	 *
+	 * @param value
+	 *            string value
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			write(NULL);
+			return;
+		}
+		write((byte) '"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			ensure(6);
+			if (c == '"' || c == '\\') {
+				buffer[length++] = '\\';
+				buffer[length++] = (byte) c;
+			} else if (c < 0x20) {
+				buffer[length++] = '\\';
+				buffer[length++] = 'u';
+				buffer[length++] = '0';
+				buffer[length++] = '0';
+				buffer[length++] = HEX[c >> 4];
+				buffer[length++] = HEX[c & 0xf];
+			} else if (c < 0x80) {
+				buffer[length++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[length++] = (byte) (0xc0 | c >> 6);
+				buffer[length++] = (byte) (0x80 | c & 0x3f);
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				buffer[length++] = (byte) (0xf0 | codePoint >> 18);
+				buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+				buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+				buffer[length++] = (byte) (0x80 | codePoint & 0x3f);
+			} else if (Character.isSurrogate(c)) {
+				// Unpaired surrogate, write the replacement character
+				buffer[length++] = (byte) 0xef;
+				buffer[length++] = (byte) 0xbf;
+				buffer[length++] = (byte) 0xbd;
+			} else {
+				buffer[length++] = (byte) (0xe0 | c >> 12);
+				buffer[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+				buffer[length++] = (byte) (0x80 | c & 0x3f);
+			}
+		}
+		write((byte) '"');
+	}
+
+	/**
+	 * Write a blob value as a Base64 string
+	 *
+	 * @param value
+	 *            blob value
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeBase64(byte[] value) throws IOException {
+		if (value == null) {
+			write(NULL);
+			return;
+		}
+		write((byte) '"');
+		for (int i = 0; i < value.length; i += 3) {
+			int remaining = value.length - i;
+			int bits = (value[i] & 0xff) << 16;
+			if (remaining > 1) {
+				bits |= (value[i + 1] & 0xff) << 8;
+			}
+			if (remaining > 2) {
+				bits |= value[i + 2] & 0xff;
+			}
+			ensure(4);
+			buffer[length++] = BASE64[bits >> 18 & 0x3f];
+			buffer[length++] = BASE64[bits >> 12 & 0x3f];
+			buffer[length++] = remaining > 1 ? BASE64[bits >> 6 & 0x3f]
+					: (byte) '=';
+			buffer[length++] = remaining > 2 ? BASE64[bits & 0x3f]
+					: (byte) '=';
+		}
+		write((byte) '"');
+	}
+
+	/**
+	 * Write an ASCII string without escaping
+	 *
+	 * @param value
+	 *            ASCII string
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeAscii(String value) throws IOException {
+		ensure(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			buffer[length++] = (byte) value.charAt(i);
+		}
+	}
+
+	/**
+	 * Write bytes
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void write(byte[] bytes) throws IOException {
+		if (bytes.length > buffer.length) {
+			flush();
+			out.write(bytes);
+		} else {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buffer, length, bytes.length);
+			length += bytes.length;
+		}
+	}
+
+	/**
+	 * Write a byte
+	 *
+	 * @param b
+	 *            byte
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void write(byte b) throws IOException {
+		ensure(1);
+		buffer[length++] = b;
+	}
+
+	/**
+	 * Ensure the buffer has room for the number of bytes, flushing when full
+	 *
+	 * @param bytes
+	 *            number of bytes
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void ensure(int bytes) throws IOException {
+		if (length + bytes > buffer.length) {
+			out.write(buffer, 0, length);
+			length = 0;
+		}
+	}
+
+	/**
+	 * Flush the buffer to the output stream
+	 *
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void flush() throws IOException {
+		if (length > 0) {
+			out.write(buffer, 0, length);
+			length = 0;
+		}
+		out.flush();
+	}
+
+	/**
+	 * Append an escaped JSON string value without quotes
+	 *
+	 * @param builder
+	 *            string builder
+	 * @param value
+	 *            string value
+	 */
+	private static void appendEscaped(StringBuilder builder, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < 0x20) {
+				builder.append(String.format("\\u%04x", (int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Get the UTF-8 bytes of a string
+	 *
+	 * @param value
+	 *            string value
+	 * @return bytes
+	 */
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
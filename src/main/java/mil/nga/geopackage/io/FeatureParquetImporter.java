@@ -0,0 +1,994 @@
+package mil.nga.geopackage.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.core.contents.ContentsDao;
+import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.db.SQLUtils;
+import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.columns.GeometryColumnsDao;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.io.ParquetFileReader.ParquetColumn;
+import mil.nga.geopackage.schema.TableColumnKey;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.projection.ProjectionConstants;
+import mil.nga.sf.util.ByteReader;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
+import mil.nga.sf.wkb.GeometryReader;
+
+/**
+ * Imports a GeoParquet file into a new feature table. The primary geometry
+ * column must be Well-Known Binary encoded. Row groups are read one at a time
+ * so memory is bounded by the row group size, the column chunks of each row
+ * group are decoded in parallel, and rows are written with batched inserts in
+ * large transactions. The table CRS is taken from the GeoParquet metadata
+ * and the contents bounding box from the GeoParquet bbox when present.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureParquetImporter {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger
+			.getLogger(FeatureParquetImporter.class.getName());
+
+	/**
+	 * Default number of rows per insert batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Default number of rows per transaction
+	 */
+	public static final int DEFAULT_TRANSACTION_SIZE = 100000;
+
+	/**
+	 * GeoPackage
+	 */
+	private final GeoPackage geoPackage;
+
+	/**
+	 * Number of rows per insert batch
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Number of rows per transaction
+	 */
+	private int transactionSize = DEFAULT_TRANSACTION_SIZE;
+
+	/**
+	 * Spatial reference system id, null to use the GeoParquet CRS
+	 */
+	private Long srsId;
+
+	/**
+	 * Primary key column name
+	 */
+	private String idColumnName = "id";
+
+	/**
+	 * Number of column decoding threads
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * Constructor
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 */
+	public FeatureParquetImporter(GeoPackage geoPackage) {
+		this.geoPackage = geoPackage;
+	}
+
+	/**
+	 * Get the number of rows per insert batch
+	 *
+	 * @return batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the number of rows per insert batch
+	 *
+	 * @param batchSize
+	 *            batch size
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new GeoPackageException(
+					"Batch size must be greater than 0: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Get the number of rows per transaction
+	 *
+	 * @return transaction size
+	 */
+	public int getTransactionSize() {
+		return transactionSize;
+	}
+
+	/**
+	 * Set the number of rows per transaction
+	 *
+	 * @param transactionSize
+	 *            transaction size
+	 */
+	public void setTransactionSize(int transactionSize) {
+		if (transactionSize <= 0) {
+			throw new GeoPackageException(
+					"Transaction size must be greater than 0: "
+							+ transactionSize);
+		}
+		this.transactionSize = transactionSize;
+	}
+
+	/**
+	 * Get the spatial reference system id
+	 *
+	 * @return srs id, null when taken from the GeoParquet CRS
+	 */
+	public Long getSrsId() {
+		return srsId;
+	}
+
+	/**
+	 * Set the spatial reference system id of the imported geometries,
+	 * overriding the GeoParquet CRS
+	 *
+	 * @param srsId
+	 *            existing srs id, null to use the GeoParquet CRS
+	 */
+	public void setSrsId(Long srsId) {
+		this.srsId = srsId;
+	}
+
+	/**
+	 * Get the primary key column name
+	 *
+	 * @return id column name
+	 */
+	public String getIdColumnName() {
+		return idColumnName;
+	}
+
+	/**
+	 * Set the primary key column name. An integer column of the same name is
+	 * imported as the primary key.
+	 *
+	 * @param idColumnName
+	 *            id column name
+	 */
+	public void setIdColumnName(String idColumnName) {
+		this.idColumnName = idColumnName;
+	}
+
+	/**
+	 * Get the number of column decoding threads
+	 *
+	 * @return threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of column decoding threads
+	 *
+	 * @param threads
+	 *            threads
+	 */
+	public void setThreads(int threads) {
+		if (threads <= 0) {
+			throw new GeoPackageException(
+					"Threads must be greater than 0: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the progress
+	 *
+	 * @param progress
+	 *            progress
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Import a GeoParquet file into a new feature table
+	 *
+	 * @param file
+	 *            GeoParquet file
+	 * @param tableName
+	 *            new feature table name
+	 * @return number of imported features
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	public synchronized int importFeatures(File file, String tableName)
+			throws IOException {
+
+		if (geoPackage.isTableExists(tableName)) {
+			throw new GeoPackageException("Table already exists: "
+					+ tableName);
+		}
+
+		try (ParquetFileReader reader = new ParquetFileReader(file)) {
+
+			String geo = reader.getMetadata(ParquetFormat.GEO_KEY);
+			if (geo == null) {
+				throw new GeoPackageException(
+						"Not a GeoParquet file, missing '"
+								+ ParquetFormat.GEO_KEY + "' metadata: "
+								+ file.getName());
+			}
+			GeoMetadata geoMetadata = readGeoMetadata(geo);
+
+			ParquetColumn geometryColumn = reader
+					.getColumn(geoMetadata.primaryColumn);
+			if (geometryColumn == null
+					|| geometryColumn.getDataType() != GeoPackageDataType.BLOB) {
+				throw new GeoPackageException(
+						"Missing or unsupported GeoParquet geometry column: "
+								+ geoMetadata.primaryColumn);
+			}
+			if (!"WKB".equalsIgnoreCase(geoMetadata.encoding)) {
+				throw new GeoPackageException(
+						"Unsupported GeoParquet geometry encoding: "
+								+ geoMetadata.encoding);
+			}
+
+			long importSrsId = srsId != null ? srsId : srsId(geoMetadata);
+
+			return importFeatures(reader, tableName, geometryColumn,
+					geoMetadata, importSrsId);
+		}
+	}
+
+	/**
+	 * Import the row groups into a new feature table
+	 *
+	 * @param reader
+	 *            Parquet file reader
+	 * @param tableName
+	 *            new feature table name
+	 * @param geometryColumn
+	 *            geometry column
+	 * @param geoMetadata
+	 *            GeoParquet metadata
+	 * @param importSrsId
+	 *            srs id
+	 * @return number of imported features
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private int importFeatures(ParquetFileReader reader, String tableName,
+			ParquetColumn geometryColumn, GeoMetadata geoMetadata,
+			long importSrsId) throws IOException {
+
+		// Integer column matching the id column name is used as the key
+		ParquetColumn idColumn = null;
+		for (ParquetColumn column : reader.getColumns()) {
+			if (column != geometryColumn
+					&& column.getName().equalsIgnoreCase(idColumnName)
+					&& column.getDataType() == GeoPackageDataType.INTEGER) {
+				idColumn = column;
+				break;
+			}
+		}
+
+		// Create unique column names for the remaining columns
+		Set<String> columnNames = new HashSet<>();
+		columnNames.add(idColumnName.toLowerCase(Locale.US));
+		String geometryColumnName = uniqueName(geometryColumn.getName(),
+				columnNames);
+		List<ParquetColumn> readColumns = new ArrayList<>();
+		readColumns.add(geometryColumn);
+		List<String> insertColumns = new ArrayList<>();
+		insertColumns.add(geometryColumnName);
+		if (idColumn != null) {
+			readColumns.add(idColumn);
+			insertColumns.add(idColumnName);
+		}
+		List<FeatureColumn> additionalColumns = new ArrayList<>();
+		for (ParquetColumn column : reader.getColumns()) {
+			if (column != geometryColumn && column != idColumn) {
+				String columnName = uniqueName(column.getName(), columnNames);
+				additionalColumns.add(FeatureColumn.createColumn(
+						additionalColumns.size() + 2, columnName,
+						column.getDataType(), false, null));
+				readColumns.add(column);
+				insertColumns.add(columnName);
+			}
+		}
+
+		// Create the table, updating the geometry type and envelope after the
+		// import
+		GeometryColumns geometryColumns = new GeometryColumns();
+		geometryColumns
+				.setId(new TableColumnKey(tableName, geometryColumnName));
+		geometryColumns.setGeometryType(GeometryType.GEOMETRY);
+		geometryColumns.setZ((byte) 2);
+		geometryColumns.setM((byte) 2);
+		geoPackage.createFeatureTableWithMetadata(geometryColumns,
+				idColumnName, additionalColumns, new GeometryEnvelope(0, 0, 0,
+						0), importSrsId);
+
+		Connection connection = ((GeoPackageConnection) geoPackage
+				.getDatabase()).getConnection();
+		String sql = SQLUtils.insertSQL(tableName,
+				insertColumns.toArray(new String[insertColumns.size()]));
+		PreparedStatement statement = null;
+		boolean transaction = false;
+		boolean success = false;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		GeometryResult geometries = new GeometryResult(importSrsId);
+		int count = 0;
+		try {
+
+			statement = connection.prepareStatement(sql);
+			transaction = connection.getAutoCommit();
+			if (transaction) {
+				connection.setAutoCommit(false);
+			}
+
+			Object[] values = new Object[readColumns.size()];
+			int batchCount = 0;
+			for (int rowGroup = 0; rowGroup < reader.getRowGroupCount()
+					&& isActive(); rowGroup++) {
+
+				// Decode the column chunks in parallel, converting the
+				// geometries to GeoPackage geometry blobs
+				List<Future<Object[]>> futures = new ArrayList<>();
+				futures.add(executor.submit(new GeometryDecoder(reader,
+						rowGroup, geometryColumn, geometries)));
+				for (int i = 1; i < readColumns.size(); i++) {
+					futures.add(executor.submit(new ColumnDecoder(reader,
+							rowGroup, readColumns.get(i))));
+				}
+				List<Object[]> columnValues = new ArrayList<>();
+				for (Future<Object[]> future : futures) {
+					columnValues.add(get(future));
+				}
+
+				int rows = reader.getRowGroupRowCount(rowGroup);
+				for (int row = 0; row < rows && isActive(); row++) {
+					for (int i = 0; i < values.length; i++) {
+						values[i] = columnValues.get(i)[row];
+					}
+					SQLUtils.setArguments(statement, values);
+					statement.addBatch();
+					batchCount++;
+					count++;
+					if (batchCount >= batchSize) {
+						statement.executeBatch();
+						batchCount = 0;
+					}
+					if (transaction && count % transactionSize == 0) {
+						if (batchCount > 0) {
+							statement.executeBatch();
+							batchCount = 0;
+						}
+						connection.commit();
+					}
+					if (progress != null) {
+						progress.addProgress(1);
+					}
+				}
+			}
+
+			if (batchCount > 0) {
+				statement.executeBatch();
+			}
+			if (transaction) {
+				connection.commit();
+			}
+			success = true;
+
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to import GeoParquet features into table: "
+							+ tableName, e);
+		} finally {
+			executor.shutdownNow();
+			if (transaction) {
+				try {
+					if (!success) {
+						connection.rollback();
+					}
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					log.log(Level.WARNING,
+							"Failed to restore auto commit after GeoParquet import into table: "
+									+ tableName, e);
+				}
+			}
+			SQLUtils.closeStatement(statement, sql);
+		}
+
+		updateMetadata(tableName, geometries, geoMetadata.bbox);
+
+		return count;
+	}
+
+	/**
+	 * Determine if the import is active, not cancelled by the progress
+	 *
+	 * @return true if active
+	 */
+	private boolean isActive() {
+		return progress == null || progress.isActive();
+	}
+
+	/**
+	 * Get the result of a column decoding
+	 *
+	 * @param future
+	 *            column decoding future
+	 * @return column values
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private static Object[] get(Future<Object[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GeoPackageException(
+					"Interrupted while decoding Parquet column chunks", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof GeoPackageException) {
+				throw (GeoPackageException) cause;
+			}
+			throw new GeoPackageException(
+					"Failed to decode Parquet column chunk", cause);
+		}
+	}
+
+	/**
+	 * Create a unique column name, adding it to the names in use
+	 *
+	 * @param name
+	 *            column name
+	 * @param columnNames
+	 *            lower case column names in use
+	 * @return unique column name
+	 */
+	private static String uniqueName(String name, Set<String> columnNames) {
+		String columnName = name;
+		for (int i = 1; columnNames.contains(columnName.toLowerCase(Locale.US)); i++) {
+			columnName = name + "_" + i;
+		}
+		columnNames.add(columnName.toLowerCase(Locale.US));
+		return columnName;
+	}
+
+	/**
+	 * Get the srs id of the GeoParquet CRS, creating the EPSG srs when needed.
+	 * A missing CRS is OGC:CRS84, stored as EPSG 4326, and a null CRS is an
+	 * undefined Cartesian srs.
+	 *
+	 * @param geoMetadata
+	 *            GeoParquet metadata
+	 * @return srs id
+	 */
+	private long srsId(GeoMetadata geoMetadata) {
+		long id;
+		if (!geoMetadata.hasCrs) {
+			id = ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM;
+		} else if (geoMetadata.crsAuthority == null) {
+			if (geoMetadata.crsDefined) {
+				log.log(Level.WARNING,
+						"GeoParquet CRS without an authority id is imported as an undefined Cartesian srs");
+			}
+			id = -1;
+		} else if ("EPSG".equalsIgnoreCase(geoMetadata.crsAuthority)) {
+			try {
+				id = geoPackage.getSpatialReferenceSystemDao()
+						.getOrCreate(Long.parseLong(geoMetadata.crsCode))
+						.getSrsId();
+			} catch (NumberFormatException | SQLException e) {
+				throw new GeoPackageException(
+						"Failed to get or create the GeoParquet CRS srs: EPSG:"
+								+ geoMetadata.crsCode, e);
+			}
+		} else if ("OGC".equalsIgnoreCase(geoMetadata.crsAuthority)
+				&& "CRS84".equalsIgnoreCase(geoMetadata.crsCode)) {
+			id = ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM;
+		} else {
+			log.log(Level.WARNING, "Unsupported GeoParquet CRS "
+					+ geoMetadata.crsAuthority + ":" + geoMetadata.crsCode
+					+ " is imported as an undefined Cartesian srs");
+			id = -1;
+		}
+		return id;
+	}
+
+	/**
+	 * Read the GeoParquet metadata JSON
+	 *
+	 * @param geo
+	 *            GeoParquet metadata JSON
+	 * @return GeoParquet metadata
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private static GeoMetadata readGeoMetadata(String geo) throws IOException {
+
+		GeoMetadata geoMetadata = new GeoMetadata();
+		List<String> primaryColumnRaw = new ArrayList<>();
+
+		JsonReader reader = new JsonReader(new StringReader(geo), 4096);
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			switch (name) {
+			case "primary_column":
+				geoMetadata.primaryColumn = reader.readString();
+				break;
+			case "columns":
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String columnName = reader.nextName();
+					primaryColumnRaw.add(columnName);
+					primaryColumnRaw.add(reader.readRaw());
+				}
+				reader.endObject();
+				break;
+			default:
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (geoMetadata.primaryColumn == null) {
+			throw new GeoPackageException(
+					"Missing GeoParquet primary column");
+		}
+		for (int i = 0; i < primaryColumnRaw.size(); i += 2) {
+			if (primaryColumnRaw.get(i).equals(geoMetadata.primaryColumn)) {
+				readGeoColumn(primaryColumnRaw.get(i + 1), geoMetadata);
+			}
+		}
+
+		return geoMetadata;
+	}
+
+	/**
+	 * Read the GeoParquet primary column metadata JSON
+	 *
+	 * @param json
+	 *            column metadata JSON
+	 * @param geoMetadata
+	 *            GeoParquet metadata
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private static void readGeoColumn(String json, GeoMetadata geoMetadata)
+			throws IOException {
+		JsonReader reader = new JsonReader(new StringReader(json), 4096);
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			switch (name) {
+			case "encoding":
+				geoMetadata.encoding = reader.readString();
+				break;
+			case "bbox":
+				if (!reader.readNull()) {
+					List<Double> bbox = new ArrayList<>();
+					reader.beginArray();
+					while (reader.hasNext()) {
+						bbox.add(reader.readNumber());
+					}
+					reader.endArray();
+					if (bbox.size() == 4 || bbox.size() == 6) {
+						int half = bbox.size() / 2;
+						geoMetadata.bbox = new double[] { bbox.get(0),
+								bbox.get(1), bbox.get(half), bbox.get(half + 1) };
+					}
+				}
+				break;
+			case "crs":
+				geoMetadata.hasCrs = true;
+				if (!reader.readNull()) {
+					geoMetadata.crsDefined = true;
+					readCrs(reader, geoMetadata);
+				}
+				break;
+			default:
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+
+	/**
+	 * Read the authority and code of a PROJJSON CRS
+	 *
+	 * @param reader
+	 *            JSON reader
+	 * @param geoMetadata
+	 *            GeoParquet metadata
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private static void readCrs(JsonReader reader, GeoMetadata geoMetadata)
+			throws IOException {
+		if (reader.peek() != '{') {
+			reader.skipValue();
+			return;
+		}
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (name.equals("id") && reader.peek() == '{') {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String idName = reader.nextName();
+					if (idName.equals("authority")) {
+						geoMetadata.crsAuthority = reader.readString();
+					} else if (idName.equals("code")) {
+						if (reader.peek() == '"') {
+							geoMetadata.crsCode = reader.readString();
+						} else {
+							reader.readNumber();
+							geoMetadata.crsCode = Long.toString(reader
+									.getLongValue());
+						}
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+
+	/**
+	 * Update the geometry columns type and z flag, and the contents bounding
+	 * box, from the GeoParquet bbox or the imported geometries
+	 *
+	 * @param tableName
+	 *            table name
+	 * @param geometries
+	 *            imported geometry result
+	 * @param bbox
+	 *            GeoParquet bbox, null when not set
+	 */
+	private void updateMetadata(String tableName, GeometryResult geometries,
+			double[] bbox) {
+		try {
+
+			GeometryColumnsDao geometryColumnsDao = geoPackage
+					.getGeometryColumnsDao();
+			GeometryColumns geometryColumns = geometryColumnsDao
+					.queryForTableName(tableName);
+			if (geometries.geometryType != null) {
+				geometryColumns.setGeometryType(geometries.geometryType);
+			}
+			geometryColumns.setZ((byte) (geometries.hasZ ? 2 : 0));
+			geometryColumns.setM((byte) (geometries.hasM ? 2 : 0));
+			geometryColumnsDao.update(geometryColumns);
+
+			double[] envelope = bbox;
+			if (envelope == null && geometries.minX <= geometries.maxX) {
+				envelope = new double[] { geometries.minX, geometries.minY,
+						geometries.maxX, geometries.maxY };
+			}
+			if (envelope != null) {
+				ContentsDao contentsDao = geoPackage.getContentsDao();
+				Contents contents = contentsDao.queryForId(tableName);
+				contents.setMinX(envelope[0]);
+				contents.setMinY(envelope[1]);
+				contents.setMaxX(envelope[2]);
+				contents.setMaxY(envelope[3]);
+				contentsDao.update(contents);
+			}
+
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to update the feature metadata for imported table: "
+							+ tableName, e);
+		}
+	}
+
+	/**
+	 * GeoParquet metadata of the primary geometry column
+	 */
+	private static class GeoMetadata {
+
+		/**
+		 * Primary geometry column name
+		 */
+		private String primaryColumn;
+
+		/**
+		 * Geometry encoding
+		 */
+		private String encoding;
+
+		/**
+		 * Bounding box as min x, min y, max x, max y
+		 */
+		private double[] bbox;
+
+		/**
+		 * True when the CRS is set, including to null
+		 */
+		private boolean hasCrs;
+
+		/**
+		 * True when the CRS is set and not null
+		 */
+		private boolean crsDefined;
+
+		/**
+		 * CRS id authority
+		 */
+		private String crsAuthority;
+
+		/**
+		 * CRS id code
+		 */
+		private String crsCode;
+
+	}
+
+	/**
+	 * Decodes the values of a column chunk
+	 */
+	private static class ColumnDecoder implements Callable<Object[]> {
+
+		/**
+		 * Parquet file reader
+		 */
+		private final ParquetFileReader reader;
+
+		/**
+		 * Row group index
+		 */
+		private final int rowGroup;
+
+		/**
+		 * Column
+		 */
+		private final ParquetColumn column;
+
+		/**
+		 * Constructor
+		 *
+		 * @param reader
+		 *            Parquet file reader
+		 * @param rowGroup
+		 *            row group index
+		 * @param column
+		 *            column
+		 */
+		private ColumnDecoder(ParquetFileReader reader, int rowGroup,
+				ParquetColumn column) {
+			this.reader = reader;
+			this.rowGroup = rowGroup;
+			this.column = column;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object[] call() throws IOException {
+			return reader.readColumn(rowGroup, column);
+		}
+
+	}
+
+	/**
+	 * Decodes the Well-Known Binary values of a geometry column chunk into
+	 * GeoPackage geometry blobs
+	 */
+	private static class GeometryDecoder extends ColumnDecoder {
+
+		/**
+		 * Imported geometry result
+		 */
+		private final GeometryResult result;
+
+		/**
+		 * Constructor
+		 *
+		 * @param reader
+		 *            Parquet file reader
+		 * @param rowGroup
+		 *            row group index
+		 * @param column
+		 *            geometry column
+		 * @param result
+		 *            imported geometry result
+		 */
+		private GeometryDecoder(ParquetFileReader reader, int rowGroup,
+				ParquetColumn column, GeometryResult result) {
+			super(reader, rowGroup, column);
+			this.result = result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object[] call() throws IOException {
+			Object[] values = super.call();
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null) {
+					values[i] = result.geometryBlob((byte[]) values[i]);
+				}
+			}
+			return values;
+		}
+
+	}
+
+	/**
+	 * Imported geometry types and envelope, and GeoPackage geometry blob
+	 * encoding. Used by a single geometry decoder at a time.
+	 */
+	private static class GeometryResult {
+
+		/**
+		 * Spatial reference system id
+		 */
+		private final long srsId;
+
+		/**
+		 * Geometry type, null when mixed or no geometries
+		 */
+		private GeometryType geometryType;
+
+		/**
+		 * True until a geometry type is found
+		 */
+		private boolean noGeometryType = true;
+
+		/**
+		 * True when any geometry has z values
+		 */
+		private boolean hasZ;
+
+		/**
+		 * True when any geometry has m values
+		 */
+		private boolean hasM;
+
+		/**
+		 * Envelope of the imported geometries
+		 */
+		private double minX = Double.POSITIVE_INFINITY,
+				minY = Double.POSITIVE_INFINITY,
+				maxX = Double.NEGATIVE_INFINITY,
+				maxY = Double.NEGATIVE_INFINITY;
+
+		/**
+		 * Constructor
+		 *
+		 * @param srsId
+		 *            spatial reference system id
+		 */
+		private GeometryResult(long srsId) {
+			this.srsId = srsId;
+		}
+
+		/**
+		 * Build the GeoPackage geometry blob of the Well-Known Binary
+		 * geometry, with an xy or xyz envelope
+		 *
+		 * @param wkb
+		 *            Well-Known Binary geometry
+		 * @return geometry blob
+		 */
+		private byte[] geometryBlob(byte[] wkb) {
+
+			Geometry geometry = GeometryReader
+					.readGeometry(new ByteReader(wkb));
+			GeometryEnvelope envelope = GeometryEnvelopeBuilder
+					.buildEnvelope(geometry);
+			boolean empty = envelope == null
+					|| !(envelope.getMinX() <= envelope.getMaxX());
+
+			GeometryType type = geometry.getGeometryType();
+			if (noGeometryType) {
+				geometryType = type;
+				noGeometryType = false;
+			} else if (geometryType != type) {
+				geometryType = null;
+			}
+			hasZ = hasZ || geometry.hasZ();
+			hasM = hasM || geometry.hasM();
+
+			int envelopeIndicator = 0;
+			if (!empty) {
+				envelopeIndicator = envelope.hasZ()
+						&& envelope.getMinZ() != null ? 2 : 1;
+				minX = Math.min(minX, envelope.getMinX());
+				minY = Math.min(minY, envelope.getMinY());
+				maxX = Math.max(maxX, envelope.getMaxX());
+				maxY = Math.max(maxY, envelope.getMaxY());
+			}
+			int envelopeLength = envelopeIndicator == 0 ? 0
+					: envelopeIndicator == 1 ? 32 : 48;
+
+			byte[] blob = new byte[8 + envelopeLength + wkb.length];
+			ByteBuffer buffer = ByteBuffer.wrap(blob).order(
+					ByteOrder.LITTLE_ENDIAN);
+			buffer.put((byte) 'G');
+			buffer.put((byte) 'P');
+			buffer.put((byte) 0);
+			int flags = 1 | envelopeIndicator << 1;
+			if (empty) {
+				flags |= 1 << 4;
+			}
+			buffer.put((byte) flags);
+			buffer.putInt((int) srsId);
+			if (envelopeIndicator > 0) {
+				buffer.putDouble(envelope.getMinX());
+				buffer.putDouble(envelope.getMaxX());
+				buffer.putDouble(envelope.getMinY());
+				buffer.putDouble(envelope.getMaxY());
+				if (envelopeIndicator == 2) {
+					buffer.putDouble(envelope.getMinZ());
+					buffer.putDouble(envelope.getMaxZ());
+				}
+			}
+			buffer.put(wkb);
+
+			return blob;
+		}
+
+	}
+
+}
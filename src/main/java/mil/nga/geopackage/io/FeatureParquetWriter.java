@@ -0,0 +1,1018 @@
+package mil.nga.geopackage.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.user.UserColumn;
+import mil.nga.geopackage.user.UserColumnBatch;
+import mil.nga.geopackage.user.UserColumnBatchReader;
+import mil.nga.geopackage.user.UserColumnVector;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.projection.ProjectionConstants;
+
+/**
+ * Writes a feature table as a GeoParquet file. Rows are read in row group
+ * sized batches of primitive column vectors by a {@link UserColumnBatchReader}
+ * so memory is bounded by the row group size, and the column chunks of each
+ * row group are encoded and compressed in parallel. Integers are written as
+ * INT64, booleans as BOOLEAN, floating point values as DOUBLE, text and dates
+ * as UTF-8 strings, and blobs as byte arrays. The geometry column is written
+ * as Well-Known Binary with the GeoPackage header removed and described by
+ * the "geo" file metadata, including the table CRS, geometry type, and the
+ * contents bounding box.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureParquetWriter {
+
+	/**
+	 * Default number of rows per row group
+	 */
+	public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+	/**
+	 * GeoParquet metadata version
+	 */
+	public static final String GEOPARQUET_VERSION = "1.0.0";
+
+	/**
+	 * Created by file metadata
+	 */
+	private static final String CREATED_BY = "geopackage-java";
+
+	/**
+	 * Column encodings
+	 */
+	private static final int BOOLEAN = 0, INT64 = 1, DOUBLE = 2, UTF8 = 3,
+			BINARY = 4, WKB = 5;
+
+	/**
+	 * Feature DAO
+	 */
+	private final FeatureDao featureDao;
+
+	/**
+	 * Number of rows per row group
+	 */
+	private int rowGroupSize = DEFAULT_ROW_GROUP_SIZE;
+
+	/**
+	 * Page compression
+	 */
+	private ParquetCompression compression = ParquetCompression.SNAPPY;
+
+	/**
+	 * Number of column encoding threads
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * Current output stream
+	 */
+	private OutputStream out;
+
+	/**
+	 * Bytes written to the current output stream
+	 */
+	private long position;
+
+	/**
+	 * Constructor
+	 *
+	 * @param featureDao
+	 *            feature DAO
+	 */
+	public FeatureParquetWriter(FeatureDao featureDao) {
+		this.featureDao = featureDao;
+	}
+
+	/**
+	 * Get the feature DAO
+	 *
+	 * @return feature DAO
+	 */
+	public FeatureDao getFeatureDao() {
+		return featureDao;
+	}
+
+	/**
+	 * Get the number of rows per row group
+	 *
+	 * @return row group size
+	 */
+	public int getRowGroupSize() {
+		return rowGroupSize;
+	}
+
+	/**
+	 * Set the number of rows per row group. Rows of a single row group are
+	 * held in memory while encoding.
+	 *
+	 * @param rowGroupSize
+	 *            row group size
+	 */
+	public void setRowGroupSize(int rowGroupSize) {
+		if (rowGroupSize <= 0) {
+			throw new GeoPackageException(
+					"Row group size must be greater than 0: " + rowGroupSize);
+		}
+		this.rowGroupSize = rowGroupSize;
+	}
+
+	/**
+	 * Get the page compression
+	 *
+	 * @return compression
+	 */
+	public ParquetCompression getCompression() {
+		return compression;
+	}
+
+	/**
+	 * Set the page compression
+	 *
+	 * @param compression
+	 *            compression
+	 */
+	public void setCompression(ParquetCompression compression) {
+		this.compression = compression != null ? compression
+				: ParquetCompression.UNCOMPRESSED;
+	}
+
+	/**
+	 * Get the number of column encoding threads
+	 *
+	 * @return threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of column encoding threads
+	 *
+	 * @param threads
+	 *            threads
+	 */
+	public void setThreads(int threads) {
+		if (threads <= 0) {
+			throw new GeoPackageException(
+					"Threads must be greater than 0: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the progress
+	 *
+	 * @param progress
+	 *            progress
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Write the feature table to a GeoParquet file
+	 *
+	 * @param file
+	 *            output file
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public long write(File file) throws IOException {
+		try (OutputStream outputStream = new BufferedOutputStream(
+				new FileOutputStream(file))) {
+			return write(outputStream);
+		}
+	}
+
+	/**
+	 * Write the feature table as GeoParquet. The stream is flushed but not
+	 * closed.
+	 *
+	 * @param outputStream
+	 *            output stream
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public long write(OutputStream outputStream) throws IOException {
+		return write(featureDao.queryForColumnBatches(rowGroupSize),
+				geoMetadata(), outputStream);
+	}
+
+	/**
+	 * Write the column batches as row groups
+	 *
+	 * @param reader
+	 *            column batch reader
+	 * @param geoMetadata
+	 *            GeoParquet metadata JSON
+	 * @param outputStream
+	 *            output stream
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private synchronized long write(UserColumnBatchReader<?> reader,
+			String geoMetadata, OutputStream outputStream) throws IOException {
+
+		out = outputStream;
+		position = 0;
+
+		long count = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+
+			UserColumnBatch<?> batch = reader.getBatch();
+			List<? extends UserColumnVector<?>> vectors = batch.getVectors();
+			int columns = vectors.size();
+			int[] encodings = new int[columns];
+			boolean[] optional = new boolean[columns];
+			for (int i = 0; i < columns; i++) {
+				UserColumnVector<?> vector = vectors.get(i);
+				encodings[i] = encoding(vector);
+				optional[i] = !vector.getColumn().isNotNull();
+			}
+
+			write(ParquetFormat.MAGIC);
+
+			ThriftCompactWriter metadata = new ThriftCompactWriter(4096);
+			int rowGroups = 0;
+			while ((progress == null || progress.isActive())
+					&& reader.readBatch()) {
+
+				int rows = batch.size();
+
+				// Encode and compress the column chunks in parallel
+				List<Future<ColumnChunk>> futures = new ArrayList<>();
+				for (int i = 0; i < columns; i++) {
+					futures.add(executor.submit(new ColumnEncoder(batch
+							.getVector(i), rows, encodings[i], optional[i],
+							compression)));
+				}
+
+				// Write the chunks in column order, buffering the row group
+				// metadata
+				long rowGroupOffset = position;
+				long totalUncompressed = 0;
+				ThriftCompactWriter rowGroup = new ThriftCompactWriter(
+						256 + 64 * columns);
+				rowGroup.structBegin();
+				rowGroup.fieldListBegin(ParquetFormat.ROW_GROUP_COLUMNS,
+						ThriftCompactWriter.TYPE_STRUCT, columns);
+				for (int i = 0; i < columns; i++) {
+					ColumnChunk chunk = get(futures.get(i));
+					long chunkOffset = position;
+					write(chunk.bytes);
+					totalUncompressed += chunk.uncompressedSize;
+					writeColumnChunk(rowGroup, vectors.get(i).getColumn(),
+							encodings[i], rows, chunkOffset, chunk);
+				}
+				rowGroup.fieldI64(ParquetFormat.ROW_GROUP_TOTAL_BYTE_SIZE,
+						totalUncompressed);
+				rowGroup.fieldI64(ParquetFormat.ROW_GROUP_NUM_ROWS, rows);
+				rowGroup.fieldI64(ParquetFormat.ROW_GROUP_FILE_OFFSET,
+						rowGroupOffset);
+				rowGroup.fieldI64(
+						ParquetFormat.ROW_GROUP_TOTAL_COMPRESSED_SIZE, position
+								- rowGroupOffset);
+				rowGroup.structEnd();
+				metadata.appendRaw(rowGroup);
+				rowGroups++;
+
+				count += rows;
+				if (progress != null) {
+					progress.addProgress(rows);
+				}
+			}
+
+			byte[] footer = footer(vectors, encodings, optional, count,
+					rowGroups, metadata, geoMetadata);
+			write(footer);
+			byte[] footerLength = new byte[4];
+			putInt(footerLength, 0, footer.length);
+			write(footerLength);
+			write(ParquetFormat.MAGIC);
+
+			out.flush();
+
+		} finally {
+			executor.shutdownNow();
+			reader.close();
+			out = null;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the result of a column encoding
+	 *
+	 * @param future
+	 *            column encoding future
+	 * @return column chunk
+	 */
+	private static ColumnChunk get(Future<ColumnChunk> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GeoPackageException(
+					"Interrupted while encoding Parquet column chunks", e);
+		} catch (ExecutionException e) {
+			throw new GeoPackageException(
+					"Failed to encode Parquet column chunk", e.getCause());
+		}
+	}
+
+	/**
+	 * Determine the Parquet encoding of the column vector
+	 *
+	 * @param vector
+	 *            column vector
+	 * @return encoding
+	 */
+	private static int encoding(UserColumnVector<?> vector) {
+		UserColumn column = vector.getColumn();
+		int encoding;
+		switch (vector.getType()) {
+		case LONG:
+			encoding = column.getDataType() == GeoPackageDataType.BOOLEAN ? BOOLEAN
+					: INT64;
+			break;
+		case DOUBLE:
+			encoding = DOUBLE;
+			break;
+		case STRING:
+			encoding = UTF8;
+			break;
+		default:
+			encoding = column instanceof FeatureColumn
+					&& ((FeatureColumn) column).isGeometry() ? WKB : BINARY;
+		}
+		return encoding;
+	}
+
+	/**
+	 * Get the Parquet physical type of the encoding
+	 *
+	 * @param encoding
+	 *            column encoding
+	 * @return physical type
+	 */
+	private static int physicalType(int encoding) {
+		int type;
+		switch (encoding) {
+		case BOOLEAN:
+			type = ParquetFormat.TYPE_BOOLEAN;
+			break;
+		case INT64:
+			type = ParquetFormat.TYPE_INT64;
+			break;
+		case DOUBLE:
+			type = ParquetFormat.TYPE_DOUBLE;
+			break;
+		default:
+			type = ParquetFormat.TYPE_BYTE_ARRAY;
+		}
+		return type;
+	}
+
+	/**
+	 * Write a row group column chunk struct
+	 *
+	 * @param writer
+	 *            row group writer
+	 * @param column
+	 *            column
+	 * @param encoding
+	 *            column encoding
+	 * @param rows
+	 *            number of rows
+	 * @param offset
+	 *            column chunk file offset
+	 * @param chunk
+	 *            encoded column chunk
+	 */
+	private static void writeColumnChunk(ThriftCompactWriter writer,
+			UserColumn column, int encoding, int rows, long offset,
+			ColumnChunk chunk) {
+		writer.structBegin();
+		writer.fieldI64(ParquetFormat.CHUNK_FILE_OFFSET, offset);
+		writer.fieldStructBegin(ParquetFormat.CHUNK_META_DATA);
+		writer.fieldI32(ParquetFormat.COLUMN_TYPE, physicalType(encoding));
+		writer.fieldListBegin(ParquetFormat.COLUMN_ENCODINGS,
+				ThriftCompactWriter.TYPE_I32, 2);
+		writer.i32(ParquetFormat.ENCODING_PLAIN);
+		writer.i32(ParquetFormat.ENCODING_RLE);
+		writer.fieldListBegin(ParquetFormat.COLUMN_PATH_IN_SCHEMA,
+				ThriftCompactWriter.TYPE_BINARY, 1);
+		writer.string(column.getName());
+		writer.fieldI32(ParquetFormat.COLUMN_CODEC,
+				chunk.compression.getCodec());
+		writer.fieldI64(ParquetFormat.COLUMN_NUM_VALUES, rows);
+		writer.fieldI64(ParquetFormat.COLUMN_TOTAL_UNCOMPRESSED_SIZE,
+				chunk.uncompressedSize);
+		writer.fieldI64(ParquetFormat.COLUMN_TOTAL_COMPRESSED_SIZE,
+				chunk.bytes.length);
+		writer.fieldI64(ParquetFormat.COLUMN_DATA_PAGE_OFFSET, offset);
+		writer.fieldStructBegin(ParquetFormat.COLUMN_STATISTICS);
+		writer.fieldI64(ParquetFormat.STATISTICS_NULL_COUNT, chunk.nullCount);
+		writer.structEnd();
+		writer.structEnd();
+		writer.structEnd();
+	}
+
+	/**
+	 * Build the file metadata footer
+	 *
+	 * @param vectors
+	 *            column vectors
+	 * @param encodings
+	 *            column encodings
+	 * @param optional
+	 *            column optional flags
+	 * @param rows
+	 *            total number of rows
+	 * @param rowGroups
+	 *            number of row groups
+	 * @param rowGroupsMetadata
+	 *            encoded row group structs
+	 * @param geoMetadata
+	 *            GeoParquet metadata JSON
+	 * @return footer bytes
+	 */
+	private static byte[] footer(List<? extends UserColumnVector<?>> vectors,
+			int[] encodings, boolean[] optional, long rows, int rowGroups,
+			ThriftCompactWriter rowGroupsMetadata, String geoMetadata) {
+
+		ThriftCompactWriter writer = new ThriftCompactWriter(
+				1024 + rowGroupsMetadata.getLength());
+		writer.structBegin();
+		writer.fieldI32(ParquetFormat.FILE_VERSION, 1);
+
+		writer.fieldListBegin(ParquetFormat.FILE_SCHEMA,
+				ThriftCompactWriter.TYPE_STRUCT, vectors.size() + 1);
+		writer.structBegin();
+		writer.fieldString(ParquetFormat.SCHEMA_NAME, "schema");
+		writer.fieldI32(ParquetFormat.SCHEMA_NUM_CHILDREN, vectors.size());
+		writer.structEnd();
+		for (int i = 0; i < vectors.size(); i++) {
+			writer.structBegin();
+			writer.fieldI32(ParquetFormat.SCHEMA_TYPE,
+					physicalType(encodings[i]));
+			writer.fieldI32(ParquetFormat.SCHEMA_REPETITION_TYPE,
+					optional[i] ? ParquetFormat.OPTIONAL
+							: ParquetFormat.REQUIRED);
+			writer.fieldString(ParquetFormat.SCHEMA_NAME, vectors.get(i)
+					.getColumn().getName());
+			if (encodings[i] == UTF8) {
+				writer.fieldI32(ParquetFormat.SCHEMA_CONVERTED_TYPE,
+						ParquetFormat.CONVERTED_UTF8);
+				writer.fieldStructBegin(ParquetFormat.SCHEMA_LOGICAL_TYPE);
+				writer.fieldStructBegin(ParquetFormat.LOGICAL_STRING);
+				writer.structEnd();
+				writer.structEnd();
+			}
+			writer.structEnd();
+		}
+
+		writer.fieldI64(ParquetFormat.FILE_NUM_ROWS, rows);
+
+		writer.fieldListBegin(ParquetFormat.FILE_ROW_GROUPS,
+				ThriftCompactWriter.TYPE_STRUCT, rowGroups);
+		writer.appendRaw(rowGroupsMetadata);
+
+		writer.fieldListBegin(ParquetFormat.FILE_KEY_VALUE_METADATA,
+				ThriftCompactWriter.TYPE_STRUCT, 1);
+		writer.structBegin();
+		writer.fieldString(ParquetFormat.KEY_VALUE_KEY, ParquetFormat.GEO_KEY);
+		writer.fieldString(ParquetFormat.KEY_VALUE_VALUE, geoMetadata);
+		writer.structEnd();
+
+		writer.fieldString(ParquetFormat.FILE_CREATED_BY, CREATED_BY);
+		writer.structEnd();
+
+		return Arrays.copyOf(writer.getBuffer(), writer.getLength());
+	}
+
+	/**
+	 * Build the GeoParquet metadata JSON from the geometry columns, table
+	 * projection, and contents bounding box in the table projection
+	 *
+	 * @return GeoParquet metadata JSON
+	 */
+	private String geoMetadata() {
+
+		GeometryColumns geometryColumns = featureDao.getGeometryColumns();
+		String geometryColumn = featureDao.getGeometryColumnName();
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\"version\":");
+		appendString(json, GEOPARQUET_VERSION);
+		json.append(",\"primary_column\":");
+		appendString(json, geometryColumn);
+		json.append(",\"columns\":{");
+		appendString(json, geometryColumn);
+		json.append(":{\"encoding\":\"WKB\",\"geometry_types\":[");
+		String geometryType = geometryTypeName(geometryColumns
+				.getGeometryType());
+		if (geometryType != null) {
+			if (geometryColumns.getZ() == 1) {
+				geometryType += " Z";
+			}
+			appendString(json, geometryType);
+		}
+		json.append("]");
+
+		Contents contents = geometryColumns.getContents();
+		if (contents != null && contents.getMinX() != null
+				&& contents.getMinY() != null && contents.getMaxX() != null
+				&& contents.getMaxY() != null) {
+			GeometryEnvelope boundingBox = featureDao.getBoundingBox();
+			json.append(",\"bbox\":[").append(boundingBox.getMinX())
+					.append(",").append(boundingBox.getMinY()).append(",")
+					.append(boundingBox.getMaxX()).append(",")
+					.append(boundingBox.getMaxY()).append("]");
+		}
+
+		// The default GeoParquet CRS is OGC:CRS84, longitude latitude WGS 84
+		long epsg = featureDao.getProjection().getEpsg();
+		if (epsg != ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM) {
+			json.append(",\"crs\":");
+			if (epsg > 0) {
+				json.append("{\"id\":{\"authority\":\"EPSG\",\"code\":")
+						.append(epsg).append("}}");
+			} else {
+				json.append("null");
+			}
+		}
+
+		json.append("}}}");
+		return json.toString();
+	}
+
+	/**
+	 * Get the GeoParquet geometry type name
+	 *
+	 * @param geometryType
+	 *            geometry type
+	 * @return name, null when any geometry type
+	 */
+	private static String geometryTypeName(GeometryType geometryType) {
+		String name;
+		switch (geometryType) {
+		case POINT:
+			name = "Point";
+			break;
+		case LINESTRING:
+			name = "LineString";
+			break;
+		case POLYGON:
+			name = "Polygon";
+			break;
+		case MULTIPOINT:
+			name = "MultiPoint";
+			break;
+		case MULTILINESTRING:
+			name = "MultiLineString";
+			break;
+		case MULTIPOLYGON:
+			name = "MultiPolygon";
+			break;
+		case GEOMETRYCOLLECTION:
+			name = "GeometryCollection";
+			break;
+		default:
+			name = null;
+		}
+		return name;
+	}
+
+	/**
+	 * Append a JSON string value
+	 *
+	 * @param json
+	 *            JSON builder
+	 * @param value
+	 *            string value
+	 */
+	private static void appendString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Write bytes to the output stream
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void write(byte[] bytes) throws IOException {
+		out.write(bytes);
+		position += bytes.length;
+	}
+
+	/**
+	 * Put a little endian int
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param offset
+	 *            byte offset
+	 * @param value
+	 *            int value
+	 */
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) value;
+		bytes[offset + 1] = (byte) (value >>> 8);
+		bytes[offset + 2] = (byte) (value >>> 16);
+		bytes[offset + 3] = (byte) (value >>> 24);
+	}
+
+	/**
+	 * Encoded column chunk of a single data page
+	 */
+	private static class ColumnChunk {
+
+		/**
+		 * Page header and compressed page bytes
+		 */
+		private final byte[] bytes;
+
+		/**
+		 * Page header and uncompressed page size
+		 */
+		private final long uncompressedSize;
+
+		/**
+		 * Number of null values
+		 */
+		private final long nullCount;
+
+		/**
+		 * Page compression
+		 */
+		private final ParquetCompression compression;
+
+		/**
+		 * Constructor
+		 *
+		 * @param bytes
+		 *            page header and compressed page bytes
+		 * @param uncompressedSize
+		 *            page header and uncompressed page size
+		 * @param nullCount
+		 *            number of null values
+		 * @param compression
+		 *            page compression
+		 */
+		private ColumnChunk(byte[] bytes, long uncompressedSize,
+				long nullCount, ParquetCompression compression) {
+			this.bytes = bytes;
+			this.uncompressedSize = uncompressedSize;
+			this.nullCount = nullCount;
+			this.compression = compression;
+		}
+
+	}
+
+	/**
+	 * Encodes and compresses a column vector as a single PLAIN encoded data
+	 * page column chunk
+	 */
+	private static class ColumnEncoder implements Callable<ColumnChunk> {
+
+		/**
+		 * Column vector
+		 */
+		private final UserColumnVector<?> vector;
+
+		/**
+		 * Number of rows
+		 */
+		private final int rows;
+
+		/**
+		 * Column encoding
+		 */
+		private final int encoding;
+
+		/**
+		 * True when definition levels are written
+		 */
+		private final boolean optional;
+
+		/**
+		 * Page compression
+		 */
+		private final ParquetCompression compression;
+
+		/**
+		 * Page bytes
+		 */
+		private byte[] page;
+
+		/**
+		 * Number of page bytes
+		 */
+		private int length;
+
+		/**
+		 * Constructor
+		 *
+		 * @param vector
+		 *            column vector
+		 * @param rows
+		 *            number of rows
+		 * @param encoding
+		 *            column encoding
+		 * @param optional
+		 *            true when definition levels are written
+		 * @param compression
+		 *            page compression
+		 */
+		private ColumnEncoder(UserColumnVector<?> vector, int rows,
+				int encoding, boolean optional, ParquetCompression compression) {
+			this.vector = vector;
+			this.rows = rows;
+			this.encoding = encoding;
+			this.optional = optional;
+			this.compression = compression;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ColumnChunk call() {
+
+			page = new byte[Math.max(64, rows * 9)];
+			length = 0;
+
+			long nullCount = 0;
+			if (optional) {
+				nullCount = writeDefinitionLevels();
+			} else if (vector.hasNulls()) {
+				throw new GeoPackageException(
+						"Null value in not null column: "
+								+ vector.getColumn().getName());
+			}
+
+			switch (encoding) {
+			case BOOLEAN:
+				writeBooleans();
+				break;
+			case INT64:
+				long[] longs = vector.getLongs();
+				for (int row = 0; row < rows; row++) {
+					if (!vector.isNull(row)) {
+						putLong(longs[row]);
+					}
+				}
+				break;
+			case DOUBLE:
+				double[] doubles = vector.getDoubles();
+				for (int row = 0; row < rows; row++) {
+					if (!vector.isNull(row)) {
+						putLong(Double.doubleToRawLongBits(doubles[row]));
+					}
+				}
+				break;
+			case UTF8:
+				writeStrings();
+				break;
+			default:
+				writeBlobs();
+			}
+
+			byte[] compressed = compression.compress(page, length);
+
+			ThriftCompactWriter header = new ThriftCompactWriter(64);
+			header.structBegin();
+			header.fieldI32(ParquetFormat.PAGE_TYPE, ParquetFormat.PAGE_DATA);
+			header.fieldI32(ParquetFormat.PAGE_UNCOMPRESSED_SIZE, length);
+			header.fieldI32(ParquetFormat.PAGE_COMPRESSED_SIZE,
+					compressed.length);
+			header.fieldStructBegin(ParquetFormat.PAGE_DATA_HEADER);
+			header.fieldI32(ParquetFormat.DATA_NUM_VALUES, rows);
+			header.fieldI32(ParquetFormat.DATA_ENCODING,
+					ParquetFormat.ENCODING_PLAIN);
+			header.fieldI32(ParquetFormat.DATA_DEFINITION_LEVEL_ENCODING,
+					ParquetFormat.ENCODING_RLE);
+			header.fieldI32(ParquetFormat.DATA_REPETITION_LEVEL_ENCODING,
+					ParquetFormat.ENCODING_RLE);
+			header.structEnd();
+			header.structEnd();
+
+			int headerLength = header.getLength();
+			byte[] bytes = new byte[headerLength + compressed.length];
+			System.arraycopy(header.getBuffer(), 0, bytes, 0, headerLength);
+			System.arraycopy(compressed, 0, bytes, headerLength,
+					compressed.length);
+
+			page = null;
+
+			return new ColumnChunk(bytes, headerLength + length, nullCount,
+					compression);
+		}
+
+		/**
+		 * Write the length prefixed definition levels as a single bit packed
+		 * run of bit width 1
+		 *
+		 * @return number of null values
+		 */
+		private long writeDefinitionLevels() {
+			int groups = (rows + 7) / 8;
+			ensure(4);
+			int start = length;
+			length += 4;
+			putVarint(groups << 1 | 1);
+			long[] nulls = vector.getNulls();
+			ensure(groups);
+			for (int i = 0; i < groups; i++) {
+				int levels = (int) ~(nulls[i >>> 3] >>> ((i & 7) * 8)) & 0xFF;
+				if (i == groups - 1 && (rows & 7) != 0) {
+					levels &= (1 << (rows & 7)) - 1;
+				}
+				page[length++] = (byte) levels;
+			}
+			putInt(page, start, length - start - 4);
+
+			long nullCount = 0;
+			for (int i = 0; i < (rows + 63) >>> 6; i++) {
+				nullCount += Long.bitCount(nulls[i]);
+			}
+			return nullCount;
+		}
+
+		/**
+		 * Write the non null boolean values bit packed
+		 */
+		private void writeBooleans() {
+			long[] longs = vector.getLongs();
+			int bits = 0;
+			int bit = 0;
+			ensure(rows / 8 + 1);
+			for (int row = 0; row < rows; row++) {
+				if (!vector.isNull(row)) {
+					if (longs[row] != 0) {
+						bits |= 1 << bit;
+					}
+					if (++bit == 8) {
+						page[length++] = (byte) bits;
+						bits = 0;
+						bit = 0;
+					}
+				}
+			}
+			if (bit > 0) {
+				page[length++] = (byte) bits;
+			}
+		}
+
+		/**
+		 * Write the non null string values, UTF-8 encoding each distinct
+		 * value of the row group once
+		 */
+		private void writeStrings() {
+			List<String> dictionary = vector.getDictionary();
+			byte[][] encoded = new byte[dictionary.size()][];
+			int[] codes = vector.getStringCodes();
+			for (int row = 0; row < rows; row++) {
+				int code = codes[row];
+				if (code >= 0) {
+					if (encoded[code] == null) {
+						encoded[code] = dictionary.get(code).getBytes(
+								StandardCharsets.UTF_8);
+					}
+					putBytes(encoded[code], 0, encoded[code].length);
+				}
+			}
+		}
+
+		/**
+		 * Write the non null blob values, removing the GeoPackage headers of
+		 * geometry blobs
+		 */
+		private void writeBlobs() {
+			byte[] data = vector.getBlobData();
+			for (int row = 0; row < rows; row++) {
+				if (!vector.isNull(row)) {
+					int offset = vector.getBlobOffset(row);
+					int blobLength = vector.getBlobLength(row);
+					if (encoding == WKB) {
+						int wkbIndex = GeoPackageGeometryHeader
+								.getWkbGeometryIndex(data, offset, blobLength);
+						offset += wkbIndex;
+						blobLength -= wkbIndex;
+					}
+					putBytes(data, offset, blobLength);
+				}
+			}
+		}
+
+		/**
+		 * Put length prefixed bytes
+		 *
+		 * @param bytes
+		 *            bytes
+		 * @param offset
+		 *            byte offset
+		 * @param bytesLength
+		 *            number of bytes
+		 */
+		private void putBytes(byte[] bytes, int offset, int bytesLength) {
+			ensure(4 + bytesLength);
+			putInt(page, length, bytesLength);
+			length += 4;
+			System.arraycopy(bytes, offset, page, length, bytesLength);
+			length += bytesLength;
+		}
+
+		/**
+		 * Put a little endian long
+		 *
+		 * @param value
+		 *            long value
+		 */
+		private void putLong(long value) {
+			ensure(8);
+			putInt(page, length, (int) value);
+			putInt(page, length + 4, (int) (value >>> 32));
+			length += 8;
+		}
+
+		/**
+		 * Put an unsigned varint
+		 *
+		 * @param value
+		 *            value
+		 */
+		private void putVarint(int value) {
+			ensure(5);
+			while ((value & ~0x7F) != 0) {
+				page[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			page[length++] = (byte) value;
+		}
+
+		/**
+		 * Ensure the page has room for the additional bytes
+		 *
+		 * @param bytes
+		 *            additional bytes
+		 */
+		private void ensure(int bytes) {
+			int required = length + bytes;
+			if (required > page.length) {
+				page = Arrays.copyOf(page, Math.max(required, page.length * 2));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,412 @@
+package mil.nga.geopackage.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal FlatBuffers builder used to encode Arrow IPC metadata. Objects are
+ * built back to front, children before their parents, following the
+ * FlatBuffers binary format: little endian scalars, forward unsigned offsets
+ * to referenced objects, and a signed offset from each table to its vtable.
+ * Vtables are not deduplicated.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class FlatBufferBuilder {
+
+	/**
+	 * Buffer, filled from the end
+	 */
+	private byte[] buffer;
+
+	/**
+	 * Remaining space at the start of the buffer
+	 */
+	private int space;
+
+	/**
+	 * Largest alignment used
+	 */
+	private int minAlign = 1;
+
+	/**
+	 * Field offsets of the table being built
+	 */
+	private int[] vtable;
+
+	/**
+	 * Offset of the start of the table being built
+	 */
+	private int objectStart;
+
+	/**
+	 * Number of elements of the vector being built
+	 */
+	private int vectorElements;
+
+	/**
+	 * Constructor
+	 *
+	 * @param initialSize
+	 *            initial buffer size
+	 */
+	FlatBufferBuilder(int initialSize) {
+		buffer = new byte[Math.max(initialSize, 16)];
+		space = buffer.length;
+	}
+
+	/**
+	 * Get the offset from the end of the buffer
+	 *
+	 * @return offset
+	 */
+	int offset() {
+		return buffer.length - space;
+	}
+
+	/**
+	 * Prepare to write an element of the size after writing additional bytes,
+	 * padding to align the element
+	 *
+	 * @param size
+	 *            element size and alignment
+	 * @param additionalBytes
+	 *            bytes to be written before the element
+	 */
+	void prep(int size, int additionalBytes) {
+		if (size > minAlign) {
+			minAlign = size;
+		}
+		int alignSize = (-(offset() + additionalBytes)) & (size - 1);
+		while (space < alignSize + size + additionalBytes) {
+			int oldLength = buffer.length;
+			byte[] grown = new byte[oldLength * 2];
+			System.arraycopy(buffer, 0, grown, oldLength, oldLength);
+			buffer = grown;
+			space += oldLength;
+		}
+		space -= alignSize;
+	}
+
+	/**
+	 * Put a byte without alignment
+	 *
+	 * @param value
+	 *            byte value
+	 */
+	private void putByte(int value) {
+		buffer[--space] = (byte) value;
+	}
+
+	/**
+	 * Put a little endian short without alignment
+	 *
+	 * @param value
+	 *            short value
+	 */
+	private void putShort(int value) {
+		putByte(value >> 8);
+		putByte(value);
+	}
+
+	/**
+	 * Put a little endian int without alignment
+	 *
+	 * @param value
+	 *            int value
+	 */
+	void putInt(int value) {
+		putShort(value >> 16);
+		putShort(value);
+	}
+
+	/**
+	 * Put a little endian long without alignment
+	 *
+	 * @param value
+	 *            long value
+	 */
+	void putLong(long value) {
+		putInt((int) (value >> 32));
+		putInt((int) value);
+	}
+
+	/**
+	 * Pad with zero bytes
+	 *
+	 * @param bytes
+	 *            number of bytes
+	 */
+	void pad(int bytes) {
+		for (int i = 0; i < bytes; i++) {
+			putByte(0);
+		}
+	}
+
+	/**
+	 * Add an aligned byte
+	 *
+	 * @param value
+	 *            byte value
+	 */
+	void addByte(int value) {
+		prep(1, 0);
+		putByte(value);
+	}
+
+	/**
+	 * Add an aligned short
+	 *
+	 * @param value
+	 *            short value
+	 */
+	void addShort(int value) {
+		prep(2, 0);
+		putShort(value);
+	}
+
+	/**
+	 * Add an aligned int
+	 *
+	 * @param value
+	 *            int value
+	 */
+	void addInt(int value) {
+		prep(4, 0);
+		putInt(value);
+	}
+
+	/**
+	 * Add an aligned long
+	 *
+	 * @param value
+	 *            long value
+	 */
+	void addLong(long value) {
+		prep(8, 0);
+		putLong(value);
+	}
+
+	/**
+	 * Add an offset to a previously built object
+	 *
+	 * @param offset
+	 *            object offset
+	 */
+	void addOffset(int offset) {
+		prep(4, 0);
+		putInt(offset() - offset + 4);
+	}
+
+	/**
+	 * Create a UTF-8 string
+	 *
+	 * @param value
+	 *            string value
+	 * @return string offset
+	 */
+	int createString(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		addByte(0);
+		startVector(1, bytes.length, 1);
+		space -= bytes.length;
+		System.arraycopy(bytes, 0, buffer, space, bytes.length);
+		return endVector();
+	}
+
+	/**
+	 * Start a vector, followed by adding the elements in reverse order
+	 *
+	 * @param elementSize
+	 *            element size
+	 * @param elements
+	 *            number of elements
+	 * @param alignment
+	 *            element alignment
+	 */
+	void startVector(int elementSize, int elements, int alignment) {
+		vectorElements = elements;
+		prep(4, elementSize * elements);
+		prep(alignment, elementSize * elements);
+	}
+
+	/**
+	 * End a vector
+	 *
+	 * @return vector offset
+	 */
+	int endVector() {
+		putInt(vectorElements);
+		return offset();
+	}
+
+	/**
+	 * Create a vector of offsets to previously built objects
+	 *
+	 * @param offsets
+	 *            object offsets
+	 * @return vector offset
+	 */
+	int createOffsetVector(int[] offsets) {
+		startVector(4, offsets.length, 4);
+		for (int i = offsets.length - 1; i >= 0; i--) {
+			addOffset(offsets[i]);
+		}
+		return endVector();
+	}
+
+	/**
+	 * Start a table
+	 *
+	 * @param fields
+	 *            number of table fields
+	 */
+	void startTable(int fields) {
+		vtable = new int[fields];
+		objectStart = offset();
+	}
+
+	/**
+	 * Record the current offset as the location of the table field
+	 *
+	 * @param field
+	 *            field index
+	 */
+	private void slot(int field) {
+		vtable[field] = offset();
+	}
+
+	/**
+	 * Add a byte table field
+	 *
+	 * @param field
+	 *            field index
+	 * @param value
+	 *            byte value, omitted when 0
+	 */
+	void addFieldByte(int field, int value) {
+		if (value != 0) {
+			addByte(value);
+			slot(field);
+		}
+	}
+
+	/**
+	 * Add a boolean table field
+	 *
+	 * @param field
+	 *            field index
+	 * @param value
+	 *            boolean value, omitted when false
+	 */
+	void addFieldBoolean(int field, boolean value) {
+		addFieldByte(field, value ? 1 : 0);
+	}
+
+	/**
+	 * Add a short table field
+	 *
+	 * @param field
+	 *            field index
+	 * @param value
+	 *            short value, omitted when 0
+	 */
+	void addFieldShort(int field, int value) {
+		if (value != 0) {
+			addShort(value);
+			slot(field);
+		}
+	}
+
+	/**
+	 * Add an int table field
+	 *
+	 * @param field
+	 *            field index
+	 * @param value
+	 *            int value, omitted when 0
+	 */
+	void addFieldInt(int field, int value) {
+		if (value != 0) {
+			addInt(value);
+			slot(field);
+		}
+	}
+
+	/**
+	 * Add a long table field
+	 *
+	 * @param field
+	 *            field index
+	 * @param value
+	 *            long value, omitted when 0
+	 */
+	void addFieldLong(int field, long value) {
+		if (value != 0) {
+			addLong(value);
+			slot(field);
+		}
+	}
+
+	/**
+	 * Add an offset table field
+	 *
+	 * @param field
+	 *            field index
+	 * @param offset
+	 *            object offset, omitted when 0
+	 */
+	void addFieldOffset(int field, int offset) {
+		if (offset != 0) {
+			addOffset(offset);
+			slot(field);
+		}
+	}
+
+	/**
+	 * End the table, writing its vtable
+	 *
+	 * @return table offset
+	 */
+	int endTable() {
+
+		addInt(0);
+		int tableOffset = offset();
+
+		int fields = vtable.length;
+		while (fields > 0 && vtable[fields - 1] == 0) {
+			fields--;
+		}
+		for (int i = fields - 1; i >= 0; i--) {
+			addShort(vtable[i] != 0 ? tableOffset - vtable[i] : 0);
+		}
+		addShort(tableOffset - objectStart);
+		addShort((fields + 2) * 2);
+
+		// Signed offset from the table to the preceding vtable
+		int tablePosition = buffer.length - tableOffset;
+		int vtableOffset = offset() - tableOffset;
+		buffer[tablePosition] = (byte) vtableOffset;
+		buffer[tablePosition + 1] = (byte) (vtableOffset >> 8);
+		buffer[tablePosition + 2] = (byte) (vtableOffset >> 16);
+		buffer[tablePosition + 3] = (byte) (vtableOffset >> 24);
+
+		vtable = null;
+		return tableOffset;
+	}
+
+	/**
+	 * Finish the buffer with the root table
+	 *
+	 * @param root
+	 *            root table offset
+	 * @return finished buffer bytes
+	 */
+	byte[] finish(int root) {
+		prep(minAlign, 4);
+		addOffset(root);
+		return Arrays.copyOfRange(buffer, space, buffer.length);
+	}
+
+}
@@ -0,0 +1,577 @@
+package mil.nga.geopackage.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Minimal streaming JSON pull reader over a character stream. Values are read
+ * in document order without building an object tree. Whitespace and record
+ * separators between values are skipped, allowing newline delimited and
+ * record separated JSON sequences.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class JsonReader {
+
+	/**
+	 * Record separator character used by JSON text sequences
+	 */
+	private static final char RECORD_SEPARATOR = 0x1E;
+
+	/**
+	 * Byte order mark character
+	 */
+	private static final char BYTE_ORDER_MARK = 0xFEFF;
+
+	/**
+	 * Powers of ten exactly representable as doubles
+	 */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Character stream
+	 */
+	private final Reader reader;
+
+	/**
+	 * Character buffer
+	 */
+	private final char[] buffer;
+
+	/**
+	 * Position in the buffer
+	 */
+	private int position = 0;
+
+	/**
+	 * Number of characters in the buffer
+	 */
+	private int limit = 0;
+
+	/**
+	 * Characters consumed before the current buffer
+	 */
+	private long offset = 0;
+
+	/**
+	 * Reusable string and number builder
+	 */
+	private final StringBuilder builder = new StringBuilder();
+
+	/**
+	 * True if the last number read was an integer within the long range
+	 */
+	private boolean integral;
+
+	/**
+	 * Last integer number read
+	 */
+	private long longValue;
+
+	/**
+	 * Constructor
+	 *
+	 * @param reader
+	 *            character stream
+	 * @param bufferSize
+	 *            character buffer size
+	 */
+	JsonReader(Reader reader, int bufferSize) {
+		this.reader = reader;
+		this.buffer = new char[bufferSize];
+	}
+
+	/**
+	 * Peek at the next non whitespace character without consuming it
+	 *
+	 * @return next character, -1 at the end of the stream
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	int peek() throws IOException {
+		while (true) {
+			if (position == limit && !fill()) {
+				return -1;
+			}
+			char c = buffer[position];
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t'
+					|| c == RECORD_SEPARATOR || c == BYTE_ORDER_MARK) {
+				position++;
+			} else {
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * Consume the next non whitespace character, which must be the expected
+	 * character
+	 *
+	 * @param expected
+	 *            expected character
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	void expect(char expected) throws IOException {
+		int c = peek();
+		if (c != expected) {
+			throw error("Expected '" + expected + "'", c);
+		}
+		position++;
+	}
+
+	/**
+	 * Begin reading an object
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	void beginObject() throws IOException {
+		expect('{');
+	}
+
+	/**
+	 * Finish reading an object
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	void endObject() throws IOException {
+		expect('}');
+	}
+
+	/**
+	 * Begin reading an array
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	void beginArray() throws IOException {
+		expect('[');
+	}
+
+	/**
+	 * Finish reading an array
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	void endArray() throws IOException {
+		expect(']');
+	}
+
+	/**
+	 * Determine if the current object or array has another member or element,
+	 * consuming a separating comma
+	 *
+	 * @return true if another value follows
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	boolean hasNext() throws IOException {
+		int c = peek();
+		if (c == ',') {
+			position++;
+			c = peek();
+		}
+		return c != '}' && c != ']' && c != -1;
+	}
+
+	/**
+	 * Read the next object member name and the name separator
+	 *
+	 * @return member name
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	String nextName() throws IOException {
+		String name = readString();
+		expect(':');
+		return name;
+	}
+
+	/**
+	 * Determine if the next value is null, consuming it when it is
+	 *
+	 * @return true if a null value was read
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	boolean readNull() throws IOException {
+		boolean isNull = peek() == 'n';
+		if (isNull) {
+			readLiteral("null");
+		}
+		return isNull;
+	}
+
+	/**
+	 * Read a boolean value
+	 *
+	 * @return boolean value
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	boolean readBoolean() throws IOException {
+		int c = peek();
+		boolean value;
+		if (c == 't') {
+			readLiteral("true");
+			value = true;
+		} else if (c == 'f') {
+			readLiteral("false");
+			value = false;
+		} else {
+			throw error("Expected a boolean", c);
+		}
+		return value;
+	}
+
+	/**
+	 * Read a string value
+	 *
+	 * @return string value
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	String readString() throws IOException {
+		expect('"');
+		builder.setLength(0);
+		while (true) {
+			if (position == limit && !fill()) {
+				throw error("Unterminated string", -1);
+			}
+			char c = buffer[position++];
+			if (c == '"') {
+				break;
+			} else if (c == '\\') {
+				builder.append(readEscape());
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Read a number value. Call {@link #isIntegral()} and
+	 * {@link #getLongValue()} afterwards for integer values.
+	 *
+	 * @return number value
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	double readNumber() throws IOException {
+
+		int c = peek();
+		if (c != '-' && (c < '0' || c > '9')) {
+			throw error("Expected a number", c);
+		}
+
+		builder.setLength(0);
+		boolean negative = false;
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean fraction = false;
+		boolean exponent = false;
+
+		while (true) {
+			if (position == limit && !fill()) {
+				break;
+			}
+			c = buffer[position];
+			if (c >= '0' && c <= '9') {
+				if (!exponent) {
+					if (mantissa != 0 || c != '0') {
+						digits++;
+					}
+					if (digits <= 18) {
+						mantissa = mantissa * 10 + (c - '0');
+						if (fraction) {
+							fractionDigits++;
+						}
+					} else if (!fraction) {
+						// Too many digits for the exact fast path
+						exponent = true;
+					}
+				}
+			} else if (c == '-' && builder.length() == 0) {
+				negative = true;
+			} else if (c == '.') {
+				fraction = true;
+			} else if (c == 'e' || c == 'E' || c == '+' || c == '-') {
+				exponent = true;
+			} else {
+				break;
+			}
+			builder.append((char) c);
+			position++;
+		}
+
+		if (!Character.isDigit(builder.charAt(builder.length() - 1))) {
+			throw error("Invalid number " + builder, c);
+		}
+
+		double value;
+		if (!exponent && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+			// Exact for at most 15 significant digits and a power of ten
+			// exactly representable as a double
+			value = mantissa / POWERS_OF_TEN[fractionDigits];
+			if (negative) {
+				value = -value;
+			}
+			integral = !fraction;
+			longValue = negative ? -mantissa : mantissa;
+		} else {
+			try {
+				value = Double.parseDouble(builder.toString());
+			} catch (NumberFormatException e) {
+				throw new GeoPackageException("Invalid JSON number '"
+						+ builder + "' at character " + getOffset(), e);
+			}
+			integral = !fraction && !exponent && digits <= 18;
+			longValue = integral ? (negative ? -mantissa : mantissa) : 0;
+		}
+		return value;
+	}
+
+	/**
+	 * Determine if the last number read was an integer
+	 *
+	 * @return true if an integer
+	 */
+	boolean isIntegral() {
+		return integral;
+	}
+
+	/**
+	 * Get the last integer number read
+	 *
+	 * @return long value
+	 */
+	long getLongValue() {
+		return longValue;
+	}
+
+	/**
+	 * Skip the next value
+	 *
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	void skipValue() throws IOException {
+		readRaw(null);
+	}
+
+	/**
+	 * Read the next value as raw JSON text
+	 *
+	 * @return JSON text
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	String readRaw() throws IOException {
+		StringBuilder raw = new StringBuilder();
+		readRaw(raw);
+		return raw.toString();
+	}
+
+	/**
+	 * Get the number of characters consumed
+	 *
+	 * @return character offset
+	 */
+	long getOffset() {
+		return offset + position;
+	}
+
+	/**
+	 * Read the next value, appending the raw JSON text when a builder is
+	 * provided
+	 *
+	 * @param raw
+	 *            raw text builder, null to skip
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private void readRaw(StringBuilder raw) throws IOException {
+		int c = peek();
+		if (c == '{' || c == '[') {
+			int depth = 0;
+			boolean string = false;
+			while (true) {
+				if (position == limit && !fill()) {
+					throw error("Unterminated value", -1);
+				}
+				char next = buffer[position++];
+				if (raw != null) {
+					raw.append(next);
+				}
+				if (string) {
+					if (next == '\\') {
+						if (position == limit && !fill()) {
+							throw error("Unterminated string", -1);
+						}
+						char escaped = buffer[position++];
+						if (raw != null) {
+							raw.append(escaped);
+						}
+					} else if (next == '"') {
+						string = false;
+					}
+				} else if (next == '"') {
+					string = true;
+				} else if (next == '{' || next == '[') {
+					depth++;
+				} else if (next == '}' || next == ']') {
+					if (--depth == 0) {
+						break;
+					}
+				}
+			}
+		} else if (c == '"') {
+			String value = readString();
+			if (raw != null) {
+				raw.append('"');
+				for (int i = 0; i < value.length(); i++) {
+					char next = value.charAt(i);
+					if (next == '"' || next == '\\') {
+						raw.append('\\').append(next);
+					} else if (next < 0x20) {
+						raw.append(String.format("\\u%04x", (int) next));
+					} else {
+						raw.append(next);
+					}
+				}
+				raw.append('"');
+			}
+		} else if (c == 't' || c == 'f') {
+			boolean value = readBoolean();
+			if (raw != null) {
+				raw.append(value);
+			}
+		} else if (c == 'n') {
+			readNull();
+			if (raw != null) {
+				raw.append("null");
+			}
+		} else {
+			readNumber();
+			if (raw != null) {
+				raw.append(builder);
+			}
+		}
+	}
+
+	/**
+	 * Read a literal value
+	 *
+	 * @param literal
+	 *            expected literal
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private void readLiteral(String literal) throws IOException {
+		for (int i = 0; i < literal.length(); i++) {
+			if (position == limit && !fill()) {
+				throw error("Expected " + literal, -1);
+			}
+			char c = buffer[position++];
+			if (c != literal.charAt(i)) {
+				throw error("Expected " + literal, c);
+			}
+		}
+	}
+
+	/**
+	 * Read an escaped string character following the backslash
+	 *
+	 * @return character
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private char readEscape() throws IOException {
+		if (position == limit && !fill()) {
+			throw error("Unterminated string escape", -1);
+		}
+		char c = buffer[position++];
+		char value;
+		switch (c) {
+		case 'b':
+			value = '\b';
+			break;
+		case 'f':
+			value = '\f';
+			break;
+		case 'n':
+			value = '\n';
+			break;
+		case 'r':
+			value = '\r';
+			break;
+		case 't':
+			value = '\t';
+			break;
+		case 'u':
+			int code = 0;
+			for (int i = 0; i < 4; i++) {
+				if (position == limit && !fill()) {
+					throw error("Unterminated unicode escape", -1);
+				}
+				int digit = Character.digit(buffer[position++], 16);
+				if (digit < 0) {
+					throw error("Invalid unicode escape", buffer[position - 1]);
+				}
+				code = code << 4 | digit;
+			}
+			value = (char) code;
+			break;
+		default:
+			value = c;
+		}
+		return value;
+	}
+
+	/**
+	 * Fill the buffer from the character stream
+	 *
+	 * @return true if characters were read
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private boolean fill() throws IOException {
+		offset += limit;
+		position = 0;
+		limit = 0;
+		int read;
+		do {
+			read = reader.read(buffer, 0, buffer.length);
+		} while (read == 0);
+		if (read > 0) {
+			limit = read;
+		}
+		return read > 0;
+	}
+
+	/**
+	 * Create a parse error
+	 *
+	 * @param message
+	 *            error message
+	 * @param c
+	 *            unexpected character, -1 for the end of the stream
+	 * @return exception
+	 */
+	private GeoPackageException error(String message, int c) {
+		return new GeoPackageException("Invalid JSON: " + message
+				+ (c == -1 ? ", found end of stream" : ", found '" + (char) c
+						+ "'") + " at character " + getOffset());
+	}
+
+}
@@ -0,0 +1,175 @@
+package mil.nga.geopackage.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Parquet page compression codecs supported by the GeoParquet writer and
+ * importer
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public enum ParquetCompression {
+
+	/**
+	 * No compression
+	 */
+	UNCOMPRESSED(0),
+
+	/**
+	 * Snappy raw block compression
+	 */
+	SNAPPY(1),
+
+	/**
+	 * Gzip compression
+	 */
+	GZIP(2);
+
+	/**
+	 * Parquet compression codec id
+	 */
+	private final int codec;
+
+	/**
+	 * Constructor
+	 *
+	 * @param codec
+	 *            Parquet compression codec id
+	 */
+	private ParquetCompression(int codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * Get the Parquet compression codec id
+	 *
+	 * @return codec id
+	 */
+	public int getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Get the compression of the Parquet codec id
+	 *
+	 * @param codec
+	 *            Parquet compression codec id
+	 * @return compression, null when not supported
+	 */
+	public static ParquetCompression fromCodec(int codec) {
+		ParquetCompression compression = null;
+		for (ParquetCompression value : values()) {
+			if (value.codec == codec) {
+				compression = value;
+				break;
+			}
+		}
+		return compression;
+	}
+
+	/**
+	 * Compress the bytes
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param length
+	 *            number of bytes
+	 * @return compressed bytes
+	 */
+	byte[] compress(byte[] bytes, int length) {
+		byte[] compressed;
+		switch (this) {
+		case SNAPPY:
+			byte[] output = new byte[Snappy.maxCompressedLength(length)];
+			int compressedLength = Snappy.compress(bytes, 0, length, output);
+			compressed = Arrays.copyOf(output, compressedLength);
+			break;
+		case GZIP:
+			ByteArrayOutputStream out = new ByteArrayOutputStream(
+					length / 2 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+				gzip.write(bytes, 0, length);
+			} catch (IOException e) {
+				throw new GeoPackageException("Failed to gzip compress", e);
+			}
+			compressed = out.toByteArray();
+			break;
+		default:
+			compressed = Arrays.copyOf(bytes, length);
+		}
+		return compressed;
+	}
+
+	/**
+	 * Uncompress the bytes
+	 *
+	 * @param bytes
+	 *            compressed bytes
+	 * @param offset
+	 *            compressed offset
+	 * @param length
+	 *            compressed length
+	 * @param uncompressedLength
+	 *            uncompressed length
+	 * @return uncompressed bytes
+	 */
+	byte[] uncompress(byte[] bytes, int offset, int length,
+			int uncompressedLength) {
+		byte[] uncompressed;
+		switch (this) {
+		case SNAPPY:
+			uncompressed = Snappy.uncompress(bytes, offset, length);
+			break;
+		case GZIP:
+			uncompressed = new byte[uncompressedLength];
+			InputStream in = new ByteArrayInputStream(bytes, offset, length);
+			try {
+				// Gzip framing, falling back to zlib framing
+				if (length > 1 && (bytes[offset] & 0xFF) == 0x1F
+						&& (bytes[offset + 1] & 0xFF) == 0x8B) {
+					in = new GZIPInputStream(in);
+				} else {
+					in = new InflaterInputStream(in);
+				}
+				int read = 0;
+				while (read < uncompressedLength) {
+					int count = in.read(uncompressed, read, uncompressedLength
+							- read);
+					if (count < 0) {
+						break;
+					}
+					read += count;
+				}
+				if (read != uncompressedLength) {
+					throw new GeoPackageException(
+							"Gzip uncompressed length mismatch, expected: "
+									+ uncompressedLength + ", actual: " + read);
+				}
+				in.close();
+			} catch (IOException e) {
+				throw new GeoPackageException("Failed to gzip uncompress", e);
+			}
+			break;
+		default:
+			uncompressed = Arrays.copyOfRange(bytes, offset, offset + length);
+		}
+		if (uncompressed.length != uncompressedLength) {
+			throw new GeoPackageException(
+					"Uncompressed page length mismatch, expected: "
+							+ uncompressedLength + ", actual: "
+							+ uncompressed.length);
+		}
+		return uncompressed;
+	}
+
+}
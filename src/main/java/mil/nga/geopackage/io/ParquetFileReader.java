@@ -0,0 +1,1040 @@
+package mil.nga.geopackage.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageDataType;
+
+/**
+ * Reads the flat columns of a Parquet file one column chunk at a time. The
+ * footer metadata is read on open, and column chunks are read with
+ * positional reads so the columns of a row group can be decoded in parallel.
+ * PLAIN, dictionary, and RLE boolean encoded data pages (versions 1 and 2)
+ * are supported. Nested, repeated, INT96, and DECIMAL columns are skipped.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class ParquetFileReader implements Closeable {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger.getLogger(ParquetFileReader.class
+			.getName());
+
+	/**
+	 * Footer length and magic bytes length
+	 */
+	private static final int FOOTER_TAIL_LENGTH = 8;
+
+	/**
+	 * Milliseconds per day
+	 */
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	/**
+	 * File name
+	 */
+	private final String name;
+
+	/**
+	 * File channel
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Supported leaf columns in schema order
+	 */
+	private final List<ParquetColumn> columns = new ArrayList<>();
+
+	/**
+	 * Row group metadata
+	 */
+	private final List<ThriftCompactReader.Struct> rowGroups;
+
+	/**
+	 * Key value file metadata
+	 */
+	private final Map<String, String> metadata = new HashMap<>();
+
+	/**
+	 * Total number of rows
+	 */
+	private final long rowCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file
+	 *            Parquet file
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	ParquetFileReader(File file) throws IOException {
+		name = file.getName();
+		channel = new RandomAccessFile(file, "r").getChannel();
+		try {
+
+			long size = channel.size();
+			if (size < ParquetFormat.MAGIC.length + FOOTER_TAIL_LENGTH) {
+				throw new GeoPackageException("Not a Parquet file: " + name);
+			}
+			byte[] tail = read(size - FOOTER_TAIL_LENGTH, FOOTER_TAIL_LENGTH);
+			if (!Arrays.equals(ParquetFormat.MAGIC,
+					Arrays.copyOfRange(tail, 4, 8))) {
+				throw new GeoPackageException("Not a Parquet file: " + name);
+			}
+			int footerLength = readInt(tail, 0);
+			if (footerLength <= 0
+					|| footerLength > size - ParquetFormat.MAGIC.length
+							- FOOTER_TAIL_LENGTH) {
+				throw new GeoPackageException(
+						"Invalid Parquet footer length: " + footerLength);
+			}
+			byte[] footer = read(size - FOOTER_TAIL_LENGTH - footerLength,
+					footerLength);
+			ThriftCompactReader.Struct fileMetadata = new ThriftCompactReader(
+					footer, 0, footer.length).readStruct();
+
+			rowCount = fileMetadata.getLong(ParquetFormat.FILE_NUM_ROWS, 0);
+			rowGroups = fileMetadata.getStructs(ParquetFormat.FILE_ROW_GROUPS);
+			for (ThriftCompactReader.Struct keyValue : fileMetadata
+					.getStructs(ParquetFormat.FILE_KEY_VALUE_METADATA)) {
+				String key = keyValue.getString(ParquetFormat.KEY_VALUE_KEY);
+				if (key != null) {
+					metadata.put(key,
+							keyValue.getString(ParquetFormat.KEY_VALUE_VALUE));
+				}
+			}
+
+			List<ThriftCompactReader.Struct> schema = fileMetadata
+					.getStructs(ParquetFormat.FILE_SCHEMA);
+			if (schema.isEmpty()) {
+				throw new GeoPackageException("Parquet file has no schema: "
+						+ name);
+			}
+			List<String> skipped = new ArrayList<>();
+			readSchema(schema, 1,
+					schema.get(0).getInt(ParquetFormat.SCHEMA_NUM_CHILDREN, 0),
+					false, new int[1], skipped);
+			if (!skipped.isEmpty()) {
+				log.log(Level.WARNING,
+						"Unsupported Parquet columns are not read from file "
+								+ name + ": " + skipped);
+			}
+
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the supported columns in schema order
+	 *
+	 * @return columns
+	 */
+	List<ParquetColumn> getColumns() {
+		return Collections.unmodifiableList(columns);
+	}
+
+	/**
+	 * Get a column by name
+	 *
+	 * @param columnName
+	 *            column name
+	 * @return column, null when not found or not supported
+	 */
+	ParquetColumn getColumn(String columnName) {
+		ParquetColumn column = null;
+		for (ParquetColumn parquetColumn : columns) {
+			if (parquetColumn.getName().equals(columnName)) {
+				column = parquetColumn;
+				break;
+			}
+		}
+		return column;
+	}
+
+	/**
+	 * Get a key value file metadata value
+	 *
+	 * @param key
+	 *            metadata key
+	 * @return value, null when not set
+	 */
+	String getMetadata(String key) {
+		return metadata.get(key);
+	}
+
+	/**
+	 * Get the total number of rows
+	 *
+	 * @return row count
+	 */
+	long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Get the number of row groups
+	 *
+	 * @return row group count
+	 */
+	int getRowGroupCount() {
+		return rowGroups.size();
+	}
+
+	/**
+	 * Get the number of rows in a row group
+	 *
+	 * @param rowGroup
+	 *            row group index
+	 * @return row count
+	 */
+	int getRowGroupRowCount(int rowGroup) {
+		return (int) rowGroups.get(rowGroup).getLong(
+				ParquetFormat.ROW_GROUP_NUM_ROWS, 0);
+	}
+
+	/**
+	 * Read the values of a column chunk. Values are read as Long, Double,
+	 * Boolean, String, or byte[], with dates and timestamps converted to
+	 * GeoPackage DATE and DATETIME text. Safe to call concurrently.
+	 *
+	 * @param rowGroup
+	 *            row group index
+	 * @param column
+	 *            column
+	 * @return values by row, null values as null
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	Object[] readColumn(int rowGroup, ParquetColumn column) throws IOException {
+
+		ThriftCompactReader.Struct group = rowGroups.get(rowGroup);
+		int rows = getRowGroupRowCount(rowGroup);
+		List<ThriftCompactReader.Struct> chunks = group
+				.getStructs(ParquetFormat.ROW_GROUP_COLUMNS);
+		if (column.chunkIndex >= chunks.size()) {
+			throw new GeoPackageException("Missing Parquet column chunk for "
+					+ column.getName() + " in row group " + rowGroup);
+		}
+		ThriftCompactReader.Struct chunkMetadata = chunks.get(
+				column.chunkIndex).getStruct(ParquetFormat.CHUNK_META_DATA);
+		if (chunkMetadata == null) {
+			throw new GeoPackageException(
+					"Missing Parquet column chunk metadata for "
+							+ column.getName() + " in row group " + rowGroup);
+		}
+
+		int codec = chunkMetadata.getInt(ParquetFormat.COLUMN_CODEC);
+		ParquetCompression compression = ParquetCompression.fromCodec(codec);
+		if (compression == null) {
+			throw new GeoPackageException(
+					"Unsupported Parquet compression codec " + codec
+							+ " of column " + column.getName());
+		}
+
+		long start = chunkMetadata.getLong(
+				ParquetFormat.COLUMN_DATA_PAGE_OFFSET, 0);
+		long dictionaryOffset = chunkMetadata.getLong(
+				ParquetFormat.COLUMN_DICTIONARY_PAGE_OFFSET, 0);
+		if (dictionaryOffset > 0 && dictionaryOffset < start) {
+			start = dictionaryOffset;
+		}
+		long chunkLength = chunkMetadata.getLong(
+				ParquetFormat.COLUMN_TOTAL_COMPRESSED_SIZE, 0);
+		if (chunkLength <= 0 || chunkLength > Integer.MAX_VALUE) {
+			throw new GeoPackageException(
+					"Invalid Parquet column chunk size of column "
+							+ column.getName() + ": " + chunkLength);
+		}
+		byte[] bytes = read(start, (int) chunkLength);
+
+		Object[] values = new Object[rows];
+		Object[] dictionary = null;
+		int row = 0;
+		int position = 0;
+		while (position < bytes.length && row < rows) {
+
+			ThriftCompactReader headerReader = new ThriftCompactReader(bytes,
+					position, bytes.length - position);
+			ThriftCompactReader.Struct header = headerReader.readStruct();
+			position = headerReader.getPosition();
+			int pageType = header.getInt(ParquetFormat.PAGE_TYPE);
+			int uncompressedSize = header
+					.getInt(ParquetFormat.PAGE_UNCOMPRESSED_SIZE);
+			int compressedSize = header
+					.getInt(ParquetFormat.PAGE_COMPRESSED_SIZE);
+			if (compressedSize < 0 || compressedSize > bytes.length - position) {
+				throw new GeoPackageException(
+						"Parquet page exceeds the column chunk of column "
+								+ column.getName());
+			}
+
+			switch (pageType) {
+
+			case ParquetFormat.PAGE_DICTIONARY:
+				ThriftCompactReader.Struct dictionaryHeader = header
+						.getStruct(ParquetFormat.PAGE_DICTIONARY_HEADER);
+				int dictionaryValues = dictionaryHeader
+						.getInt(ParquetFormat.DICTIONARY_NUM_VALUES);
+				byte[] dictionaryPage = compression.uncompress(bytes,
+						position, compressedSize, uncompressedSize);
+				dictionary = new Object[dictionaryValues];
+				decodePlain(column, dictionaryPage, 0, dictionaryPage.length,
+						dictionary, dictionaryValues);
+				break;
+
+			case ParquetFormat.PAGE_DATA:
+				ThriftCompactReader.Struct dataHeader = header
+						.getStruct(ParquetFormat.PAGE_DATA_HEADER);
+				int pageValues = Math.min(
+						dataHeader.getInt(ParquetFormat.DATA_NUM_VALUES), rows
+								- row);
+				byte[] page = compression.uncompress(bytes, position,
+						compressedSize, uncompressedSize);
+				int valuesOffset = 0;
+				int[] levels = null;
+				if (column.optional) {
+					int levelsLength = readInt(page, 0);
+					levels = decodeHybrid(page, 4, 4 + levelsLength, 1,
+							pageValues);
+					valuesOffset = 4 + levelsLength;
+				}
+				readValues(column, dataHeader.getInt(ParquetFormat.DATA_ENCODING),
+						page, valuesOffset, page.length, levels, pageValues,
+						dictionary, values, row);
+				row += pageValues;
+				break;
+
+			case ParquetFormat.PAGE_DATA_V2:
+				ThriftCompactReader.Struct dataHeaderV2 = header
+						.getStruct(ParquetFormat.PAGE_DATA_HEADER_V2);
+				int pageValuesV2 = Math.min(
+						dataHeaderV2.getInt(ParquetFormat.DATA_V2_NUM_VALUES),
+						rows - row);
+				int definitionLength = dataHeaderV2
+						.getInt(ParquetFormat.DATA_V2_DEFINITION_LEVELS_LENGTH);
+				int repetitionLength = dataHeaderV2
+						.getInt(ParquetFormat.DATA_V2_REPETITION_LEVELS_LENGTH);
+				int levelsStart = position + repetitionLength;
+				int[] levelsV2 = null;
+				if (column.optional) {
+					levelsV2 = decodeHybrid(bytes, levelsStart, levelsStart
+							+ definitionLength, 1, pageValuesV2);
+				}
+				int dataStart = levelsStart + definitionLength;
+				int dataLength = compressedSize - repetitionLength
+						- definitionLength;
+				byte[] pageV2;
+				if (dataHeaderV2.getBoolean(
+						ParquetFormat.DATA_V2_IS_COMPRESSED, true)) {
+					pageV2 = compression.uncompress(bytes, dataStart,
+							dataLength, uncompressedSize - repetitionLength
+									- definitionLength);
+				} else {
+					pageV2 = Arrays.copyOfRange(bytes, dataStart, dataStart
+							+ dataLength);
+				}
+				readValues(column,
+						dataHeaderV2.getInt(ParquetFormat.DATA_V2_ENCODING),
+						pageV2, 0, pageV2.length, levelsV2, pageValuesV2,
+						dictionary, values, row);
+				row += pageValuesV2;
+				break;
+
+			default:
+				// Skip index pages
+			}
+
+			position += compressedSize;
+		}
+
+		if (row < rows) {
+			throw new GeoPackageException("Parquet column " + column.getName()
+					+ " has " + row + " values in row group " + rowGroup
+					+ ", expected: " + rows);
+		}
+
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Read the schema elements, adding supported leaf columns and skipping
+	 * groups, repeated, and unsupported columns
+	 *
+	 * @param schema
+	 *            schema elements
+	 * @param index
+	 *            index of the first child element
+	 * @param children
+	 *            number of child elements
+	 * @param nested
+	 *            true when within a group
+	 * @param chunkIndex
+	 *            next leaf column chunk index
+	 * @param skipped
+	 *            skipped column names to add to
+	 * @return index after the children
+	 */
+	private int readSchema(List<ThriftCompactReader.Struct> schema, int index,
+			int children, boolean nested, int[] chunkIndex, List<String> skipped) {
+		for (int i = 0; i < children; i++) {
+			if (index >= schema.size()) {
+				throw new GeoPackageException("Invalid Parquet schema: "
+						+ name);
+			}
+			ThriftCompactReader.Struct element = schema.get(index++);
+			String elementName = element.getString(ParquetFormat.SCHEMA_NAME);
+			int elementChildren = element.getInt(
+					ParquetFormat.SCHEMA_NUM_CHILDREN, 0);
+			if (elementChildren > 0) {
+				skipped.add(elementName);
+				index = readSchema(schema, index, elementChildren, true,
+						chunkIndex, skipped);
+			} else {
+				ParquetColumn column = new ParquetColumn(element,
+						chunkIndex[0]++);
+				if (nested || column.repetition == ParquetFormat.REPEATED
+						|| column.dataType == null) {
+					if (!nested) {
+						skipped.add(elementName);
+					}
+				} else {
+					columns.add(column);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Read the values of a data page into the row values
+	 *
+	 * @param column
+	 *            column
+	 * @param encoding
+	 *            values encoding
+	 * @param page
+	 *            page bytes
+	 * @param offset
+	 *            values offset
+	 * @param end
+	 *            values end
+	 * @param levels
+	 *            definition levels, null for a required column
+	 * @param count
+	 *            number of page values, including nulls
+	 * @param dictionary
+	 *            dictionary values, null when no dictionary page
+	 * @param values
+	 *            row values
+	 * @param row
+	 *            first row of the page
+	 */
+	private static void readValues(ParquetColumn column, int encoding,
+			byte[] page, int offset, int end, int[] levels, int count,
+			Object[] dictionary, Object[] values, int row) {
+
+		int nonNull = count;
+		if (levels != null) {
+			nonNull = 0;
+			for (int i = 0; i < count; i++) {
+				if (levels[i] != 0) {
+					nonNull++;
+				}
+			}
+		}
+
+		Object[] pageValues = new Object[nonNull];
+		switch (encoding) {
+		case ParquetFormat.ENCODING_PLAIN:
+			decodePlain(column, page, offset, end, pageValues, nonNull);
+			break;
+		case ParquetFormat.ENCODING_PLAIN_DICTIONARY:
+		case ParquetFormat.ENCODING_RLE_DICTIONARY:
+			if (dictionary == null) {
+				throw new GeoPackageException(
+						"Missing Parquet dictionary page of column "
+								+ column.getName());
+			}
+			int[] indexes = decodeHybrid(page, offset + 1, end,
+					page[offset] & 0xFF, nonNull);
+			for (int i = 0; i < nonNull; i++) {
+				if (indexes[i] < 0 || indexes[i] >= dictionary.length) {
+					throw new GeoPackageException(
+							"Invalid Parquet dictionary index of column "
+									+ column.getName() + ": " + indexes[i]);
+				}
+				pageValues[i] = dictionary[indexes[i]];
+			}
+			break;
+		case ParquetFormat.ENCODING_RLE:
+			if (column.type != ParquetFormat.TYPE_BOOLEAN) {
+				throw new GeoPackageException(
+						"Unsupported Parquet RLE encoding of column "
+								+ column.getName());
+			}
+			int length = readInt(page, offset);
+			int[] booleans = decodeHybrid(page, offset + 4, offset + 4
+					+ length, 1, nonNull);
+			for (int i = 0; i < nonNull; i++) {
+				pageValues[i] = booleans[i] != 0;
+			}
+			break;
+		default:
+			throw new GeoPackageException("Unsupported Parquet encoding "
+					+ encoding + " of column " + column.getName());
+		}
+
+		int valueIndex = 0;
+		for (int i = 0; i < count; i++) {
+			if (levels == null || levels[i] != 0) {
+				values[row + i] = pageValues[valueIndex++];
+			}
+		}
+	}
+
+	/**
+	 * Decode PLAIN encoded values
+	 *
+	 * @param column
+	 *            column
+	 * @param bytes
+	 *            bytes
+	 * @param offset
+	 *            values offset
+	 * @param end
+	 *            values end
+	 * @param values
+	 *            values to decode into
+	 * @param count
+	 *            number of values
+	 */
+	private static void decodePlain(ParquetColumn column, byte[] bytes,
+			int offset, int end, Object[] values, int count) {
+		int position = offset;
+		try {
+			for (int i = 0; i < count; i++) {
+				Object value;
+				switch (column.type) {
+				case ParquetFormat.TYPE_BOOLEAN:
+					value = (bytes[offset + (i >>> 3)] >>> (i & 7) & 1) != 0;
+					break;
+				case ParquetFormat.TYPE_INT32:
+					value = column.convert(readInt(bytes, position));
+					position += 4;
+					break;
+				case ParquetFormat.TYPE_INT64:
+					value = column.convert(readLong(bytes, position));
+					position += 8;
+					break;
+				case ParquetFormat.TYPE_FLOAT:
+					value = (double) Float.intBitsToFloat(readInt(bytes,
+							position));
+					position += 4;
+					break;
+				case ParquetFormat.TYPE_DOUBLE:
+					value = Double.longBitsToDouble(readLong(bytes, position));
+					position += 8;
+					break;
+				case ParquetFormat.TYPE_BYTE_ARRAY:
+					int length = readInt(bytes, position);
+					position += 4;
+					if (length < 0 || length > end - position) {
+						throw new GeoPackageException(
+								"Invalid Parquet byte array length of column "
+										+ column.getName() + ": " + length);
+					}
+					value = column.convert(bytes, position, length);
+					position += length;
+					break;
+				default:
+					value = column.convert(bytes, position, column.typeLength);
+					position += column.typeLength;
+				}
+				values[i] = value;
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new GeoPackageException(
+					"Parquet page values exceed the page of column "
+							+ column.getName(), e);
+		}
+		if (position > end) {
+			throw new GeoPackageException(
+					"Parquet page values exceed the page of column "
+							+ column.getName());
+		}
+	}
+
+	/**
+	 * Decode RLE and bit packed hybrid encoded values
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param offset
+	 *            encoded offset
+	 * @param end
+	 *            encoded end
+	 * @param bitWidth
+	 *            value bit width
+	 * @param count
+	 *            number of values
+	 * @return values
+	 */
+	static int[] decodeHybrid(byte[] bytes, int offset, int end,
+			int bitWidth, int count) {
+		if (bitWidth < 0 || bitWidth > 32) {
+			throw new GeoPackageException("Invalid Parquet bit width: "
+					+ bitWidth);
+		}
+		int[] values = new int[count];
+		int index = 0;
+		int position = offset;
+		while (index < count) {
+			if (position >= end) {
+				throw new GeoPackageException(
+						"Unexpected end of Parquet RLE values");
+			}
+			int header = 0;
+			for (int shift = 0;; shift += 7) {
+				int b = bytes[position++] & 0xFF;
+				header |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					break;
+				}
+				if (shift > 28 || position >= end) {
+					throw new GeoPackageException(
+							"Invalid Parquet RLE run header");
+				}
+			}
+			if ((header & 1) == 0) {
+				// Repeated value run
+				int run = header >>> 1;
+				int valueBytes = (bitWidth + 7) / 8;
+				if (position + valueBytes > end) {
+					throw new GeoPackageException(
+							"Unexpected end of Parquet RLE values");
+				}
+				int value = 0;
+				for (int i = 0; i < valueBytes; i++) {
+					value |= (bytes[position++] & 0xFF) << (8 * i);
+				}
+				int runEnd = Math.min(count, index + run);
+				Arrays.fill(values, index, runEnd, value);
+				index = runEnd;
+			} else {
+				// Bit packed groups of 8 values
+				int groupsBytes = (header >>> 1) * bitWidth;
+				int runValues = (header >>> 1) * 8;
+				if (position + groupsBytes > end) {
+					throw new GeoPackageException(
+							"Unexpected end of Parquet bit packed values");
+				}
+				long mask = (1L << bitWidth) - 1;
+				long bitPosition = (long) position * 8;
+				for (int i = 0; i < runValues && index < count; i++) {
+					long value = 0;
+					for (int bit = 0; bit < bitWidth; bit++) {
+						long absolute = bitPosition + bit;
+						value |= (long) (bytes[(int) (absolute >>> 3)] >>> (absolute & 7) & 1) << bit;
+					}
+					values[index++] = (int) (value & mask);
+					bitPosition += bitWidth;
+				}
+				position += groupsBytes;
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Read bytes from the file
+	 *
+	 * @param offset
+	 *            file offset
+	 * @param length
+	 *            number of bytes
+	 * @return bytes
+	 * @throws IOException
+	 *             upon failure to read
+	 */
+	private byte[] read(long offset, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		long position = offset;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new GeoPackageException(
+						"Unexpected end of Parquet file: " + name);
+			}
+			position += read;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Read a little endian int
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param offset
+	 *            byte offset
+	 * @return int value
+	 */
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8
+				| (bytes[offset + 2] & 0xFF) << 16
+				| (bytes[offset + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * Read a little endian long
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param offset
+	 *            byte offset
+	 * @return long value
+	 */
+	private static long readLong(byte[] bytes, int offset) {
+		return (readInt(bytes, offset) & 0xFFFFFFFFL)
+				| (long) readInt(bytes, offset + 4) << 32;
+	}
+
+	/**
+	 * Parquet leaf column
+	 */
+	static class ParquetColumn {
+
+		/**
+		 * Column name
+		 */
+		private final String name;
+
+		/**
+		 * Physical type
+		 */
+		private final int type;
+
+		/**
+		 * Fixed length byte array length
+		 */
+		private final int typeLength;
+
+		/**
+		 * Repetition type
+		 */
+		private final int repetition;
+
+		/**
+		 * True when optional with definition levels
+		 */
+		private final boolean optional;
+
+		/**
+		 * True when byte arrays are UTF-8 strings
+		 */
+		private boolean string;
+
+		/**
+		 * True when an INT32 date
+		 */
+		private boolean date;
+
+		/**
+		 * Timestamp units per millisecond, 0 when not a timestamp
+		 */
+		private long timestampUnits;
+
+		/**
+		 * GeoPackage data type, null when not supported
+		 */
+		private final GeoPackageDataType dataType;
+
+		/**
+		 * Column chunk index within a row group
+		 */
+		private final int chunkIndex;
+
+		/**
+		 * Constructor
+		 *
+		 * @param element
+		 *            schema element
+		 * @param chunkIndex
+		 *            column chunk index
+		 */
+		private ParquetColumn(ThriftCompactReader.Struct element,
+				int chunkIndex) {
+			this.name = element.getString(ParquetFormat.SCHEMA_NAME);
+			this.type = element.getInt(ParquetFormat.SCHEMA_TYPE, -1);
+			this.typeLength = element.getInt(
+					ParquetFormat.SCHEMA_TYPE_LENGTH, 0);
+			this.repetition = element.getInt(
+					ParquetFormat.SCHEMA_REPETITION_TYPE,
+					ParquetFormat.REQUIRED);
+			this.optional = repetition == ParquetFormat.OPTIONAL;
+			this.chunkIndex = chunkIndex;
+
+			int convertedType = element.getInt(
+					ParquetFormat.SCHEMA_CONVERTED_TYPE, -1);
+			ThriftCompactReader.Struct logicalType = element
+					.getStruct(ParquetFormat.SCHEMA_LOGICAL_TYPE);
+
+			boolean decimal = convertedType == ParquetFormat.CONVERTED_DECIMAL
+					|| (logicalType != null && logicalType
+							.has(ParquetFormat.LOGICAL_DECIMAL));
+			string = convertedType == ParquetFormat.CONVERTED_UTF8
+					|| convertedType == ParquetFormat.CONVERTED_ENUM
+					|| convertedType == ParquetFormat.CONVERTED_JSON
+					|| (logicalType != null && (logicalType
+							.has(ParquetFormat.LOGICAL_STRING)
+							|| logicalType.has(ParquetFormat.LOGICAL_ENUM) || logicalType
+								.has(ParquetFormat.LOGICAL_JSON)));
+			date = convertedType == ParquetFormat.CONVERTED_DATE
+					|| (logicalType != null && logicalType
+							.has(ParquetFormat.LOGICAL_DATE));
+			if (convertedType == ParquetFormat.CONVERTED_TIMESTAMP_MILLIS) {
+				timestampUnits = 1;
+			} else if (convertedType == ParquetFormat.CONVERTED_TIMESTAMP_MICROS) {
+				timestampUnits = 1000;
+			} else if (logicalType != null
+					&& logicalType.has(ParquetFormat.LOGICAL_TIMESTAMP)) {
+				// Time unit union of millis (1), micros (2), or nanos (3)
+				ThriftCompactReader.Struct unit = logicalType.getStruct(
+						ParquetFormat.LOGICAL_TIMESTAMP).getStruct(2);
+				if (unit == null || unit.has(1)) {
+					timestampUnits = 1;
+				} else if (unit.has(2)) {
+					timestampUnits = 1000;
+				} else {
+					timestampUnits = 1000000;
+				}
+			}
+
+			GeoPackageDataType columnDataType = null;
+			if (!decimal) {
+				switch (type) {
+				case ParquetFormat.TYPE_BOOLEAN:
+					columnDataType = GeoPackageDataType.BOOLEAN;
+					break;
+				case ParquetFormat.TYPE_INT32:
+					columnDataType = date ? GeoPackageDataType.DATE
+							: GeoPackageDataType.INTEGER;
+					break;
+				case ParquetFormat.TYPE_INT64:
+					columnDataType = timestampUnits > 0 ? GeoPackageDataType.DATETIME
+							: GeoPackageDataType.INTEGER;
+					break;
+				case ParquetFormat.TYPE_FLOAT:
+					columnDataType = GeoPackageDataType.FLOAT;
+					break;
+				case ParquetFormat.TYPE_DOUBLE:
+					columnDataType = GeoPackageDataType.DOUBLE;
+					break;
+				case ParquetFormat.TYPE_BYTE_ARRAY:
+					columnDataType = string ? GeoPackageDataType.TEXT
+							: GeoPackageDataType.BLOB;
+					break;
+				case ParquetFormat.TYPE_FIXED_LEN_BYTE_ARRAY:
+					columnDataType = GeoPackageDataType.BLOB;
+					break;
+				default:
+					// INT96 and unknown types are not supported
+				}
+			}
+			this.dataType = columnDataType;
+		}
+
+		/**
+		 * Get the column name
+		 *
+		 * @return name
+		 */
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Get the physical type
+		 *
+		 * @return physical type
+		 */
+		int getType() {
+			return type;
+		}
+
+		/**
+		 * Determine if the column is optional and may contain nulls
+		 *
+		 * @return true if optional
+		 */
+		boolean isOptional() {
+			return optional;
+		}
+
+		/**
+		 * Get the GeoPackage data type of the read values
+		 *
+		 * @return data type
+		 */
+		GeoPackageDataType getDataType() {
+			return dataType;
+		}
+
+		/**
+		 * Convert an INT32 value
+		 *
+		 * @param value
+		 *            value
+		 * @return Long, or date text
+		 */
+		private Object convert(int value) {
+			return date ? formatDate(value).toString() : (Object) (long) value;
+		}
+
+		/**
+		 * Convert an INT64 value
+		 *
+		 * @param value
+		 *            value
+		 * @return Long, or date time text
+		 */
+		private Object convert(long value) {
+			Object converted;
+			if (timestampUnits > 0) {
+				long millis = floorDiv(value, timestampUnits);
+				long days = floorDiv(millis, MILLIS_PER_DAY);
+				StringBuilder text = formatDate(days);
+				long millisOfDay = millis - days * MILLIS_PER_DAY;
+				text.append('T');
+				appendPadded(text, millisOfDay / 3600000, 2);
+				text.append(':');
+				appendPadded(text, millisOfDay / 60000 % 60, 2);
+				text.append(':');
+				appendPadded(text, millisOfDay / 1000 % 60, 2);
+				text.append('.');
+				appendPadded(text, millisOfDay % 1000, 3);
+				text.append('Z');
+				converted = text.toString();
+			} else {
+				converted = value;
+			}
+			return converted;
+		}
+
+		/**
+		 * Convert a byte array value
+		 *
+		 * @param bytes
+		 *            bytes
+		 * @param offset
+		 *            byte offset
+		 * @param length
+		 *            number of bytes
+		 * @return String or byte[]
+		 */
+		private Object convert(byte[] bytes, int offset, int length) {
+			return string ? new String(bytes, offset, length,
+					StandardCharsets.UTF_8) : Arrays.copyOfRange(bytes,
+					offset, offset + length);
+		}
+
+		/**
+		 * Format days since the epoch as a yyyy-MM-dd date
+		 *
+		 * @param days
+		 *            days since 1970-01-01
+		 * @return date text builder
+		 */
+		private static StringBuilder formatDate(long days) {
+			// Civil date from days, proleptic Gregorian calendar
+			long z = days + 719468;
+			long era = floorDiv(z, 146097);
+			long dayOfEra = z - era * 146097;
+			long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+			long dayOfYear = dayOfEra
+					- (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+			long monthIndex = (5 * dayOfYear + 2) / 153;
+			long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+			long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+			long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+			StringBuilder text = new StringBuilder(24);
+			if (year < 0) {
+				text.append('-');
+				year = -year;
+			}
+			appendPadded(text, year, 4);
+			text.append('-');
+			appendPadded(text, month, 2);
+			text.append('-');
+			appendPadded(text, day, 2);
+			return text;
+		}
+
+		/**
+		 * Append a zero padded non negative value
+		 *
+		 * @param text
+		 *            text builder
+		 * @param value
+		 *            value
+		 * @param digits
+		 *            minimum number of digits
+		 */
+		private static void appendPadded(StringBuilder text, long value,
+				int digits) {
+			String valueText = Long.toString(value);
+			for (int i = valueText.length(); i < digits; i++) {
+				text.append('0');
+			}
+			text.append(valueText);
+		}
+
+		/**
+		 * Floor division
+		 *
+		 * @param dividend
+		 *            dividend
+		 * @param divisor
+		 *            positive divisor
+		 * @return quotient rounded towards negative infinity
+		 */
+		private static long floorDiv(long dividend, long divisor) {
+			long quotient = dividend / divisor;
+			if (dividend % divisor < 0) {
+				quotient--;
+			}
+			return quotient;
+		}
+
+	}
+
+}
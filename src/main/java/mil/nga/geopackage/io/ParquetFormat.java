@@ -0,0 +1,140 @@
+package mil.nga.geopackage.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parquet file format constants, Thrift field ids, and shared encodings used
+ * by the GeoParquet writer and reader
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+final class ParquetFormat {
+
+	/**
+	 * File magic bytes at the start and end of a Parquet file
+	 */
+	static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * GeoParquet file metadata key
+	 */
+	static final String GEO_KEY = "geo";
+
+	/**
+	 * Physical types
+	 */
+	static final int TYPE_BOOLEAN = 0, TYPE_INT32 = 1, TYPE_INT64 = 2,
+			TYPE_INT96 = 3, TYPE_FLOAT = 4, TYPE_DOUBLE = 5,
+			TYPE_BYTE_ARRAY = 6, TYPE_FIXED_LEN_BYTE_ARRAY = 7;
+
+	/**
+	 * Field repetition types
+	 */
+	static final int REQUIRED = 0, OPTIONAL = 1, REPEATED = 2;
+
+	/**
+	 * Converted types
+	 */
+	static final int CONVERTED_UTF8 = 0, CONVERTED_ENUM = 4,
+			CONVERTED_DECIMAL = 5, CONVERTED_DATE = 6,
+			CONVERTED_TIMESTAMP_MILLIS = 9, CONVERTED_TIMESTAMP_MICROS = 10,
+			CONVERTED_JSON = 19;
+
+	/**
+	 * Logical type union fields
+	 */
+	static final int LOGICAL_STRING = 1, LOGICAL_ENUM = 4,
+			LOGICAL_DECIMAL = 5, LOGICAL_DATE = 6, LOGICAL_TIMESTAMP = 8,
+			LOGICAL_JSON = 12;
+
+	/**
+	 * Encodings
+	 */
+	static final int ENCODING_PLAIN = 0, ENCODING_PLAIN_DICTIONARY = 2,
+			ENCODING_RLE = 3, ENCODING_RLE_DICTIONARY = 8;
+
+	/**
+	 * Page types
+	 */
+	static final int PAGE_DATA = 0, PAGE_DICTIONARY = 2, PAGE_DATA_V2 = 3;
+
+	/**
+	 * FileMetaData fields
+	 */
+	static final int FILE_VERSION = 1, FILE_SCHEMA = 2, FILE_NUM_ROWS = 3,
+			FILE_ROW_GROUPS = 4, FILE_KEY_VALUE_METADATA = 5,
+			FILE_CREATED_BY = 6;
+
+	/**
+	 * SchemaElement fields
+	 */
+	static final int SCHEMA_TYPE = 1, SCHEMA_TYPE_LENGTH = 2,
+			SCHEMA_REPETITION_TYPE = 3, SCHEMA_NAME = 4,
+			SCHEMA_NUM_CHILDREN = 5, SCHEMA_CONVERTED_TYPE = 6,
+			SCHEMA_LOGICAL_TYPE = 10;
+
+	/**
+	 * RowGroup fields
+	 */
+	static final int ROW_GROUP_COLUMNS = 1, ROW_GROUP_TOTAL_BYTE_SIZE = 2,
+			ROW_GROUP_NUM_ROWS = 3, ROW_GROUP_FILE_OFFSET = 5,
+			ROW_GROUP_TOTAL_COMPRESSED_SIZE = 6;
+
+	/**
+	 * ColumnChunk fields
+	 */
+	static final int CHUNK_FILE_OFFSET = 2, CHUNK_META_DATA = 3;
+
+	/**
+	 * ColumnMetaData fields
+	 */
+	static final int COLUMN_TYPE = 1, COLUMN_ENCODINGS = 2,
+			COLUMN_PATH_IN_SCHEMA = 3, COLUMN_CODEC = 4,
+			COLUMN_NUM_VALUES = 5, COLUMN_TOTAL_UNCOMPRESSED_SIZE = 6,
+			COLUMN_TOTAL_COMPRESSED_SIZE = 7, COLUMN_DATA_PAGE_OFFSET = 9,
+			COLUMN_DICTIONARY_PAGE_OFFSET = 11, COLUMN_STATISTICS = 12;
+
+	/**
+	 * Statistics fields
+	 */
+	static final int STATISTICS_NULL_COUNT = 3;
+
+	/**
+	 * KeyValue fields
+	 */
+	static final int KEY_VALUE_KEY = 1, KEY_VALUE_VALUE = 2;
+
+	/**
+	 * PageHeader fields
+	 */
+	static final int PAGE_TYPE = 1, PAGE_UNCOMPRESSED_SIZE = 2,
+			PAGE_COMPRESSED_SIZE = 3, PAGE_DATA_HEADER = 5,
+			PAGE_DICTIONARY_HEADER = 7, PAGE_DATA_HEADER_V2 = 8;
+
+	/**
+	 * DataPageHeader fields
+	 */
+	static final int DATA_NUM_VALUES = 1, DATA_ENCODING = 2,
+			DATA_DEFINITION_LEVEL_ENCODING = 3,
+			DATA_REPETITION_LEVEL_ENCODING = 4;
+
+	/**
+	 * DataPageHeaderV2 fields
+	 */
+	static final int DATA_V2_NUM_VALUES = 1, DATA_V2_ENCODING = 4,
+			DATA_V2_DEFINITION_LEVELS_LENGTH = 5,
+			DATA_V2_REPETITION_LEVELS_LENGTH = 6, DATA_V2_IS_COMPRESSED = 7;
+
+	/**
+	 * DictionaryPageHeader fields
+	 */
+	static final int DICTIONARY_NUM_VALUES = 1, DICTIONARY_ENCODING = 2;
+
+	/**
+	 * Private constructor
+	 */
+	private ParquetFormat() {
+	}
+
+}
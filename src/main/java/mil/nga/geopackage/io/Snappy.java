@@ -0,0 +1,336 @@
+package mil.nga.geopackage.io;
+
+import java.util.Arrays;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Snappy raw block format compression, as used by the Parquet SNAPPY codec.
+ * Compression uses a greedy hash match over 64 KB blocks.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+final class Snappy {
+
+	/**
+	 * Compression block size, copies never reach outside of a block
+	 */
+	private static final int BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * Hash table bits
+	 */
+	private static final int HASH_BITS = 14;
+
+	/**
+	 * Minimum match length
+	 */
+	private static final int MIN_MATCH = 4;
+
+	/**
+	 * Private constructor
+	 */
+	private Snappy() {
+	}
+
+	/**
+	 * Get the max compressed length of the input length
+	 *
+	 * @param length
+	 *            input length
+	 * @return max compressed length
+	 */
+	static int maxCompressedLength(int length) {
+		return 32 + length + length / 6;
+	}
+
+	/**
+	 * Compress the input bytes
+	 *
+	 * @param input
+	 *            input bytes
+	 * @param offset
+	 *            input offset
+	 * @param length
+	 *            input length
+	 * @param output
+	 *            output bytes of at least the max compressed length
+	 * @return compressed length
+	 */
+	static int compress(byte[] input, int offset, int length, byte[] output) {
+
+		int out = writeVarint(output, 0, length);
+
+		int[] table = new int[1 << HASH_BITS];
+		int end = offset + length;
+		for (int block = offset; block < end; block += BLOCK_SIZE) {
+
+			int blockEnd = Math.min(block + BLOCK_SIZE, end);
+			Arrays.fill(table, -1);
+
+			int literalStart = block;
+			int position = block;
+			while (position + MIN_MATCH <= blockEnd) {
+				int hash = hash(input, position);
+				int candidate = table[hash];
+				table[hash] = position;
+				if (candidate >= block
+						&& readInt(input, candidate) == readInt(input,
+								position)) {
+					int matchLength = MIN_MATCH;
+					while (position + matchLength < blockEnd
+							&& input[candidate + matchLength] == input[position
+									+ matchLength]) {
+						matchLength++;
+					}
+					out = writeLiteral(input, literalStart, position
+							- literalStart, output, out);
+					out = writeCopy(position - candidate, matchLength, output,
+							out);
+					position += matchLength;
+					literalStart = position;
+				} else {
+					position++;
+				}
+			}
+			out = writeLiteral(input, literalStart, blockEnd - literalStart,
+					output, out);
+		}
+
+		return out;
+	}
+
+	/**
+	 * Uncompress the input bytes
+	 *
+	 * @param input
+	 *            compressed bytes
+	 * @param offset
+	 *            input offset
+	 * @param length
+	 *            input length
+	 * @return uncompressed bytes
+	 */
+	static byte[] uncompress(byte[] input, int offset, int length) {
+
+		int end = offset + length;
+
+		// Uncompressed length preamble
+		long uncompressedLength = 0;
+		int position = offset;
+		for (int shift = 0;; shift += 7) {
+			if (position >= end || shift > 28) {
+				throw new GeoPackageException(
+						"Invalid Snappy uncompressed length");
+			}
+			int b = input[position++] & 0xFF;
+			uncompressedLength |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				break;
+			}
+		}
+		if (uncompressedLength > Integer.MAX_VALUE) {
+			throw new GeoPackageException("Snappy uncompressed length too large: "
+					+ uncompressedLength);
+		}
+
+		byte[] output = new byte[(int) uncompressedLength];
+		int out = 0;
+		try {
+			while (position < end) {
+				int tag = input[position++] & 0xFF;
+				int elementLength;
+				int copyOffset;
+				switch (tag & 3) {
+				case 0:
+					elementLength = (tag >>> 2) + 1;
+					if (elementLength > 60) {
+						int bytes = elementLength - 60;
+						elementLength = 0;
+						for (int i = 0; i < bytes; i++) {
+							elementLength |= (input[position++] & 0xFF) << (8 * i);
+						}
+						elementLength++;
+					}
+					System.arraycopy(input, position, output, out,
+							elementLength);
+					position += elementLength;
+					out += elementLength;
+					continue;
+				case 1:
+					elementLength = ((tag >>> 2) & 7) + 4;
+					copyOffset = (tag >>> 5) << 8 | (input[position++] & 0xFF);
+					break;
+				case 2:
+					elementLength = (tag >>> 2) + 1;
+					copyOffset = (input[position] & 0xFF)
+							| (input[position + 1] & 0xFF) << 8;
+					position += 2;
+					break;
+				default:
+					elementLength = (tag >>> 2) + 1;
+					copyOffset = (input[position] & 0xFF)
+							| (input[position + 1] & 0xFF) << 8
+							| (input[position + 2] & 0xFF) << 16
+							| (input[position + 3] & 0xFF) << 24;
+					position += 4;
+				}
+				if (copyOffset <= 0 || copyOffset > out
+						|| out + elementLength > output.length) {
+					throw new GeoPackageException("Invalid Snappy copy");
+				}
+				for (int i = 0; i < elementLength; i++) {
+					output[out] = output[out - copyOffset];
+					out++;
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new GeoPackageException("Corrupt Snappy input", e);
+		}
+		if (out != output.length) {
+			throw new GeoPackageException(
+					"Snappy uncompressed length mismatch, expected: "
+							+ output.length + ", actual: " + out);
+		}
+
+		return output;
+	}
+
+	/**
+	 * Hash the 4 bytes at the position
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param position
+	 *            position
+	 * @return hash
+	 */
+	private static int hash(byte[] bytes, int position) {
+		return (readInt(bytes, position) * 0x1E35A7BD) >>> (32 - HASH_BITS);
+	}
+
+	/**
+	 * Read 4 little endian bytes
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param position
+	 *            position
+	 * @return int value
+	 */
+	private static int readInt(byte[] bytes, int position) {
+		return (bytes[position] & 0xFF) | (bytes[position + 1] & 0xFF) << 8
+				| (bytes[position + 2] & 0xFF) << 16
+				| (bytes[position + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * Write a varint
+	 *
+	 * @param output
+	 *            output bytes
+	 * @param out
+	 *            output position
+	 * @param value
+	 *            value
+	 * @return output position
+	 */
+	private static int writeVarint(byte[] output, int out, int value) {
+		while ((value & ~0x7F) != 0) {
+			output[out++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output[out++] = (byte) value;
+		return out;
+	}
+
+	/**
+	 * Write a literal element
+	 *
+	 * @param input
+	 *            input bytes
+	 * @param start
+	 *            literal start
+	 * @param length
+	 *            literal length
+	 * @param output
+	 *            output bytes
+	 * @param out
+	 *            output position
+	 * @return output position
+	 */
+	private static int writeLiteral(byte[] input, int start, int length,
+			byte[] output, int out) {
+		if (length > 0) {
+			int n = length - 1;
+			if (n < 60) {
+				output[out++] = (byte) (n << 2);
+			} else if (n < 1 << 8) {
+				output[out++] = (byte) (60 << 2);
+				output[out++] = (byte) n;
+			} else {
+				output[out++] = (byte) (61 << 2);
+				output[out++] = (byte) n;
+				output[out++] = (byte) (n >>> 8);
+			}
+			System.arraycopy(input, start, output, out, length);
+			out += length;
+		}
+		return out;
+	}
+
+	/**
+	 * Write copy elements for the match
+	 *
+	 * @param copyOffset
+	 *            copy offset, less than 64 KB
+	 * @param length
+	 *            match length
+	 * @param output
+	 *            output bytes
+	 * @param out
+	 *            output position
+	 * @return output position
+	 */
+	private static int writeCopy(int copyOffset, int length, byte[] output,
+			int out) {
+		while (length >= 68) {
+			out = writeCopy2(copyOffset, 64, output, out);
+			length -= 64;
+		}
+		if (length > 64) {
+			out = writeCopy2(copyOffset, 60, output, out);
+			length -= 60;
+		}
+		if (length >= 12 || copyOffset >= 2048) {
+			out = writeCopy2(copyOffset, length, output, out);
+		} else {
+			output[out++] = (byte) (1 | (length - 4) << 2 | (copyOffset >>> 8) << 5);
+			output[out++] = (byte) copyOffset;
+		}
+		return out;
+	}
+
+	/**
+	 * Write a copy element with a 2 byte offset
+	 *
+	 * @param copyOffset
+	 *            copy offset
+	 * @param length
+	 *            copy length, 1 to 64
+	 * @param output
+	 *            output bytes
+	 * @param out
+	 *            output position
+	 * @return output position
+	 */
+	private static int writeCopy2(int copyOffset, int length, byte[] output,
+			int out) {
+		output[out++] = (byte) (2 | (length - 1) << 2);
+		output[out++] = (byte) copyOffset;
+		output[out++] = (byte) (copyOffset >>> 8);
+		return out;
+	}
+
+}
@@ -0,0 +1,394 @@
+package mil.nga.geopackage.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Minimal Thrift compact protocol reader used to decode Parquet metadata.
+ * Structs are read generically into {@link Struct} field maps, so unknown
+ * fields written by newer Parquet versions are read and ignored.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class ThriftCompactReader {
+
+	/**
+	 * Compact protocol types
+	 */
+	private static final int TYPE_BOOLEAN_TRUE = 1, TYPE_BOOLEAN_FALSE = 2,
+			TYPE_BYTE = 3, TYPE_I16 = 4, TYPE_I32 = 5, TYPE_I64 = 6,
+			TYPE_DOUBLE = 7, TYPE_BINARY = 8, TYPE_LIST = 9, TYPE_SET = 10,
+			TYPE_MAP = 11, TYPE_STRUCT = 12;
+
+	/**
+	 * Max struct nesting depth
+	 */
+	private static final int MAX_DEPTH = 64;
+
+	/**
+	 * Input bytes
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * Read position
+	 */
+	private int position;
+
+	/**
+	 * End position
+	 */
+	private final int end;
+
+	/**
+	 * Constructor
+	 *
+	 * @param bytes
+	 *            input bytes
+	 * @param offset
+	 *            read offset
+	 * @param length
+	 *            number of readable bytes
+	 */
+	ThriftCompactReader(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.position = offset;
+		this.end = offset + length;
+	}
+
+	/**
+	 * Get the read position
+	 *
+	 * @return position
+	 */
+	int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Read a struct
+	 *
+	 * @return struct
+	 */
+	Struct readStruct() {
+		return readStruct(0);
+	}
+
+	/**
+	 * Read a struct
+	 *
+	 * @param depth
+	 *            nesting depth
+	 * @return struct
+	 */
+	private Struct readStruct(int depth) {
+		if (depth > MAX_DEPTH) {
+			throw new GeoPackageException(
+					"Thrift struct nesting is too deep");
+		}
+		Struct struct = new Struct();
+		int fieldId = 0;
+		while (true) {
+			int header = readByte();
+			int type = header & 0x0F;
+			if (type == 0) {
+				break;
+			}
+			int delta = header >>> 4;
+			if (delta != 0) {
+				fieldId += delta;
+			} else {
+				fieldId = (short) unzigzag(readVarint());
+			}
+			Object value;
+			if (type == TYPE_BOOLEAN_TRUE) {
+				value = Boolean.TRUE;
+			} else if (type == TYPE_BOOLEAN_FALSE) {
+				value = Boolean.FALSE;
+			} else {
+				value = readValue(type, depth);
+			}
+			struct.fields.put(fieldId, value);
+		}
+		return struct;
+	}
+
+	/**
+	 * Read a value of the compact type
+	 *
+	 * @param type
+	 *            compact type
+	 * @param depth
+	 *            nesting depth
+	 * @return value
+	 */
+	private Object readValue(int type, int depth) {
+		Object value;
+		switch (type) {
+		case TYPE_BOOLEAN_TRUE:
+		case TYPE_BOOLEAN_FALSE:
+			value = readByte() == TYPE_BOOLEAN_TRUE;
+			break;
+		case TYPE_BYTE:
+			value = (long) (byte) readByte();
+			break;
+		case TYPE_I16:
+		case TYPE_I32:
+		case TYPE_I64:
+			value = unzigzag(readVarint());
+			break;
+		case TYPE_DOUBLE:
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits |= (long) readByte() << (8 * i);
+			}
+			value = Double.longBitsToDouble(bits);
+			break;
+		case TYPE_BINARY:
+			int length = (int) readVarint();
+			if (length < 0 || length > end - position) {
+				throw new GeoPackageException(
+						"Thrift binary length exceeds the input: " + length);
+			}
+			byte[] binary = new byte[length];
+			System.arraycopy(bytes, position, binary, 0, length);
+			position += length;
+			value = binary;
+			break;
+		case TYPE_LIST:
+		case TYPE_SET:
+			int listHeader = readByte();
+			int size = listHeader >>> 4;
+			if (size == 15) {
+				size = (int) readVarint();
+			}
+			int elementType = listHeader & 0x0F;
+			List<Object> list = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				list.add(readValue(elementType, depth + 1));
+			}
+			value = list;
+			break;
+		case TYPE_MAP:
+			int entries = (int) readVarint();
+			Map<Object, Object> map = new HashMap<>();
+			if (entries > 0) {
+				int types = readByte();
+				for (int i = 0; i < entries; i++) {
+					Object key = readValue(types >>> 4, depth + 1);
+					map.put(key, readValue(types & 0x0F, depth + 1));
+				}
+			}
+			value = map;
+			break;
+		case TYPE_STRUCT:
+			value = readStruct(depth + 1);
+			break;
+		default:
+			throw new GeoPackageException("Unsupported Thrift compact type: "
+					+ type);
+		}
+		return value;
+	}
+
+	/**
+	 * Read an unsigned varint
+	 *
+	 * @return value
+	 */
+	private long readVarint() {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				break;
+			}
+			shift += 7;
+			if (shift > 63) {
+				throw new GeoPackageException("Thrift varint is too long");
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Zigzag decode a value
+	 *
+	 * @param value
+	 *            zigzag value
+	 * @return value
+	 */
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Read a byte
+	 *
+	 * @return unsigned byte value
+	 */
+	private int readByte() {
+		if (position >= end) {
+			throw new GeoPackageException(
+					"Unexpected end of Thrift compact input");
+		}
+		return bytes[position++] & 0xFF;
+	}
+
+	/**
+	 * Struct of field values by field id. Integers are read as longs, binary
+	 * as byte arrays, lists as lists, and nested structs as structs.
+	 */
+	static class Struct {
+
+		/**
+		 * Field values by field id
+		 */
+		private final Map<Integer, Object> fields = new HashMap<>();
+
+		/**
+		 * Determine if the field is set
+		 *
+		 * @param id
+		 *            field id
+		 * @return true if set
+		 */
+		boolean has(int id) {
+			return fields.containsKey(id);
+		}
+
+		/**
+		 * Get an integer field
+		 *
+		 * @param id
+		 *            field id
+		 * @param defaultValue
+		 *            value when not set
+		 * @return value
+		 */
+		long getLong(int id, long defaultValue) {
+			Object value = fields.get(id);
+			return value instanceof Long ? (Long) value : defaultValue;
+		}
+
+		/**
+		 * Get an integer field as an int
+		 *
+		 * @param id
+		 *            field id
+		 * @param defaultValue
+		 *            value when not set
+		 * @return value
+		 */
+		int getInt(int id, int defaultValue) {
+			return (int) getLong(id, defaultValue);
+		}
+
+		/**
+		 * Get a required integer field as an int
+		 *
+		 * @param id
+		 *            field id
+		 * @return value
+		 */
+		int getInt(int id) {
+			if (!(fields.get(id) instanceof Long)) {
+				throw new GeoPackageException(
+						"Missing required Thrift integer field: " + id);
+			}
+			return getInt(id, 0);
+		}
+
+		/**
+		 * Get a boolean field
+		 *
+		 * @param id
+		 *            field id
+		 * @param defaultValue
+		 *            value when not set
+		 * @return value
+		 */
+		boolean getBoolean(int id, boolean defaultValue) {
+			Object value = fields.get(id);
+			return value instanceof Boolean ? (Boolean) value : defaultValue;
+		}
+
+		/**
+		 * Get a binary field
+		 *
+		 * @param id
+		 *            field id
+		 * @return value, null when not set
+		 */
+		byte[] getBinary(int id) {
+			Object value = fields.get(id);
+			return value instanceof byte[] ? (byte[]) value : null;
+		}
+
+		/**
+		 * Get a string field
+		 *
+		 * @param id
+		 *            field id
+		 * @return value, null when not set
+		 */
+		String getString(int id) {
+			byte[] value = getBinary(id);
+			return value != null ? new String(value, StandardCharsets.UTF_8)
+					: null;
+		}
+
+		/**
+		 * Get a struct field
+		 *
+		 * @param id
+		 *            field id
+		 * @return value, null when not set
+		 */
+		Struct getStruct(int id) {
+			Object value = fields.get(id);
+			return value instanceof Struct ? (Struct) value : null;
+		}
+
+		/**
+		 * Get a list field
+		 *
+		 * @param id
+		 *            field id
+		 * @return value, empty when not set
+		 */
+		List<?> getList(int id) {
+			Object value = fields.get(id);
+			return value instanceof List ? (List<?>) value : Collections
+					.emptyList();
+		}
+
+		/**
+		 * Get a list field of structs
+		 *
+		 * @param id
+		 *            field id
+		 * @return structs, empty when not set
+		 */
+		List<Struct> getStructs(int id) {
+			List<Struct> structs = new ArrayList<>();
+			for (Object value : getList(id)) {
+				if (value instanceof Struct) {
+					structs.add((Struct) value);
+				}
+			}
+			return structs;
+		}
+
+	}
+
+}
@@ -0,0 +1,325 @@
+package mil.nga.geopackage.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal Thrift compact protocol writer used to encode Parquet metadata.
+ * Structs are written field by field in increasing field id order, with
+ * nested structs and lists written inline.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class ThriftCompactWriter {
+
+	/**
+	 * Compact protocol types
+	 */
+	static final int TYPE_BOOLEAN_TRUE = 1, TYPE_BOOLEAN_FALSE = 2,
+			TYPE_I32 = 5, TYPE_I64 = 6, TYPE_BINARY = 8, TYPE_LIST = 9,
+			TYPE_STRUCT = 12;
+
+	/**
+	 * Output bytes
+	 */
+	private byte[] buffer;
+
+	/**
+	 * Number of output bytes
+	 */
+	private int length;
+
+	/**
+	 * Last field ids of the enclosing structs
+	 */
+	private int[] lastFieldIds = new int[16];
+
+	/**
+	 * Struct nesting depth
+	 */
+	private int depth;
+
+	/**
+	 * Last field id written in the current struct
+	 */
+	private int lastFieldId;
+
+	/**
+	 * Constructor
+	 *
+	 * @param initialSize
+	 *            initial buffer size
+	 */
+	ThriftCompactWriter(int initialSize) {
+		buffer = new byte[Math.max(initialSize, 16)];
+	}
+
+	/**
+	 * Reset to write a new top level struct
+	 */
+	void reset() {
+		length = 0;
+		depth = 0;
+		lastFieldId = 0;
+	}
+
+	/**
+	 * Get the output bytes
+	 *
+	 * @return buffer, valid up to the length
+	 */
+	byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Get the number of output bytes
+	 *
+	 * @return length
+	 */
+	int getLength() {
+		return length;
+	}
+
+	/**
+	 * Begin a struct
+	 */
+	void structBegin() {
+		if (depth == lastFieldIds.length) {
+			lastFieldIds = Arrays.copyOf(lastFieldIds, depth * 2);
+		}
+		lastFieldIds[depth++] = lastFieldId;
+		lastFieldId = 0;
+	}
+
+	/**
+	 * End a struct, writing the stop field
+	 */
+	void structEnd() {
+		writeByte(0);
+		lastFieldId = lastFieldIds[--depth];
+	}
+
+	/**
+	 * Write an i32 field
+	 *
+	 * @param id
+	 *            field id
+	 * @param value
+	 *            value
+	 */
+	void fieldI32(int id, int value) {
+		fieldHeader(id, TYPE_I32);
+		writeVarint(zigzag(value));
+	}
+
+	/**
+	 * Write an i64 field
+	 *
+	 * @param id
+	 *            field id
+	 * @param value
+	 *            value
+	 */
+	void fieldI64(int id, long value) {
+		fieldHeader(id, TYPE_I64);
+		writeVarint(zigzag(value));
+	}
+
+	/**
+	 * Write a boolean field
+	 *
+	 * @param id
+	 *            field id
+	 * @param value
+	 *            value
+	 */
+	void fieldBoolean(int id, boolean value) {
+		fieldHeader(id, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+	}
+
+	/**
+	 * Write a binary field
+	 *
+	 * @param id
+	 *            field id
+	 * @param value
+	 *            value
+	 */
+	void fieldBinary(int id, byte[] value) {
+		fieldHeader(id, TYPE_BINARY);
+		binary(value);
+	}
+
+	/**
+	 * Write a string field
+	 *
+	 * @param id
+	 *            field id
+	 * @param value
+	 *            value
+	 */
+	void fieldString(int id, String value) {
+		fieldBinary(id, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Begin a struct field, followed by the struct fields and
+	 * {@link #structEnd()}
+	 *
+	 * @param id
+	 *            field id
+	 */
+	void fieldStructBegin(int id) {
+		fieldHeader(id, TYPE_STRUCT);
+		structBegin();
+	}
+
+	/**
+	 * Begin a list field, followed by the list elements
+	 *
+	 * @param id
+	 *            field id
+	 * @param elementType
+	 *            element compact type
+	 * @param size
+	 *            number of elements
+	 */
+	void fieldListBegin(int id, int elementType, int size) {
+		fieldHeader(id, TYPE_LIST);
+		if (size < 15) {
+			writeByte(size << 4 | elementType);
+		} else {
+			writeByte(0xF0 | elementType);
+			writeVarint(size);
+		}
+	}
+
+	/**
+	 * Write an i32 list element
+	 *
+	 * @param value
+	 *            value
+	 */
+	void i32(int value) {
+		writeVarint(zigzag(value));
+	}
+
+	/**
+	 * Write a string list element
+	 *
+	 * @param value
+	 *            value
+	 */
+	void string(String value) {
+		binary(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Append the bytes of another writer, such as list element structs
+	 * written separately
+	 *
+	 * @param writer
+	 *            writer
+	 */
+	void appendRaw(ThriftCompactWriter writer) {
+		ensure(writer.length);
+		System.arraycopy(writer.buffer, 0, buffer, length, writer.length);
+		length += writer.length;
+	}
+
+	/**
+	 * Write binary bytes with the length prefix
+	 *
+	 * @param value
+	 *            value
+	 */
+	private void binary(byte[] value) {
+		writeVarint(value.length);
+		ensure(value.length);
+		System.arraycopy(value, 0, buffer, length, value.length);
+		length += value.length;
+	}
+
+	/**
+	 * Write a field header
+	 *
+	 * @param id
+	 *            field id
+	 * @param type
+	 *            compact type
+	 */
+	private void fieldHeader(int id, int type) {
+		int delta = id - lastFieldId;
+		if (delta > 0 && delta <= 15) {
+			writeByte(delta << 4 | type);
+		} else {
+			writeByte(type);
+			writeVarint(zigzag(id));
+		}
+		lastFieldId = id;
+	}
+
+	/**
+	 * Zigzag encode an int
+	 *
+	 * @param value
+	 *            value
+	 * @return zigzag value
+	 */
+	private static long zigzag(int value) {
+		return (value << 1 ^ value >> 31) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Zigzag encode a long
+	 *
+	 * @param value
+	 *            value
+	 * @return zigzag value
+	 */
+	private static long zigzag(long value) {
+		return value << 1 ^ value >> 63;
+	}
+
+	/**
+	 * Write an unsigned varint
+	 *
+	 * @param value
+	 *            value
+	 */
+	private void writeVarint(long value) {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[length++] = (byte) value;
+	}
+
+	/**
+	 * Write a byte
+	 *
+	 * @param value
+	 *            byte value
+	 */
+	private void writeByte(int value) {
+		ensure(1);
+		buffer[length++] = (byte) value;
+	}
+
+	/**
+	 * Ensure the buffer has room for the additional bytes
+	 *
+	 * @param bytes
+	 *            additional bytes
+	 */
+	private void ensure(int bytes) {
+		if (length + bytes > buffer.length) {
+			buffer = Arrays.copyOf(buffer,
+					Math.max(length + bytes, buffer.length * 2));
+		}
+	}
+
+}
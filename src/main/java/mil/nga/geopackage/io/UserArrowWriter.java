@@ -0,0 +1,982 @@
+package mil.nga.geopackage.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.user.UserColumn;
+import mil.nga.geopackage.user.UserColumnBatch;
+import mil.nga.geopackage.user.UserColumnBatchReader;
+import mil.nga.geopackage.user.UserColumnVector;
+import mil.nga.geopackage.user.UserDao;
+import mil.nga.geopackage.user.UserResultSet;
+
+/**
+ * Writes a feature or attributes table as Apache Arrow IPC stream or file
+ * format record batches. Rows are read in batches of primitive column vectors
+ * by a {@link UserColumnBatchReader} and written directly as Arrow buffers:
+ * integers as Int64, booleans as Bool, floating point values as Float64, text
+ * and dates as Utf8, and blobs as Binary. Geometry columns are written as
+ * Well-Known Binary with the GeoPackage header removed, tagged with the
+ * GeoArrow WKB extension type and the table CRS.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserArrowWriter {
+
+	/**
+	 * Default number of rows per record batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+	/**
+	 * GeoArrow Well-Known Binary extension type name
+	 */
+	public static final String GEOARROW_WKB = "geoarrow.wkb";
+
+	/**
+	 * Arrow extension name metadata key
+	 */
+	private static final String EXTENSION_NAME = "ARROW:extension:name";
+
+	/**
+	 * Arrow extension metadata key
+	 */
+	private static final String EXTENSION_METADATA = "ARROW:extension:metadata";
+
+	/**
+	 * Arrow file format magic bytes
+	 */
+	private static final byte[] MAGIC = "ARROW1"
+			.getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Message continuation marker
+	 */
+	private static final int CONTINUATION = 0xFFFFFFFF;
+
+	/**
+	 * Metadata version V5
+	 */
+	private static final short METADATA_VERSION = 4;
+
+	/**
+	 * Message header types
+	 */
+	private static final byte HEADER_SCHEMA = 1, HEADER_RECORD_BATCH = 3;
+
+	/**
+	 * Arrow type union types
+	 */
+	private static final byte TYPE_INT = 2, TYPE_FLOATING_POINT = 3,
+			TYPE_BINARY = 4, TYPE_UTF8 = 5, TYPE_BOOL = 6;
+
+	/**
+	 * Floating point double precision
+	 */
+	private static final short PRECISION_DOUBLE = 2;
+
+	/**
+	 * Column encodings
+	 */
+	private static final int BOOL = 0, INT64 = 1, FLOAT64 = 2, UTF8 = 3,
+			BINARY = 4, WKB = 5;
+
+	/**
+	 * User DAO
+	 */
+	private final UserDao<?, ?, ?, ?> userDao;
+
+	/**
+	 * Number of rows per record batch
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Names of the columns to write, null for all columns
+	 */
+	private String[] columnNames;
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * Current output stream
+	 */
+	private OutputStream out;
+
+	/**
+	 * Bytes written to the current output stream
+	 */
+	private long position;
+
+	/**
+	 * Record batch body buffer, reused across batches
+	 */
+	private byte[] body = new byte[1024];
+
+	/**
+	 * Number of bytes in the body buffer
+	 */
+	private int bodyLength;
+
+	/**
+	 * Scratch buffer for writing scalars
+	 */
+	private final byte[] scratch = new byte[8];
+
+	/**
+	 * Constructor
+	 *
+	 * @param userDao
+	 *            feature or attributes DAO
+	 */
+	public UserArrowWriter(UserDao<?, ?, ?, ?> userDao) {
+		this.userDao = userDao;
+	}
+
+	/**
+	 * Get the user DAO
+	 *
+	 * @return user DAO
+	 */
+	public UserDao<?, ?, ?, ?> getUserDao() {
+		return userDao;
+	}
+
+	/**
+	 * Get the number of rows per record batch
+	 *
+	 * @return batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the number of rows per record batch
+	 *
+	 * @param batchSize
+	 *            batch size
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new GeoPackageException(
+					"Batch size must be greater than 0: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Get the names of the columns to write
+	 *
+	 * @return column names, null for all columns
+	 */
+	public String[] getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Set the names of the columns to write, in field order
+	 *
+	 * @param columnNames
+	 *            column names, null for all columns
+	 */
+	public void setColumnNames(String... columnNames) {
+		this.columnNames = columnNames;
+	}
+
+	/**
+	 * Set the progress
+	 *
+	 * @param progress
+	 *            progress
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Write the table in the Arrow IPC streaming format. The stream is
+	 * flushed but not closed.
+	 *
+	 * @param outputStream
+	 *            output stream
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public long writeStream(OutputStream outputStream) throws IOException {
+		return write(query(), outputStream, false);
+	}
+
+	/**
+	 * Write the table to a file in the Arrow IPC file format
+	 *
+	 * @param file
+	 *            output file
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public long writeFile(File file) throws IOException {
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			return writeFile(outputStream);
+		}
+	}
+
+	/**
+	 * Write the table in the Arrow IPC file format. The stream is flushed but
+	 * not closed.
+	 *
+	 * @param outputStream
+	 *            output stream
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public long writeFile(OutputStream outputStream) throws IOException {
+		return write(query(), outputStream, true);
+	}
+
+	/**
+	 * Write the remaining rows of a result set of the DAO table in the Arrow
+	 * IPC streaming format. The result set is closed, the stream is flushed
+	 * but not closed.
+	 *
+	 * @param resultSet
+	 *            result set of the DAO table
+	 * @param outputStream
+	 *            output stream
+	 * @param <TColumn>
+	 *            column type
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public <TColumn extends UserColumn> long writeStream(
+			UserResultSet<TColumn, ?, ?> resultSet, OutputStream outputStream)
+			throws IOException {
+		return write(new UserColumnBatchReader<TColumn>(resultSet, batchSize,
+				columnNames), outputStream, false);
+	}
+
+	/**
+	 * Write the remaining rows of a result set of the DAO table in the Arrow
+	 * IPC file format. The result set is closed, the stream is flushed but not
+	 * closed.
+	 *
+	 * @param resultSet
+	 *            result set of the DAO table
+	 * @param outputStream
+	 *            output stream
+	 * @param <TColumn>
+	 *            column type
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	public <TColumn extends UserColumn> long writeFile(
+			UserResultSet<TColumn, ?, ?> resultSet, OutputStream outputStream)
+			throws IOException {
+		return write(new UserColumnBatchReader<TColumn>(resultSet, batchSize,
+				columnNames), outputStream, true);
+	}
+
+	/**
+	 * Query the DAO table for column batches
+	 *
+	 * @return column batch reader
+	 */
+	private UserColumnBatchReader<?> query() {
+		String[] columns = columnNames != null ? columnNames : new String[0];
+		return userDao.queryForColumnBatches(batchSize, columns);
+	}
+
+	/**
+	 * Write the column batches as Arrow IPC messages
+	 *
+	 * @param reader
+	 *            column batch reader
+	 * @param outputStream
+	 *            output stream
+	 * @param file
+	 *            true for the file format, false for the streaming format
+	 * @return number of rows written
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private synchronized long write(UserColumnBatchReader<?> reader,
+			OutputStream outputStream, boolean file) throws IOException {
+
+		out = outputStream;
+		position = 0;
+
+		long count = 0;
+		try {
+
+			UserColumnBatch<?> batch = reader.getBatch();
+			List<? extends UserColumnVector<?>> vectors = batch.getVectors();
+			int[] encodings = new int[vectors.size()];
+			for (int i = 0; i < encodings.length; i++) {
+				encodings[i] = encoding(vectors.get(i));
+			}
+
+			if (file) {
+				write(MAGIC, 0, MAGIC.length);
+				writePadding(2);
+			}
+
+			FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+			int schema = schema(builder, vectors, encodings);
+			writeMessage(message(builder, HEADER_SCHEMA, schema, 0));
+
+			List<long[]> blocks = new ArrayList<>();
+			while ((progress == null || progress.isActive())
+					&& reader.readBatch()) {
+				long blockOffset = position;
+				int metadataLength = writeRecordBatch(batch, encodings);
+				blocks.add(new long[] { blockOffset, metadataLength,
+						bodyLength });
+				count += batch.size();
+				if (progress != null) {
+					progress.addProgress(batch.size());
+				}
+			}
+
+			// End of stream
+			writeInt(CONTINUATION);
+			writeInt(0);
+
+			if (file) {
+				builder = new FlatBufferBuilder(1024);
+				schema = schema(builder, vectors, encodings);
+				byte[] footer = footer(builder, schema, blocks);
+				write(footer, 0, footer.length);
+				writeInt(footer.length);
+				write(MAGIC, 0, MAGIC.length);
+			}
+
+			out.flush();
+
+		} finally {
+			reader.close();
+			out = null;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Determine the Arrow encoding of the column vector
+	 *
+	 * @param vector
+	 *            column vector
+	 * @return encoding
+	 */
+	private static int encoding(UserColumnVector<?> vector) {
+		UserColumn column = vector.getColumn();
+		int encoding;
+		switch (vector.getType()) {
+		case LONG:
+			encoding = column.getDataType() == GeoPackageDataType.BOOLEAN ? BOOL
+					: INT64;
+			break;
+		case DOUBLE:
+			encoding = FLOAT64;
+			break;
+		case STRING:
+			encoding = UTF8;
+			break;
+		default:
+			encoding = column instanceof FeatureColumn
+					&& ((FeatureColumn) column).isGeometry() ? WKB : BINARY;
+		}
+		return encoding;
+	}
+
+	/**
+	 * Build the schema table
+	 *
+	 * @param builder
+	 *            flat buffer builder
+	 * @param vectors
+	 *            column vectors
+	 * @param encodings
+	 *            column encodings
+	 * @return schema offset
+	 */
+	private int schema(FlatBufferBuilder builder,
+			List<? extends UserColumnVector<?>> vectors, int[] encodings) {
+
+		int[] fields = new int[vectors.size()];
+		for (int i = 0; i < fields.length; i++) {
+			UserColumn column = vectors.get(i).getColumn();
+			fields[i] = field(builder, column, encodings[i]);
+		}
+		int fieldsVector = builder.createOffsetVector(fields);
+
+		builder.startTable(4);
+		builder.addFieldOffset(1, fieldsVector);
+		return builder.endTable();
+	}
+
+	/**
+	 * Build a schema field table
+	 *
+	 * @param builder
+	 *            flat buffer builder
+	 * @param column
+	 *            column
+	 * @param encoding
+	 *            column encoding
+	 * @return field offset
+	 */
+	private int field(FlatBufferBuilder builder, UserColumn column,
+			int encoding) {
+
+		int name = builder.createString(column.getName());
+
+		byte typeType;
+		int type;
+		switch (encoding) {
+		case BOOL:
+			typeType = TYPE_BOOL;
+			builder.startTable(0);
+			type = builder.endTable();
+			break;
+		case INT64:
+			typeType = TYPE_INT;
+			builder.startTable(2);
+			builder.addFieldInt(0, 64);
+			builder.addFieldBoolean(1, true);
+			type = builder.endTable();
+			break;
+		case FLOAT64:
+			typeType = TYPE_FLOATING_POINT;
+			builder.startTable(1);
+			builder.addFieldShort(0, PRECISION_DOUBLE);
+			type = builder.endTable();
+			break;
+		case UTF8:
+			typeType = TYPE_UTF8;
+			builder.startTable(0);
+			type = builder.endTable();
+			break;
+		default:
+			typeType = TYPE_BINARY;
+			builder.startTable(0);
+			type = builder.endTable();
+		}
+
+		int children = builder.createOffsetVector(new int[0]);
+
+		int metadata = 0;
+		if (encoding == WKB) {
+			int extensionName = keyValue(builder, EXTENSION_NAME,
+					GEOARROW_WKB);
+			int extensionMetadata = keyValue(builder, EXTENSION_METADATA,
+					geoArrowMetadata());
+			metadata = builder.createOffsetVector(new int[] { extensionName,
+					extensionMetadata });
+		}
+
+		builder.startTable(7);
+		builder.addFieldOffset(0, name);
+		builder.addFieldOffset(3, type);
+		builder.addFieldOffset(5, children);
+		builder.addFieldOffset(6, metadata);
+		builder.addFieldBoolean(1, !column.isNotNull());
+		builder.addFieldByte(2, typeType);
+		return builder.endTable();
+	}
+
+	/**
+	 * Build a key value table
+	 *
+	 * @param builder
+	 *            flat buffer builder
+	 * @param key
+	 *            key
+	 * @param value
+	 *            value
+	 * @return key value offset
+	 */
+	private static int keyValue(FlatBufferBuilder builder, String key,
+			String value) {
+		int keyString = builder.createString(key);
+		int valueString = builder.createString(value);
+		builder.startTable(2);
+		builder.addFieldOffset(0, keyString);
+		builder.addFieldOffset(1, valueString);
+		return builder.endTable();
+	}
+
+	/**
+	 * Get the GeoArrow extension metadata JSON with the feature table CRS
+	 *
+	 * @return extension metadata
+	 */
+	private String geoArrowMetadata() {
+		String metadata = "{}";
+		if (userDao instanceof FeatureDao) {
+			long epsg = ((FeatureDao) userDao).getProjection().getEpsg();
+			if (epsg > 0) {
+				metadata = "{\"crs\":\"EPSG:" + epsg
+						+ "\",\"crs_type\":\"authority_code\"}";
+			}
+		}
+		return metadata;
+	}
+
+	/**
+	 * Build a message table and finish the buffer
+	 *
+	 * @param builder
+	 *            flat buffer builder
+	 * @param headerType
+	 *            message header type
+	 * @param header
+	 *            message header offset
+	 * @param messageBodyLength
+	 *            message body length
+	 * @return message bytes
+	 */
+	private static byte[] message(FlatBufferBuilder builder, byte headerType,
+			int header, long messageBodyLength) {
+		builder.startTable(5);
+		builder.addFieldLong(3, messageBodyLength);
+		builder.addFieldOffset(2, header);
+		builder.addFieldShort(0, METADATA_VERSION);
+		builder.addFieldByte(1, headerType);
+		return builder.finish(builder.endTable());
+	}
+
+	/**
+	 * Build the file footer table and finish the buffer
+	 *
+	 * @param builder
+	 *            flat buffer builder
+	 * @param schema
+	 *            schema offset
+	 * @param blocks
+	 *            record batch blocks of offset, metadata length, and body
+	 *            length
+	 * @return footer bytes
+	 */
+	private static byte[] footer(FlatBufferBuilder builder, int schema,
+			List<long[]> blocks) {
+
+		builder.startVector(24, blocks.size(), 8);
+		for (int i = blocks.size() - 1; i >= 0; i--) {
+			long[] block = blocks.get(i);
+			builder.prep(8, 24);
+			builder.putLong(block[2]);
+			builder.pad(4);
+			builder.putInt((int) block[1]);
+			builder.putLong(block[0]);
+		}
+		int recordBatches = builder.endVector();
+
+		builder.startVector(24, 0, 8);
+		int dictionaries = builder.endVector();
+
+		builder.startTable(5);
+		builder.addFieldOffset(1, schema);
+		builder.addFieldOffset(2, dictionaries);
+		builder.addFieldOffset(3, recordBatches);
+		builder.addFieldShort(0, METADATA_VERSION);
+		return builder.finish(builder.endTable());
+	}
+
+	/**
+	 * Write the batch as a record batch message
+	 *
+	 * @param batch
+	 *            column batch
+	 * @param encodings
+	 *            column encodings
+	 * @return message metadata length, including the prefix and padding
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private int writeRecordBatch(UserColumnBatch<?> batch, int[] encodings)
+			throws IOException {
+
+		int rows = batch.size();
+		int columns = encodings.length;
+
+		long[] nodes = new long[columns * 2];
+		List<long[]> buffers = new ArrayList<>();
+
+		bodyLength = 0;
+		for (int i = 0; i < columns; i++) {
+
+			UserColumnVector<?> vector = batch.getVector(i);
+			int nullCount = nullCount(vector, rows);
+			nodes[i * 2] = rows;
+			nodes[i * 2 + 1] = nullCount;
+
+			// Validity bitmap, omitted when there are no nulls
+			int start = bodyLength;
+			if (nullCount > 0) {
+				writeValidity(vector, rows);
+			}
+			buffers.add(endBuffer(start));
+
+			start = bodyLength;
+			switch (encodings[i]) {
+			case BOOL:
+				long[] bools = vector.getLongs();
+				ensureBody((rows + 7) / 8);
+				for (int row = 0; row < rows; row += 8) {
+					int bits = 0;
+					for (int bit = 0; bit < 8 && row + bit < rows; bit++) {
+						if (bools[row + bit] != 0) {
+							bits |= 1 << bit;
+						}
+					}
+					body[bodyLength++] = (byte) bits;
+				}
+				buffers.add(endBuffer(start));
+				break;
+			case INT64:
+				long[] longs = vector.getLongs();
+				ensureBody(rows * 8);
+				for (int row = 0; row < rows; row++) {
+					putBodyLong(longs[row]);
+				}
+				buffers.add(endBuffer(start));
+				break;
+			case FLOAT64:
+				double[] doubles = vector.getDoubles();
+				ensureBody(rows * 8);
+				for (int row = 0; row < rows; row++) {
+					putBodyLong(Double.doubleToRawLongBits(doubles[row]));
+				}
+				buffers.add(endBuffer(start));
+				break;
+			case UTF8:
+				writeStrings(vector, rows, buffers);
+				break;
+			case BINARY:
+				ensureBody((rows + 1) * 4);
+				for (int row = 0; row <= rows; row++) {
+					putBodyInt(vector.getBlobOffset(row));
+				}
+				buffers.add(endBuffer(start));
+				start = bodyLength;
+				int dataLength = vector.getBlobOffset(rows);
+				ensureBody(dataLength);
+				System.arraycopy(vector.getBlobData(), 0, body, bodyLength,
+						dataLength);
+				bodyLength += dataLength;
+				buffers.add(endBuffer(start));
+				break;
+			case WKB:
+				writeWkb(vector, rows, buffers);
+				break;
+			default:
+				throw new GeoPackageException("Unsupported Arrow encoding: "
+						+ encodings[i]);
+			}
+		}
+
+		FlatBufferBuilder builder = new FlatBufferBuilder(
+				256 + 32 * buffers.size());
+
+		builder.startVector(16, buffers.size(), 8);
+		for (int i = buffers.size() - 1; i >= 0; i--) {
+			long[] buffer = buffers.get(i);
+			builder.prep(8, 16);
+			builder.putLong(buffer[1]);
+			builder.putLong(buffer[0]);
+		}
+		int buffersVector = builder.endVector();
+
+		builder.startVector(16, columns, 8);
+		for (int i = columns - 1; i >= 0; i--) {
+			builder.prep(8, 16);
+			builder.putLong(nodes[i * 2 + 1]);
+			builder.putLong(nodes[i * 2]);
+		}
+		int nodesVector = builder.endVector();
+
+		builder.startTable(3);
+		builder.addFieldLong(0, rows);
+		builder.addFieldOffset(1, nodesVector);
+		builder.addFieldOffset(2, buffersVector);
+		int recordBatch = builder.endTable();
+
+		int metadataLength = writeMessage(message(builder,
+				HEADER_RECORD_BATCH, recordBatch, bodyLength));
+		write(body, 0, bodyLength);
+
+		return metadataLength;
+	}
+
+	/**
+	 * Count the null values of the vector
+	 *
+	 * @param vector
+	 *            column vector
+	 * @param rows
+	 *            number of rows
+	 * @return null count
+	 */
+	private static int nullCount(UserColumnVector<?> vector, int rows) {
+		long[] nulls = vector.getNulls();
+		int count = 0;
+		for (int i = 0; i < (rows + 63) >>> 6; i++) {
+			count += Long.bitCount(nulls[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Write the Arrow validity bitmap, set bits for non null values, from the
+	 * vector null bitmap
+	 *
+	 * @param vector
+	 *            column vector
+	 * @param rows
+	 *            number of rows
+	 */
+	private void writeValidity(UserColumnVector<?> vector, int rows) {
+		long[] nulls = vector.getNulls();
+		int bytes = (rows + 7) / 8;
+		ensureBody(bytes);
+		for (int i = 0; i < bytes; i++) {
+			int validity = (int) ~(nulls[i >>> 3] >>> ((i & 7) * 8)) & 0xFF;
+			if (i == bytes - 1 && (rows & 7) != 0) {
+				validity &= (1 << (rows & 7)) - 1;
+			}
+			body[bodyLength++] = (byte) validity;
+		}
+	}
+
+	/**
+	 * Write the offsets and data buffers of a string vector, UTF-8 encoding
+	 * each distinct value of the batch once
+	 *
+	 * @param vector
+	 *            column vector
+	 * @param rows
+	 *            number of rows
+	 * @param buffers
+	 *            buffers to add to
+	 */
+	private void writeStrings(UserColumnVector<?> vector, int rows,
+			List<long[]> buffers) {
+
+		List<String> dictionary = vector.getDictionary();
+		byte[][] encoded = new byte[dictionary.size()][];
+		int[] codes = vector.getStringCodes();
+
+		int start = bodyLength;
+		ensureBody((rows + 1) * 4);
+		int offset = 0;
+		putBodyInt(offset);
+		for (int row = 0; row < rows; row++) {
+			int code = codes[row];
+			if (code >= 0) {
+				if (encoded[code] == null) {
+					encoded[code] = dictionary.get(code).getBytes(
+							StandardCharsets.UTF_8);
+				}
+				offset += encoded[code].length;
+			}
+			putBodyInt(offset);
+		}
+		buffers.add(endBuffer(start));
+
+		start = bodyLength;
+		ensureBody(offset);
+		for (int row = 0; row < rows; row++) {
+			if (codes[row] >= 0) {
+				byte[] value = encoded[codes[row]];
+				System.arraycopy(value, 0, body, bodyLength, value.length);
+				bodyLength += value.length;
+			}
+		}
+		buffers.add(endBuffer(start));
+	}
+
+	/**
+	 * Write the offsets and data buffers of a geometry vector as Well-Known
+	 * Binary, removing the GeoPackage geometry headers
+	 *
+	 * @param vector
+	 *            column vector
+	 * @param rows
+	 *            number of rows
+	 * @param buffers
+	 *            buffers to add to
+	 */
+	private void writeWkb(UserColumnVector<?> vector, int rows,
+			List<long[]> buffers) {
+
+		byte[] data = vector.getBlobData();
+		int[] wkbIndexes = new int[rows];
+
+		int start = bodyLength;
+		ensureBody((rows + 1) * 4);
+		int offset = 0;
+		putBodyInt(offset);
+		for (int row = 0; row < rows; row++) {
+			int length = vector.getBlobLength(row);
+			if (!vector.isNull(row)) {
+				wkbIndexes[row] = GeoPackageGeometryHeader.getWkbGeometryIndex(
+						data, vector.getBlobOffset(row), length);
+				offset += length - wkbIndexes[row];
+			}
+			putBodyInt(offset);
+		}
+		buffers.add(endBuffer(start));
+
+		start = bodyLength;
+		ensureBody(offset);
+		for (int row = 0; row < rows; row++) {
+			if (!vector.isNull(row)) {
+				int length = vector.getBlobLength(row) - wkbIndexes[row];
+				System.arraycopy(data, vector.getBlobOffset(row)
+						+ wkbIndexes[row], body, bodyLength, length);
+				bodyLength += length;
+			}
+		}
+		buffers.add(endBuffer(start));
+	}
+
+	/**
+	 * End a body buffer, padding the body to 8 bytes
+	 *
+	 * @param start
+	 *            buffer start in the body
+	 * @return buffer offset and length
+	 */
+	private long[] endBuffer(int start) {
+		long[] buffer = new long[] { start, bodyLength - start };
+		int padding = (-bodyLength) & 7;
+		ensureBody(padding);
+		Arrays.fill(body, bodyLength, bodyLength + padding, (byte) 0);
+		bodyLength += padding;
+		return buffer;
+	}
+
+	/**
+	 * Ensure the body buffer has room for the additional bytes
+	 *
+	 * @param bytes
+	 *            additional bytes
+	 */
+	private void ensureBody(int bytes) {
+		int required = bodyLength + bytes;
+		if (required > body.length) {
+			body = Arrays.copyOf(body, Math.max(required, body.length * 2));
+		}
+	}
+
+	/**
+	 * Put a little endian int into the body buffer without a capacity check
+	 *
+	 * @param value
+	 *            int value
+	 */
+	private void putBodyInt(int value) {
+		body[bodyLength++] = (byte) value;
+		body[bodyLength++] = (byte) (value >> 8);
+		body[bodyLength++] = (byte) (value >> 16);
+		body[bodyLength++] = (byte) (value >> 24);
+	}
+
+	/**
+	 * Put a little endian long into the body buffer without a capacity check
+	 *
+	 * @param value
+	 *            long value
+	 */
+	private void putBodyLong(long value) {
+		putBodyInt((int) value);
+		putBodyInt((int) (value >> 32));
+	}
+
+	/**
+	 * Write an encapsulated message: the continuation marker, the padded
+	 * metadata length, and the metadata padded to 8 bytes
+	 *
+	 * @param metadata
+	 *            message metadata
+	 * @return metadata length, including the prefix and padding
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private int writeMessage(byte[] metadata) throws IOException {
+		int padding = (-(metadata.length + 8)) & 7;
+		writeInt(CONTINUATION);
+		writeInt(metadata.length + padding);
+		write(metadata, 0, metadata.length);
+		writePadding(padding);
+		return 8 + metadata.length + padding;
+	}
+
+	/**
+	 * Write a little endian int
+	 *
+	 * @param value
+	 *            int value
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writeInt(int value) throws IOException {
+		scratch[0] = (byte) value;
+		scratch[1] = (byte) (value >> 8);
+		scratch[2] = (byte) (value >> 16);
+		scratch[3] = (byte) (value >> 24);
+		write(scratch, 0, 4);
+	}
+
+	/**
+	 * Write zero padding bytes
+	 *
+	 * @param bytes
+	 *            number of bytes, less than 8
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void writePadding(int bytes) throws IOException {
+		Arrays.fill(scratch, (byte) 0);
+		write(scratch, 0, bytes);
+	}
+
+	/**
+	 * Write bytes to the output stream
+	 *
+	 * @param bytes
+	 *            bytes
+	 * @param offset
+	 *            bytes offset
+	 * @param length
+	 *            number of bytes
+	 * @throws IOException
+	 *             upon failure to write
+	 */
+	private void write(byte[] bytes, int offset, int length)
+			throws IOException {
+		out.write(bytes, offset, length);
+		position += length;
+	}
+
+}
@@ -4,6 +4,10 @@ import java.io.File;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.GeoPackageException;
@@ -19,6 +23,7 @@ import mil.nga.geopackage.db.GeoPackageTableCreator;
 import mil.nga.geopackage.factory.GeoPackageCoreImpl;
 import mil.nga.geopackage.features.columns.GeometryColumns;
 import mil.nga.geopackage.features.columns.GeometryColumnsDao;
+import mil.nga.geopackage.features.user.FeatureChangeListener;
 import mil.nga.geopackage.features.user.FeatureConnection;
 import mil.nga.geopackage.features.user.FeatureDao;
 import mil.nga.geopackage.features.user.FeatureTable;
@@ -36,17 +41,25 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 	 */
 	private final GeoPackageConnection database;
 
+	/**
+	 * Cached table metadata of the current database schema version
+	 */
+	private final AtomicReference<DaoCache> daoCache = new AtomicReference<>(
+			new DaoCache(-1));
+
 	/**
 	 * Constructor
 	 *
 	 * @param file
 	 * @param database
 	 * @param tableCreator
+	 * @param writable
+	 *            false when opened read only, skipping write side work
 	 */
 	GeoPackageImpl(File file, GeoPackageConnection database,
-			GeoPackageTableCreator tableCreator) {
+			GeoPackageTableCreator tableCreator, boolean writable) {
 		super(file.getName(), file.getAbsolutePath(), database, tableCreator,
-				true);
+				writable);
 		this.database = database;
 	}
 
@@ -63,6 +76,13 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 					+ FeatureDao.class.getSimpleName());
 		}
 
+		DaoCache cache = validateDaoCache();
+		FeatureDao cachedDao = cache.getFeatureDao(geometryColumns
+				.getTableName());
+		if (cachedDao != null) {
+			return cachedDao;
+		}
+
 		// Read the existing table and create the dao
 		FeatureTableReader tableReader = new FeatureTableReader(geometryColumns);
 		FeatureConnection userDb = new FeatureConnection(database);
@@ -75,7 +95,12 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 		// GeoPackages created with SQLite version 4.2.0+ with GeoPackage
 		// support are not supported in sqlite-jdbc (3.8.6 version from
 		// October8, 2014 uses SQLite version 3.8.6)
-		dropSQLiteTriggers(geometryColumns);
+		if (isWritable()) {
+			dropSQLiteTriggers(geometryColumns);
+		}
+
+		cache.features.putIfAbsent(geometryColumns.getTableName(),
+				new FeatureTableMetadata(geometryColumns, featureTable));
 
 		return dao;
 	}
@@ -93,6 +118,12 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 					+ FeatureDao.class.getSimpleName());
 		}
 
+		FeatureDao cachedDao = validateDaoCache().getFeatureDao(
+				contents.getTableName());
+		if (cachedDao != null) {
+			return cachedDao;
+		}
+
 		GeometryColumns geometryColumns = null;
 		try {
 			geometryColumns = getGeometryColumnsDao().queryForTableName(
@@ -118,6 +149,10 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 	 */
 	@Override
 	public FeatureDao getFeatureDao(String tableName) {
+		FeatureDao cachedDao = validateDaoCache().getFeatureDao(tableName);
+		if (cachedDao != null) {
+			return cachedDao;
+		}
 		GeometryColumnsDao dao = getGeometryColumnsDao();
 		List<GeometryColumns> geometryColumnsList;
 		try {
@@ -162,6 +197,13 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 					+ contents.getDataTypeString());
 		}
 
+		DaoCache cache = validateDaoCache();
+		AttributesDao cachedDao = cache.getAttributesDao(contents
+				.getTableName());
+		if (cachedDao != null) {
+			return cachedDao;
+		}
+
 		// Read the existing table and create the dao
 		AttributesTableReader tableReader = new AttributesTableReader(
 				contents.getTableName());
@@ -172,6 +214,8 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 		AttributesDao dao = new AttributesDao(getName(), database, userDb,
 				attributesTable);
 
+		cache.attributes.putIfAbsent(contents.getTableName(), attributesTable);
+
 		return dao;
 	}
 
@@ -181,6 +225,12 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 	@Override
 	public AttributesDao getAttributesDao(String tableName) {
 
+		AttributesDao cachedDao = validateDaoCache().getAttributesDao(
+				tableName);
+		if (cachedDao != null) {
+			return cachedDao;
+		}
+
 		ContentsDao dao = getContentsDao();
 		Contents contents = null;
 		try {
@@ -205,6 +255,212 @@ class GeoPackageImpl extends GeoPackageCoreImpl implements GeoPackage {
 		database.execSQL(sql);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearDaoCache() {
+		DaoCache cache = daoCache.get();
+		cache.features.clear();
+		cache.attributes.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearDaoCache(String tableName) {
+		DaoCache cache = daoCache.get();
+		cache.features.remove(tableName);
+		cache.attributes.remove(tableName);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void beginTransaction() {
+		database.beginTransaction();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void commit() {
+		database.commit();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void rollback() {
+		database.rollback();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean inTransaction() {
+		return database.inTransaction();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> T inTransaction(Callable<T> callable) {
+		return database.callInTransaction(callable);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addFeatureChangeListener(String tableName,
+			FeatureChangeListener listener) {
+		database.addFeatureChangeListener(tableName, listener);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean removeFeatureChangeListener(String tableName,
+			FeatureChangeListener listener) {
+		return database.removeFeatureChangeListener(tableName, listener);
+	}
+
+	/**
+	 * Get the table metadata cache of the current database schema version,
+	 * replacing the cache when the schema version has changed since it was
+	 * created. The schema version is incremented by SQLite on every table
+	 * create, alter and drop, including by other connections. The version is
+	 * read with a cached prepared statement.
+	 * 
+	 * @return table metadata cache
+	 */
+	private DaoCache validateDaoCache() {
+		Integer version = database.querySingleIntResult(
+				"PRAGMA schema_version", null);
+		int schemaVersion = version != null ? version : -1;
+		DaoCache cache = daoCache.get();
+		while (version == null || cache.schemaVersion != schemaVersion) {
+			DaoCache validated = new DaoCache(schemaVersion);
+			if (daoCache.compareAndSet(cache, validated)) {
+				cache = validated;
+				break;
+			}
+			cache = daoCache.get();
+		}
+		return cache;
+	}
+
+	/**
+	 * Cached feature table metadata
+	 */
+	private static class FeatureTableMetadata {
+
+		/**
+		 * Geometry columns
+		 */
+		private final GeometryColumns geometryColumns;
+
+		/**
+		 * Feature table
+		 */
+		private final FeatureTable table;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param geometryColumns
+		 *            geometry columns
+		 * @param table
+		 *            feature table
+		 */
+		private FeatureTableMetadata(GeometryColumns geometryColumns,
+				FeatureTable table) {
+			this.geometryColumns = geometryColumns;
+			this.table = table;
+		}
+
+	}
+
+	/**
+	 * Table metadata cached for a database schema version. DAOs are created
+	 * for each request around the cached metadata, so DAO settings such as
+	 * batch sizes and count modes are not shared between callers.
+	 */
+	private class DaoCache {
+
+		/**
+		 * Database schema version of the cached metadata
+		 */
+		private final int schemaVersion;
+
+		/**
+		 * Cached feature table metadata by table name
+		 */
+		private final ConcurrentMap<String, FeatureTableMetadata> features = new ConcurrentHashMap<>();
+
+		/**
+		 * Cached attributes tables by table name
+		 */
+		private final ConcurrentMap<String, AttributesTable> attributes = new ConcurrentHashMap<>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param schemaVersion
+		 *            database schema version
+		 */
+		private DaoCache(int schemaVersion) {
+			this.schemaVersion = schemaVersion;
+		}
+
+		/**
+		 * Create a feature DAO from the cached table metadata
+		 * 
+		 * @param tableName
+		 *            table name
+		 * @return new feature DAO, null if not cached
+		 */
+		private FeatureDao getFeatureDao(String tableName) {
+			FeatureDao dao = null;
+			FeatureTableMetadata metadata = features.get(tableName);
+			if (metadata != null) {
+				FeatureConnection userDb = new FeatureConnection(database);
+				userDb.setTable(metadata.table);
+				dao = new FeatureDao(getName(), database, userDb,
+						metadata.geometryColumns, metadata.table);
+			}
+			return dao;
+		}
+
+		/**
+		 * Create an attributes DAO from the cached table metadata
+		 * 
+		 * @param tableName
+		 *            table name
+		 * @return new attributes DAO, null if not cached
+		 */
+		private AttributesDao getAttributesDao(String tableName) {
+			AttributesDao dao = null;
+			AttributesTable table = attributes.get(tableName);
+			if (table != null) {
+				AttributesConnection userDb = new AttributesConnection(
+						database);
+				userDb.setTable(table);
+				dao = new AttributesDao(getName(), database, userDb, table);
+			}
+			return dao;
+		}
+
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
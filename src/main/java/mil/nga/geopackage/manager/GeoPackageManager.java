@@ -8,10 +8,12 @@ import java.sql.SQLException;
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.GeoPackageException;
 import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.GeoPackageConnectionPool;
+import mil.nga.geopackage.db.GeoPackageConnectionSource;
 import mil.nga.geopackage.db.GeoPackageTableCreator;
+import mil.nga.geopackage.db.SQLUtils;
 import mil.nga.geopackage.validate.GeoPackageValidate;
 
-import com.j256.ormlite.jdbc.JdbcConnectionSource;
 import com.j256.ormlite.logger.LocalLog;
 import com.j256.ormlite.support.ConnectionSource;
 
@@ -70,18 +72,77 @@ public class GeoPackageManager {
 	 * @return GeoPackage
 	 */
 	public static GeoPackage open(File file) {
+		return open(file, 0);
+	}
+
+	/**
+	 * Open a GeoPackage backed by a bounded pool of read only connections and
+	 * a single writer connection. The write ahead logging journal mode is
+	 * enabled so queries on the pooled read connections run concurrently with
+	 * each other and the writer.
+	 * 
+	 * @param file
+	 * @param readConnections
+	 *            max number of pooled read connections, 0 to not pool
+	 * @return GeoPackage
+	 * @since 1.2.4
+	 */
+	public static GeoPackage open(File file, int readConnections) {
+		GeoPackageOpenOptions options = new GeoPackageOpenOptions();
+		options.setReadConnections(readConnections);
+		return open(file, options);
+	}
+
+	/**
+	 * Open a GeoPackage with the open options. Read only, immutable and query
+	 * only GeoPackages are opened without write side setup and are not
+	 * writable.
+	 * 
+	 * @param file
+	 * @param options
+	 *            open options
+	 * @return GeoPackage
+	 * @since 1.2.4
+	 */
+	public static GeoPackage open(File file, GeoPackageOpenOptions options) {
 
 		// Validate the file extension
 		GeoPackageValidate.validateGeoPackageExtension(file);
 
+		if (options.isReadOnly() && !file.exists()) {
+			throw new GeoPackageException(
+					"Read only GeoPackage does not exist: "
+							+ file.getAbsolutePath());
+		}
+
 		// Create the GeoPackage Connection and table creator
-		GeoPackageConnection connection = connect(file);
+		GeoPackageConnection connection = connect(file, options);
+		int readConnections = options.getReadConnections();
+		if (readConnections > 0) {
+			// Readers of an unchanging database do not block each other, only
+			// enable write ahead logging for a concurrent writer
+			if (options.isWritable()) {
+				try {
+					if (!connection.enableWriteAheadLogging()) {
+						throw new GeoPackageException(
+								"Failed to enable write ahead logging for GeoPackage: "
+										+ file.getAbsolutePath());
+					}
+				} catch (RuntimeException e) {
+					connection.close();
+					throw e;
+				}
+			}
+			connection.setConnectionPool(new GeoPackageConnectionPool(file,
+					options.getDatabaseUrl(file), readConnections, options
+							.getPragmas()));
+		}
 		GeoPackageTableCreator tableCreator = new GeoPackageTableCreator(
 				connection);
 
 		// Create a GeoPackage
 		GeoPackage geoPackage = new GeoPackageImpl(file, connection,
-				tableCreator);
+				tableCreator, options.isWritable());
 
 		// Validate the GeoPackage has the minimum required tables
 		try {
@@ -101,8 +162,20 @@ public class GeoPackageManager {
 	 * @return
 	 */
 	private static GeoPackageConnection connect(File file) {
+		return connect(file, new GeoPackageOpenOptions());
+	}
 
-		String databaseUrl = "jdbc:sqlite:" + file.getPath();
+	/**
+	 * Connect to a GeoPackage file with the open options
+	 * 
+	 * @param file
+	 * @param options
+	 * @return
+	 */
+	private static GeoPackageConnection connect(File file,
+			GeoPackageOpenOptions options) {
+
+		String databaseUrl = options.getDatabaseUrl(file);
 
 		// load the sqlite-JDBC driver using the current class loader
 		try {
@@ -122,10 +195,29 @@ public class GeoPackageManager {
 							+ file.getAbsolutePath(), e);
 		}
 
+		try {
+			for (String pragma : options.getPragmas()) {
+				SQLUtils.execSQL(databaseConnection, pragma);
+			}
+		} catch (RuntimeException e) {
+			try {
+				databaseConnection.close();
+			} catch (SQLException closeException) {
+				// Report the original pragma failure
+			}
+			throw e;
+		}
+
 		ConnectionSource connectionSource;
 		try {
-			connectionSource = new JdbcConnectionSource(databaseUrl);
+			connectionSource = new GeoPackageConnectionSource(databaseUrl,
+					databaseConnection);
 		} catch (SQLException e) {
+			try {
+				databaseConnection.close();
+			} catch (SQLException closeException) {
+				// Report the original connection source failure
+			}
 			throw new GeoPackageException(
 					"Failed to get connection source to the SQLite file: "
 							+ file.getAbsolutePath(), e);
@@ -0,0 +1,276 @@
+package mil.nga.geopackage.manager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options for opening a GeoPackage with {@link GeoPackageManager}, including
+ * read only and immutable access modes and SQLite connection pragmas
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class GeoPackageOpenOptions {
+
+	/**
+	 * Read only flag, opens the database with the SQLite read only mode
+	 */
+	private boolean readOnly = false;
+
+	/**
+	 * Immutable flag, opens the database as a read only file that can not
+	 * change, skipping locking and change detection
+	 */
+	private boolean immutable = false;
+
+	/**
+	 * Query only flag, prevents all changes to the database file
+	 */
+	private boolean queryOnly = false;
+
+	/**
+	 * Max number of bytes of the database file to memory map, null for the
+	 * SQLite default
+	 */
+	private Long mmapSize = null;
+
+	/**
+	 * Page cache size, positive as a number of pages or negative as a number
+	 * of kibibytes, null for the SQLite default
+	 */
+	private Integer cacheSize = null;
+
+	/**
+	 * Temporary store in memory flag
+	 */
+	private boolean tempStoreMemory = false;
+
+	/**
+	 * Max number of pooled read connections, 0 to not pool
+	 */
+	private int readConnections = 0;
+
+	/**
+	 * Constructor
+	 */
+	public GeoPackageOpenOptions() {
+
+	}
+
+	/**
+	 * Create read only options
+	 *
+	 * @return read only options
+	 */
+	public static GeoPackageOpenOptions readOnly() {
+		GeoPackageOpenOptions options = new GeoPackageOpenOptions();
+		options.setReadOnly(true);
+		return options;
+	}
+
+	/**
+	 * Create immutable options for GeoPackages that are not changed by any
+	 * process while open
+	 *
+	 * @return immutable options
+	 */
+	public static GeoPackageOpenOptions immutable() {
+		GeoPackageOpenOptions options = new GeoPackageOpenOptions();
+		options.setImmutable(true);
+		return options;
+	}
+
+	/**
+	 * Is read only
+	 *
+	 * @return true if read only or immutable
+	 */
+	public boolean isReadOnly() {
+		return readOnly || immutable;
+	}
+
+	/**
+	 * Set read only
+	 *
+	 * @param readOnly
+	 *            true to open read only
+	 */
+	public void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	/**
+	 * Is immutable
+	 *
+	 * @return true if immutable
+	 */
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	/**
+	 * Set immutable, implying read only. Only use when the GeoPackage file is
+	 * not changed by any process while open.
+	 *
+	 * @param immutable
+	 *            true to open immutable
+	 */
+	public void setImmutable(boolean immutable) {
+		this.immutable = immutable;
+	}
+
+	/**
+	 * Is query only
+	 *
+	 * @return true if query only
+	 */
+	public boolean isQueryOnly() {
+		return queryOnly;
+	}
+
+	/**
+	 * Set query only
+	 *
+	 * @param queryOnly
+	 *            true to prevent changes to the database
+	 */
+	public void setQueryOnly(boolean queryOnly) {
+		this.queryOnly = queryOnly;
+	}
+
+	/**
+	 * Determine if the options allow changes to the GeoPackage
+	 *
+	 * @return true if writable
+	 */
+	public boolean isWritable() {
+		return !isReadOnly() && !queryOnly;
+	}
+
+	/**
+	 * Get the memory map size
+	 *
+	 * @return max memory mapped bytes, null for the default
+	 */
+	public Long getMmapSize() {
+		return mmapSize;
+	}
+
+	/**
+	 * Set the memory map size
+	 *
+	 * @param mmapSize
+	 *            max memory mapped bytes, 0 to disable memory mapping, null
+	 *            for the default
+	 */
+	public void setMmapSize(Long mmapSize) {
+		this.mmapSize = mmapSize;
+	}
+
+	/**
+	 * Get the page cache size
+	 *
+	 * @return cache size, null for the default
+	 */
+	public Integer getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * Set the page cache size
+	 *
+	 * @param cacheSize
+	 *            positive number of pages, negative number of kibibytes, null
+	 *            for the default
+	 */
+	public void setCacheSize(Integer cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * Is the temporary store in memory
+	 *
+	 * @return true if in memory
+	 */
+	public boolean isTempStoreMemory() {
+		return tempStoreMemory;
+	}
+
+	/**
+	 * Set the temporary store in memory
+	 *
+	 * @param tempStoreMemory
+	 *            true to keep temporary tables and indices in memory
+	 */
+	public void setTempStoreMemory(boolean tempStoreMemory) {
+		this.tempStoreMemory = tempStoreMemory;
+	}
+
+	/**
+	 * Get the max number of pooled read connections
+	 *
+	 * @return read connections, 0 to not pool
+	 */
+	public int getReadConnections() {
+		return readConnections;
+	}
+
+	/**
+	 * Set the max number of pooled read connections
+	 *
+	 * @param readConnections
+	 *            read connections, 0 to not pool
+	 */
+	public void setReadConnections(int readConnections) {
+		this.readConnections = readConnections;
+	}
+
+	/**
+	 * Build the JDBC database url for the GeoPackage file. Read only and
+	 * immutable modes are set as SQLite URI parameters so they apply to every
+	 * connection opened from the url.
+	 *
+	 * @param file
+	 *            GeoPackage file
+	 * @return database url
+	 */
+	public String getDatabaseUrl(File file) {
+		String databaseUrl;
+		if (isReadOnly()) {
+			StringBuilder url = new StringBuilder("jdbc:sqlite:");
+			url.append(file.getAbsoluteFile().toURI().toString());
+			url.append("?mode=ro");
+			if (immutable) {
+				url.append("&immutable=1");
+			}
+			databaseUrl = url.toString();
+		} else {
+			databaseUrl = "jdbc:sqlite:" + file.getPath();
+		}
+		return databaseUrl;
+	}
+
+	/**
+	 * Get the pragma statements to execute on each opened connection
+	 *
+	 * @return pragma statements
+	 */
+	public List<String> getPragmas() {
+		List<String> pragmas = new ArrayList<>();
+		if (mmapSize != null) {
+			pragmas.add("PRAGMA mmap_size = " + mmapSize);
+		}
+		if (cacheSize != null) {
+			pragmas.add("PRAGMA cache_size = " + cacheSize);
+		}
+		if (tempStoreMemory) {
+			pragmas.add("PRAGMA temp_store = MEMORY");
+		}
+		if (queryOnly) {
+			pragmas.add("PRAGMA query_only = 1");
+		}
+		return pragmas;
+	}
+
+}
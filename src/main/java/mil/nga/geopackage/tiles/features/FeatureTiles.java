@@ -0,0 +1,1049 @@
+package mil.nga.geopackage.tiles.features;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.imageio.ImageIO;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
+import mil.nga.geopackage.features.user.FeatureChangeListener;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.property.GeoPackageJavaProperties;
+import mil.nga.geopackage.property.JavaPropertyConstants;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.projection.Projection;
+
+/**
+ * Draws raster tiles of a feature table with Java2D. The features of each Web
+ * Mercator tile are queried through the feature table index bounding box
+ * query, clipped and simplified to the tile pixel resolution, and drawn with
+ * the point, line, and polygon styles of the
+ * {@link JavaPropertyConstants#FEATURE_TILES} properties. Tiles are drawn
+ * into reusable images and compressed tiles are kept in a size bounded least
+ * recently used cache. Cached tiles overlapping features inserted, updated,
+ * or deleted through the feature DAO are invalidated.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureTiles {
+
+	/**
+	 * Default max cache size in bytes
+	 */
+	public static final long DEFAULT_MAX_CACHE_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * Quantized units per pixel
+	 */
+	private static final int PIXEL_UNITS = 16;
+
+	/**
+	 * Simplification tolerance in pixels
+	 */
+	private static final double SIMPLIFY_TOLERANCE = 0.5;
+
+	/**
+	 * Cached marker of a tile without features
+	 */
+	private static final byte[] EMPTY_TILE = new byte[0];
+
+	/**
+	 * Max number of pooled images
+	 */
+	private static final int MAX_POOLED_IMAGES = Runtime.getRuntime()
+			.availableProcessors();
+
+	/**
+	 * Feature DAO
+	 */
+	private final FeatureDao featureDao;
+
+	/**
+	 * Feature table index
+	 */
+	private final FeatureTableIndex featureIndex;
+
+	/**
+	 * Web Mercator tile projection
+	 */
+	private final Projection webMercator = WebMercatorTiles.getProjection();
+
+	/**
+	 * Tile width
+	 */
+	private int tileWidth;
+
+	/**
+	 * Tile height
+	 */
+	private int tileHeight;
+
+	/**
+	 * Compress format
+	 */
+	private String compressFormat;
+
+	/**
+	 * Point radius
+	 */
+	private float pointRadius;
+
+	/**
+	 * Point color
+	 */
+	private Color pointColor;
+
+	/**
+	 * Line stroke width
+	 */
+	private float lineStrokeWidth;
+
+	/**
+	 * Line color
+	 */
+	private Color lineColor;
+
+	/**
+	 * Polygon stroke width
+	 */
+	private float polygonStrokeWidth;
+
+	/**
+	 * Polygon color
+	 */
+	private Color polygonColor;
+
+	/**
+	 * Fill polygon flag
+	 */
+	private boolean fillPolygon;
+
+	/**
+	 * Polygon fill color
+	 */
+	private Color polygonFillColor;
+
+	/**
+	 * Reusable tile canvases
+	 */
+	private final Queue<Canvas> canvases = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Compressed tiles in least recently used order
+	 */
+	private final Map<TileKey, byte[]> cache = new LinkedHashMap<>(16, 0.75f,
+			true);
+
+	/**
+	 * Max cache size in bytes
+	 */
+	private long maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+
+	/**
+	 * Cache size in bytes
+	 */
+	private long cacheSize;
+
+	/**
+	 * Cache invalidation count, tiles drawn across an invalidation are not
+	 * cached
+	 */
+	private long invalidations;
+
+	/**
+	 * Feature table change listener invalidating cached tiles
+	 */
+	private final FeatureChangeListener changeListener = new FeatureChangeListener() {
+
+		@Override
+		public void featuresChanged(FeatureDao featureDao,
+				GeometryEnvelope envelope) {
+			invalidateCache(envelope);
+		}
+
+	};
+
+	/**
+	 * Constructor, creating a feature table index
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 * @param featureDao
+	 *            feature DAO
+	 */
+	public FeatureTiles(GeoPackage geoPackage, FeatureDao featureDao) {
+		this(featureDao, new FeatureTableIndex(geoPackage, featureDao));
+	}
+
+	/**
+	 * Constructor. Registers a change listener for the feature table on the
+	 * GeoPackage until closed, so changes through any feature DAO of the table
+	 * invalidate cached tiles once committed.
+	 *
+	 * @param featureDao
+	 *            feature DAO
+	 * @param featureIndex
+	 *            feature table index of the feature DAO table
+	 */
+	public FeatureTiles(FeatureDao featureDao, FeatureTableIndex featureIndex) {
+		this.featureDao = featureDao;
+		this.featureIndex = featureIndex;
+
+		tileWidth = GeoPackageJavaProperties.getIntegerProperty(
+				JavaPropertyConstants.FEATURE_TILES,
+				JavaPropertyConstants.FEATURE_TILES_TILE_WIDTH);
+		tileHeight = GeoPackageJavaProperties.getIntegerProperty(
+				JavaPropertyConstants.FEATURE_TILES,
+				JavaPropertyConstants.FEATURE_TILES_TILE_HEIGHT);
+		compressFormat = GeoPackageJavaProperties.getProperty(
+				JavaPropertyConstants.FEATURE_TILES,
+				JavaPropertyConstants.FEATURE_TILES_COMPRESS_FORMAT);
+
+		pointRadius = GeoPackageJavaProperties.getFloatProperty(
+				JavaPropertyConstants.FEATURE_TILES_POINT,
+				JavaPropertyConstants.FEATURE_TILES_RADIUS);
+		pointColor = GeoPackageJavaProperties.getColorProperty(
+				JavaPropertyConstants.FEATURE_TILES_POINT,
+				JavaPropertyConstants.FEATURE_TILES_COLOR);
+
+		lineStrokeWidth = GeoPackageJavaProperties.getFloatProperty(
+				JavaPropertyConstants.FEATURE_TILES_LINE,
+				JavaPropertyConstants.FEATURE_TILES_STROKE_WIDTH);
+		lineColor = GeoPackageJavaProperties.getColorProperty(
+				JavaPropertyConstants.FEATURE_TILES_LINE,
+				JavaPropertyConstants.FEATURE_TILES_COLOR);
+
+		polygonStrokeWidth = GeoPackageJavaProperties.getFloatProperty(
+				JavaPropertyConstants.FEATURE_TILES_POLYGON,
+				JavaPropertyConstants.FEATURE_TILES_STROKE_WIDTH);
+		polygonColor = GeoPackageJavaProperties.getColorProperty(
+				JavaPropertyConstants.FEATURE_TILES_POLYGON,
+				JavaPropertyConstants.FEATURE_TILES_COLOR);
+
+		fillPolygon = GeoPackageJavaProperties
+				.getBooleanProperty(JavaPropertyConstants.FEATURE_TILES_POLYGON_FILL);
+		polygonFillColor = GeoPackageJavaProperties.getColorProperty(
+				JavaPropertyConstants.FEATURE_TILES_POLYGON_FILL,
+				JavaPropertyConstants.FEATURE_TILES_COLOR);
+
+		featureDao.addChangeListener(changeListener);
+	}
+
+	/**
+	 * Close the feature tiles, removing the feature table change listener and
+	 * clearing the cache
+	 */
+	public void close() {
+		featureDao.removeChangeListener(changeListener);
+		clearCache();
+		canvases.clear();
+	}
+
+	/**
+	 * Get the feature DAO
+	 *
+	 * @return feature DAO
+	 */
+	public FeatureDao getFeatureDao() {
+		return featureDao;
+	}
+
+	/**
+	 * Get the feature table index
+	 *
+	 * @return feature table index
+	 */
+	public FeatureTableIndex getFeatureIndex() {
+		return featureIndex;
+	}
+
+	/**
+	 * Get the tile width
+	 *
+	 * @return tile width
+	 */
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	/**
+	 * Set the tile width
+	 *
+	 * @param tileWidth
+	 *            tile width
+	 */
+	public void setTileWidth(int tileWidth) {
+		this.tileWidth = tileWidth;
+		styleChanged();
+	}
+
+	/**
+	 * Get the tile height
+	 *
+	 * @return tile height
+	 */
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * Set the tile height
+	 *
+	 * @param tileHeight
+	 *            tile height
+	 */
+	public void setTileHeight(int tileHeight) {
+		this.tileHeight = tileHeight;
+		styleChanged();
+	}
+
+	/**
+	 * Get the compress format
+	 *
+	 * @return compress format
+	 */
+	public String getCompressFormat() {
+		return compressFormat;
+	}
+
+	/**
+	 * Set the compress format
+	 *
+	 * @param compressFormat
+	 *            image IO compress format
+	 */
+	public void setCompressFormat(String compressFormat) {
+		this.compressFormat = compressFormat;
+		styleChanged();
+	}
+
+	/**
+	 * Get the point radius
+	 *
+	 * @return point radius
+	 */
+	public float getPointRadius() {
+		return pointRadius;
+	}
+
+	/**
+	 * Set the point radius
+	 *
+	 * @param pointRadius
+	 *            point radius
+	 */
+	public void setPointRadius(float pointRadius) {
+		this.pointRadius = pointRadius;
+		styleChanged();
+	}
+
+	/**
+	 * Get the point color
+	 *
+	 * @return point color
+	 */
+	public Color getPointColor() {
+		return pointColor;
+	}
+
+	/**
+	 * Set the point color
+	 *
+	 * @param pointColor
+	 *            point color
+	 */
+	public void setPointColor(Color pointColor) {
+		this.pointColor = pointColor;
+		styleChanged();
+	}
+
+	/**
+	 * Get the line stroke width
+	 *
+	 * @return line stroke width
+	 */
+	public float getLineStrokeWidth() {
+		return lineStrokeWidth;
+	}
+
+	/**
+	 * Set the line stroke width
+	 *
+	 * @param lineStrokeWidth
+	 *            line stroke width
+	 */
+	public void setLineStrokeWidth(float lineStrokeWidth) {
+		this.lineStrokeWidth = lineStrokeWidth;
+		styleChanged();
+	}
+
+	/**
+	 * Get the line color
+	 *
+	 * @return line color
+	 */
+	public Color getLineColor() {
+		return lineColor;
+	}
+
+	/**
+	 * Set the line color
+	 *
+	 * @param lineColor
+	 *            line color
+	 */
+	public void setLineColor(Color lineColor) {
+		this.lineColor = lineColor;
+		styleChanged();
+	}
+
+	/**
+	 * Get the polygon stroke width
+	 *
+	 * @return polygon stroke width
+	 */
+	public float getPolygonStrokeWidth() {
+		return polygonStrokeWidth;
+	}
+
+	/**
+	 * Set the polygon stroke width
+	 *
+	 * @param polygonStrokeWidth
+	 *            polygon stroke width
+	 */
+	public void setPolygonStrokeWidth(float polygonStrokeWidth) {
+		this.polygonStrokeWidth = polygonStrokeWidth;
+		styleChanged();
+	}
+
+	/**
+	 * Get the polygon color
+	 *
+	 * @return polygon color
+	 */
+	public Color getPolygonColor() {
+		return polygonColor;
+	}
+
+	/**
+	 * Set the polygon color
+	 *
+	 * @param polygonColor
+	 *            polygon color
+	 */
+	public void setPolygonColor(Color polygonColor) {
+		this.polygonColor = polygonColor;
+		styleChanged();
+	}
+
+	/**
+	 * Is fill polygon
+	 *
+	 * @return true if polygons are filled
+	 */
+	public boolean isFillPolygon() {
+		return fillPolygon;
+	}
+
+	/**
+	 * Set the fill polygon
+	 *
+	 * @param fillPolygon
+	 *            true to fill polygons
+	 */
+	public void setFillPolygon(boolean fillPolygon) {
+		this.fillPolygon = fillPolygon;
+		styleChanged();
+	}
+
+	/**
+	 * Get the polygon fill color
+	 *
+	 * @return polygon fill color
+	 */
+	public Color getPolygonFillColor() {
+		return polygonFillColor;
+	}
+
+	/**
+	 * Set the polygon fill color
+	 *
+	 * @param polygonFillColor
+	 *            polygon fill color
+	 */
+	public void setPolygonFillColor(Color polygonFillColor) {
+		this.polygonFillColor = polygonFillColor;
+		styleChanged();
+	}
+
+	/**
+	 * Get the max cache size in bytes
+	 *
+	 * @return max cache size
+	 */
+	public long getMaxCacheSize() {
+		return maxCacheSize;
+	}
+
+	/**
+	 * Set the max cache size in bytes, 0 to disable caching. Least recently
+	 * used tiles are evicted when the cache exceeds the size.
+	 *
+	 * @param maxCacheSize
+	 *            max cache size
+	 */
+	public void setMaxCacheSize(long maxCacheSize) {
+		synchronized (cache) {
+			this.maxCacheSize = Math.max(0, maxCacheSize);
+			evict();
+		}
+	}
+
+	/**
+	 * Get the size of the cached tiles in bytes
+	 *
+	 * @return cache size
+	 */
+	public long getCacheSize() {
+		synchronized (cache) {
+			return cacheSize;
+		}
+	}
+
+	/**
+	 * Get the number of cached tiles, including tiles without features
+	 *
+	 * @return cached tile count
+	 */
+	public int getCacheCount() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Determine if a tile is cached
+	 *
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row, from the top
+	 * @param zoom
+	 *            zoom level
+	 * @return true if cached
+	 */
+	public boolean isCached(int x, int y, int zoom) {
+		synchronized (cache) {
+			return cache.containsKey(new TileKey(zoom, x, y));
+		}
+	}
+
+	/**
+	 * Clear the cached tiles
+	 */
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+			cacheSize = 0;
+			invalidations++;
+		}
+	}
+
+	/**
+	 * Invalidate the cached tiles whose drawn area overlaps the envelope,
+	 * including the point radius and stroke widths drawn beyond the tile
+	 *
+	 * @param envelope
+	 *            envelope in the feature projection, null to clear the cache
+	 */
+	public void invalidateCache(GeometryEnvelope envelope) {
+		if (envelope == null) {
+			clearCache();
+			return;
+		}
+		double[] bounds = WebMercatorTiles.bounds(envelope,
+				featureDao.getProjection());
+		synchronized (cache) {
+			int marginPixels = marginPixels();
+			Iterator<Map.Entry<TileKey, byte[]>> entries = cache.entrySet()
+					.iterator();
+			while (entries.hasNext()) {
+				Map.Entry<TileKey, byte[]> entry = entries.next();
+				TileKey key = entry.getKey();
+				double margin = WebMercatorTiles.tileSize(key.zoom)
+						* marginPixels / Math.min(tileWidth, tileHeight);
+				GeometryEnvelope tile = WebMercatorTiles.boundingBox(key.x,
+						key.y, key.zoom, margin);
+				if (tile.getMinX() <= bounds[2] && tile.getMaxX() >= bounds[0]
+						&& tile.getMinY() <= bounds[3]
+						&& tile.getMaxY() >= bounds[1]) {
+					cacheSize -= entry.getValue().length;
+					entries.remove();
+				}
+			}
+			invalidations++;
+		}
+	}
+
+	/**
+	 * Draw the compressed tile bytes, returning a cached tile when available
+	 *
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row, from the top
+	 * @param zoom
+	 *            zoom level
+	 * @return compressed tile bytes, null if the tile has no features
+	 */
+	public byte[] drawTileBytes(int x, int y, int zoom) {
+
+		WebMercatorTiles.validateZoom(zoom);
+
+		TileKey key = new TileKey(zoom, x, y);
+		long invalidationCount;
+		synchronized (cache) {
+			byte[] cached = cache.get(key);
+			if (cached != null) {
+				return cached != EMPTY_TILE ? cached : null;
+			}
+			invalidationCount = invalidations;
+		}
+
+		byte[] tile = EMPTY_TILE;
+		Canvas canvas = acquireCanvas();
+		try {
+			if (draw(canvas, x, y, zoom)) {
+				tile = compress(canvas.image);
+			}
+		} finally {
+			releaseCanvas(canvas);
+		}
+
+		synchronized (cache) {
+			if (invalidationCount == invalidations && maxCacheSize > 0) {
+				byte[] previous = cache.put(key, tile);
+				if (previous != null) {
+					cacheSize -= previous.length;
+				}
+				cacheSize += tile.length;
+				evict();
+			}
+		}
+
+		return tile != EMPTY_TILE ? tile : null;
+	}
+
+	/**
+	 * Draw a tile image, not cached
+	 *
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row, from the top
+	 * @param zoom
+	 *            zoom level
+	 * @return tile image, null if the tile has no features
+	 */
+	public BufferedImage drawTile(int x, int y, int zoom) {
+		WebMercatorTiles.validateZoom(zoom);
+		Canvas canvas = new Canvas(tileWidth, tileHeight);
+		return draw(canvas, x, y, zoom) ? canvas.image : null;
+	}
+
+	/**
+	 * Query and draw the features of a tile onto the canvas
+	 *
+	 * @param canvas
+	 *            cleared canvas
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row
+	 * @param zoom
+	 *            zoom level
+	 * @return true if any features were drawn
+	 */
+	private boolean draw(Canvas canvas, int x, int y, int zoom) {
+
+		if (!featureIndex.isIndexed()) {
+			throw new GeoPackageException(
+					"Feature table is not indexed. GeoPackage: "
+							+ featureIndex.getGeoPackage().getName()
+							+ ", Table: " + featureDao.getTableName());
+		}
+
+		int width = canvas.image.getWidth();
+		int height = canvas.image.getHeight();
+		int extent = PIXEL_UNITS * Math.max(width, height);
+		int buffer = PIXEL_UNITS * marginPixels();
+		double tileSize = WebMercatorTiles.tileSize(zoom);
+		GeometryEnvelope boundingBox = WebMercatorTiles.boundingBox(x, y,
+				zoom, tileSize * buffer / extent);
+
+		FeatureTable table = featureDao.getTable();
+		int geometryIndex = table.getGeometryColumnIndex();
+		List<byte[]> geometries = new ArrayList<>();
+		FeatureResultSet resultSet = featureIndex.queryFeatures(boundingBox,
+				webMercator, null, null, new String[] { table
+						.getGeometryColumn().getName() }, null);
+		try {
+			while (resultSet.moveToNext()) {
+				byte[] geometry = resultSet.getBlob(geometryIndex);
+				if (geometry != null) {
+					geometries.add(geometry);
+				}
+			}
+		} finally {
+			resultSet.close();
+		}
+
+		boolean drawn = false;
+		if (!geometries.isEmpty()) {
+
+			Projection projection = featureDao.getProjection();
+			VectorTileGeometry geometry = canvas.geometry;
+			geometry.setTile(WebMercatorTiles.minX(x, zoom),
+					WebMercatorTiles.maxY(y, zoom), tileSize, extent, buffer,
+					SIMPLIFY_TOLERANCE * PIXEL_UNITS);
+			double scaleX = (double) width / extent;
+			double scaleY = (double) height / extent;
+
+			Graphics2D graphics = canvas.image.createGraphics();
+			try {
+				graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+						RenderingHints.VALUE_ANTIALIAS_ON);
+				BasicStroke lineStroke = new BasicStroke(lineStrokeWidth);
+				BasicStroke polygonStroke = new BasicStroke(polygonStrokeWidth);
+				for (byte[] geometryBytes : geometries) {
+					if (!geometry.read(geometryBytes)) {
+						continue;
+					}
+					geometry.transform(projection, webMercator);
+					if (!geometry.encode()) {
+						continue;
+					}
+					drawn = true;
+
+					int polygonCount = geometry
+							.getCommandCount(VectorTileEncoder.POLYGON);
+					if (polygonCount > 0) {
+						Path2D path = path(
+								geometry.getCommands(VectorTileEncoder.POLYGON),
+								polygonCount, scaleX, scaleY);
+						if (fillPolygon) {
+							graphics.setColor(polygonFillColor);
+							graphics.fill(path);
+						}
+						graphics.setColor(polygonColor);
+						graphics.setStroke(polygonStroke);
+						graphics.draw(path);
+					}
+
+					int lineCount = geometry
+							.getCommandCount(VectorTileEncoder.LINESTRING);
+					if (lineCount > 0) {
+						graphics.setColor(lineColor);
+						graphics.setStroke(lineStroke);
+						graphics.draw(path(geometry
+								.getCommands(VectorTileEncoder.LINESTRING),
+								lineCount, scaleX, scaleY));
+					}
+
+					int pointCount = geometry
+							.getCommandCount(VectorTileEncoder.POINT);
+					if (pointCount > 0) {
+						graphics.setColor(pointColor);
+						drawPoints(graphics,
+								geometry.getCommands(VectorTileEncoder.POINT),
+								pointCount, scaleX, scaleY);
+					}
+				}
+			} finally {
+				graphics.dispose();
+			}
+		}
+
+		return drawn;
+	}
+
+	/**
+	 * Build a path from line string or polygon geometry commands
+	 *
+	 * @param commands
+	 *            geometry commands
+	 * @param count
+	 *            number of command integers
+	 * @param scaleX
+	 *            pixels per tile unit across
+	 * @param scaleY
+	 *            pixels per tile unit down
+	 * @return path
+	 */
+	private static Path2D path(int[] commands, int count, double scaleX,
+			double scaleY) {
+		Path2D path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+		int x = 0;
+		int y = 0;
+		int i = 0;
+		while (i < count) {
+			int command = commands[i] & 0x7;
+			int repeat = commands[i++] >>> 3;
+			if (command == VectorTileEncoder.CLOSE_PATH) {
+				path.closePath();
+				continue;
+			}
+			for (int j = 0; j < repeat; j++) {
+				x += unzigzag(commands[i++]);
+				y += unzigzag(commands[i++]);
+				if (command == VectorTileEncoder.MOVE_TO) {
+					path.moveTo(x * scaleX, y * scaleY);
+				} else {
+					path.lineTo(x * scaleX, y * scaleY);
+				}
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Draw points from point geometry commands
+	 *
+	 * @param graphics
+	 *            graphics
+	 * @param commands
+	 *            geometry commands
+	 * @param count
+	 *            number of command integers
+	 * @param scaleX
+	 *            pixels per tile unit across
+	 * @param scaleY
+	 *            pixels per tile unit down
+	 */
+	private void drawPoints(Graphics2D graphics, int[] commands, int count,
+			double scaleX, double scaleY) {
+		Ellipse2D.Double circle = new Ellipse2D.Double();
+		double diameter = pointRadius * 2;
+		int x = 0;
+		int y = 0;
+		int i = 0;
+		while (i < count) {
+			int repeat = commands[i++] >>> 3;
+			for (int j = 0; j < repeat; j++) {
+				x += unzigzag(commands[i++]);
+				y += unzigzag(commands[i++]);
+				circle.setFrame(x * scaleX - pointRadius, y * scaleY
+						- pointRadius, diameter, diameter);
+				graphics.fill(circle);
+			}
+		}
+	}
+
+	/**
+	 * Decode a zigzag encoded geometry parameter
+	 *
+	 * @param value
+	 *            zigzag encoded value
+	 * @return parameter value
+	 */
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Compress the tile image
+	 *
+	 * @param image
+	 *            tile image
+	 * @return compressed bytes
+	 */
+	private byte[] compress(BufferedImage image) {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try {
+			if (!ImageIO.write(image, compressFormat, stream)) {
+				throw new GeoPackageException(
+						"No image writer for compress format: "
+								+ compressFormat);
+			}
+		} catch (IOException e) {
+			throw new GeoPackageException(
+					"Failed to compress feature tile. Format: "
+							+ compressFormat, e);
+		}
+		return stream.toByteArray();
+	}
+
+	/**
+	 * Get the pixels drawn beyond a geometry, from the point radius and stroke
+	 * widths
+	 *
+	 * @return margin pixels
+	 */
+	private int marginPixels() {
+		float margin = Math.max(pointRadius,
+				Math.max(lineStrokeWidth, polygonStrokeWidth) / 2);
+		return (int) Math.ceil(margin) + 1;
+	}
+
+	/**
+	 * Evict least recently used tiles until within the max cache size
+	 */
+	private void evict() {
+		Iterator<byte[]> tiles = cache.values().iterator();
+		while (cacheSize > maxCacheSize && tiles.hasNext()) {
+			cacheSize -= tiles.next().length;
+			tiles.remove();
+		}
+	}
+
+	/**
+	 * Handle a change to the drawing style or tile format, clearing the
+	 * cached tiles and pooled images
+	 */
+	private void styleChanged() {
+		canvases.clear();
+		clearCache();
+	}
+
+	/**
+	 * Acquire a cleared canvas of the tile size, reusing a pooled canvas when
+	 * available
+	 *
+	 * @return canvas
+	 */
+	private Canvas acquireCanvas() {
+		Canvas canvas = canvases.poll();
+		if (canvas == null || canvas.image.getWidth() != tileWidth
+				|| canvas.image.getHeight() != tileHeight) {
+			canvas = new Canvas(tileWidth, tileHeight);
+		} else {
+			Arrays.fill(((DataBufferInt) canvas.image.getRaster()
+					.getDataBuffer()).getData(), 0);
+		}
+		return canvas;
+	}
+
+	/**
+	 * Return a canvas to the pool
+	 *
+	 * @param canvas
+	 *            canvas
+	 */
+	private void releaseCanvas(Canvas canvas) {
+		if (canvases.size() < MAX_POOLED_IMAGES) {
+			canvases.offer(canvas);
+		}
+	}
+
+	/**
+	 * Reusable tile image and geometry encoder
+	 */
+	private static class Canvas {
+
+		/**
+		 * Tile image
+		 */
+		private final BufferedImage image;
+
+		/**
+		 * Geometry encoder
+		 */
+		private final VectorTileGeometry geometry = new VectorTileGeometry();
+
+		/**
+		 * Constructor
+		 *
+		 * @param width
+		 *            tile width
+		 * @param height
+		 *            tile height
+		 */
+		private Canvas(int width, int height) {
+			image = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB);
+		}
+
+	}
+
+	/**
+	 * Cached tile key
+	 */
+	private static class TileKey {
+
+		/**
+		 * Zoom level
+		 */
+		private final int zoom;
+
+		/**
+		 * Tile column
+		 */
+		private final int x;
+
+		/**
+		 * Tile row
+		 */
+		private final int y;
+
+		/**
+		 * Constructor
+		 *
+		 * @param zoom
+		 *            zoom level
+		 * @param x
+		 *            tile column
+		 * @param y
+		 *            tile row
+		 */
+		private TileKey(int zoom, int x, int y) {
+			this.zoom = zoom;
+			this.x = x;
+			this.y = y;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return (31 * (31 * zoom + x)) + y;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			boolean equal = false;
+			if (obj instanceof TileKey) {
+				TileKey other = (TileKey) obj;
+				equal = zoom == other.zoom && x == other.x && y == other.y;
+			}
+			return equal;
+		}
+
+	}
+
+}
@@ -0,0 +1,1067 @@
+package mil.nga.geopackage.tiles.features;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.io.GeoPackageProgress;
+import mil.nga.geopackage.io.GeoPackageZoomLevelProgress;
+import mil.nga.geopackage.user.UserCoreResultUtils;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.projection.Projection;
+
+/**
+ * Draws Mapbox Vector Tiles from a feature table. The features of each Web
+ * Mercator tile are queried through the feature table index bounding box
+ * query, and the geometries are clipped to the buffered tile, simplified to
+ * the tile resolution, and quantized to the tile extent. When drawing a zoom
+ * range, each tile is queried and encoded by a worker thread, reading from
+ * its own pooled read connection when available, and tiles are handled in
+ * order on the calling thread. Tiles within a tile whose query found no
+ * features are skipped at the following zoom levels. Tiles are addressed by
+ * zoom level, column, and row from the top.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class FeatureVectorTiles {
+
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger.getLogger(FeatureVectorTiles.class
+			.getName());
+
+	/**
+	 * Default tile extent
+	 */
+	public static final int DEFAULT_EXTENT = 4096;
+
+	/**
+	 * Default clip buffer in tile units
+	 */
+	public static final int DEFAULT_BUFFER = 64;
+
+	/**
+	 * Default simplification tolerance in tile units
+	 */
+	public static final double DEFAULT_SIMPLIFY_TOLERANCE = 1.0;
+
+	/**
+	 * Max supported zoom level
+	 */
+	public static final int MAX_ZOOM = WebMercatorTiles.MAX_ZOOM;
+
+	/**
+	 * Vector tile file extension
+	 */
+	public static final String TILE_EXTENSION = "mvt";
+
+	/**
+	 * Feature DAO
+	 */
+	private final FeatureDao featureDao;
+
+	/**
+	 * Feature table index
+	 */
+	private final FeatureTableIndex featureIndex;
+
+	/**
+	 * Web Mercator tile projection
+	 */
+	private final Projection webMercator = WebMercatorTiles.getProjection();
+
+	/**
+	 * Layer name
+	 */
+	private String layerName;
+
+	/**
+	 * Tile extent
+	 */
+	private int extent = DEFAULT_EXTENT;
+
+	/**
+	 * Clip buffer in tile units
+	 */
+	private int buffer = DEFAULT_BUFFER;
+
+	/**
+	 * Simplification tolerance in tile units
+	 */
+	private double simplifyTolerance = DEFAULT_SIMPLIFY_TOLERANCE;
+
+	/**
+	 * Attribute columns, null for all columns
+	 */
+	private String[] columns;
+
+	/**
+	 * Number of worker threads used to query and encode tiles
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Progress
+	 */
+	private GeoPackageProgress progress;
+
+	/**
+	 * Constructor, creating a feature table index
+	 *
+	 * @param geoPackage
+	 *            GeoPackage
+	 * @param featureDao
+	 *            feature DAO
+	 */
+	public FeatureVectorTiles(GeoPackage geoPackage, FeatureDao featureDao) {
+		this(featureDao, new FeatureTableIndex(geoPackage, featureDao));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param featureDao
+	 *            feature DAO
+	 * @param featureIndex
+	 *            feature table index of the feature DAO table
+	 */
+	public FeatureVectorTiles(FeatureDao featureDao,
+			FeatureTableIndex featureIndex) {
+		this.featureDao = featureDao;
+		this.featureIndex = featureIndex;
+		this.layerName = featureDao.getTableName();
+	}
+
+	/**
+	 * Get the feature DAO
+	 *
+	 * @return feature DAO
+	 */
+	public FeatureDao getFeatureDao() {
+		return featureDao;
+	}
+
+	/**
+	 * Get the feature table index
+	 *
+	 * @return feature table index
+	 */
+	public FeatureTableIndex getFeatureIndex() {
+		return featureIndex;
+	}
+
+	/**
+	 * Get the layer name
+	 *
+	 * @return layer name
+	 */
+	public String getLayerName() {
+		return layerName;
+	}
+
+	/**
+	 * Set the layer name, defaults to the table name
+	 *
+	 * @param layerName
+	 *            layer name
+	 */
+	public void setLayerName(String layerName) {
+		this.layerName = layerName;
+	}
+
+	/**
+	 * Get the tile extent
+	 *
+	 * @return tile extent
+	 */
+	public int getExtent() {
+		return extent;
+	}
+
+	/**
+	 * Set the tile extent, the number of quantized units across a tile
+	 *
+	 * @param extent
+	 *            tile extent
+	 */
+	public void setExtent(int extent) {
+		if (extent < 1) {
+			throw new GeoPackageException(
+					"Tile extent must be positive, extent: " + extent);
+		}
+		this.extent = extent;
+	}
+
+	/**
+	 * Get the clip buffer in tile units
+	 *
+	 * @return clip buffer
+	 */
+	public int getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Set the clip buffer in tile units, the distance geometries extend
+	 * beyond the tile edges so rendered strokes are not cut at the edges
+	 *
+	 * @param buffer
+	 *            clip buffer
+	 */
+	public void setBuffer(int buffer) {
+		if (buffer < 0) {
+			throw new GeoPackageException(
+					"Clip buffer must not be negative, buffer: " + buffer);
+		}
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Get the simplification tolerance in tile units
+	 *
+	 * @return simplification tolerance
+	 */
+	public double getSimplifyTolerance() {
+		return simplifyTolerance;
+	}
+
+	/**
+	 * Set the simplification tolerance in tile units, 0 to only remove
+	 * positions that quantize to the same tile unit
+	 *
+	 * @param simplifyTolerance
+	 *            simplification tolerance
+	 */
+	public void setSimplifyTolerance(double simplifyTolerance) {
+		this.simplifyTolerance = Math.max(0, simplifyTolerance);
+	}
+
+	/**
+	 * Get the attribute columns
+	 *
+	 * @return attribute columns, null for all columns
+	 */
+	public String[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Set the attribute columns written as feature attributes, defaults to all
+	 * columns other than the primary key and geometry. The primary key is
+	 * written as the feature id.
+	 *
+	 * @param columns
+	 *            attribute columns, null for all columns
+	 */
+	public void setColumns(String[] columns) {
+		this.columns = columns;
+	}
+
+	/**
+	 * Get the number of worker threads used to query and encode tiles
+	 *
+	 * @return threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of worker threads used to query and encode tiles. Each
+	 * worker reads from its own pooled read connection when the GeoPackage
+	 * has a read connection pool.
+	 *
+	 * @param threads
+	 *            threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Set the progress tracker, notified per zoom level when a
+	 * {@link GeoPackageZoomLevelProgress}
+	 *
+	 * @param progress
+	 *            progress tracker
+	 */
+	public void setProgress(GeoPackageProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Draw a single vector tile
+	 *
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row, from the top
+	 * @param zoom
+	 *            zoom level
+	 * @return Mapbox Vector Tile bytes, null if the tile has no features
+	 */
+	public byte[] drawTile(int x, int y, int zoom) {
+		WebMercatorTiles.validateZoom(zoom);
+		validateIndexed();
+		return new TileTask(new PendingTile(zoom, x, y), attributeColumns())
+				.call();
+	}
+
+	/**
+	 * Draw the vector tiles containing features in the zoom range
+	 *
+	 * @param minZoom
+	 *            min zoom level
+	 * @param maxZoom
+	 *            max zoom level
+	 * @param handler
+	 *            tile handler
+	 * @return number of tiles handled
+	 * @throws IOException
+	 *             upon failure to handle a tile
+	 */
+	public synchronized int drawTiles(int minZoom, int maxZoom,
+			VectorTileHandler handler) throws IOException {
+
+		WebMercatorTiles.validateZoom(minZoom);
+		WebMercatorTiles.validateZoom(maxZoom);
+		if (minZoom > maxZoom) {
+			throw new GeoPackageException("Min zoom " + minZoom
+					+ " is greater than max zoom " + maxZoom);
+		}
+
+		double[] bounds = WebMercatorTiles.bounds(featureDao.getBoundingBox(),
+				featureDao.getProjection());
+		int[][] tileRanges = new int[maxZoom - minZoom + 1][];
+		long total = 0;
+		for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+			int[] range = WebMercatorTiles.tileRange(bounds, zoom);
+			tileRanges[zoom - minZoom] = range;
+			long zoomTotal = (long) (range[2] - range[0] + 1)
+					* (range[3] - range[1] + 1);
+			if (progress instanceof GeoPackageZoomLevelProgress) {
+				((GeoPackageZoomLevelProgress) progress).setZoomLevelMax(zoom,
+						(int) Math.min(zoomTotal, Integer.MAX_VALUE));
+			}
+			total += zoomTotal;
+		}
+		if (progress != null) {
+			progress.setMax((int) Math.min(total, Integer.MAX_VALUE));
+		}
+
+		validateIndexed();
+
+		int count = 0;
+		int[] attributeColumns = attributeColumns();
+		int maxPending = threads * 2;
+		Deque<PendingTile> pending = new ArrayDeque<>();
+		ExecutorService executor = threads > 1 ? Executors
+				.newFixedThreadPool(threads) : null;
+		try {
+
+			// Tiles within the parent tiles that found features, null for the
+			// full tile range
+			TileList tiles = null;
+
+			for (int zoom = minZoom; zoom <= maxZoom && isActive(); zoom++) {
+
+				int[] range = tileRanges[zoom - minZoom];
+				TileList featureTiles = new TileList();
+				long drawn = 0;
+
+				if (tiles == null) {
+					for (int x = range[0]; x <= range[2] && isActive(); x++) {
+						for (int y = range[1]; y <= range[3] && isActive(); y++) {
+							count += drawTile(new PendingTile(zoom, x, y),
+									attributeColumns, executor, pending,
+									maxPending, handler, featureTiles);
+							drawn++;
+						}
+					}
+				} else {
+					for (int i = 0; i < tiles.size() && isActive(); i++) {
+						int x = tiles.getX(i);
+						int y = tiles.getY(i);
+						if (x >= range[0] && x <= range[2] && y >= range[1]
+								&& y <= range[3]) {
+							count += drawTile(new PendingTile(zoom, x, y),
+									attributeColumns, executor, pending,
+									maxPending, handler, featureTiles);
+							drawn++;
+						}
+					}
+				}
+
+				while (!pending.isEmpty() && isActive()) {
+					count += handle(pending.poll(), handler, featureTiles);
+				}
+
+				// Count the skipped tiles as progress
+				if (isActive() && progress != null) {
+					long skipped = (long) (range[2] - range[0] + 1)
+							* (range[3] - range[1] + 1) - drawn;
+					if (skipped > 0) {
+						addProgress(zoom,
+								(int) Math.min(skipped, Integer.MAX_VALUE));
+					}
+				}
+
+				if (zoom < maxZoom) {
+					tiles = featureTiles.children();
+				}
+			}
+
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Draw the vector tiles containing features in the zoom range to a
+	 * directory as zoom/x/y.mvt files
+	 *
+	 * @param minZoom
+	 *            min zoom level
+	 * @param maxZoom
+	 *            max zoom level
+	 * @param directory
+	 *            tile directory
+	 * @return number of tiles written
+	 * @throws IOException
+	 *             upon failure to write a tile
+	 */
+	public int drawTiles(int minZoom, int maxZoom, final File directory)
+			throws IOException {
+		return drawTiles(minZoom, maxZoom, new VectorTileHandler() {
+
+			@Override
+			public void handleTile(int zoom, int x, int y, byte[] tile)
+					throws IOException {
+				File tileDirectory = new File(new File(directory,
+						String.valueOf(zoom)), String.valueOf(x));
+				if (!tileDirectory.isDirectory() && !tileDirectory.mkdirs()) {
+					throw new IOException("Failed to create tile directory: "
+							+ tileDirectory.getAbsolutePath());
+				}
+				try (OutputStream out = new FileOutputStream(new File(
+						tileDirectory, y + "." + TILE_EXTENSION))) {
+					out.write(tile);
+				}
+			}
+
+		});
+	}
+
+	/**
+	 * Draw the tile on a worker thread, or the calling thread when single
+	 * threaded, and handle the completed tiles in order, bounding the number
+	 * of pending tiles held in memory
+	 *
+	 * @param tile
+	 *            pending tile
+	 * @param attributeColumns
+	 *            attribute column indices
+	 * @param executor
+	 *            worker executor, null for the calling thread
+	 * @param pending
+	 *            pending tiles in order
+	 * @param maxPending
+	 *            max number of pending tiles
+	 * @param handler
+	 *            tile handler
+	 * @param featureTiles
+	 *            tiles whose query found features, added to when handled
+	 * @return number of tiles handled
+	 * @throws IOException
+	 *             upon failure to handle a tile
+	 */
+	private int drawTile(PendingTile tile, int[] attributeColumns,
+			ExecutorService executor, Deque<PendingTile> pending,
+			int maxPending, VectorTileHandler handler, TileList featureTiles)
+			throws IOException {
+
+		TileTask task = new TileTask(tile, attributeColumns);
+		if (executor != null) {
+			tile.future = executor.submit(task);
+		} else {
+			tile.tile = task.call();
+		}
+		pending.add(tile);
+
+		int count = 0;
+		while (pending.size() > maxPending
+				|| (!pending.isEmpty() && pending.peek().isDone())) {
+			count += handle(pending.poll(), handler, featureTiles);
+		}
+		return count;
+	}
+
+	/**
+	 * Handle a pending tile, waiting for it to be queried and encoded
+	 *
+	 * @param pendingTile
+	 *            pending tile
+	 * @param handler
+	 *            tile handler
+	 * @param featureTiles
+	 *            tiles whose query found features, added to when the tile
+	 *            query found features
+	 * @return 1 if the tile had features and was handled, 0 if not
+	 * @throws IOException
+	 *             upon failure to handle the tile
+	 */
+	private int handle(PendingTile pendingTile, VectorTileHandler handler,
+			TileList featureTiles) throws IOException {
+		int handled = 0;
+		byte[] tile = pendingTile.getTile();
+		if (pendingTile.features) {
+			featureTiles.add(pendingTile.x, pendingTile.y);
+		}
+		if (tile != null) {
+			handler.handleTile(pendingTile.zoom, pendingTile.x, pendingTile.y,
+					tile);
+			handled = 1;
+		}
+		addProgress(pendingTile.zoom, 1);
+		return handled;
+	}
+
+	/**
+	 * Add progress of the zoom level
+	 *
+	 * @param zoom
+	 *            zoom level
+	 * @param tiles
+	 *            number of tiles
+	 */
+	private void addProgress(int zoom, int tiles) {
+		if (progress != null) {
+			progress.addProgress(tiles);
+			if (progress instanceof GeoPackageZoomLevelProgress) {
+				((GeoPackageZoomLevelProgress) progress).addZoomLevelProgress(
+						zoom, tiles);
+			}
+		}
+	}
+
+	/**
+	 * Validate that the feature table is indexed
+	 */
+	private void validateIndexed() {
+		if (!featureIndex.isIndexed()) {
+			throw new GeoPackageException(
+					"Feature table is not indexed. GeoPackage: "
+							+ featureIndex.getGeoPackage().getName()
+							+ ", Table: " + featureDao.getTableName());
+		}
+	}
+
+	/**
+	 * Query the features of a tile through the feature table index
+	 *
+	 * @param zoom
+	 *            zoom level
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row
+	 * @param attributeColumns
+	 *            attribute column indices
+	 * @return tile encoder, null if no features were found
+	 */
+	private TileEncoder queryTile(int zoom, int x, int y,
+			int[] attributeColumns) {
+
+		double tileSize = WebMercatorTiles.tileSize(zoom);
+		GeometryEnvelope boundingBox = WebMercatorTiles.boundingBox(x, y,
+				zoom, tileSize * buffer / extent);
+
+		FeatureTable table = featureDao.getTable();
+		int pkIndex = table.getPkColumnIndex();
+		int geometryIndex = table.getGeometryColumnIndex();
+		String[] queryColumns = new String[attributeColumns.length + 1];
+		queryColumns[0] = table.getGeometryColumn().getName();
+		for (int i = 0; i < attributeColumns.length; i++) {
+			queryColumns[i + 1] = table.getColumnName(attributeColumns[i]);
+		}
+
+		List<Long> ids = new ArrayList<>();
+		List<byte[]> geometries = new ArrayList<>();
+		List<Object[]> values = new ArrayList<>();
+		FeatureResultSet resultSet = featureIndex.queryFeatures(boundingBox,
+				webMercator, null, null, queryColumns, null);
+		try {
+			while (resultSet.moveToNext()) {
+				byte[] geometry = resultSet.getBlob(geometryIndex);
+				if (geometry == null) {
+					continue;
+				}
+				ids.add(pkIndex >= 0 ? resultSet.getLong(pkIndex) : null);
+				geometries.add(geometry);
+				Object[] rowValues = new Object[attributeColumns.length];
+				for (int i = 0; i < attributeColumns.length; i++) {
+					rowValues[i] = attributeValue(resultSet,
+							attributeColumns[i]);
+				}
+				values.add(rowValues);
+			}
+		} finally {
+			resultSet.close();
+		}
+
+		TileEncoder encoder = null;
+		if (!geometries.isEmpty()) {
+			String[] keys = new String[attributeColumns.length];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = table.getColumnName(attributeColumns[i]);
+			}
+			encoder = new TileEncoder(WebMercatorTiles.minX(x, zoom),
+					WebMercatorTiles.maxY(y, zoom), tileSize, keys, ids,
+					geometries, values);
+		}
+
+		return encoder;
+	}
+
+	/**
+	 * Read an attribute value of the current row as a vector tile value
+	 *
+	 * @param resultSet
+	 *            feature result set
+	 * @param index
+	 *            column index
+	 * @return string, long, double, or boolean value, null for null and blob
+	 *         values
+	 */
+	private Object attributeValue(FeatureResultSet resultSet, int index) {
+		Object value;
+		switch (resultSet.getType(index)) {
+		case UserCoreResultUtils.FIELD_TYPE_INTEGER:
+			long longValue = resultSet.getLong(index);
+			if (resultSet.wasNull()) {
+				value = null;
+			} else if (featureDao.getTable().getColumn(index).getDataType() == GeoPackageDataType.BOOLEAN) {
+				value = longValue != 0;
+			} else {
+				value = longValue;
+			}
+			break;
+		case UserCoreResultUtils.FIELD_TYPE_FLOAT:
+			double doubleValue = resultSet.getDouble(index);
+			value = resultSet.wasNull() ? null : doubleValue;
+			break;
+		case UserCoreResultUtils.FIELD_TYPE_STRING:
+			value = resultSet.getString(index);
+			break;
+		default:
+			value = null;
+		}
+		return value;
+	}
+
+	/**
+	 * Get the attribute column indices
+	 *
+	 * @return attribute column indices
+	 */
+	private int[] attributeColumns() {
+		FeatureTable table = featureDao.getTable();
+		int[] indices;
+		if (columns != null) {
+			indices = new int[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				indices[i] = table.getColumnIndex(columns[i]);
+			}
+		} else {
+			int pkIndex = table.getPkColumnIndex();
+			int geometryIndex = table.getGeometryColumnIndex();
+			List<Integer> attributes = new ArrayList<>();
+			for (int i = 0; i < table.columnCount(); i++) {
+				if (i != pkIndex && i != geometryIndex) {
+					attributes.add(i);
+				}
+			}
+			indices = new int[attributes.size()];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = attributes.get(i);
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Determine if drawing is active and has not been cancelled
+	 *
+	 * @return true if active
+	 */
+	private boolean isActive() {
+		return progress == null || progress.isActive();
+	}
+
+	/**
+	 * Tile queued for encoding and handling
+	 */
+	private static class PendingTile {
+
+		/**
+		 * Zoom level
+		 */
+		private final int zoom;
+
+		/**
+		 * Tile column
+		 */
+		private final int x;
+
+		/**
+		 * Tile row
+		 */
+		private final int y;
+
+		/**
+		 * True if the tile query found features, set by the tile task before
+		 * it completes
+		 */
+		private boolean features;
+
+		/**
+		 * Encoding future
+		 */
+		private Future<byte[]> future;
+
+		/**
+		 * Encoded tile when drawn on the calling thread
+		 */
+		private byte[] tile;
+
+		/**
+		 * Constructor
+		 *
+		 * @param zoom
+		 *            zoom level
+		 * @param x
+		 *            tile column
+		 * @param y
+		 *            tile row
+		 */
+		private PendingTile(int zoom, int x, int y) {
+			this.zoom = zoom;
+			this.x = x;
+			this.y = y;
+		}
+
+		/**
+		 * Determine if the tile is ready to be handled
+		 *
+		 * @return true if done
+		 */
+		private boolean isDone() {
+			return future == null || future.isDone();
+		}
+
+		/**
+		 * Get the encoded tile, waiting for a worker thread to draw it
+		 *
+		 * @return tile bytes, null if the tile has no features
+		 */
+		private byte[] getTile() {
+			if (future != null) {
+				try {
+					tile = future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new GeoPackageException(
+							"Interrupted while drawing vector tile " + zoom
+									+ "/" + x + "/" + y, e);
+				} catch (ExecutionException e) {
+					throw new GeoPackageException(
+							"Failed to draw vector tile " + zoom + "/" + x
+									+ "/" + y, e.getCause());
+				}
+			}
+			return tile;
+		}
+
+	}
+
+	/**
+	 * Queries and encodes the features of a tile
+	 */
+	private class TileTask implements Callable<byte[]> {
+
+		/**
+		 * Pending tile
+		 */
+		private final PendingTile tile;
+
+		/**
+		 * Attribute column indices
+		 */
+		private final int[] attributeColumns;
+
+		/**
+		 * Constructor
+		 *
+		 * @param tile
+		 *            pending tile
+		 * @param attributeColumns
+		 *            attribute column indices
+		 */
+		private TileTask(PendingTile tile, int[] attributeColumns) {
+			this.tile = tile;
+			this.attributeColumns = attributeColumns;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public byte[] call() {
+			byte[] bytes = null;
+			TileEncoder encoder = queryTile(tile.zoom, tile.x, tile.y,
+					attributeColumns);
+			if (encoder != null) {
+				tile.features = true;
+				bytes = encoder.call();
+			}
+			return bytes;
+		}
+
+	}
+
+	/**
+	 * Sorted list of tile columns and rows
+	 */
+	private static class TileList {
+
+		/**
+		 * Tiles as the column in the high bits and row in the low bits
+		 */
+		private long[] tiles = new long[16];
+
+		/**
+		 * Number of tiles
+		 */
+		private int size = 0;
+
+		/**
+		 * Add a tile, in column and row order
+		 *
+		 * @param x
+		 *            tile column
+		 * @param y
+		 *            tile row
+		 */
+		private void add(int x, int y) {
+			if (size == tiles.length) {
+				tiles = Arrays.copyOf(tiles, size * 2);
+			}
+			tiles[size++] = ((long) x << 32) | y;
+		}
+
+		/**
+		 * Get the number of tiles
+		 *
+		 * @return tiles
+		 */
+		private int size() {
+			return size;
+		}
+
+		/**
+		 * Get the tile column
+		 *
+		 * @param index
+		 *            tile index
+		 * @return tile column
+		 */
+		private int getX(int index) {
+			return (int) (tiles[index] >>> 32);
+		}
+
+		/**
+		 * Get the tile row
+		 *
+		 * @param index
+		 *            tile index
+		 * @return tile row
+		 */
+		private int getY(int index) {
+			return (int) tiles[index];
+		}
+
+		/**
+		 * Get the tiles at the next zoom level within these tiles, in column
+		 * and row order
+		 *
+		 * @return child tiles
+		 */
+		private TileList children() {
+			TileList children = new TileList();
+			children.tiles = new long[Math.max(16, size * 4)];
+			for (int i = 0; i < size; i++) {
+				int x = getX(i) * 2;
+				int y = getY(i) * 2;
+				children.add(x, y);
+				children.add(x, y + 1);
+				children.add(x + 1, y);
+				children.add(x + 1, y + 1);
+			}
+			Arrays.sort(children.tiles, 0, children.size);
+			return children;
+		}
+
+	}
+
+	/**
+	 * Encodes the queried features of a tile
+	 */
+	private class TileEncoder implements Callable<byte[]> {
+
+		/**
+		 * Tile minimum x
+		 */
+		private final double minX;
+
+		/**
+		 * Tile maximum y
+		 */
+		private final double maxY;
+
+		/**
+		 * Tile width and height
+		 */
+		private final double tileSize;
+
+		/**
+		 * Attribute keys
+		 */
+		private final String[] keys;
+
+		/**
+		 * Feature ids
+		 */
+		private final List<Long> ids;
+
+		/**
+		 * Feature geometry bytes
+		 */
+		private final List<byte[]> geometries;
+
+		/**
+		 * Feature attribute values
+		 */
+		private final List<Object[]> values;
+
+		/**
+		 * Constructor
+		 *
+		 * @param minX
+		 *            tile minimum x
+		 * @param maxY
+		 *            tile maximum y
+		 * @param tileSize
+		 *            tile width and height
+		 * @param keys
+		 *            attribute keys
+		 * @param ids
+		 *            feature ids
+		 * @param geometries
+		 *            feature geometry bytes
+		 * @param values
+		 *            feature attribute values
+		 */
+		private TileEncoder(double minX, double maxY, double tileSize,
+				String[] keys, List<Long> ids, List<byte[]> geometries,
+				List<Object[]> values) {
+			this.minX = minX;
+			this.maxY = maxY;
+			this.tileSize = tileSize;
+			this.keys = keys;
+			this.ids = ids;
+			this.geometries = geometries;
+			this.values = values;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public byte[] call() {
+
+			Projection projection = featureDao.getProjection();
+			VectorTileEncoder encoder = new VectorTileEncoder(layerName,
+					extent);
+			VectorTileGeometry geometry = new VectorTileGeometry();
+			geometry.setTile(minX, maxY, tileSize, extent, buffer,
+					simplifyTolerance);
+			int[] tags = new int[keys.length * 2];
+
+			int unsupported = 0;
+			for (int i = 0; i < geometries.size(); i++) {
+
+				if (!geometry.read(geometries.get(i))) {
+					unsupported++;
+					continue;
+				}
+				geometry.transform(projection, webMercator);
+				if (!geometry.encode()) {
+					continue;
+				}
+
+				int tagCount = 0;
+				Object[] rowValues = values.get(i);
+				for (int j = 0; j < keys.length; j++) {
+					if (rowValues[j] != null) {
+						tags[tagCount++] = encoder.key(keys[j]);
+						tags[tagCount++] = encoder.value(rowValues[j]);
+					}
+				}
+
+				for (int type = VectorTileEncoder.POINT; type <= VectorTileEncoder.POLYGON; type++) {
+					int commandCount = geometry.getCommandCount(type);
+					if (commandCount > 0) {
+						encoder.addFeature(ids.get(i), type, tags, tagCount,
+								geometry.getCommands(type), commandCount);
+					}
+				}
+			}
+
+			if (unsupported > 0) {
+				log.log(Level.FINE, "Skipped " + unsupported
+						+ " empty or unsupported geometries in table "
+						+ featureDao.getTableName());
+			}
+
+			return encoder.getCount() > 0 ? encoder.encode() : null;
+		}
+
+	}
+
+}
@@ -0,0 +1,430 @@
+package mil.nga.geopackage.tiles.features;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Protocol Buffers encoder of a single layer Mapbox Vector Tile,
+ * version 2. Feature attribute keys and values are shared across the layer
+ * and written once, and features are written as they are added so the
+ * encoded tile is built in a single growable buffer.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class VectorTileEncoder {
+
+	/**
+	 * Vector tile specification version
+	 */
+	static final int VERSION = 2;
+
+	/**
+	 * Feature geometry types
+	 */
+	static final int POINT = 1, LINESTRING = 2, POLYGON = 3;
+
+	/**
+	 * Geometry commands
+	 */
+	static final int MOVE_TO = 1, LINE_TO = 2, CLOSE_PATH = 7;
+
+	/**
+	 * Protocol Buffers wire types
+	 */
+	private static final int WIRE_VARINT = 0, WIRE_64BIT = 1,
+			WIRE_LENGTH_DELIMITED = 2;
+
+	/**
+	 * Tile layers field
+	 */
+	private static final int TILE_LAYERS = 3;
+
+	/**
+	 * Layer fields
+	 */
+	private static final int LAYER_NAME = 1, LAYER_FEATURES = 2,
+			LAYER_KEYS = 3, LAYER_VALUES = 4, LAYER_EXTENT = 5,
+			LAYER_VERSION = 15;
+
+	/**
+	 * Feature fields
+	 */
+	private static final int FEATURE_ID = 1, FEATURE_TAGS = 2,
+			FEATURE_TYPE = 3, FEATURE_GEOMETRY = 4;
+
+	/**
+	 * Value fields
+	 */
+	private static final int VALUE_STRING = 1, VALUE_DOUBLE = 3,
+			VALUE_INT = 4, VALUE_SINT = 6, VALUE_BOOL = 7;
+
+	/**
+	 * Layer name
+	 */
+	private final String name;
+
+	/**
+	 * Layer extent
+	 */
+	private final int extent;
+
+	/**
+	 * Key indices by key
+	 */
+	private final Map<String, Integer> keys = new HashMap<>();
+
+	/**
+	 * Keys in index order
+	 */
+	private final List<String> keyList = new ArrayList<>();
+
+	/**
+	 * Value indices by value
+	 */
+	private final Map<Object, Integer> values = new HashMap<>();
+
+	/**
+	 * Values in index order
+	 */
+	private final List<Object> valueList = new ArrayList<>();
+
+	/**
+	 * Encoded features
+	 */
+	private byte[] buffer = new byte[1024];
+
+	/**
+	 * Number of encoded feature bytes
+	 */
+	private int length;
+
+	/**
+	 * Number of features
+	 */
+	private int count;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name
+	 *            layer name
+	 * @param extent
+	 *            layer extent
+	 */
+	VectorTileEncoder(String name, int extent) {
+		this.name = name;
+		this.extent = extent;
+	}
+
+	/**
+	 * Get the number of features
+	 *
+	 * @return feature count
+	 */
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the layer index of the key, adding it when new
+	 *
+	 * @param key
+	 *            attribute key
+	 * @return key index
+	 */
+	int key(String key) {
+		Integer index = keys.get(key);
+		if (index == null) {
+			index = keyList.size();
+			keys.put(key, index);
+			keyList.add(key);
+		}
+		return index;
+	}
+
+	/**
+	 * Get the layer index of the value, adding it when new. Values are
+	 * {@link String}, {@link Long}, {@link Double}, or {@link Boolean}.
+	 *
+	 * @param value
+	 *            attribute value
+	 * @return value index
+	 */
+	int value(Object value) {
+		Integer index = values.get(value);
+		if (index == null) {
+			index = valueList.size();
+			values.put(value, index);
+			valueList.add(value);
+		}
+		return index;
+	}
+
+	/**
+	 * Add a feature
+	 *
+	 * @param id
+	 *            feature id, null for no id
+	 * @param type
+	 *            geometry type
+	 * @param tags
+	 *            alternating key and value indices
+	 * @param tagCount
+	 *            number of tag indices
+	 * @param geometry
+	 *            geometry commands and zigzag encoded parameters
+	 * @param geometryCount
+	 *            number of geometry integers
+	 */
+	void addFeature(Long id, int type, int[] tags, int tagCount,
+			int[] geometry, int geometryCount) {
+
+		int size = 0;
+		if (id != null) {
+			size += 1 + varintSize(id);
+		}
+		int tagsSize = 0;
+		if (tagCount > 0) {
+			tagsSize = packedSize(tags, tagCount);
+			size += 1 + varintSize(tagsSize) + tagsSize;
+		}
+		size += 2;
+		int geometrySize = packedSize(geometry, geometryCount);
+		size += 1 + varintSize(geometrySize) + geometrySize;
+
+		ensure(1 + 5 + size);
+		writeTag(LAYER_FEATURES, WIRE_LENGTH_DELIMITED);
+		writeVarint(size);
+		if (id != null) {
+			writeTag(FEATURE_ID, WIRE_VARINT);
+			writeVarint(id);
+		}
+		if (tagCount > 0) {
+			writeTag(FEATURE_TAGS, WIRE_LENGTH_DELIMITED);
+			writeVarint(tagsSize);
+			for (int i = 0; i < tagCount; i++) {
+				writeVarint(tags[i] & 0xFFFFFFFFL);
+			}
+		}
+		writeTag(FEATURE_TYPE, WIRE_VARINT);
+		writeVarint(type);
+		writeTag(FEATURE_GEOMETRY, WIRE_LENGTH_DELIMITED);
+		writeVarint(geometrySize);
+		for (int i = 0; i < geometryCount; i++) {
+			writeVarint(geometry[i] & 0xFFFFFFFFL);
+		}
+
+		count++;
+	}
+
+	/**
+	 * Encode the tile containing the layer
+	 *
+	 * @return encoded tile bytes
+	 */
+	byte[] encode() {
+
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		List<byte[]> keyBytes = new ArrayList<>(keyList.size());
+		for (String key : keyList) {
+			keyBytes.add(key.getBytes(StandardCharsets.UTF_8));
+		}
+		List<byte[]> valueBytes = new ArrayList<>(valueList.size());
+		for (Object value : valueList) {
+			valueBytes.add(encodeValue(value));
+		}
+
+		int layerSize = 1 + varintSize(nameBytes.length) + nameBytes.length
+				+ length;
+		for (byte[] key : keyBytes) {
+			layerSize += 1 + varintSize(key.length) + key.length;
+		}
+		for (byte[] value : valueBytes) {
+			layerSize += 1 + varintSize(value.length) + value.length;
+		}
+		layerSize += 1 + varintSize(extent) + 1 + varintSize(VERSION);
+
+		byte[] features = buffer;
+		int featuresLength = length;
+		buffer = new byte[1 + varintSize(layerSize) + layerSize];
+		length = 0;
+
+		writeTag(TILE_LAYERS, WIRE_LENGTH_DELIMITED);
+		writeVarint(layerSize);
+		writeTag(LAYER_NAME, WIRE_LENGTH_DELIMITED);
+		writeBytes(nameBytes);
+		System.arraycopy(features, 0, buffer, length, featuresLength);
+		length += featuresLength;
+		for (byte[] key : keyBytes) {
+			writeTag(LAYER_KEYS, WIRE_LENGTH_DELIMITED);
+			writeBytes(key);
+		}
+		for (byte[] value : valueBytes) {
+			writeTag(LAYER_VALUES, WIRE_LENGTH_DELIMITED);
+			writeBytes(value);
+		}
+		writeTag(LAYER_EXTENT, WIRE_VARINT);
+		writeVarint(extent);
+		writeTag(LAYER_VERSION, WIRE_VARINT);
+		writeVarint(VERSION);
+
+		byte[] tile = buffer;
+		buffer = features;
+		length = featuresLength;
+
+		return tile;
+	}
+
+	/**
+	 * Encode a value message
+	 *
+	 * @param value
+	 *            attribute value
+	 * @return encoded value message
+	 */
+	private static byte[] encodeValue(Object value) {
+		VectorTileEncoder message = new VectorTileEncoder(null, 0);
+		if (value instanceof String) {
+			byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+			message.ensure(1 + 5 + bytes.length);
+			message.writeTag(VALUE_STRING, WIRE_LENGTH_DELIMITED);
+			message.writeBytes(bytes);
+		} else if (value instanceof Double) {
+			message.ensure(9);
+			message.writeTag(VALUE_DOUBLE, WIRE_64BIT);
+			long bits = Double.doubleToLongBits((Double) value);
+			for (int i = 0; i < 8; i++) {
+				message.buffer[message.length++] = (byte) (bits >>> (i * 8));
+			}
+		} else if (value instanceof Long) {
+			long longValue = (Long) value;
+			message.ensure(11);
+			if (longValue >= 0) {
+				message.writeTag(VALUE_INT, WIRE_VARINT);
+				message.writeVarint(longValue);
+			} else {
+				message.writeTag(VALUE_SINT, WIRE_VARINT);
+				message.writeVarint((longValue << 1) ^ (longValue >> 63));
+			}
+		} else {
+			message.ensure(2);
+			message.writeTag(VALUE_BOOL, WIRE_VARINT);
+			message.writeVarint(((Boolean) value) ? 1 : 0);
+		}
+		return Arrays.copyOf(message.buffer, message.length);
+	}
+
+	/**
+	 * Zigzag encode a geometry parameter
+	 *
+	 * @param value
+	 *            parameter value
+	 * @return zigzag encoded value
+	 */
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Build a geometry command integer
+	 *
+	 * @param command
+	 *            command id
+	 * @param count
+	 *            command count
+	 * @return command integer
+	 */
+	static int command(int command, int count) {
+		return (command & 0x7) | (count << 3);
+	}
+
+	/**
+	 * Get the packed size of unsigned 32 bit values
+	 *
+	 * @param values
+	 *            values
+	 * @param count
+	 *            number of values
+	 * @return packed size in bytes
+	 */
+	private static int packedSize(int[] values, int count) {
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			size += varintSize(values[i] & 0xFFFFFFFFL);
+		}
+		return size;
+	}
+
+	/**
+	 * Get the encoded size of an unsigned varint
+	 *
+	 * @param value
+	 *            value
+	 * @return size in bytes
+	 */
+	private static int varintSize(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Write a field tag
+	 *
+	 * @param field
+	 *            field number
+	 * @param wireType
+	 *            wire type
+	 */
+	private void writeTag(int field, int wireType) {
+		writeVarint((field << 3) | wireType);
+	}
+
+	/**
+	 * Write length prefixed bytes
+	 *
+	 * @param bytes
+	 *            bytes
+	 */
+	private void writeBytes(byte[] bytes) {
+		writeVarint(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	/**
+	 * Write an unsigned varint
+	 *
+	 * @param value
+	 *            value
+	 */
+	private void writeVarint(long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[length++] = (byte) value;
+	}
+
+	/**
+	 * Ensure the buffer can hold additional bytes
+	 *
+	 * @param additional
+	 *            additional bytes
+	 */
+	private void ensure(int additional) {
+		if (length + additional > buffer.length) {
+			buffer = Arrays.copyOf(buffer,
+					Math.max(buffer.length * 2, length + additional));
+		}
+	}
+
+}
@@ -0,0 +1,980 @@
+package mil.nga.geopackage.tiles.features;
+
+import java.util.Arrays;
+
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
+import mil.nga.sf.projection.Projection;
+import mil.nga.sf.projection.ProjectionConstants;
+
+/**
+ * Reusable vector tile geometry encoder. Geometries are read directly from the
+ * GeoPackage geometry Well-Known Binary bytes into flat coordinate arrays,
+ * transformed in bulk, and then for each tile clipped to the buffered tile,
+ * simplified with the Douglas-Peucker algorithm to the tile resolution,
+ * quantized to the tile extent, and written as vector tile geometry commands.
+ * Instances are not thread safe and are reused per worker to avoid per
+ * feature allocations.
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class VectorTileGeometry {
+
+	/**
+	 * Well-Known Binary geometry type codes
+	 */
+	private static final int WKB_POINT = 1, WKB_LINESTRING = 2,
+			WKB_POLYGON = 3, WKB_MULTIPOINT = 4, WKB_MULTILINESTRING = 5,
+			WKB_MULTIPOLYGON = 6, WKB_GEOMETRYCOLLECTION = 7,
+			WKB_POLYHEDRALSURFACE = 15, WKB_TIN = 16, WKB_TRIANGLE = 17;
+
+	/**
+	 * Geometry part kinds
+	 */
+	private static final int PART_POINT = 0, PART_LINE = 1,
+			PART_EXTERIOR = 2, PART_INTERIOR = 3;
+
+	/**
+	 * Read coordinates as interleaved x and y values
+	 */
+	private double[] coordinates = new double[256];
+
+	/**
+	 * Number of read positions
+	 */
+	private int positions;
+
+	/**
+	 * Geometry parts as kind, first position, and position count triples
+	 */
+	private int[] parts = new int[48];
+
+	/**
+	 * Number of geometry parts
+	 */
+	private int partCount;
+
+	/**
+	 * Geometry bytes being read
+	 */
+	private byte[] wkb;
+
+	/**
+	 * Read position in the geometry bytes
+	 */
+	private int wkbPosition;
+
+	/**
+	 * Tile minimum x in the tile projection
+	 */
+	private double tileMinX;
+
+	/**
+	 * Tile maximum y in the tile projection
+	 */
+	private double tileMaxY;
+
+	/**
+	 * Tile units per projection unit
+	 */
+	private double scale;
+
+	/**
+	 * Clip bounds in tile units
+	 */
+	private double clipMin;
+
+	/**
+	 * Clip bounds in tile units
+	 */
+	private double clipMax;
+
+	/**
+	 * Squared simplification tolerance in tile units
+	 */
+	private double toleranceSquared;
+
+	/**
+	 * Part coordinates in tile units
+	 */
+	private double[] work = new double[256];
+
+	/**
+	 * Clipped coordinates in tile units
+	 */
+	private double[] clipped = new double[256];
+
+	/**
+	 * Clipped segment start parameter
+	 */
+	private double segmentStart;
+
+	/**
+	 * Clipped segment end parameter
+	 */
+	private double segmentEnd;
+
+	/**
+	 * Douglas-Peucker kept positions
+	 */
+	private boolean[] keep = new boolean[128];
+
+	/**
+	 * Douglas-Peucker range stack
+	 */
+	private int[] stack = new int[64];
+
+	/**
+	 * Quantized coordinates
+	 */
+	private int[] quantized = new int[256];
+
+	/**
+	 * Geometry commands by vector tile geometry type
+	 */
+	private final int[][] commands = new int[][] { null, new int[64],
+			new int[64], new int[64] };
+
+	/**
+	 * Number of geometry command integers by vector tile geometry type
+	 */
+	private final int[] commandCounts = new int[4];
+
+	/**
+	 * Cursor x by vector tile geometry type
+	 */
+	private final int[] cursorX = new int[4];
+
+	/**
+	 * Cursor y by vector tile geometry type
+	 */
+	private final int[] cursorY = new int[4];
+
+	/**
+	 * Number of points in the current multi point
+	 */
+	private int pointCount;
+
+	/**
+	 * Index of the current multi point command
+	 */
+	private int pointCommand;
+
+	/**
+	 * Read the geometry from GeoPackage geometry bytes
+	 *
+	 * @param geometryBytes
+	 *            GeoPackage geometry bytes
+	 * @return true if a supported non empty geometry was read
+	 */
+	boolean read(byte[] geometryBytes) {
+		positions = 0;
+		partCount = 0;
+		boolean read = false;
+		if (geometryBytes != null) {
+			GeoPackageGeometryHeader header = new GeoPackageGeometryHeader(
+					geometryBytes);
+			if (!header.isEmpty()
+					&& geometryBytes.length >= header.getWkbGeometryIndex() + 5) {
+				wkb = geometryBytes;
+				wkbPosition = header.getWkbGeometryIndex();
+				try {
+					read = readGeometry() && partCount > 0;
+				} finally {
+					wkb = null;
+				}
+			}
+		}
+		return read;
+	}
+
+	/**
+	 * Transform the read coordinates in place to the tile projection,
+	 * limiting geodetic latitudes to the Web Mercator range
+	 *
+	 * @param from
+	 *            geometry projection
+	 * @param to
+	 *            tile projection
+	 */
+	void transform(Projection from, Projection to) {
+		if (from.getEpsg() == ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM
+				&& to.getEpsg() == ProjectionConstants.EPSG_WEB_MERCATOR) {
+			for (int i = 1; i < positions * 2; i += 2) {
+				coordinates[i] = Math.max(
+						ProjectionConstants.WEB_MERCATOR_MIN_LAT_RANGE,
+						Math.min(ProjectionConstants.WEB_MERCATOR_MAX_LAT_RANGE,
+								coordinates[i]));
+			}
+		}
+		ProjectionTransformCache.transformCoordinates(from, to, coordinates,
+				0, positions);
+	}
+
+	/**
+	 * Set the tile to encode geometries for
+	 *
+	 * @param minX
+	 *            tile minimum x in the tile projection
+	 * @param maxY
+	 *            tile maximum y in the tile projection
+	 * @param tileSize
+	 *            tile width and height in the tile projection
+	 * @param extent
+	 *            tile extent
+	 * @param buffer
+	 *            clip buffer in tile units
+	 * @param tolerance
+	 *            simplification tolerance in tile units
+	 */
+	void setTile(double minX, double maxY, double tileSize, int extent,
+			int buffer, double tolerance) {
+		tileMinX = minX;
+		tileMaxY = maxY;
+		scale = extent / tileSize;
+		clipMin = -buffer;
+		clipMax = extent + buffer;
+		toleranceSquared = tolerance * tolerance;
+	}
+
+	/**
+	 * Encode the read geometry for the current tile
+	 *
+	 * @return true if any geometry remains within the tile
+	 */
+	boolean encode() {
+
+		Arrays.fill(commandCounts, 0);
+		Arrays.fill(cursorX, 0);
+		Arrays.fill(cursorY, 0);
+		pointCount = 0;
+
+		boolean polygonKept = false;
+		for (int part = 0; part < partCount; part++) {
+			int kind = parts[part * 3];
+			int start = parts[part * 3 + 1];
+			int count = parts[part * 3 + 2];
+			switch (kind) {
+			case PART_POINT:
+				encodePoint(start);
+				break;
+			case PART_LINE:
+				encodeLine(start, count);
+				break;
+			case PART_EXTERIOR:
+				polygonKept = encodeRing(start, count, true);
+				break;
+			default:
+				if (polygonKept) {
+					encodeRing(start, count, false);
+				}
+			}
+		}
+		if (pointCount > 0) {
+			commands[VectorTileEncoder.POINT][pointCommand] = VectorTileEncoder
+					.command(VectorTileEncoder.MOVE_TO, pointCount);
+		}
+
+		return commandCounts[VectorTileEncoder.POINT] > 0
+				|| commandCounts[VectorTileEncoder.LINESTRING] > 0
+				|| commandCounts[VectorTileEncoder.POLYGON] > 0;
+	}
+
+	/**
+	 * Get the encoded geometry commands of the vector tile geometry type
+	 *
+	 * @param type
+	 *            vector tile geometry type
+	 * @return geometry commands
+	 */
+	int[] getCommands(int type) {
+		return commands[type];
+	}
+
+	/**
+	 * Get the number of encoded geometry command integers of the vector tile
+	 * geometry type
+	 *
+	 * @param type
+	 *            vector tile geometry type
+	 * @return command integer count, 0 when no geometry of the type
+	 */
+	int getCommandCount(int type) {
+		return commandCounts[type];
+	}
+
+	/**
+	 * Encode a point when within the buffered tile
+	 *
+	 * @param position
+	 *            point position
+	 */
+	private void encodePoint(int position) {
+		double x = tileX(coordinates[position * 2]);
+		double y = tileY(coordinates[position * 2 + 1]);
+		if (x >= clipMin && x <= clipMax && y >= clipMin && y <= clipMax) {
+			int type = VectorTileEncoder.POINT;
+			if (pointCount == 0) {
+				pointCommand = commandCounts[type];
+				addCommand(type, 0);
+			}
+			addPosition(type, (int) Math.round(x), (int) Math.round(y));
+			pointCount++;
+		}
+	}
+
+	/**
+	 * Clip, simplify, and encode a line string
+	 *
+	 * @param start
+	 *            first position
+	 * @param count
+	 *            number of positions
+	 */
+	private void encodeLine(int start, int count) {
+
+		toTile(start, count);
+
+		// Clip each segment, splitting the line where it leaves the tile
+		int clippedCount = 0;
+		boolean open = false;
+		for (int i = 0; i + 1 < count; i++) {
+			double x0 = work[i * 2];
+			double y0 = work[i * 2 + 1];
+			double dx = work[i * 2 + 2] - x0;
+			double dy = work[i * 2 + 3] - y0;
+			if (!clipSegment(x0, y0, dx, dy)) {
+				open = false;
+				continue;
+			}
+			if (!open || segmentStart > 0) {
+				if (clippedCount > 0) {
+					encodeLinePart(clippedCount);
+				}
+				clippedCount = addClipped(0, x0 + segmentStart * dx, y0
+						+ segmentStart * dy);
+			}
+			clippedCount = addClipped(clippedCount, x0 + segmentEnd * dx, y0
+					+ segmentEnd * dy);
+			open = segmentEnd == 1;
+		}
+		if (clippedCount > 0) {
+			encodeLinePart(clippedCount);
+		}
+	}
+
+	/**
+	 * Simplify, quantize, and encode a clipped line part
+	 *
+	 * @param count
+	 *            number of clipped positions
+	 */
+	private void encodeLinePart(int count) {
+		int quantizedCount = simplifyAndQuantize(count);
+		if (quantizedCount >= 2) {
+			int type = VectorTileEncoder.LINESTRING;
+			addCommand(type,
+					VectorTileEncoder.command(VectorTileEncoder.MOVE_TO, 1));
+			addPosition(type, quantized[0], quantized[1]);
+			addCommand(type, VectorTileEncoder.command(
+					VectorTileEncoder.LINE_TO, quantizedCount - 1));
+			for (int i = 1; i < quantizedCount; i++) {
+				addPosition(type, quantized[i * 2], quantized[i * 2 + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Clip, simplify, orient, and encode a polygon ring
+	 *
+	 * @param start
+	 *            first position
+	 * @param count
+	 *            number of positions
+	 * @param exterior
+	 *            true for an exterior ring
+	 * @return true if the ring was encoded
+	 */
+	private boolean encodeRing(int start, int count, boolean exterior) {
+
+		toTile(start, count);
+
+		// Work with the open ring
+		if (count > 1 && work[0] == work[count * 2 - 2]
+				&& work[1] == work[count * 2 - 1]) {
+			count--;
+		}
+		if (count < 3) {
+			return false;
+		}
+
+		// Sutherland-Hodgman clipping against each buffered tile edge
+		for (int edge = 0; edge < 4 && count > 0; edge++) {
+			count = clipRing(count, edge);
+		}
+		if (count < 3) {
+			return false;
+		}
+
+		// Close the ring for simplification
+		ensureWork(count + 1);
+		ensureClipped(count + 1);
+		work[count * 2] = work[0];
+		work[count * 2 + 1] = work[1];
+		System.arraycopy(work, 0, clipped, 0, (count + 1) * 2);
+		int quantizedCount = simplifyAndQuantize(count + 1);
+
+		// Ensure the quantized ring is closed, then drop the closing position
+		if (quantizedCount > 0
+				&& (quantized[0] != quantized[quantizedCount * 2 - 2] || quantized[1] != quantized[quantizedCount * 2 - 1])) {
+			quantized[quantizedCount * 2] = quantized[0];
+			quantized[quantizedCount * 2 + 1] = quantized[1];
+			quantizedCount++;
+		}
+		int ringCount = quantizedCount - 1;
+		if (ringCount < 3) {
+			return false;
+		}
+
+		long area = 0;
+		for (int i = 0; i < ringCount; i++) {
+			area += (long) quantized[i * 2] * quantized[i * 2 + 3]
+					- (long) quantized[i * 2 + 2] * quantized[i * 2 + 1];
+		}
+		if (area == 0) {
+			return false;
+		}
+
+		// Exterior rings have a positive area in tile coordinates and
+		// interior rings a negative area
+		int type = VectorTileEncoder.POLYGON;
+		boolean reverse = exterior ? area < 0 : area > 0;
+		int first = reverse ? ringCount - 1 : 0;
+		int step = reverse ? -1 : 1;
+		addCommand(type,
+				VectorTileEncoder.command(VectorTileEncoder.MOVE_TO, 1));
+		addPosition(type, quantized[first * 2], quantized[first * 2 + 1]);
+		addCommand(type, VectorTileEncoder.command(VectorTileEncoder.LINE_TO,
+				ringCount - 1));
+		for (int i = 1; i < ringCount; i++) {
+			int index = first + i * step;
+			addPosition(type, quantized[index * 2], quantized[index * 2 + 1]);
+		}
+		addCommand(type,
+				VectorTileEncoder.command(VectorTileEncoder.CLOSE_PATH, 1));
+
+		return true;
+	}
+
+	/**
+	 * Clip the open ring in the work coordinates against a buffered tile edge
+	 *
+	 * @param count
+	 *            number of ring positions
+	 * @param edge
+	 *            0 for min x, 1 for max x, 2 for min y, 3 for max y
+	 * @return number of clipped ring positions, now in the work coordinates
+	 */
+	private int clipRing(int count, int edge) {
+		ensureClipped(count * 2);
+		int clippedCount = 0;
+		int axis = edge >> 1;
+		boolean max = (edge & 1) == 1;
+		double bound = max ? clipMax : clipMin;
+		double previousX = work[count * 2 - 2];
+		double previousY = work[count * 2 - 1];
+		boolean previousInside = inside(axis == 0 ? previousX : previousY,
+				bound, max);
+		for (int i = 0; i < count; i++) {
+			double x = work[i * 2];
+			double y = work[i * 2 + 1];
+			boolean inside = inside(axis == 0 ? x : y, bound, max);
+			if (inside != previousInside) {
+				double t;
+				if (axis == 0) {
+					t = (bound - previousX) / (x - previousX);
+				} else {
+					t = (bound - previousY) / (y - previousY);
+				}
+				clipped[clippedCount * 2] = axis == 0 ? bound : previousX + t
+						* (x - previousX);
+				clipped[clippedCount * 2 + 1] = axis == 0 ? previousY + t
+						* (y - previousY) : bound;
+				clippedCount++;
+			}
+			if (inside) {
+				clipped[clippedCount * 2] = x;
+				clipped[clippedCount * 2 + 1] = y;
+				clippedCount++;
+			}
+			previousX = x;
+			previousY = y;
+			previousInside = inside;
+		}
+		double[] swap = work;
+		work = clipped;
+		clipped = swap;
+		return clippedCount;
+	}
+
+	/**
+	 * Determine if a value is inside a clip bound
+	 *
+	 * @param value
+	 *            coordinate value
+	 * @param bound
+	 *            clip bound
+	 * @param max
+	 *            true for a maximum bound
+	 * @return true if inside
+	 */
+	private static boolean inside(double value, double bound, boolean max) {
+		return max ? value <= bound : value >= bound;
+	}
+
+	/**
+	 * Clip a segment to the buffered tile with the Liang-Barsky algorithm,
+	 * setting the clipped start and end segment parameters
+	 *
+	 * @param x0
+	 *            start x
+	 * @param y0
+	 *            start y
+	 * @param dx
+	 *            x delta
+	 * @param dy
+	 *            y delta
+	 * @return true if the segment is within the buffered tile
+	 */
+	private boolean clipSegment(double x0, double y0, double dx, double dy) {
+		segmentStart = 0;
+		segmentEnd = 1;
+		return clipSegment(-dx, x0 - clipMin) && clipSegment(dx, clipMax - x0)
+				&& clipSegment(-dy, y0 - clipMin)
+				&& clipSegment(dy, clipMax - y0);
+	}
+
+	/**
+	 * Clip the segment parameters against a single buffered tile edge
+	 *
+	 * @param p
+	 *            negated or positive segment delta along the edge normal
+	 * @param q
+	 *            distance from the segment start to the edge
+	 * @return true if part of the segment remains
+	 */
+	private boolean clipSegment(double p, double q) {
+		boolean remains = true;
+		if (p == 0) {
+			remains = q >= 0;
+		} else {
+			double r = q / p;
+			if (p < 0) {
+				if (r > segmentEnd) {
+					remains = false;
+				} else if (r > segmentStart) {
+					segmentStart = r;
+				}
+			} else {
+				if (r < segmentStart) {
+					remains = false;
+				} else if (r < segmentEnd) {
+					segmentEnd = r;
+				}
+			}
+		}
+		return remains;
+	}
+
+	/**
+	 * Add a clipped line position, skipping repeated positions
+	 *
+	 * @param count
+	 *            number of clipped positions
+	 * @param x
+	 *            x in tile units
+	 * @param y
+	 *            y in tile units
+	 * @return new number of clipped positions
+	 */
+	private int addClipped(int count, double x, double y) {
+		if (count > 0 && clipped[count * 2 - 2] == x
+				&& clipped[count * 2 - 1] == y) {
+			return count;
+		}
+		ensureClipped(count + 1);
+		clipped[count * 2] = x;
+		clipped[count * 2 + 1] = y;
+		return count + 1;
+	}
+
+	/**
+	 * Simplify the clipped positions with the Douglas-Peucker algorithm and
+	 * quantize the kept positions, removing repeated quantized positions
+	 *
+	 * @param count
+	 *            number of clipped positions
+	 * @return number of quantized positions
+	 */
+	private int simplifyAndQuantize(int count) {
+
+		if (keep.length < count) {
+			keep = new boolean[Math.max(keep.length * 2, count)];
+		}
+		Arrays.fill(keep, 0, count, toleranceSquared <= 0);
+		keep[0] = true;
+		keep[count - 1] = true;
+
+		if (toleranceSquared > 0 && count > 2) {
+			int stackSize = 0;
+			stack[stackSize++] = 0;
+			stack[stackSize++] = count - 1;
+			while (stackSize > 0) {
+				int last = stack[--stackSize];
+				int first = stack[--stackSize];
+				double maxDistance = 0;
+				int index = -1;
+				for (int i = first + 1; i < last; i++) {
+					double distance = segmentDistanceSquared(i, first, last);
+					if (distance > maxDistance) {
+						maxDistance = distance;
+						index = i;
+					}
+				}
+				if (index >= 0 && maxDistance > toleranceSquared) {
+					keep[index] = true;
+					if (stackSize + 4 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					stack[stackSize++] = first;
+					stack[stackSize++] = index;
+					stack[stackSize++] = index;
+					stack[stackSize++] = last;
+				}
+			}
+		}
+
+		if (quantized.length < count * 2 + 2) {
+			quantized = new int[Math.max(quantized.length * 2, count * 2 + 2)];
+		}
+		int quantizedCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (keep[i]) {
+				int x = (int) Math.round(clipped[i * 2]);
+				int y = (int) Math.round(clipped[i * 2 + 1]);
+				if (quantizedCount == 0
+						|| quantized[quantizedCount * 2 - 2] != x
+						|| quantized[quantizedCount * 2 - 1] != y) {
+					quantized[quantizedCount * 2] = x;
+					quantized[quantizedCount * 2 + 1] = y;
+					quantizedCount++;
+				}
+			}
+		}
+		return quantizedCount;
+	}
+
+	/**
+	 * Get the squared distance from a clipped position to the segment between
+	 * two clipped positions
+	 *
+	 * @param point
+	 *            position index
+	 * @param start
+	 *            segment start position index
+	 * @param end
+	 *            segment end position index
+	 * @return squared distance
+	 */
+	private double segmentDistanceSquared(int point, int start, int end) {
+		double x = clipped[start * 2];
+		double y = clipped[start * 2 + 1];
+		double dx = clipped[end * 2] - x;
+		double dy = clipped[end * 2 + 1] - y;
+		double px = clipped[point * 2];
+		double py = clipped[point * 2 + 1];
+		if (dx != 0 || dy != 0) {
+			double t = ((px - x) * dx + (py - y) * dy) / (dx * dx + dy * dy);
+			if (t > 1) {
+				x += dx;
+				y += dy;
+			} else if (t > 0) {
+				x += dx * t;
+				y += dy * t;
+			}
+		}
+		dx = px - x;
+		dy = py - y;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Convert read positions to tile units in the work coordinates
+	 *
+	 * @param start
+	 *            first position
+	 * @param count
+	 *            number of positions
+	 */
+	private void toTile(int start, int count) {
+		ensureWork(count);
+		for (int i = 0; i < count; i++) {
+			work[i * 2] = tileX(coordinates[(start + i) * 2]);
+			work[i * 2 + 1] = tileY(coordinates[(start + i) * 2 + 1]);
+		}
+	}
+
+	/**
+	 * Convert a projected x to tile units
+	 *
+	 * @param x
+	 *            x in the tile projection
+	 * @return x in tile units
+	 */
+	private double tileX(double x) {
+		return (x - tileMinX) * scale;
+	}
+
+	/**
+	 * Convert a projected y to tile units, increasing downward
+	 *
+	 * @param y
+	 *            y in the tile projection
+	 * @return y in tile units
+	 */
+	private double tileY(double y) {
+		return (tileMaxY - y) * scale;
+	}
+
+	/**
+	 * Add a geometry command integer
+	 *
+	 * @param type
+	 *            vector tile geometry type
+	 * @param command
+	 *            command integer
+	 */
+	private void addCommand(int type, int command) {
+		int[] typeCommands = commands[type];
+		if (commandCounts[type] == typeCommands.length) {
+			typeCommands = Arrays.copyOf(typeCommands, typeCommands.length * 2);
+			commands[type] = typeCommands;
+		}
+		typeCommands[commandCounts[type]++] = command;
+	}
+
+	/**
+	 * Add a position as zigzag encoded deltas from the cursor
+	 *
+	 * @param type
+	 *            vector tile geometry type
+	 * @param x
+	 *            quantized x
+	 * @param y
+	 *            quantized y
+	 */
+	private void addPosition(int type, int x, int y) {
+		addCommand(type, VectorTileEncoder.zigzag(x - cursorX[type]));
+		addCommand(type, VectorTileEncoder.zigzag(y - cursorY[type]));
+		cursorX[type] = x;
+		cursorY[type] = y;
+	}
+
+	/**
+	 * Ensure the work coordinates can hold the positions
+	 *
+	 * @param count
+	 *            number of positions
+	 */
+	private void ensureWork(int count) {
+		if (work.length < count * 2) {
+			work = Arrays.copyOf(work, Math.max(work.length * 2, count * 2));
+		}
+	}
+
+	/**
+	 * Ensure the clipped coordinates can hold the positions
+	 *
+	 * @param count
+	 *            number of positions
+	 */
+	private void ensureClipped(int count) {
+		if (clipped.length < count * 2) {
+			clipped = Arrays.copyOf(clipped,
+					Math.max(clipped.length * 2, count * 2));
+		}
+	}
+
+	/**
+	 * Read the Well-Known Binary geometry at the current position
+	 *
+	 * @return false if the geometry type is not supported
+	 */
+	private boolean readGeometry() {
+
+		boolean littleEndian = wkb[wkbPosition++] == 1;
+		int code = readInt(littleEndian);
+		if ((code & 0x20000000) != 0) {
+			wkbPosition += 4;
+		}
+		int dimension = (code & 0x0FFFFFFF) / 1000;
+		boolean hasZ = (code & 0x80000000) != 0 || dimension == 1
+				|| dimension == 3;
+		boolean hasM = (code & 0x40000000) != 0 || dimension == 2
+				|| dimension == 3;
+		int skip = (hasZ ? 8 : 0) + (hasM ? 8 : 0);
+
+		boolean supported = true;
+		switch ((code & 0x0FFFFFFF) % 1000) {
+		case WKB_POINT:
+			double x = readDouble(wkbPosition, littleEndian);
+			double y = readDouble(wkbPosition + 8, littleEndian);
+			wkbPosition += 16 + skip;
+			if (!Double.isNaN(x) && !Double.isNaN(y)) {
+				addPart(PART_POINT, positions, 1);
+				addPosition(x, y);
+			}
+			break;
+		case WKB_LINESTRING:
+			readPositions(PART_LINE, littleEndian, skip);
+			break;
+		case WKB_POLYGON:
+		case WKB_TRIANGLE:
+			int rings = readInt(littleEndian);
+			for (int i = 0; i < rings; i++) {
+				readPositions(i == 0 ? PART_EXTERIOR : PART_INTERIOR,
+						littleEndian, skip);
+			}
+			break;
+		case WKB_MULTIPOINT:
+		case WKB_MULTILINESTRING:
+		case WKB_MULTIPOLYGON:
+		case WKB_POLYHEDRALSURFACE:
+		case WKB_TIN:
+		case WKB_GEOMETRYCOLLECTION:
+			int count = readInt(littleEndian);
+			for (int i = 0; supported && i < count; i++) {
+				supported = readGeometry();
+			}
+			break;
+		default:
+			supported = false;
+		}
+
+		return supported;
+	}
+
+	/**
+	 * Read a counted list of positions as a part
+	 *
+	 * @param kind
+	 *            part kind
+	 * @param littleEndian
+	 *            true if little endian
+	 * @param skip
+	 *            z and m bytes to skip per position
+	 */
+	private void readPositions(int kind, boolean littleEndian, int skip) {
+		int count = readInt(littleEndian);
+		if (count > 0) {
+			addPart(kind, positions, count);
+			for (int i = 0; i < count; i++) {
+				addPosition(readDouble(wkbPosition, littleEndian),
+						readDouble(wkbPosition + 8, littleEndian));
+				wkbPosition += 16 + skip;
+			}
+		}
+	}
+
+	/**
+	 * Add a geometry part
+	 *
+	 * @param kind
+	 *            part kind
+	 * @param start
+	 *            first position
+	 * @param count
+	 *            number of positions
+	 */
+	private void addPart(int kind, int start, int count) {
+		if (partCount * 3 + 3 > parts.length) {
+			parts = Arrays.copyOf(parts, parts.length * 2);
+		}
+		parts[partCount * 3] = kind;
+		parts[partCount * 3 + 1] = start;
+		parts[partCount * 3 + 2] = count;
+		partCount++;
+	}
+
+	/**
+	 * Add a read position
+	 *
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 */
+	private void addPosition(double x, double y) {
+		if (positions * 2 + 2 > coordinates.length) {
+			coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+		}
+		coordinates[positions * 2] = x;
+		coordinates[positions * 2 + 1] = y;
+		positions++;
+	}
+
+	/**
+	 * Read an int at the current position, advancing the position
+	 *
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return int value
+	 */
+	private int readInt(boolean littleEndian) {
+		int value = readInt(wkbPosition, littleEndian);
+		wkbPosition += 4;
+		return value;
+	}
+
+	/**
+	 * Read an int from the geometry bytes
+	 *
+	 * @param offset
+	 *            byte offset
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return int value
+	 */
+	private int readInt(int offset, boolean littleEndian) {
+		int value;
+		if (littleEndian) {
+			value = (wkb[offset] & 0xff) | (wkb[offset + 1] & 0xff) << 8
+					| (wkb[offset + 2] & 0xff) << 16
+					| (wkb[offset + 3] & 0xff) << 24;
+		} else {
+			value = (wkb[offset] & 0xff) << 24
+					| (wkb[offset + 1] & 0xff) << 16
+					| (wkb[offset + 2] & 0xff) << 8
+					| (wkb[offset + 3] & 0xff);
+		}
+		return value;
+	}
+
+	/**
+	 * Read a double from the geometry bytes
+	 *
+	 * @param offset
+	 *            byte offset
+	 * @param littleEndian
+	 *            true if little endian
+	 * @return double value
+	 */
+	private double readDouble(int offset, boolean littleEndian) {
+		long low = readInt(offset, littleEndian) & 0xffffffffL;
+		long high = readInt(offset + 4, littleEndian) & 0xffffffffL;
+		long bits = littleEndian ? high << 32 | low : low << 32 | high;
+		return Double.longBitsToDouble(bits);
+	}
+
+}
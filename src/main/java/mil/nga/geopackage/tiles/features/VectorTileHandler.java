@@ -0,0 +1,30 @@
+package mil.nga.geopackage.tiles.features;
+
+import java.io.IOException;
+
+/**
+ * Handler of the encoded vector tiles drawn by {@link FeatureVectorTiles}
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public interface VectorTileHandler {
+
+	/**
+	 * Handle an encoded vector tile. Tiles without features are not handled.
+	 *
+	 * @param zoom
+	 *            zoom level
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row, from the top
+	 * @param tile
+	 *            Mapbox Vector Tile bytes
+	 * @throws IOException
+	 *             upon failure to handle the tile
+	 */
+	public void handleTile(int zoom, int x, int y, byte[] tile)
+			throws IOException;
+
+}
@@ -0,0 +1,179 @@
+package mil.nga.geopackage.tiles.features;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.projection.Projection;
+import mil.nga.sf.projection.ProjectionConstants;
+import mil.nga.sf.projection.ProjectionFactory;
+
+/**
+ * Web Mercator tile grid utilities for tiles addressed by zoom level, column,
+ * and row from the top
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+class WebMercatorTiles {
+
+	/**
+	 * Max supported zoom level
+	 */
+	static final int MAX_ZOOM = 30;
+
+	/**
+	 * Web Mercator half world width
+	 */
+	private static final double HALF_WORLD = ProjectionConstants.WEB_MERCATOR_HALF_WORLD_WIDTH;
+
+	/**
+	 * Get the Web Mercator projection
+	 *
+	 * @return projection
+	 */
+	static Projection getProjection() {
+		return ProjectionFactory
+				.getProjection(ProjectionConstants.EPSG_WEB_MERCATOR);
+	}
+
+	/**
+	 * Get the tile width and height at the zoom level
+	 *
+	 * @param zoom
+	 *            zoom level
+	 * @return tile size in meters
+	 */
+	static double tileSize(int zoom) {
+		return 2 * HALF_WORLD / (1L << zoom);
+	}
+
+	/**
+	 * Get the tile minimum x
+	 *
+	 * @param x
+	 *            tile column
+	 * @param zoom
+	 *            zoom level
+	 * @return min x in meters
+	 */
+	static double minX(int x, int zoom) {
+		return -HALF_WORLD + x * tileSize(zoom);
+	}
+
+	/**
+	 * Get the tile maximum y
+	 *
+	 * @param y
+	 *            tile row
+	 * @param zoom
+	 *            zoom level
+	 * @return max y in meters
+	 */
+	static double maxY(int y, int zoom) {
+		return HALF_WORLD - y * tileSize(zoom);
+	}
+
+	/**
+	 * Get the tile bounding box expanded by a margin
+	 *
+	 * @param x
+	 *            tile column
+	 * @param y
+	 *            tile row
+	 * @param zoom
+	 *            zoom level
+	 * @param margin
+	 *            margin in meters
+	 * @return bounding box in meters
+	 */
+	static GeometryEnvelope boundingBox(int x, int y, int zoom, double margin) {
+		double tileSize = tileSize(zoom);
+		double minX = minX(x, zoom);
+		double maxY = maxY(y, zoom);
+		return new GeometryEnvelope(minX - margin, maxY - tileSize - margin,
+				minX + tileSize + margin, maxY + margin);
+	}
+
+	/**
+	 * Get the Web Mercator bounds of an envelope as min x, min y, max x, and
+	 * max y values, limiting geodetic latitudes to the Web Mercator range
+	 *
+	 * @param envelope
+	 *            envelope, null for the world
+	 * @param projection
+	 *            envelope projection
+	 * @return bounds in meters
+	 */
+	static double[] bounds(GeometryEnvelope envelope, Projection projection) {
+		double[] bounds = new double[] { -HALF_WORLD, -HALF_WORLD, HALF_WORLD,
+				HALF_WORLD };
+		if (envelope != null) {
+			double minY = envelope.getMinY();
+			double maxY = envelope.getMaxY();
+			if (projection.getEpsg() == ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM) {
+				minY = Math.max(minY,
+						ProjectionConstants.WEB_MERCATOR_MIN_LAT_RANGE);
+				maxY = Math.min(maxY,
+						ProjectionConstants.WEB_MERCATOR_MAX_LAT_RANGE);
+			}
+			double[] transformed = new double[] { envelope.getMinX(), minY,
+					envelope.getMaxX(), maxY };
+			ProjectionTransformCache.transformEnvelopes(projection,
+					getProjection(), transformed);
+			for (int i = 0; i < 4; i++) {
+				if (!Double.isNaN(transformed[i])) {
+					bounds[i] = Math.max(-HALF_WORLD,
+							Math.min(HALF_WORLD, transformed[i]));
+				}
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Get the range of tiles covering the bounds at the zoom level
+	 *
+	 * @param bounds
+	 *            bounds in meters
+	 * @param zoom
+	 *            zoom level
+	 * @return min column, min row, max column, max row
+	 */
+	static int[] tileRange(double[] bounds, int zoom) {
+		int tiles = 1 << zoom;
+		double tileSize = tileSize(zoom);
+		int minX = tileIndex((bounds[0] + HALF_WORLD) / tileSize, tiles);
+		int maxX = tileIndex((bounds[2] + HALF_WORLD) / tileSize, tiles);
+		int minY = tileIndex((HALF_WORLD - bounds[3]) / tileSize, tiles);
+		int maxY = tileIndex((HALF_WORLD - bounds[1]) / tileSize, tiles);
+		return new int[] { minX, minY, Math.max(minX, maxX),
+				Math.max(minY, maxY) };
+	}
+
+	/**
+	 * Validate the zoom level
+	 *
+	 * @param zoom
+	 *            zoom level
+	 */
+	static void validateZoom(int zoom) {
+		if (zoom < 0 || zoom > MAX_ZOOM) {
+			throw new GeoPackageException("Zoom level " + zoom
+					+ " is outside of the supported range 0 to " + MAX_ZOOM);
+		}
+	}
+
+	/**
+	 * Get the tile index of a fractional tile position
+	 *
+	 * @param position
+	 *            fractional tile position
+	 * @param tiles
+	 *            number of tiles across the zoom level
+	 * @return tile index
+	 */
+	private static int tileIndex(double position, int tiles) {
+		return (int) Math.max(0, Math.min(tiles - 1, Math.floor(position)));
+	}
+
+}
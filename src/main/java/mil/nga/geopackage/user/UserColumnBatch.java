@@ -0,0 +1,125 @@
+package mil.nga.geopackage.user;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Batch of user rows read into primitive {@link UserColumnVector} column
+ * vectors by a {@link UserColumnBatchReader}. The batch and its vectors are
+ * reused for each batch read.
+ *
+ * @param <TColumn>
+ *            column type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserColumnBatch<TColumn extends UserColumn> {
+
+	/**
+	 * Column vectors in read order
+	 */
+	private final List<UserColumnVector<TColumn>> vectors;
+
+	/**
+	 * Column vector indexes by column name
+	 */
+	private final Map<String, Integer> vectorIndexes = new HashMap<>();
+
+	/**
+	 * Number of rows in the batch
+	 */
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param vectors
+	 *            column vectors in read order
+	 */
+	UserColumnBatch(List<UserColumnVector<TColumn>> vectors) {
+		this.vectors = Collections.unmodifiableList(vectors);
+		for (int i = 0; i < vectors.size(); i++) {
+			vectorIndexes.put(vectors.get(i).getColumn().getName(), i);
+		}
+	}
+
+	/**
+	 * Clear the batch rows for the next batch
+	 */
+	void clear() {
+		for (UserColumnVector<TColumn> vector : vectors) {
+			vector.clear();
+		}
+		size = 0;
+	}
+
+	/**
+	 * Set the number of rows in the batch
+	 *
+	 * @param size
+	 *            row count
+	 */
+	void setSize(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Get the number of rows in the batch
+	 *
+	 * @return row count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of column vectors
+	 *
+	 * @return column count
+	 */
+	public int columnCount() {
+		return vectors.size();
+	}
+
+	/**
+	 * Get the column vectors in read order
+	 *
+	 * @return column vectors
+	 */
+	public List<UserColumnVector<TColumn>> getVectors() {
+		return vectors;
+	}
+
+	/**
+	 * Get the column vector at the read index
+	 *
+	 * @param index
+	 *            read index
+	 * @return column vector
+	 */
+	public UserColumnVector<TColumn> getVector(int index) {
+		return vectors.get(index);
+	}
+
+	/**
+	 * Get the column vector of the column
+	 *
+	 * @param columnName
+	 *            column name
+	 * @return column vector
+	 */
+	public UserColumnVector<TColumn> getVector(String columnName) {
+		Integer index = vectorIndexes.get(columnName);
+		if (index == null) {
+			throw new GeoPackageException("Column is not read by the batch: "
+					+ columnName);
+		}
+		return vectors.get(index);
+	}
+
+}
@@ -0,0 +1,204 @@
+package mil.nga.geopackage.user;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Columnar batch reader of a {@link UserResultSet}, reading up to a batch
+ * size of rows at a time into reused primitive column vectors through the
+ * result set typed getters. Unlike reading rows, integer and floating point
+ * values are never boxed and text values are coded into a string dictionary,
+ * so aggregations over large tables read without per value allocations.
+ *
+ * @param <TColumn>
+ *            column type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserColumnBatchReader<TColumn extends UserColumn> {
+
+	/**
+	 * Result set
+	 */
+	private final UserResultSet<TColumn, ?, ?> resultSet;
+
+	/**
+	 * Result set column indexes of the column vectors
+	 */
+	private final int[] columnIndexes;
+
+	/**
+	 * Reused batch
+	 */
+	private final UserColumnBatch<TColumn> batch;
+
+	/**
+	 * Max number of rows per batch
+	 */
+	private final int batchSize;
+
+	/**
+	 * Total number of rows read
+	 */
+	private long rowCount = 0;
+
+	/**
+	 * True when the result set has no more rows
+	 */
+	private boolean done = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param resultSet
+	 *            result set positioned before the first row to read
+	 * @param batchSize
+	 *            max number of rows per batch
+	 * @param columnNames
+	 *            names of the columns to read, all table columns when none
+	 */
+	public UserColumnBatchReader(UserResultSet<TColumn, ?, ?> resultSet,
+			int batchSize, String... columnNames) {
+
+		if (batchSize <= 0) {
+			throw new GeoPackageException(
+					"Batch size must be greater than 0: " + batchSize);
+		}
+
+		this.resultSet = resultSet;
+		this.batchSize = batchSize;
+
+		UserTable<TColumn> table = resultSet.getTable();
+		List<TColumn> columns;
+		if (columnNames == null || columnNames.length == 0) {
+			columns = table.getColumns();
+		} else {
+			columns = new ArrayList<>();
+			for (String columnName : columnNames) {
+				columns.add(table.getColumn(columnName));
+			}
+		}
+
+		columnIndexes = new int[columns.size()];
+		List<UserColumnVector<TColumn>> vectors = new ArrayList<>();
+		for (int i = 0; i < columns.size(); i++) {
+			TColumn column = columns.get(i);
+			columnIndexes[i] = column.getIndex();
+			vectors.add(new UserColumnVector<TColumn>(column, batchSize));
+		}
+		batch = new UserColumnBatch<TColumn>(vectors);
+	}
+
+	/**
+	 * Get the max number of rows per batch
+	 *
+	 * @return batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Get the total number of rows read
+	 *
+	 * @return row count
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Get the batch of the last read
+	 *
+	 * @return batch
+	 */
+	public UserColumnBatch<TColumn> getBatch() {
+		return batch;
+	}
+
+	/**
+	 * Read the next batch of rows into the reused batch
+	 *
+	 * @return true if at least one row was read
+	 */
+	public boolean readBatch() {
+
+		batch.clear();
+
+		int rows = 0;
+		while (!done && rows < batchSize) {
+			if (!resultSet.moveToNext()) {
+				done = true;
+				break;
+			}
+			for (int i = 0; i < columnIndexes.length; i++) {
+				read(batch.getVector(i), columnIndexes[i]);
+			}
+			rows++;
+		}
+
+		batch.setSize(rows);
+		rowCount += rows;
+
+		return rows > 0;
+	}
+
+	/**
+	 * Read the current row value of the column into the vector
+	 *
+	 * @param vector
+	 *            column vector
+	 * @param index
+	 *            result set column index
+	 */
+	private void read(UserColumnVector<TColumn> vector, int index) {
+		switch (vector.getType()) {
+		case LONG:
+			long longValue = resultSet.getLong(index);
+			if (resultSet.wasNull()) {
+				vector.addNull();
+			} else {
+				vector.addLong(longValue);
+			}
+			break;
+		case DOUBLE:
+			double doubleValue = resultSet.getDouble(index);
+			if (resultSet.wasNull()) {
+				vector.addNull();
+			} else {
+				vector.addDouble(doubleValue);
+			}
+			break;
+		case STRING:
+			String stringValue = resultSet.getString(index);
+			if (stringValue == null) {
+				vector.addNull();
+			} else {
+				vector.addString(stringValue);
+			}
+			break;
+		case BLOB:
+			byte[] blobValue = resultSet.getBlob(index);
+			if (blobValue == null) {
+				vector.addNull();
+			} else {
+				vector.addBlob(blobValue);
+			}
+			break;
+		default:
+			throw new GeoPackageException("Unsupported column vector type: "
+					+ vector.getType());
+		}
+	}
+
+	/**
+	 * Close the result set
+	 */
+	public void close() {
+		resultSet.close();
+	}
+
+}
@@ -0,0 +1,430 @@
+package mil.nga.geopackage.user;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Column values of a {@link UserColumnBatch} stored in primitive arrays by
+ * batch row. Depending on the {@link UserColumnVectorType}, values are held
+ * as longs, doubles, string dictionary codes, or byte slices of a shared blob
+ * buffer. Null values are tracked in a bitmap, with the primitive value of a
+ * null row left as 0. Vectors are reused for each batch read.
+ *
+ * @param <TColumn>
+ *            column type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserColumnVector<TColumn extends UserColumn> {
+
+	/**
+	 * Initial blob buffer bytes per row
+	 */
+	private static final int INITIAL_BLOB_ROW_BYTES = 32;
+
+	/**
+	 * Column
+	 */
+	private final TColumn column;
+
+	/**
+	 * Vector type
+	 */
+	private final UserColumnVectorType type;
+
+	/**
+	 * Long values, when a long vector
+	 */
+	private final long[] longs;
+
+	/**
+	 * Double values, when a double vector
+	 */
+	private final double[] doubles;
+
+	/**
+	 * String dictionary codes, when a string vector
+	 */
+	private final int[] stringCodes;
+
+	/**
+	 * String dictionary values by code, when a string vector
+	 */
+	private final List<String> dictionary;
+
+	/**
+	 * String dictionary codes by value, when a string vector
+	 */
+	private final Map<String, Integer> dictionaryCodes;
+
+	/**
+	 * Blob slice offsets into the blob buffer, with the end offset of the
+	 * last row at the size index, when a blob vector
+	 */
+	private final int[] blobOffsets;
+
+	/**
+	 * Blob buffer, when a blob vector
+	 */
+	private byte[] blobData;
+
+	/**
+	 * Null bitmap, one bit per row
+	 */
+	private final long[] nulls;
+
+	/**
+	 * Number of rows in the vector
+	 */
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param column
+	 *            column
+	 * @param capacity
+	 *            max number of rows
+	 */
+	UserColumnVector(TColumn column, int capacity) {
+		this.column = column;
+		this.type = UserColumnVectorType.fromDataType(column.getDataType());
+		this.longs = type == UserColumnVectorType.LONG ? new long[capacity]
+				: null;
+		this.doubles = type == UserColumnVectorType.DOUBLE ? new double[capacity]
+				: null;
+		if (type == UserColumnVectorType.STRING) {
+			this.stringCodes = new int[capacity];
+			this.dictionary = new ArrayList<>();
+			this.dictionaryCodes = new HashMap<>();
+		} else {
+			this.stringCodes = null;
+			this.dictionary = null;
+			this.dictionaryCodes = null;
+		}
+		if (type == UserColumnVectorType.BLOB) {
+			this.blobOffsets = new int[capacity + 1];
+			this.blobData = new byte[capacity * INITIAL_BLOB_ROW_BYTES];
+		} else {
+			this.blobOffsets = null;
+		}
+		this.nulls = new long[(capacity + 63) >>> 6];
+	}
+
+	/**
+	 * Clear the vector rows and string dictionary for the next batch
+	 */
+	void clear() {
+		Arrays.fill(nulls, 0, (size + 63) >>> 6, 0L);
+		size = 0;
+		if (dictionary != null) {
+			dictionary.clear();
+			dictionaryCodes.clear();
+		}
+	}
+
+	/**
+	 * Add the next row value as null
+	 */
+	void addNull() {
+		nulls[size >>> 6] |= 1L << size;
+		if (blobOffsets != null) {
+			blobOffsets[size + 1] = blobOffsets[size];
+		}
+		switch (type) {
+		case LONG:
+			longs[size] = 0;
+			break;
+		case DOUBLE:
+			doubles[size] = 0;
+			break;
+		case STRING:
+			stringCodes[size] = -1;
+			break;
+		default:
+			break;
+		}
+		size++;
+	}
+
+	/**
+	 * Add the next row long value
+	 *
+	 * @param value
+	 *            long value
+	 */
+	void addLong(long value) {
+		longs[size++] = value;
+	}
+
+	/**
+	 * Add the next row double value
+	 *
+	 * @param value
+	 *            double value
+	 */
+	void addDouble(double value) {
+		doubles[size++] = value;
+	}
+
+	/**
+	 * Add the next row string value, coded into the dictionary
+	 *
+	 * @param value
+	 *            non null string value
+	 */
+	void addString(String value) {
+		Integer code = dictionaryCodes.get(value);
+		if (code == null) {
+			code = dictionary.size();
+			dictionary.add(value);
+			dictionaryCodes.put(value, code);
+		}
+		stringCodes[size++] = code;
+	}
+
+	/**
+	 * Add the next row blob value, copied into the blob buffer
+	 *
+	 * @param value
+	 *            non null blob bytes
+	 */
+	void addBlob(byte[] value) {
+		int offset = blobOffsets[size];
+		int end = offset + value.length;
+		if (end > blobData.length) {
+			blobData = Arrays.copyOf(blobData,
+					Math.max(end, blobData.length * 2));
+		}
+		System.arraycopy(value, 0, blobData, offset, value.length);
+		blobOffsets[++size] = end;
+	}
+
+	/**
+	 * Get the column
+	 *
+	 * @return column
+	 */
+	public TColumn getColumn() {
+		return column;
+	}
+
+	/**
+	 * Get the vector type
+	 *
+	 * @return vector type
+	 */
+	public UserColumnVectorType getType() {
+		return type;
+	}
+
+	/**
+	 * Get the number of rows in the vector
+	 *
+	 * @return row count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Determine if the row value is null
+	 *
+	 * @param row
+	 *            batch row
+	 * @return true if null
+	 */
+	public boolean isNull(int row) {
+		return (nulls[row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Determine if any row value is null
+	 *
+	 * @return true if a null exists
+	 */
+	public boolean hasNulls() {
+		boolean hasNulls = false;
+		for (int i = 0; i < (size + 63) >>> 6; i++) {
+			if (nulls[i] != 0) {
+				hasNulls = true;
+				break;
+			}
+		}
+		return hasNulls;
+	}
+
+	/**
+	 * Get the null bitmap, where bit (row % 64) of word (row / 64) is set for
+	 * null rows. The array is reused for each batch.
+	 *
+	 * @return null bitmap
+	 */
+	public long[] getNulls() {
+		return nulls;
+	}
+
+	/**
+	 * Get the long value of the row
+	 *
+	 * @param row
+	 *            batch row
+	 * @return long value, 0 when null
+	 */
+	public long getLong(int row) {
+		validateType(UserColumnVectorType.LONG);
+		return longs[row];
+	}
+
+	/**
+	 * Get the long values, valid up to the vector size. The array is reused
+	 * for each batch.
+	 *
+	 * @return long values
+	 */
+	public long[] getLongs() {
+		validateType(UserColumnVectorType.LONG);
+		return longs;
+	}
+
+	/**
+	 * Get the double value of the row
+	 *
+	 * @param row
+	 *            batch row
+	 * @return double value, 0 when null
+	 */
+	public double getDouble(int row) {
+		validateType(UserColumnVectorType.DOUBLE);
+		return doubles[row];
+	}
+
+	/**
+	 * Get the double values, valid up to the vector size. The array is reused
+	 * for each batch.
+	 *
+	 * @return double values
+	 */
+	public double[] getDoubles() {
+		validateType(UserColumnVectorType.DOUBLE);
+		return doubles;
+	}
+
+	/**
+	 * Get the string dictionary code of the row, valid within the batch
+	 *
+	 * @param row
+	 *            batch row
+	 * @return dictionary code, -1 when null
+	 */
+	public int getStringCode(int row) {
+		validateType(UserColumnVectorType.STRING);
+		return stringCodes[row];
+	}
+
+	/**
+	 * Get the string dictionary codes, valid up to the vector size. The array
+	 * is reused for each batch.
+	 *
+	 * @return dictionary codes
+	 */
+	public int[] getStringCodes() {
+		validateType(UserColumnVectorType.STRING);
+		return stringCodes;
+	}
+
+	/**
+	 * Get the string value of the row
+	 *
+	 * @param row
+	 *            batch row
+	 * @return string value, null when null
+	 */
+	public String getString(int row) {
+		int code = getStringCode(row);
+		return code >= 0 ? dictionary.get(code) : null;
+	}
+
+	/**
+	 * Get the string dictionary of the distinct batch values indexed by code.
+	 * The dictionary is reset for each batch.
+	 *
+	 * @return string dictionary
+	 */
+	public List<String> getDictionary() {
+		validateType(UserColumnVectorType.STRING);
+		return Collections.unmodifiableList(dictionary);
+	}
+
+	/**
+	 * Get the blob buffer holding the blob slices of all rows. The buffer is
+	 * reused for each batch.
+	 *
+	 * @return blob buffer
+	 */
+	public byte[] getBlobData() {
+		validateType(UserColumnVectorType.BLOB);
+		return blobData;
+	}
+
+	/**
+	 * Get the blob slice offset of the row within the blob buffer
+	 *
+	 * @param row
+	 *            batch row
+	 * @return blob offset
+	 */
+	public int getBlobOffset(int row) {
+		validateType(UserColumnVectorType.BLOB);
+		return blobOffsets[row];
+	}
+
+	/**
+	 * Get the blob slice length of the row
+	 *
+	 * @param row
+	 *            batch row
+	 * @return blob length, 0 when null
+	 */
+	public int getBlobLength(int row) {
+		validateType(UserColumnVectorType.BLOB);
+		return blobOffsets[row + 1] - blobOffsets[row];
+	}
+
+	/**
+	 * Get a copy of the blob value of the row
+	 *
+	 * @param row
+	 *            batch row
+	 * @return blob bytes, null when null
+	 */
+	public byte[] getBlob(int row) {
+		byte[] blob = null;
+		if (!isNull(row)) {
+			int offset = getBlobOffset(row);
+			blob = Arrays.copyOfRange(blobData, offset, blobOffsets[row + 1]);
+		}
+		return blob;
+	}
+
+	/**
+	 * Validate the vector is of the type
+	 *
+	 * @param expected
+	 *            expected vector type
+	 */
+	private void validateType(UserColumnVectorType expected) {
+		if (type != expected) {
+			throw new GeoPackageException("Column '" + column.getName()
+					+ "' is a " + type + " vector, not " + expected);
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package mil.nga.geopackage.user;
+
+import mil.nga.geopackage.db.GeoPackageDataType;
+
+/**
+ * Primitive storage type of a {@link UserColumnVector}
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public enum UserColumnVectorType {
+
+	/**
+	 * Integer values stored as longs, including booleans as 0 or 1
+	 */
+	LONG,
+
+	/**
+	 * Floating point values stored as doubles
+	 */
+	DOUBLE,
+
+	/**
+	 * Text and date values stored as string dictionary codes
+	 */
+	STRING,
+
+	/**
+	 * Blob values stored as byte slices of a shared buffer
+	 */
+	BLOB;
+
+	/**
+	 * Get the vector type of the column data type
+	 *
+	 * @param dataType
+	 *            column data type, null for geometry columns
+	 * @return vector type
+	 */
+	public static UserColumnVectorType fromDataType(GeoPackageDataType dataType) {
+
+		UserColumnVectorType type = BLOB;
+
+		if (dataType != null) {
+			switch (dataType) {
+			case BOOLEAN:
+			case TINYINT:
+			case SMALLINT:
+			case MEDIUMINT:
+			case INT:
+			case INTEGER:
+				type = LONG;
+				break;
+			case FLOAT:
+			case DOUBLE:
+			case REAL:
+				type = DOUBLE;
+				break;
+			case TEXT:
+			case DATE:
+			case DATETIME:
+				type = STRING;
+				break;
+			default:
+				type = BLOB;
+			}
+		}
+
+		return type;
+	}
+
+}
@@ -2,8 +2,12 @@ package mil.nga.geopackage.user;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 
+import mil.nga.geopackage.GeoPackageException;
 import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.GeoPackageConnectionPool;
 import mil.nga.geopackage.db.SQLUtils;
 import mil.nga.geopackage.db.SQLiteQueryBuilder;
 
@@ -26,11 +30,22 @@ public abstract class UserConnection<TColumn extends UserColumn, TTable extends
 	 */
 	private final Connection connection;
 
+	/**
+	 * GeoPackage connection
+	 */
+	private final GeoPackageConnection database;
+
 	/**
 	 * Table
 	 */
 	protected TTable table;
 
+	/**
+	 * Count results flag, when false the result count is not determined and
+	 * returned as -1
+	 */
+	private boolean countResults = true;
+
 	/**
 	 * Constructor
 	 * 
@@ -38,6 +53,7 @@ public abstract class UserConnection<TColumn extends UserColumn, TTable extends
 	 */
 	protected UserConnection(GeoPackageConnection database) {
 		this.connection = database.getConnection();
+		this.database = database;
 	}
 
 	/**
@@ -58,25 +74,198 @@ public abstract class UserConnection<TColumn extends UserColumn, TTable extends
 		this.table = table;
 	}
 
+	/**
+	 * Get the connection
+	 * 
+	 * @return connection
+	 * @since 1.2.4
+	 */
+	public Connection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * Is the count results mode enabled. Results are counted lazily on the
+	 * first request.
+	 * 
+	 * @return true if results are counted
+	 * @since 1.2.4
+	 */
+	public boolean isCountResults() {
+		return countResults;
+	}
+
+	/**
+	 * Set the count results mode. When disabled, query results do not count
+	 * and report a count of -1.
+	 * 
+	 * @param countResults
+	 *            true to count results, false for no count
+	 * @since 1.2.4
+	 */
+	public void setCountResults(boolean countResults) {
+		this.countResults = countResults;
+	}
+
 	/**
 	 * Create a result by wrapping the ResultSet
 	 * 
 	 * @param resultSet
-	 * @param count
+	 *            result set
+	 * @param connection
+	 *            connection the query was executed on
+	 * @param sql
+	 *            query SQL for lazily counting results, null for no count
+	 * @param selectionArgs
+	 *            query selection arguments
 	 * @return result
+	 * @since 1.2.4
 	 */
-	protected abstract TResult createResult(ResultSet resultSet, int count);
+	protected abstract TResult createResult(ResultSet resultSet,
+			Connection connection, String sql, String[] selectionArgs);
+
+	/**
+	 * Execute the query and create the result. Queries run on a pooled read
+	 * connection when one can be acquired and the connection is not within a
+	 * transaction. The read connection is released when the result is closed.
+	 * 
+	 * @param sql
+	 * @param selectionArgs
+	 * @return result
+	 */
+	private TResult executeQuery(String sql, String[] selectionArgs) {
+
+		GeoPackageConnectionPool connectionPool = getReadConnectionPool();
+		Connection queryConnection = connection;
+		if (connectionPool != null) {
+			Connection readConnection = connectionPool.acquire();
+			if (readConnection != null) {
+				queryConnection = readConnection;
+			} else {
+				connectionPool = null;
+			}
+		}
+
+		TResult result;
+		try {
+			ResultSet resultSet = SQLUtils.query(queryConnection, sql,
+					selectionArgs);
+			result = createResult(resultSet, queryConnection,
+					countResults ? sql : null, selectionArgs);
+		} catch (RuntimeException e) {
+			if (connectionPool != null) {
+				connectionPool.release(queryConnection);
+			}
+			throw e;
+		}
+		result.setConnectionPool(connectionPool);
+
+		return result;
+	}
+
+	/**
+	 * Get the read connection pool when queries can use it, not when the
+	 * connection is within a transaction
+	 * 
+	 * @return read connection pool, null to query on the connection
+	 */
+	private GeoPackageConnectionPool getReadConnectionPool() {
+		GeoPackageConnectionPool connectionPool = database
+				.getConnectionPool();
+		if (connectionPool != null && database.inTransaction()) {
+			connectionPool = null;
+		}
+		return connectionPool;
+	}
+
+	/**
+	 * Create a projected result by wrapping the ResultSet
+	 * 
+	 * @param columns
+	 *            projected columns in select order
+	 * @param resultSet
+	 *            result set
+	 * @param connection
+	 *            connection the query was executed on
+	 * @return projected result
+	 * @since 1.2.4
+	 */
+	protected UserProjectedResultSet<TColumn> createProjectedResult(
+			List<TColumn> columns, ResultSet resultSet, Connection connection) {
+		return new UserProjectedResultSet<TColumn>(columns, resultSet,
+				connection);
+	}
+
+	/**
+	 * Query for only the projected columns of the table. Queries run on a
+	 * pooled read connection when available and the connection is not within
+	 * a transaction.
+	 * 
+	 * @param columns
+	 *            projected column names
+	 * @param selection
+	 *            where clause
+	 * @param selectionArgs
+	 *            where arguments
+	 * @param orderBy
+	 *            order by
+	 * @param limit
+	 *            limit
+	 * @return projected result
+	 * @since 1.2.4
+	 */
+	public UserProjectedResultSet<TColumn> queryProjected(String[] columns,
+			String selection, String[] selectionArgs, String orderBy,
+			String limit) {
+
+		if (columns == null || columns.length == 0) {
+			throw new GeoPackageException(
+					"At least one projected column is required. Table: "
+							+ table.getTableName());
+		}
+		List<TColumn> projectedColumns = new ArrayList<>(columns.length);
+		for (String column : columns) {
+			projectedColumns.add(table.getColumn(column));
+		}
+
+		String sql = SQLiteQueryBuilder.buildQueryString(false,
+				table.getTableName(), columns, selection, null, null, orderBy,
+				limit);
+
+		GeoPackageConnectionPool connectionPool = getReadConnectionPool();
+		Connection queryConnection = connection;
+		if (connectionPool != null) {
+			Connection readConnection = connectionPool.acquire();
+			if (readConnection != null) {
+				queryConnection = readConnection;
+			} else {
+				connectionPool = null;
+			}
+		}
+
+		UserProjectedResultSet<TColumn> result;
+		try {
+			ResultSet resultSet = SQLUtils.query(queryConnection, sql,
+					selectionArgs);
+			result = createProjectedResult(projectedColumns, resultSet,
+					queryConnection);
+		} catch (RuntimeException e) {
+			if (connectionPool != null) {
+				connectionPool.release(queryConnection);
+			}
+			throw e;
+		}
+		result.setConnectionPool(connectionPool);
+
+		return result;
+	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public TResult rawQuery(String sql, String[] selectionArgs) {
-
-		ResultSet resultSet = SQLUtils.query(connection, sql, selectionArgs);
-		int count = SQLUtils.count(connection, sql, selectionArgs);
-
-		return createResult(resultSet, count);
+		return executeQuery(sql, selectionArgs);
 	}
 
 	/**
@@ -90,10 +279,7 @@ public abstract class UserConnection<TColumn extends UserColumn, TTable extends
 		String sql = SQLiteQueryBuilder.buildQueryString(false, table, columns,
 				selection, groupBy, having, orderBy, null);
 
-		ResultSet resultSet = SQLUtils.query(connection, sql, selectionArgs);
-		int count = SQLUtils.count(connection, sql, selectionArgs);
-
-		return createResult(resultSet, count);
+		return executeQuery(sql, selectionArgs);
 	}
 
 	/**
@@ -107,10 +293,7 @@ public abstract class UserConnection<TColumn extends UserColumn, TTable extends
 		String sql = SQLiteQueryBuilder.buildQueryString(false, table, columns,
 				selection, groupBy, having, orderBy, limit);
 
-		ResultSet resultSet = SQLUtils.query(connection, sql, selectionArgs);
-		int count = SQLUtils.count(connection, sql, selectionArgs);
-
-		return createResult(resultSet, count);
+		return executeQuery(sql, selectionArgs);
 	}
 
 }
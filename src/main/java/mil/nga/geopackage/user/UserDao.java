@@ -1,8 +1,20 @@
 package mil.nga.geopackage.user;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.CoreSQLUtils;
 import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.PreparedStatementCache;
 import mil.nga.geopackage.db.SQLUtils;
 
 /**
@@ -18,11 +30,45 @@ import mil.nga.geopackage.db.SQLUtils;
 public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTable<TColumn>, TRow extends UserRow<TColumn, TTable>, TResult extends UserResultSet<TColumn, TTable, TRow>>
 		extends UserCoreDao<TColumn, TTable, TRow, TResult> {
 
+	/**
+	 * Logger
+	 */
+	private static final Logger log = Logger.getLogger(UserDao.class
+			.getName());
+
+	/**
+	 * Default number of rows per batch insert execution
+	 * 
+	 * @since 1.2.4
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
 	/**
 	 * Connection
 	 */
 	private final Connection connection;
 
+	/**
+	 * GeoPackage connection
+	 */
+	private final GeoPackageConnection db;
+
+	/**
+	 * User connection
+	 */
+	private final UserConnection<TColumn, TTable, TRow, TResult> userDb;
+
+	/**
+	 * Number of rows per batch insert execution
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * True to commit each batch insert execution, false to commit all batch
+	 * inserted rows in a single transaction
+	 */
+	private boolean commitBatches = false;
+
 	/**
 	 * Constructor
 	 * 
@@ -35,6 +81,8 @@ public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTab
 			UserConnection<TColumn, TTable, TRow, TResult> userDb, TTable table) {
 		super(database, db, userDb, table);
 		this.connection = db.getConnection();
+		this.db = db;
+		this.userDb = userDb;
 	}
 
 	/**
@@ -54,8 +102,8 @@ public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTab
 		ContentValues contentValues = row.toContentValues();
 		int updated = 0;
 		if (contentValues.size() > 0) {
-			updated = SQLUtils.update(connection, getTableName(),
-					contentValues, getPkWhere(row.getId()),
+			updated = db.update(getTableName(), contentValues,
+					getPkWhere(row.getId()),
 					getPkWhereArgs(row.getId()));
 		}
 		return updated;
@@ -71,8 +119,7 @@ public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTab
 	 */
 	public int update(ContentValues values, String whereClause,
 			String[] whereArgs) {
-		return SQLUtils.update(connection, getTableName(), values, whereClause,
-				whereArgs);
+		return db.update(getTableName(), values, whereClause, whereArgs);
 	}
 
 	/**
@@ -80,8 +127,7 @@ public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTab
 	 */
 	@Override
 	public long insert(TRow row) {
-		long id = SQLUtils.insertOrThrow(connection, getTableName(),
-				row.toContentValues());
+		long id = db.insertOrThrow(getTableName(), row.toContentValues());
 		row.setId(id);
 		return id;
 	}
@@ -93,7 +139,7 @@ public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTab
 	 * @return row id, -1 on error
 	 */
 	public long insert(ContentValues values) {
-		return SQLUtils.insert(connection, getTableName(), values);
+		return db.insert(getTableName(), values);
 	}
 
 	/**
@@ -103,7 +149,464 @@ public abstract class UserDao<TColumn extends UserColumn, TTable extends UserTab
 	 * @return row id
 	 */
 	public long insertOrThrow(ContentValues values) {
-		return SQLUtils.insertOrThrow(connection, getTableName(), values);
+		return db.insertOrThrow(getTableName(), values);
+	}
+
+	/**
+	 * Query for only the projected columns of all rows
+	 * 
+	 * @param columns
+	 *            projected column names
+	 * @return projected result
+	 * @since 1.2.4
+	 */
+	public UserProjectedResultSet<TColumn> queryProjected(String[] columns) {
+		return queryProjected(columns, null, null, null, null);
+	}
+
+	/**
+	 * Query for only the projected columns of rows matching the where clause
+	 * 
+	 * @param columns
+	 *            projected column names
+	 * @param where
+	 *            where clause
+	 * @param whereArgs
+	 *            where arguments
+	 * @return projected result
+	 * @since 1.2.4
+	 */
+	public UserProjectedResultSet<TColumn> queryProjected(String[] columns,
+			String where, String[] whereArgs) {
+		return queryProjected(columns, where, whereArgs, null, null);
+	}
+
+	/**
+	 * Query for only the projected columns of rows matching the where clause.
+	 * Only the projected columns are selected, and values are indexed by
+	 * their projected position.
+	 * 
+	 * @param columns
+	 *            projected column names
+	 * @param where
+	 *            where clause
+	 * @param whereArgs
+	 *            where arguments
+	 * @param orderBy
+	 *            order by
+	 * @param limit
+	 *            limit
+	 * @return projected result
+	 * @since 1.2.4
+	 */
+	public UserProjectedResultSet<TColumn> queryProjected(String[] columns,
+			String where, String[] whereArgs, String orderBy, String limit) {
+		return userDb.queryProjected(columns, where, whereArgs, orderBy, limit);
+	}
+
+	/**
+	 * Query for all rows, read in primitive column vector batches. The reader
+	 * should be closed when done.
+	 * 
+	 * @param batchSize
+	 *            max number of rows per batch
+	 * @param columnNames
+	 *            names of the columns to read, all columns when none
+	 * @return column batch reader
+	 * @since 1.2.4
+	 */
+	public UserColumnBatchReader<TColumn> queryForColumnBatches(
+			int batchSize, String... columnNames) {
+		TResult result = queryForAll();
+		try {
+			return new UserColumnBatchReader<TColumn>(result, batchSize,
+					columnNames);
+		} catch (RuntimeException e) {
+			result.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Query for a page of rows ordered by primary key
+	 * 
+	 * @param continuationToken
+	 *            continuation token from the previous page, null for the first
+	 *            page
+	 * @param limit
+	 *            max number of rows in the page
+	 * @return page
+	 * @since 1.2.4
+	 */
+	public UserPage<TRow> queryForPage(String continuationToken, int limit) {
+		return queryForPage(null, null, continuationToken, limit);
+	}
+
+	/**
+	 * Query for a page of rows matching the where clause, ordered by primary
+	 * key. Pages are read by primary key position rather than by offset, so
+	 * each page costs the same regardless of depth. The query is prepared
+	 * once and reused from the statement cache for each page.
+	 * 
+	 * @param where
+	 *            where clause, null for all rows
+	 * @param whereArgs
+	 *            where arguments
+	 * @param continuationToken
+	 *            continuation token from the previous page, null for the first
+	 *            page
+	 * @param limit
+	 *            max number of rows in the page
+	 * @return page
+	 * @since 1.2.4
+	 */
+	public UserPage<TRow> queryForPage(String where, String[] whereArgs,
+			String continuationToken, int limit) {
+
+		if (limit <= 0) {
+			throw new GeoPackageException("Page limit must be greater than 0: "
+					+ limit);
+		}
+
+		long lastId = Long.MIN_VALUE;
+		if (continuationToken != null) {
+			try {
+				lastId = Long.parseLong(continuationToken);
+			} catch (NumberFormatException e) {
+				throw new GeoPackageException(
+						"Invalid page continuation token: " + continuationToken,
+						e);
+			}
+		}
+
+		String sql = pageSQL(where);
+
+		int argCount = whereArgs != null ? whereArgs.length : 0;
+		Object[] args = new Object[argCount + 2];
+		args[0] = lastId;
+		for (int i = 0; i < argCount; i++) {
+			args[i + 1] = whereArgs[i];
+		}
+		// Query one extra row to determine if another page follows
+		args[argCount + 1] = limit + 1;
+
+		List<TRow> rows = new ArrayList<>();
+		boolean more = false;
+
+		PreparedStatementCache statementCache = db.getStatementCache();
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+		try {
+			statement = statementCache.acquire(sql);
+			SQLUtils.setArguments(statement, args);
+			resultSet = statement.executeQuery();
+			TResult result = userDb.createResult(resultSet, connection, null,
+					null);
+			while (result.moveToNext()) {
+				if (rows.size() == limit) {
+					more = true;
+					break;
+				}
+				rows.add(result.getRow());
+			}
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to query for page. SQL: "
+					+ sql, e);
+		} finally {
+			SQLUtils.closeResultSet(resultSet, sql);
+			statementCache.release(sql, statement);
+		}
+
+		String nextToken = null;
+		if (more) {
+			nextToken = String.valueOf(rows.get(rows.size() - 1).getId());
+		}
+
+		return new UserPage<TRow>(rows, nextToken);
+	}
+
+	/**
+	 * Build the page query SQL, with arguments of the last primary key, the
+	 * where arguments, and the limit
+	 * 
+	 * @param where
+	 *            where clause, null for all rows
+	 * @return page SQL
+	 */
+	private String pageSQL(String where) {
+		TTable table = getTable();
+		String pkColumn = CoreSQLUtils.quoteWrap(table.getPkColumn()
+				.getName());
+		StringBuilder sql = new StringBuilder("SELECT ");
+		List<TColumn> columns = table.getColumns();
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				sql.append(", ");
+			}
+			sql.append(CoreSQLUtils.quoteWrap(columns.get(i).getName()));
+		}
+		sql.append(" FROM ").append(CoreSQLUtils.quoteWrap(getTableName()))
+				.append(" WHERE ").append(pkColumn).append(" > ?");
+		if (where != null) {
+			sql.append(" AND (").append(where).append(")");
+		}
+		sql.append(" ORDER BY ").append(pkColumn).append(" LIMIT ?");
+		return sql.toString();
+	}
+
+	/**
+	 * Get the number of rows per batch insert execution
+	 * 
+	 * @return batch size
+	 * @since 1.2.4
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the number of rows per batch insert execution
+	 * 
+	 * @param batchSize
+	 *            batch size, must be greater than 0
+	 * @since 1.2.4
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new GeoPackageException(
+					"Batch size must be greater than 0: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Is each batch insert execution committed separately
+	 * 
+	 * @return true if committed per batch, false if a single transaction
+	 * @since 1.2.4
+	 */
+	public boolean isCommitBatches() {
+		return commitBatches;
+	}
+
+	/**
+	 * Set whether each batch insert execution is committed separately. When
+	 * false, all rows of a batch insert are committed in a single transaction.
+	 * When the connection is already within a transaction, the caller owns the
+	 * commit and this setting is not used.
+	 * 
+	 * @param commitBatches
+	 *            true to commit per batch
+	 * @since 1.2.4
+	 */
+	public void setCommitBatches(boolean commitBatches) {
+		this.commitBatches = commitBatches;
+	}
+
+	/**
+	 * Batch insert the rows without setting the inserted row ids
+	 * 
+	 * @param rows
+	 *            rows to insert
+	 * @return inserted count
+	 * @since 1.2.4
+	 */
+	public int insertBatch(Iterable<TRow> rows) {
+		return insertBatch(rows.iterator(), false);
+	}
+
+	/**
+	 * Batch insert the rows
+	 * 
+	 * @param rows
+	 *            rows to insert
+	 * @param setIds
+	 *            true to set the inserted row id on each row
+	 * @return inserted count
+	 * @since 1.2.4
+	 */
+	public int insertBatch(Iterable<TRow> rows, boolean setIds) {
+		return insertBatch(rows.iterator(), setIds);
+	}
+
+	/**
+	 * Batch insert the rows without setting the inserted row ids
+	 * 
+	 * @param rows
+	 *            rows to insert
+	 * @return inserted count
+	 * @since 1.2.4
+	 */
+	public int insertBatch(Iterator<TRow> rows) {
+		return insertBatch(rows, false);
+	}
+
+	/**
+	 * Batch insert the rows using a single prepared statement, executed every
+	 * {@link #getBatchSize()} rows. Row ids are assigned by the database, any
+	 * primary key values set on the rows are ignored. When setting ids, the
+	 * last inserted row id is read once per executed batch and the batch rows
+	 * are assigned consecutive ids ending at it. SQLite assigns consecutive
+	 * row ids to the rows of a batch inserted on this single writer
+	 * connection, unless the largest possible row id is in use and row ids are
+	 * chosen at random. Upon any failure, rows not yet committed are rolled
+	 * back.
+	 * 
+	 * @param rows
+	 *            rows to insert
+	 * @param setIds
+	 *            true to set the inserted row id on each row
+	 * @return inserted count
+	 * @since 1.2.4
+	 */
+	public int insertBatch(Iterator<TRow> rows, boolean setIds) {
+
+		List<String> columns = new ArrayList<>();
+		for (TColumn column : getTable().getColumns()) {
+			if (!column.isPrimaryKey()) {
+				columns.add(column.getName());
+			}
+		}
+		String sql = SQLUtils.insertSQL(getTableName(),
+				columns.toArray(new String[columns.size()]));
+
+		int inserted = 0;
+
+		PreparedStatement statement = null;
+		boolean transaction = false;
+		boolean success = false;
+		try {
+
+			transaction = connection.getAutoCommit();
+			if (transaction) {
+				connection.setAutoCommit(false);
+			}
+			boolean commit = transaction && commitBatches;
+
+			statement = connection.prepareStatement(sql);
+
+			int batchCount = 0;
+			Object[] args = new Object[columns.size()];
+			List<TRow> batchRows = setIds ? new ArrayList<TRow>() : null;
+
+			while (rows.hasNext()) {
+				TRow row = rows.next();
+				ContentValues values = row.toContentValues();
+				for (int i = 0; i < args.length; i++) {
+					args[i] = values.get(columns.get(i));
+				}
+				SQLUtils.setArguments(statement, args);
+				statement.addBatch();
+				if (setIds) {
+					batchRows.add(row);
+				}
+				batchCount++;
+				if (batchCount >= batchSize) {
+					inserted += executeBatch(statement, batchRows, sql);
+					if (commit) {
+						connection.commit();
+					}
+					batchCount = 0;
+				}
+			}
+
+			if (batchCount > 0) {
+				inserted += executeBatch(statement, batchRows, sql);
+			}
+
+			if (transaction) {
+				connection.commit();
+			}
+			success = true;
+
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to execute SQL batch insert statement: " + sql, e);
+		} finally {
+			SQLUtils.closeStatement(statement, sql);
+			if (transaction) {
+				// Restoring auto commit commits any pending changes, roll back
+				// uncommitted rows first upon any failure
+				if (!success) {
+					try {
+						connection.rollback();
+					} catch (SQLException rollbackException) {
+						log.log(Level.WARNING,
+								"Failed to rollback batch insert: " + sql,
+								rollbackException);
+					}
+				}
+				try {
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					log.log(Level.WARNING,
+							"Failed to restore auto commit after batch insert: "
+									+ sql, e);
+				}
+			}
+		}
+
+		return inserted;
+	}
+
+	/**
+	 * Execute the statement batch, setting the inserted row ids on the batch
+	 * rows
+	 * 
+	 * @param statement
+	 *            batch statement
+	 * @param batchRows
+	 *            rows of the batch to set ids on and clear, null to not set
+	 *            ids
+	 * @param sql
+	 *            insert SQL
+	 * @return inserted count
+	 * @throws SQLException
+	 */
+	private int executeBatch(PreparedStatement statement, List<TRow> batchRows,
+			String sql) throws SQLException {
+		int[] results = statement.executeBatch();
+		int inserted = 0;
+		for (int result : results) {
+			inserted += result == Statement.SUCCESS_NO_INFO ? 1 : result;
+		}
+		if (batchRows != null) {
+			if (inserted != batchRows.size()) {
+				throw new GeoPackageException(
+						"Failed to execute SQL batch insert statement: " + sql
+								+ ". Inserted " + inserted + " of "
+								+ batchRows.size() + " rows.");
+			}
+			long id = lastInsertRowId(sql) - batchRows.size() + 1;
+			for (TRow row : batchRows) {
+				row.setId(id++);
+			}
+			batchRows.clear();
+		}
+		return inserted;
+	}
+
+	/**
+	 * Get the row id of the last row inserted on the connection
+	 * 
+	 * @param sql
+	 *            insert SQL
+	 * @return row id
+	 * @throws SQLException
+	 */
+	private long lastInsertRowId(String sql) throws SQLException {
+		long id;
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement
+						.executeQuery("SELECT last_insert_rowid()")) {
+			if (!resultSet.next()) {
+				throw new GeoPackageException(
+						"Failed to execute SQL batch insert statement: " + sql
+								+ ". No row id was found.");
+			}
+			id = resultSet.getLong(1);
+		}
+		return id;
 	}
 
 }
@@ -0,0 +1,79 @@
+package mil.nga.geopackage.user;
+
+import java.util.List;
+
+/**
+ * Page of user rows ordered by primary key, queried by
+ * {@link UserDao#queryForPage(String, int)}. The continuation token
+ * identifies the position after the last row of the page and remains valid
+ * as rows are inserted and deleted.
+ *
+ * @param <TRow>
+ *            row type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserPage<TRow> {
+
+	/**
+	 * Page rows
+	 */
+	private final List<TRow> rows;
+
+	/**
+	 * Continuation token of the next page, null when no rows remain
+	 */
+	private final String continuationToken;
+
+	/**
+	 * Constructor
+	 *
+	 * @param rows
+	 *            page rows
+	 * @param continuationToken
+	 *            continuation token of the next page, null when no rows
+	 *            remain
+	 */
+	public UserPage(List<TRow> rows, String continuationToken) {
+		this.rows = rows;
+		this.continuationToken = continuationToken;
+	}
+
+	/**
+	 * Get the page rows
+	 *
+	 * @return rows
+	 */
+	public List<TRow> getRows() {
+		return rows;
+	}
+
+	/**
+	 * Get the number of rows in the page
+	 *
+	 * @return row count
+	 */
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * Determine if more rows remain after this page
+	 *
+	 * @return true if a next page exists
+	 */
+	public boolean hasMore() {
+		return continuationToken != null;
+	}
+
+	/**
+	 * Get the continuation token used to query the next page
+	 *
+	 * @return continuation token, null when no rows remain
+	 */
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+}
@@ -0,0 +1,392 @@
+package mil.nga.geopackage.user;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageConnectionPool;
+import mil.nga.geopackage.db.GeoPackageDataType;
+
+/**
+ * Result Set of a user query selecting only projected columns. Values are
+ * read by projected position, either through the typed getters without
+ * creating rows or as lightweight {@link UserProjectedRow} views, so columns
+ * outside the projection are never read or decoded.
+ *
+ * @param <TColumn>
+ *            column type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserProjectedResultSet<TColumn extends UserColumn> {
+
+	/**
+	 * Result Set
+	 */
+	private final ResultSet resultSet;
+
+	/**
+	 * Projected columns
+	 */
+	private final List<TColumn> columns;
+
+	/**
+	 * Projected column indexes by column name
+	 */
+	private final Map<String, Integer> columnIndexes;
+
+	/**
+	 * Projected primary key column index, -1 when not projected
+	 */
+	private final int pkIndex;
+
+	/**
+	 * Connection the query was executed on
+	 */
+	private final Connection connection;
+
+	/**
+	 * Read connection pool to release the connection to on close, null if
+	 * not pooled
+	 */
+	private GeoPackageConnectionPool connectionPool;
+
+	/**
+	 * Constructor
+	 *
+	 * @param columns
+	 *            projected columns in select order
+	 * @param resultSet
+	 *            result set
+	 * @param connection
+	 *            connection the query was executed on
+	 */
+	public UserProjectedResultSet(List<TColumn> columns, ResultSet resultSet,
+			Connection connection) {
+		this.columns = Collections.unmodifiableList(columns);
+		this.resultSet = resultSet;
+		this.connection = connection;
+		Map<String, Integer> indexes = new HashMap<>();
+		int pk = -1;
+		for (int i = 0; i < columns.size(); i++) {
+			TColumn column = columns.get(i);
+			indexes.put(column.getName(), i);
+			if (column.isPrimaryKey()) {
+				pk = i;
+			}
+		}
+		this.columnIndexes = indexes;
+		this.pkIndex = pk;
+	}
+
+	/**
+	 * Set the read connection pool the result connection is released to when
+	 * closed
+	 *
+	 * @param connectionPool
+	 *            read connection pool, null if not pooled
+	 */
+	void setConnectionPool(GeoPackageConnectionPool connectionPool) {
+		this.connectionPool = connectionPool;
+	}
+
+	/**
+	 * Get the Result Set
+	 *
+	 * @return result set
+	 */
+	public ResultSet getResultSet() {
+		return resultSet;
+	}
+
+	/**
+	 * Get the projected columns
+	 *
+	 * @return columns
+	 */
+	public List<TColumn> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Get the number of projected columns
+	 *
+	 * @return column count
+	 */
+	public int columnCount() {
+		return columns.size();
+	}
+
+	/**
+	 * Get the column at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return column
+	 */
+	public TColumn getColumn(int index) {
+		return columns.get(index);
+	}
+
+	/**
+	 * Get the projected index of the column
+	 *
+	 * @param columnName
+	 *            column name
+	 * @return projected index
+	 */
+	public int getColumnIndex(String columnName) {
+		Integer index = columnIndexes.get(columnName);
+		if (index == null) {
+			throw new GeoPackageException("Column is not projected: "
+					+ columnName);
+		}
+		return index;
+	}
+
+	/**
+	 * Move to the next row
+	 *
+	 * @return true if moved to a row
+	 */
+	public boolean moveToNext() {
+		try {
+			return resultSet.next();
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to move ResultSet cursor to next", e);
+		}
+	}
+
+	/**
+	 * Read the current row into a new projected row
+	 *
+	 * @return row
+	 */
+	public UserProjectedRow<TColumn> getRow() {
+		Object[] values = new Object[columns.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getValue(i);
+		}
+		return new UserProjectedRow<TColumn>(columns, columnIndexes, pkIndex,
+				values);
+	}
+
+	/**
+	 * Get the current row primary key id
+	 *
+	 * @return id
+	 */
+	public long getId() {
+		if (pkIndex < 0) {
+			throw new GeoPackageException(
+					"Primary key column is not projected");
+		}
+		return getLong(pkIndex);
+	}
+
+	/**
+	 * Get the value at the projected index, typed by the column data type
+	 *
+	 * @param index
+	 *            projected index
+	 * @return value
+	 */
+	public Object getValue(int index) {
+		Object value;
+		try {
+			value = resultSet.getObject(index + 1);
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to get value for column: "
+					+ columns.get(index).getName(), e);
+		}
+		if (value instanceof Number) {
+			value = toDataType((Number) value, columns.get(index)
+					.getDataType());
+		}
+		return value;
+	}
+
+	/**
+	 * Get the value of the projected column
+	 *
+	 * @param columnName
+	 *            column name
+	 * @return value
+	 */
+	public Object getValue(String columnName) {
+		return getValue(getColumnIndex(columnName));
+	}
+
+	/**
+	 * Get the long value at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return long value, 0 when null
+	 */
+	public long getLong(int index) {
+		try {
+			return resultSet.getLong(index + 1);
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to get long value for column: "
+					+ columns.get(index).getName(), e);
+		}
+	}
+
+	/**
+	 * Get the int value at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return int value, 0 when null
+	 */
+	public int getInt(int index) {
+		try {
+			return resultSet.getInt(index + 1);
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to get int value for column: "
+					+ columns.get(index).getName(), e);
+		}
+	}
+
+	/**
+	 * Get the double value at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return double value, 0 when null
+	 */
+	public double getDouble(int index) {
+		try {
+			return resultSet.getDouble(index + 1);
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to get double value for column: "
+							+ columns.get(index).getName(), e);
+		}
+	}
+
+	/**
+	 * Get the string value at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return string value
+	 */
+	public String getString(int index) {
+		try {
+			return resultSet.getString(index + 1);
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to get string value for column: "
+							+ columns.get(index).getName(), e);
+		}
+	}
+
+	/**
+	 * Get the blob value at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return blob bytes
+	 */
+	public byte[] getBlob(int index) {
+		try {
+			return resultSet.getBytes(index + 1);
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to get blob value for column: "
+							+ columns.get(index).getName(), e);
+		}
+	}
+
+	/**
+	 * Determine if the last value read by a typed getter was null
+	 *
+	 * @return true if null
+	 */
+	public boolean wasNull() {
+		try {
+			return resultSet.wasNull();
+		} catch (SQLException e) {
+			throw new GeoPackageException(
+					"Failed to determine if the previous value was null", e);
+		}
+	}
+
+	/**
+	 * Close the result set, statement, and pooled read connection
+	 */
+	public void close() {
+		try {
+			try {
+				resultSet.getStatement().close();
+			} catch (SQLException e) {
+				throw new GeoPackageException(
+						"Failed to close ResultSet Statement", e);
+			}
+			try {
+				resultSet.close();
+			} catch (SQLException e) {
+				throw new GeoPackageException("Failed to close ResultSet", e);
+			}
+		} finally {
+			// Release a pooled read connection
+			if (connectionPool != null) {
+				connectionPool.release(connection);
+				connectionPool = null;
+			}
+		}
+	}
+
+	/**
+	 * Convert the numeric value to the class of the column data type
+	 *
+	 * @param value
+	 *            numeric value
+	 * @param dataType
+	 *            column data type
+	 * @return typed value
+	 */
+	private static Object toDataType(Number value, GeoPackageDataType dataType) {
+		Object typed = value;
+		if (dataType != null) {
+			switch (dataType) {
+			case BOOLEAN:
+				typed = value.intValue() != 0;
+				break;
+			case TINYINT:
+				typed = value.byteValue();
+				break;
+			case SMALLINT:
+				typed = value.shortValue();
+				break;
+			case MEDIUMINT:
+				typed = value.intValue();
+				break;
+			case INT:
+			case INTEGER:
+				typed = value.longValue();
+				break;
+			case FLOAT:
+				typed = value.floatValue();
+				break;
+			case DOUBLE:
+			case REAL:
+				typed = value.doubleValue();
+				break;
+			default:
+				break;
+			}
+		}
+		return typed;
+	}
+
+}
@@ -0,0 +1,162 @@
+package mil.nga.geopackage.user;
+
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.geopackage.GeoPackageException;
+
+/**
+ * Lightweight row of projected user columns, read by a
+ * {@link UserProjectedResultSet}. Values are indexed by their projected
+ * position rather than the table column index, and the projected columns are
+ * shared by all rows of the result.
+ *
+ * @param <TColumn>
+ *            column type
+ *
+ * @author osbornb
+ * @since 1.2.4
+ */
+public class UserProjectedRow<TColumn extends UserColumn> {
+
+	/**
+	 * Projected columns
+	 */
+	private final List<TColumn> columns;
+
+	/**
+	 * Projected column indexes by column name
+	 */
+	private final Map<String, Integer> columnIndexes;
+
+	/**
+	 * Projected primary key column index, -1 when not projected
+	 */
+	private final int pkIndex;
+
+	/**
+	 * Values by projected index
+	 */
+	private final Object[] values;
+
+	/**
+	 * Constructor
+	 *
+	 * @param columns
+	 *            projected columns
+	 * @param columnIndexes
+	 *            projected column indexes by column name
+	 * @param pkIndex
+	 *            projected primary key column index, -1 when not projected
+	 * @param values
+	 *            values by projected index
+	 */
+	UserProjectedRow(List<TColumn> columns, Map<String, Integer> columnIndexes,
+			int pkIndex, Object[] values) {
+		this.columns = columns;
+		this.columnIndexes = columnIndexes;
+		this.pkIndex = pkIndex;
+		this.values = values;
+	}
+
+	/**
+	 * Get the projected columns
+	 *
+	 * @return columns
+	 */
+	public List<TColumn> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Get the number of projected columns
+	 *
+	 * @return column count
+	 */
+	public int columnCount() {
+		return columns.size();
+	}
+
+	/**
+	 * Get the column at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return column
+	 */
+	public TColumn getColumn(int index) {
+		return columns.get(index);
+	}
+
+	/**
+	 * Get the column name at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return column name
+	 */
+	public String getColumnName(int index) {
+		return columns.get(index).getName();
+	}
+
+	/**
+	 * Get the projected index of the column
+	 *
+	 * @param columnName
+	 *            column name
+	 * @return projected index
+	 */
+	public int getColumnIndex(String columnName) {
+		Integer index = columnIndexes.get(columnName);
+		if (index == null) {
+			throw new GeoPackageException("Column is not projected: "
+					+ columnName);
+		}
+		return index;
+	}
+
+	/**
+	 * Get the value at the projected index
+	 *
+	 * @param index
+	 *            projected index
+	 * @return value
+	 */
+	public Object getValue(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Get the value of the projected column
+	 *
+	 * @param columnName
+	 *            column name
+	 * @return value
+	 */
+	public Object getValue(String columnName) {
+		return values[getColumnIndex(columnName)];
+	}
+
+	/**
+	 * Determine if the primary key column is projected
+	 *
+	 * @return true if the row has an id
+	 */
+	public boolean hasId() {
+		return pkIndex >= 0;
+	}
+
+	/**
+	 * Get the primary key id
+	 *
+	 * @return id
+	 */
+	public long getId() {
+		if (pkIndex < 0) {
+			throw new GeoPackageException(
+					"Primary key column is not projected");
+		}
+		return ((Number) values[pkIndex]).longValue();
+	}
+
+}
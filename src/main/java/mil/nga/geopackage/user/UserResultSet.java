@@ -1,12 +1,16 @@
 package mil.nga.geopackage.user;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 
 import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageConnectionPool;
 import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.db.SQLUtils;
 
 /**
  * Abstract User Result Set. The column index of the GeoPackage core is 0
@@ -21,6 +25,11 @@ import mil.nga.geopackage.db.GeoPackageDataType;
 public abstract class UserResultSet<TColumn extends UserColumn, TTable extends UserTable<TColumn>, TRow extends UserRow<TColumn, TTable>>
 		implements UserCoreResult<TColumn, TTable, TRow> {
 
+	/**
+	 * Unresolved column type marker
+	 */
+	private static final int UNRESOLVED_TYPE = -1;
+
 	/**
 	 * Table
 	 */
@@ -32,20 +41,106 @@ public abstract class UserResultSet<TColumn extends UserColumn, TTable extends U
 	private ResultSet resultSet;
 
 	/**
-	 * Result count
+	 * Result count, null until counted
+	 */
+	private Integer count;
+
+	/**
+	 * Connection used to lazily count the results
+	 */
+	private final Connection connection;
+
+	/**
+	 * Query SQL used to lazily count the results
+	 */
+	private final String sql;
+
+	/**
+	 * Query selection arguments used to lazily count the results
+	 */
+	private final String[] selectionArgs;
+
+	/**
+	 * Read connection pool to release the connection to on close, null if
+	 * not pooled
 	 */
-	private int count;
+	private GeoPackageConnectionPool connectionPool;
+
+	/**
+	 * Result set metadata, retrieved once when first needed
+	 */
+	private ResultSetMetaData metaData;
+
+	/**
+	 * SQLite column types by core index, resolved from the metadata once per
+	 * column
+	 */
+	private int[] columnTypes;
+
+	/**
+	 * Row recycling flag, when true {@link #getRow()} refills and returns the
+	 * same row instance
+	 */
+	private boolean recycleRows = false;
+
+	/**
+	 * Recycled row
+	 */
+	private TRow recycledRow;
 
 	/**
 	 * Constructor
 	 * 
 	 * @param table
 	 * @param resultSet
+	 * @param count
 	 */
 	protected UserResultSet(TTable table, ResultSet resultSet, int count) {
 		this.table = table;
 		this.resultSet = resultSet;
 		this.count = count;
+		this.connection = null;
+		this.sql = null;
+		this.selectionArgs = null;
+	}
+
+	/**
+	 * Constructor which counts the results on the first call to
+	 * {@link #getCount()}
+	 * 
+	 * @param table
+	 *            table
+	 * @param resultSet
+	 *            result set
+	 * @param connection
+	 *            connection
+	 * @param sql
+	 *            query SQL, null to not count the results
+	 * @param selectionArgs
+	 *            query selection arguments
+	 * @since 1.2.4
+	 */
+	protected UserResultSet(TTable table, ResultSet resultSet,
+			Connection connection, String sql, String[] selectionArgs) {
+		this.table = table;
+		this.resultSet = resultSet;
+		this.connection = connection;
+		this.sql = sql;
+		this.selectionArgs = selectionArgs;
+		if (sql == null) {
+			this.count = -1;
+		}
+	}
+
+	/**
+	 * Set the read connection pool the result connection is released to when
+	 * closed
+	 * 
+	 * @param connectionPool
+	 *            read connection pool, null if not pooled
+	 */
+	void setConnectionPool(GeoPackageConnectionPool connectionPool) {
+		this.connectionPool = connectionPool;
 	}
 
 	/**
@@ -76,6 +171,9 @@ public abstract class UserResultSet<TColumn extends UserColumn, TTable extends U
 
 	/**
 	 * {@inheritDoc}
+	 * 
+	 * When recycling rows, the same row instance is refilled and returned on
+	 * each call
 	 */
 	@Override
 	public TRow getRow() {
@@ -83,40 +181,142 @@ public abstract class UserResultSet<TColumn extends UserColumn, TTable extends U
 		TRow row = null;
 
 		if (table != null) {
+			if (recycleRows) {
+				recycledRow = getRow(recycledRow);
+				row = recycledRow;
+			} else {
+				row = readNewRow();
+			}
+		}
 
-			int[] columnTypes = new int[table.columnCount()];
-			Object[] values = new Object[table.columnCount()];
+		return row;
+	}
 
-			try {
+	/**
+	 * Get the current row by refilling the provided row in place. A new row
+	 * is created when the provided row is null or not from this table.
+	 * 
+	 * @param row
+	 *            row to refill
+	 * @return refilled or new row
+	 * @since 1.2.4
+	 */
+	public TRow getRow(TRow row) {
 
-				ResultSetMetaData metaData = resultSet.getMetaData();
+		if (table == null) {
+			return null;
+		}
 
-				for (TColumn column : table.getColumns()) {
+		if (row == null || row.getTable() != table || row.columnTypes == null
+				|| row.values == null
+				|| row.columnTypes.length != table.columnCount()
+				|| row.values.length != table.columnCount()) {
+			row = readNewRow();
+		} else {
+			readRow(row.columnTypes, row.values);
+		}
 
-					int index = column.getIndex();
+		return row;
+	}
 
-					Object value = getValue(column);
-					values[index] = value;
+	/**
+	 * Is row recycling enabled
+	 * 
+	 * @return true if {@link #getRow()} recycles a single row instance
+	 * @since 1.2.4
+	 */
+	public boolean isRecycleRows() {
+		return recycleRows;
+	}
+
+	/**
+	 * Set row recycling. When enabled, {@link #getRow()} refills and returns
+	 * the same row instance for every result instead of creating new rows.
+	 * Rows must not be retained across moves when recycling.
+	 * 
+	 * @param recycleRows
+	 *            true to recycle rows
+	 * @since 1.2.4
+	 */
+	public void setRecycleRows(boolean recycleRows) {
+		this.recycleRows = recycleRows;
+		if (!recycleRows) {
+			recycledRow = null;
+		}
+	}
+
+	/**
+	 * Read the current row into a new row
+	 * 
+	 * @return new row
+	 */
+	private TRow readNewRow() {
+		int[] rowColumnTypes = new int[table.columnCount()];
+		Object[] values = new Object[table.columnCount()];
+		readRow(rowColumnTypes, values);
+		return getRow(rowColumnTypes, values);
+	}
+
+	/**
+	 * Read the current row column types and values into the arrays
+	 * 
+	 * @param rowColumnTypes
+	 *            column types
+	 * @param values
+	 *            values
+	 */
+	private void readRow(int[] rowColumnTypes, Object[] values) {
+
+		try {
+
+			for (TColumn column : table.getColumns()) {
+
+				int index = column.getIndex();
 
-					int columnType;
-					if (value == null) {
-						columnType = UserCoreResultUtils.FIELD_TYPE_NULL;
-					} else {
-						int metadataColumnType = metaData
-								.getColumnType(coreIndexToResultSetIndex(index));
-						columnType = resultSetTypeToSqlLite(metadataColumnType);
-					}
-					columnTypes[index] = columnType;
+				Object value = getValue(column);
+				values[index] = value;
+
+				int columnType;
+				if (value == null) {
+					columnType = UserCoreResultUtils.FIELD_TYPE_NULL;
+				} else {
+					columnType = getColumnType(index);
 				}
-			} catch (SQLException e) {
-				throw new GeoPackageException("Failed to retrieve the row", e);
+				rowColumnTypes[index] = columnType;
 			}
+		} catch (SQLException e) {
+			throw new GeoPackageException("Failed to retrieve the row", e);
+		}
+
+	}
+
+	/**
+	 * Get the SQLite column type, resolving from the metadata only the first
+	 * time each column type is needed
+	 * 
+	 * @param index
+	 *            core column index
+	 * @return SQLite column type
+	 * @throws SQLException
+	 */
+	private int getColumnType(int index) throws SQLException {
 
-			row = getRow(columnTypes, values);
+		if (columnTypes == null) {
+			metaData = resultSet.getMetaData();
+			columnTypes = new int[metaData.getColumnCount()];
+			Arrays.fill(columnTypes, UNRESOLVED_TYPE);
+		}
 
+		int columnType = columnTypes[index];
+		if (columnType == UNRESOLVED_TYPE
+				|| columnType == UserCoreResultUtils.FIELD_TYPE_NULL) {
+			int metadataColumnType = metaData
+					.getColumnType(coreIndexToResultSetIndex(index));
+			columnType = resultSetTypeToSqlLite(metadataColumnType);
+			columnTypes[index] = columnType;
 		}
 
-		return row;
+		return columnType;
 	}
 
 	/**
@@ -160,11 +360,32 @@ public abstract class UserResultSet<TColumn extends UserColumn, TTable extends U
 		return type;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Results created from a query are counted on the first call
+	 * 
+	 * @return count, -1 if not able to determine
+	 */
 	@Override
 	public int getCount() {
+		if (count == null) {
+			count = SQLUtils.count(connection, sql, selectionArgs);
+		}
 		return count;
 	}
 
+	/**
+	 * Determine if the result count has been determined, either on creation
+	 * or by a previous call to {@link #getCount()}
+	 * 
+	 * @return true if counted
+	 * @since 1.2.4
+	 */
+	public boolean isCounted() {
+		return count != null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -240,9 +461,7 @@ public abstract class UserResultSet<TColumn extends UserColumn, TTable extends U
 	public int getType(int columnIndex) {
 		int type;
 		try {
-			int resultSetMetadataType = resultSet.getMetaData().getColumnType(
-					coreIndexToResultSetIndex(columnIndex));
-			type = resultSetTypeToSqlLite(resultSetMetadataType);
+			type = getColumnType(columnIndex);
 		} catch (SQLException e) {
 			throw new GeoPackageException(
 					"Failed to get column type for column index: "
@@ -383,15 +602,23 @@ public abstract class UserResultSet<TColumn extends UserColumn, TTable extends U
 	@Override
 	public void close() {
 		try {
-			resultSet.getStatement().close();
-		} catch (SQLException e) {
-			throw new GeoPackageException(
-					"Failed to close ResultSet Statement", e);
-		}
-		try {
-			resultSet.close();
-		} catch (SQLException e) {
-			throw new GeoPackageException("Failed to close ResultSet", e);
+			try {
+				resultSet.getStatement().close();
+			} catch (SQLException e) {
+				throw new GeoPackageException(
+						"Failed to close ResultSet Statement", e);
+			}
+			try {
+				resultSet.close();
+			} catch (SQLException e) {
+				throw new GeoPackageException("Failed to close ResultSet", e);
+			}
+		} finally {
+			// Release a pooled read connection
+			if (connectionPool != null) {
+				connectionPool.release(connection);
+				connectionPool = null;
+			}
 		}
 	}
 
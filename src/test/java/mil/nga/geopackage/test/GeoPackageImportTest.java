@@ -85,4 +85,28 @@ public class GeoPackageImportTest extends ImportGeoPackageTestCase {
 
 	}
 	
+	/**
+	 * Test the DAO cache
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testDaoCache() throws SQLException {
+
+		GeoPackageTestUtils.testDaoCache(geoPackage);
+
+	}
+
+	/**
+	 * Test transactions
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testTransactions() throws SQLException {
+
+		GeoPackageTestUtils.testTransactions(geoPackage);
+
+	}
+
 }
@@ -3,15 +3,20 @@ package mil.nga.geopackage.test;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import junit.framework.TestCase;
 import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.core.contents.ContentsDao;
 import mil.nga.geopackage.core.srs.SpatialReferenceSystem;
 import mil.nga.geopackage.db.GeoPackageDataType;
 import mil.nga.geopackage.features.columns.GeometryColumns;
 import mil.nga.geopackage.features.columns.GeometryColumnsDao;
 import mil.nga.geopackage.features.user.FeatureColumn;
 import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
 import mil.nga.geopackage.features.user.FeatureRow;
 import mil.nga.geopackage.schema.TableColumnKey;
 import mil.nga.sf.GeometryEnvelope;
@@ -243,4 +248,48 @@ public class GeoPackageTestUtils {
 		}
 	}
 
+	/**
+	 * Test the cached feature table metadata is reused until the schema
+	 * changes, with separate DAO settings per request
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testDaoCache(GeoPackage geoPackage) throws SQLException {
+
+		for (String featureTable : geoPackage.getFeatureTables()) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			FeatureDao cachedDao = geoPackage.getFeatureDao(featureTable);
+			TestCase.assertNotSame(featureDao, cachedDao);
+			TestCase.assertSame(featureDao.getTable(), cachedDao.getTable());
+			TestCase.assertSame(featureDao.getTable(), geoPackage
+					.getFeatureDao(featureDao.getGeometryColumns()).getTable());
+
+			// DAO settings are not shared between requests
+			featureDao.setBatchSize(7);
+			featureDao.getFeatureDb().setCountResults(false);
+			TestCase.assertTrue(cachedDao.getBatchSize() != 7);
+			TestCase.assertTrue(cachedDao.getFeatureDb().isCountResults());
+
+			// Altering the table invalidates the cached metadata
+			String column = "dao_cache_test";
+			TestCase.assertFalse(featureDao.getTable().hasColumn(column));
+			geoPackage.execSQL("ALTER TABLE \"" + featureTable
+					+ "\" ADD COLUMN " + column + " TEXT");
+			FeatureDao alteredDao = geoPackage.getFeatureDao(featureTable);
+			TestCase.assertNotSame(featureDao.getTable(), alteredDao.getTable());
+			TestCase.assertTrue(alteredDao.getTable().hasColumn(column));
+			TestCase.assertEquals(featureDao.getTable().columnCount() + 1,
+					alteredDao.getTable().columnCount());
+			TestCase.assertSame(alteredDao.getTable(), geoPackage
+					.getFeatureDao(featureTable).getTable());
+
+			geoPackage.clearDaoCache(featureTable);
+			TestCase.assertNotSame(alteredDao.getTable(), geoPackage
+					.getFeatureDao(featureTable).getTable());
+		}
+
+	}
+
 }
@@ -541,4 +541,23 @@ public class TestUtils {
 		TestCase.assertNull(geoPackage.quickCheck());
 	}
 
+	/**
+	 * Validate no chunk pipeline producer threads remain running, allowing
+	 * finished producer threads a moment to exit
+	 */
+	public static void validateNoPipelineProducers() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("geopackage-pipeline-producer")) {
+				try {
+					thread.join(1000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				TestCase.assertFalse(
+						"Chunk pipeline producer thread is running: "
+								+ thread.getName(), thread.isAlive());
+			}
+		}
+	}
+
 }
@@ -56,6 +56,18 @@ public class AttributesCreateTest extends CreateGeoPackageTestCase {
 
 	}
 
+	/**
+	 * Test reading column batches
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testColumnBatches() throws SQLException {
+
+		AttributesUtils.testColumnBatches(geoPackage);
+
+	}
+
 	/**
 	 * Test deleting
 	 * 
@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,10 @@ import mil.nga.geopackage.metadata.reference.ReferenceScopeType;
 import mil.nga.geopackage.test.TestUtils;
 import mil.nga.geopackage.test.geom.GeoPackageGeometryDataUtils;
 import mil.nga.geopackage.user.ColumnValue;
+import mil.nga.geopackage.user.UserColumnBatch;
+import mil.nga.geopackage.user.UserColumnBatchReader;
+import mil.nga.geopackage.user.UserColumnVector;
+import mil.nga.geopackage.user.UserColumnVectorType;
 import mil.nga.geopackage.user.UserCoreResultUtils;
 
 /**
@@ -681,6 +686,133 @@ public class AttributesUtils {
 
 	}
 
+	/**
+	 * Test reading column batches
+	 *
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testColumnBatches(GeoPackage geoPackage)
+			throws SQLException {
+
+		for (String tableName : geoPackage.getAttributesTables()) {
+
+			AttributesDao dao = geoPackage.getAttributesDao(tableName);
+			AttributesTable table = dao.getTable();
+
+			int batchSize = 7;
+			AttributesResultSet cursor = dao.queryForAll();
+			UserColumnBatchReader<AttributesColumn> reader = dao
+					.queryForColumnBatches(batchSize);
+			UserColumnBatch<AttributesColumn> batch = reader.getBatch();
+			TestCase.assertEquals(table.columnCount(), batch.columnCount());
+
+			int count = 0;
+			while (reader.readBatch()) {
+				TestCase.assertTrue(batch.size() > 0);
+				TestCase.assertTrue(batch.size() <= batchSize);
+				for (int row = 0; row < batch.size(); row++) {
+					TestCase.assertTrue(cursor.moveToNext());
+					AttributesRow attributesRow = cursor.getRow();
+					for (UserColumnVector<AttributesColumn> vector : batch
+							.getVectors()) {
+						validateColumnVector(vector, row,
+								attributesRow.getValue(vector.getColumn()
+										.getName()));
+					}
+					count++;
+				}
+				// String dictionaries only hold the batch values
+				for (UserColumnVector<AttributesColumn> vector : batch
+						.getVectors()) {
+					if (vector.getType() == UserColumnVectorType.STRING) {
+						TestCase.assertTrue(vector.getDictionary().size() <= batch
+								.size());
+					}
+				}
+			}
+			TestCase.assertFalse(cursor.moveToNext());
+			TestCase.assertEquals(count, reader.getRowCount());
+			TestCase.assertEquals(dao.count(), count);
+			cursor.close();
+			reader.close();
+
+			// Read only the primary key column
+			String pkColumn = table.getPkColumn().getName();
+			reader = dao.queryForColumnBatches(batchSize, pkColumn);
+			batch = reader.getBatch();
+			TestCase.assertEquals(1, batch.columnCount());
+			long previousId = Long.MIN_VALUE;
+			while (reader.readBatch()) {
+				UserColumnVector<AttributesColumn> vector = batch
+						.getVector(pkColumn);
+				TestCase.assertEquals(UserColumnVectorType.LONG,
+						vector.getType());
+				TestCase.assertFalse(vector.hasNulls());
+				long[] ids = vector.getLongs();
+				for (int row = 0; row < batch.size(); row++) {
+					TestCase.assertTrue(ids[row] != previousId);
+					previousId = ids[row];
+				}
+				try {
+					vector.getDoubles();
+					TestCase.fail("Long vector returned doubles");
+				} catch (GeoPackageException e) {
+					// Expected
+				}
+			}
+			TestCase.assertFalse(reader.readBatch());
+			TestCase.assertEquals(count, reader.getRowCount());
+			reader.close();
+		}
+
+	}
+
+	/**
+	 * Validate the column vector value of the batch row against the row value
+	 *
+	 * @param vector
+	 *            column vector
+	 * @param row
+	 *            batch row
+	 * @param value
+	 *            row value
+	 */
+	private static void validateColumnVector(
+			UserColumnVector<AttributesColumn> vector, int row, Object value) {
+
+		TestCase.assertEquals(value == null, vector.isNull(row));
+		if (value == null) {
+			return;
+		}
+
+		switch (vector.getType()) {
+		case LONG:
+			long longValue = value instanceof Boolean ? ((Boolean) value ? 1
+					: 0) : ((Number) value).longValue();
+			TestCase.assertEquals(longValue, vector.getLong(row));
+			break;
+		case DOUBLE:
+			TestCase.assertEquals(((Number) value).doubleValue(),
+					vector.getDouble(row), 0.0);
+			break;
+		case STRING:
+			if (value instanceof String) {
+				TestCase.assertEquals(value, vector.getString(row));
+				TestCase.assertEquals(value, vector.getDictionary().get(
+						vector.getStringCode(row)));
+			}
+			break;
+		case BLOB:
+			byte[] blob = (byte[]) value;
+			TestCase.assertEquals(blob.length, vector.getBlobLength(row));
+			TestCase.assertTrue(Arrays.equals(blob, vector.getBlob(row)));
+			break;
+		default:
+			TestCase.fail("Unexpected column vector type: " + vector.getType());
+		}
+	}
+
 	/**
 	 * Test delete
 	 *
@@ -33,6 +33,42 @@ public class FeatureTableIndexImportTest extends ImportGeoPackageTestCase {
 
 	}
 
+	/**
+	 * Test multiple thread indexing
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testIndexThreads() throws SQLException {
+
+		FeatureTableIndexUtils.testIndexThreads(geoPackage);
+
+	}
+
+	/**
+	 * Test the in-memory packed R-tree
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testInMemory() throws SQLException {
+
+		FeatureTableIndexUtils.testInMemory(geoPackage);
+
+	}
+
+	/**
+	 * Test querying feature rows joined with the geometry index
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testQueryFeatures() throws SQLException {
+
+		FeatureTableIndexUtils.testQueryFeatures(geoPackage);
+
+	}
+
 	/**
 	 * Test delete all table indices
 	 * 
@@ -3,7 +3,11 @@ package mil.nga.geopackage.test.extension.index;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import junit.framework.TestCase;
 import mil.nga.geopackage.GeoPackage;
@@ -14,6 +18,7 @@ import mil.nga.geopackage.extension.GeoPackageExtensions;
 import mil.nga.geopackage.extension.index.FeatureTableIndex;
 import mil.nga.geopackage.extension.index.GeometryIndex;
 import mil.nga.geopackage.extension.index.GeometryIndexDao;
+import mil.nga.geopackage.extension.index.PackedRTree;
 import mil.nga.geopackage.extension.index.TableIndexDao;
 import mil.nga.geopackage.features.user.FeatureDao;
 import mil.nga.geopackage.features.user.FeatureResultSet;
@@ -302,6 +307,313 @@ public class FeatureTableIndexUtils {
 
 	}
 
+	/**
+	 * Test indexing with multiple threads matches indexing on a single thread
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testIndexThreads(GeoPackage geoPackage)
+			throws SQLException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			FeatureTableIndex featureTableIndex = new FeatureTableIndex(
+					geoPackage, featureDao);
+
+			// Index on the calling thread
+			featureTableIndex.setIndexThreads(1);
+			TestGeoPackageProgress progress = new TestGeoPackageProgress();
+			featureTableIndex.setProgress(progress);
+			int expectedCount = featureTableIndex.index(true);
+			TestCase.assertEquals(featureDao.count(), progress.getProgress());
+			Map<Long, GeometryIndex> expectedIndices = new HashMap<>();
+			CloseableIterator<GeometryIndex> results = featureTableIndex
+					.query();
+			while (results.hasNext()) {
+				GeometryIndex geometryIndex = results.next();
+				expectedIndices.put(geometryIndex.getGeomId(), geometryIndex);
+			}
+			results.close();
+			TestCase.assertEquals(expectedCount, expectedIndices.size());
+
+			// Index with a pool of envelope reading threads
+			featureTableIndex.setIndexThreads(4);
+			TestCase.assertEquals(4, featureTableIndex.getIndexThreads());
+			progress = new TestGeoPackageProgress();
+			featureTableIndex.setProgress(progress);
+			TestCase.assertEquals(expectedCount, featureTableIndex.index(true));
+			TestCase.assertEquals(featureDao.count(), progress.getProgress());
+			TestCase.assertEquals(expectedCount, featureTableIndex.count());
+
+			results = featureTableIndex.query();
+			while (results.hasNext()) {
+				GeometryIndex geometryIndex = results.next();
+				GeometryIndex expected = expectedIndices.get(geometryIndex
+						.getGeomId());
+				TestCase.assertNotNull(expected);
+				TestCase.assertEquals(expected.getMinX(),
+						geometryIndex.getMinX());
+				TestCase.assertEquals(expected.getMaxX(),
+						geometryIndex.getMaxX());
+				TestCase.assertEquals(expected.getMinY(),
+						geometryIndex.getMinY());
+				TestCase.assertEquals(expected.getMaxY(),
+						geometryIndex.getMaxY());
+				TestCase.assertEquals(expected.getMinZ(),
+						geometryIndex.getMinZ());
+				TestCase.assertEquals(expected.getMaxZ(),
+						geometryIndex.getMaxZ());
+			}
+			results.close();
+
+			// Cancelling stops the pipeline before returning
+			TestGeoPackageProgress cancelProgress = new TestGeoPackageProgress() {
+				@Override
+				public void addProgress(int progress) {
+					super.addProgress(progress);
+					cancel();
+				}
+			};
+			featureTableIndex.setProgress(cancelProgress);
+			featureTableIndex.index(true);
+			TestCase.assertTrue(cancelProgress.getProgress() <= 1);
+			TestUtils.validateNoPipelineProducers();
+			featureTableIndex.setProgress(null);
+			TestCase.assertEquals(expectedCount, featureTableIndex.index(true));
+
+			TestUtils.validateGeoPackage(geoPackage);
+		}
+
+	}
+
+	/**
+	 * Test the in-memory packed R-tree queries match the geometry index
+	 * queries
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testInMemory(GeoPackage geoPackage)
+			throws SQLException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			FeatureTableIndex featureTableIndex = new FeatureTableIndex(
+					geoPackage, featureDao);
+
+			// Build from the feature envelopes before indexing
+			TestCase.assertFalse(featureTableIndex.isIndexed());
+			PackedRTree featureTree = featureTableIndex.getPackedRTree();
+
+			TestCase.assertTrue(featureTree.size() <= featureDao.count());
+			int indexCount = featureTableIndex.index();
+
+			featureTableIndex.setInMemory(true);
+			TestCase.assertTrue(featureTableIndex.isInMemory());
+			PackedRTree rTree = featureTableIndex.getPackedRTree();
+			TestCase.assertNotSame(featureTree, rTree);
+			TestCase.assertSame(rTree, featureTableIndex.getPackedRTree());
+			TestCase.assertEquals(indexCount, rTree.size());
+
+			GeometryEnvelope envelope = rTree.getEnvelope();
+			if (envelope == null) {
+				continue;
+			}
+
+			// Compare queries over the full extent and random sub extents
+			for (int i = 0; i < 10; i++) {
+				GeometryEnvelope queryEnvelope = envelope;
+				if (i > 0) {
+					double width = envelope.getMaxX() - envelope.getMinX();
+					double height = envelope.getMaxY() - envelope.getMinY();
+					double minX = envelope.getMinX() + Math.random() * width;
+					double minY = envelope.getMinY() + Math.random() * height;
+					queryEnvelope = new GeometryEnvelope(minX, minY, minX
+							+ Math.random() * width / 2.0, minY
+							+ Math.random() * height / 2.0);
+				}
+
+				featureTableIndex.setInMemory(false);
+				long expectedCount = featureTableIndex.count(queryEnvelope);
+				Set<Long> expectedIds = new HashSet<>();
+				for (long id : featureTableIndex.queryIds(queryEnvelope)) {
+					expectedIds.add(id);
+				}
+				TestCase.assertEquals(expectedCount, expectedIds.size());
+
+				featureTableIndex.setInMemory(true);
+				TestCase.assertEquals(expectedCount,
+						featureTableIndex.count(queryEnvelope));
+				long[] ids = featureTableIndex.queryIds(queryEnvelope);
+				TestCase.assertEquals(expectedCount, ids.length);
+				for (long id : ids) {
+					TestCase.assertTrue(expectedIds.contains(id));
+				}
+			}
+
+			// Index changes rebuild the R-tree
+			rTree = featureTableIndex.getPackedRTree();
+			FeatureResultSet featureResultSet = featureDao.queryForAll();
+			FeatureRow featureRow = null;
+			if (featureResultSet.moveToNext()) {
+				featureRow = featureResultSet.getRow();
+			}
+			featureResultSet.close();
+			featureTableIndex.index(featureRow);
+			TestCase.assertNotSame(rTree, featureTableIndex.getPackedRTree());
+			rTree = featureTableIndex.getPackedRTree();
+			featureTableIndex.deleteIndex(featureRow);
+			PackedRTree deletedTree = featureTableIndex.getPackedRTree();
+			TestCase.assertNotSame(rTree, deletedTree);
+			TestCase.assertEquals(featureTableIndex.count(),
+					deletedTree.size());
+		}
+
+		// Compare random boxes against a brute force search
+		int size = 1000;
+		long[] ids = new long[size];
+		double[] bounds = new double[size * 4];
+		for (int i = 0; i < size; i++) {
+			ids[i] = i;
+			double x = Math.random() * 360.0 - 180.0;
+			double y = Math.random() * 180.0 - 90.0;
+			bounds[i * 4] = x;
+			bounds[i * 4 + 1] = y;
+			bounds[i * 4 + 2] = x + Math.random() * 10.0;
+			bounds[i * 4 + 3] = y + Math.random() * 10.0;
+		}
+		PackedRTree rTree = new PackedRTree(ids, bounds);
+		TestCase.assertEquals(size, rTree.size());
+		TestCase.assertTrue(rTree.getLevels() > 1);
+		for (int i = 0; i < 100; i++) {
+			double minX = Math.random() * 360.0 - 180.0;
+			double minY = Math.random() * 180.0 - 90.0;
+			double maxX = minX + Math.random() * 60.0;
+			double maxY = minY + Math.random() * 60.0;
+			Set<Long> expectedIds = new HashSet<>();
+			for (int j = 0; j < size; j++) {
+				if (bounds[j * 4] <= maxX && bounds[j * 4 + 1] <= maxY
+						&& bounds[j * 4 + 2] >= minX
+						&& bounds[j * 4 + 3] >= minY) {
+					expectedIds.add(ids[j]);
+				}
+			}
+			TestCase.assertEquals(expectedIds.size(),
+					rTree.count(minX, minY, maxX, maxY));
+			long[] results = rTree.query(minX, minY, maxX, maxY);
+			TestCase.assertEquals(expectedIds.size(), results.length);
+			for (long id : results) {
+				TestCase.assertTrue(expectedIds.contains(id));
+			}
+		}
+
+	}
+
+	/**
+	 * Test querying feature rows joined with the geometry index
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testQueryFeatures(GeoPackage geoPackage)
+			throws SQLException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			FeatureTableIndex featureTableIndex = new FeatureTableIndex(
+					geoPackage, featureDao);
+			featureTableIndex.index();
+
+			GeometryEnvelope envelope = null;
+			CloseableIterator<GeometryIndex> iterator = featureTableIndex
+					.query();
+			while (iterator.hasNext()) {
+				GeometryIndex geometryIndex = iterator.next();
+				GeometryEnvelope indexEnvelope = new GeometryEnvelope(
+						geometryIndex.getMinX(), geometryIndex.getMinY(),
+						geometryIndex.getMaxX(), geometryIndex.getMaxY());
+				if (envelope == null) {
+					envelope = indexEnvelope;
+				} else {
+					envelope = new GeometryEnvelope(Math.min(
+							envelope.getMinX(), indexEnvelope.getMinX()),
+							Math.min(envelope.getMinY(),
+									indexEnvelope.getMinY()), Math.max(
+									envelope.getMaxX(),
+									indexEnvelope.getMaxX()), Math.max(
+									envelope.getMaxY(),
+									indexEnvelope.getMaxY()));
+				}
+			}
+			try {
+				iterator.close();
+			} catch (IOException e) {
+				TestCase.fail("Failed to close geometry index iterator");
+			}
+			if (envelope == null) {
+				continue;
+			}
+
+			// Compare the joined rows to the geometry index rows over the
+			// full extent and a sub extent
+			GeometryEnvelope subEnvelope = new GeometryEnvelope(
+					envelope.getMinX(), envelope.getMinY(),
+					(envelope.getMinX() + envelope.getMaxX()) / 2.0,
+					(envelope.getMinY() + envelope.getMaxY()) / 2.0);
+			for (GeometryEnvelope queryEnvelope : new GeometryEnvelope[] {
+					envelope, subEnvelope }) {
+
+				Set<Long> expectedIds = new HashSet<>();
+				for (long id : featureTableIndex.queryIds(queryEnvelope)) {
+					expectedIds.add(id);
+				}
+
+				FeatureResultSet results = featureTableIndex
+						.queryFeatures(queryEnvelope);
+				TestCase.assertEquals(expectedIds.size(), results.getCount());
+				int count = 0;
+				while (results.moveToNext()) {
+					FeatureRow row = results.getRow();
+					TestCase.assertTrue(expectedIds.contains(row.getId()));
+					TestCase.assertNotNull(row.getGeometry());
+					count++;
+				}
+				results.close();
+				TestCase.assertEquals(expectedIds.size(), count);
+
+				// Column projection with a where clause and limit
+				String pkColumn = featureDao.getTable().getPkColumn()
+						.getName();
+				String geometryColumn = featureDao.getGeometryColumnName();
+				results = featureTableIndex.queryFeatures(queryEnvelope,
+						pkColumn + " > ?", new String[] { "0" },
+						new String[] { geometryColumn }, 5);
+				count = 0;
+				while (results.moveToNext()) {
+					FeatureRow row = results.getRow();
+					TestCase.assertTrue(expectedIds.contains(row.getId()));
+					TestCase.assertNotNull(row.getGeometry());
+					for (int i = 0; i < row.columnCount(); i++) {
+						if (i != row.getPkColumnIndex()
+								&& i != row.getGeometryColumnIndex()) {
+							TestCase.assertNull(row.getValue(i));
+						}
+					}
+					count++;
+				}
+				results.close();
+				TestCase.assertEquals(Math.min(5, expectedIds.size()), count);
+			}
+		}
+	}
+
 	/**
 	 * Test table index delete all
 	 * 
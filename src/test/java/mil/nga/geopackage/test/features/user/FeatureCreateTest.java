@@ -68,4 +68,100 @@ public class FeatureCreateTest extends CreateGeoPackageTestCase {
 
 	}
 
+	/**
+	 * Test query result counts
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testQueryCount() throws SQLException {
+
+		FeatureUtils.testQueryCount(geoPackage);
+
+	}
+
+	/**
+	 * Test the query result count is not determined until requested
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testQueryCountDeferred() throws SQLException {
+
+		FeatureUtils.testQueryCountDeferred(geoPackage);
+
+	}
+
+	/**
+	 * Test the prepared statement cache
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testStatementCache() throws SQLException {
+
+		FeatureUtils.testStatementCache(geoPackage);
+
+	}
+
+	/**
+	 * Test batch inserts
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testInsertBatch() throws SQLException {
+
+		FeatureUtils.testInsertBatch(geoPackage);
+
+	}
+
+	/**
+	 * Test recycling rows
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testRecycleRows() throws SQLException {
+
+		FeatureUtils.testRecycleRows(geoPackage);
+
+	}
+
+	/**
+	 * Test reprojecting feature tables
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testReproject() throws SQLException {
+
+		FeatureUtils.testReproject(geoPackage);
+
+	}
+
+	/**
+	 * Test querying for keyset pages
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testQueryForPage() throws SQLException {
+
+		FeatureUtils.testQueryForPage(geoPackage);
+
+	}
+
+	/**
+	 * Test projected column queries
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testQueryProjected() throws SQLException {
+
+		FeatureUtils.testQueryProjected(geoPackage);
+
+	}
+
 }
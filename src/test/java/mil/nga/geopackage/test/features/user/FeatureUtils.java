@@ -4,30 +4,44 @@ import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import junit.framework.TestCase;
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.PreparedStatementCache;
 import mil.nga.geopackage.db.SQLUtils;
 import mil.nga.geopackage.db.SQLiteQueryBuilder;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
 import mil.nga.geopackage.features.columns.GeometryColumns;
 import mil.nga.geopackage.features.columns.GeometryColumnsDao;
 import mil.nga.geopackage.features.user.FeatureColumn;
 import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureProjectedResultSet;
 import mil.nga.geopackage.features.user.FeatureResultSet;
 import mil.nga.geopackage.features.user.FeatureRow;
 import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.features.user.FeatureTableReprojector;
 import mil.nga.geopackage.geom.GeoPackageGeometryData;
 import mil.nga.geopackage.test.TestUtils;
 import mil.nga.geopackage.test.geom.GeoPackageGeometryDataUtils;
+import mil.nga.geopackage.test.io.TestGeoPackageProgress;
 import mil.nga.geopackage.user.ColumnValue;
 import mil.nga.geopackage.user.UserCoreResultUtils;
+import mil.nga.geopackage.user.UserPage;
+import mil.nga.geopackage.user.UserProjectedRow;
 import mil.nga.sf.Curve;
 import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
 import mil.nga.sf.SimpleGeometryCollection;
 import mil.nga.sf.GeometryType;
 import mil.nga.sf.LineString;
@@ -38,6 +52,9 @@ import mil.nga.sf.MultiPolygon;
 import mil.nga.sf.Point;
 import mil.nga.sf.Polygon;
 import mil.nga.sf.Position;
+import mil.nga.sf.projection.Projection;
+import mil.nga.sf.projection.ProjectionConstants;
+import mil.nga.sf.projection.ProjectionTransform;
 import mil.nga.sf.util.ByteReader;
 import mil.nga.sf.wkb.GeometryReader;
 
@@ -1129,4 +1146,676 @@ public class FeatureUtils {
 		}
 	}
 
+	/**
+	 * Test lazy and disabled query result counts
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testQueryCount(GeoPackage geoPackage)
+			throws SQLException {
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+
+		if (geometryColumnsDao.isTableExists()) {
+			List<GeometryColumns> results = geometryColumnsDao.queryForAll();
+
+			for (GeometryColumns geometryColumns : results) {
+
+				FeatureDao dao = geoPackage.getFeatureDao(geometryColumns);
+				TestCase.assertNotNull(dao);
+				int expectedCount = dao.count();
+
+				// Count is not determined until requested
+				FeatureResultSet cursor = dao.queryForAll();
+				TestCase.assertFalse(cursor.isCounted());
+				int manualCount = 0;
+				while (cursor.moveToNext()) {
+					manualCount++;
+				}
+				TestCase.assertFalse(cursor.isCounted());
+				TestCase.assertEquals(expectedCount, manualCount);
+				TestCase.assertEquals(expectedCount, cursor.getCount());
+				TestCase.assertTrue(cursor.isCounted());
+				cursor.close();
+
+				// No count mode
+				dao.getFeatureDb().setCountResults(false);
+				cursor = dao.queryForAll();
+				TestCase.assertTrue(cursor.isCounted());
+				TestCase.assertEquals(-1, cursor.getCount());
+				manualCount = 0;
+				while (cursor.moveToNext()) {
+					manualCount++;
+				}
+				TestCase.assertEquals(expectedCount, manualCount);
+				cursor.close();
+				dao.getFeatureDb().setCountResults(true);
+			}
+		}
+	}
+
+	/**
+	 * Test that the result count query does not run until the count is first
+	 * requested, counting rows inserted after the query was executed
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testQueryCountDeferred(GeoPackage geoPackage)
+			throws SQLException {
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+
+		if (geometryColumnsDao.isTableExists()) {
+			List<GeometryColumns> results = geometryColumnsDao.queryForAll();
+
+			for (GeometryColumns geometryColumns : results) {
+
+				FeatureDao dao = geoPackage.getFeatureDao(geometryColumns);
+				TestCase.assertNotNull(dao);
+				int count = dao.count();
+
+				FeatureResultSet cursor = dao.queryForAll();
+				FeatureRow row = null;
+				if (cursor.moveToNext()) {
+					row = cursor.getRow();
+				}
+				cursor.close();
+				if (row == null) {
+					continue;
+				}
+
+				// Rows inserted before the first count request are counted
+				cursor = dao.queryForAll();
+				try {
+					TestCase.assertFalse(cursor.isCounted());
+					TestCase.assertTrue(dao.insert(copyRow(dao, row)) > 0);
+					TestCase.assertFalse(cursor.isCounted());
+					TestCase.assertEquals(count + 1, cursor.getCount());
+					TestCase.assertTrue(cursor.isCounted());
+
+					// The count is determined only once
+					TestCase.assertTrue(dao.insert(copyRow(dao, row)) > 0);
+					TestCase.assertEquals(count + 1, cursor.getCount());
+				} finally {
+					cursor.close();
+				}
+				TestCase.assertEquals(count + 2, dao.count());
+			}
+		}
+	}
+
+	/**
+	 * Test the prepared statement cache on repeated inserts and updates
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testStatementCache(GeoPackage geoPackage)
+			throws SQLException {
+
+		PreparedStatementCache statementCache = ((GeoPackageConnection) geoPackage
+				.getDatabase()).getStatementCache();
+		TestCase.assertNotNull(statementCache);
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+
+		if (geometryColumnsDao.isTableExists()) {
+			List<GeometryColumns> results = geometryColumnsDao.queryForAll();
+
+			for (GeometryColumns geometryColumns : results) {
+
+				FeatureDao dao = geoPackage.getFeatureDao(geometryColumns);
+				TestCase.assertNotNull(dao);
+				int count = dao.count();
+
+				FeatureResultSet cursor = dao.queryForAll();
+				FeatureRow row = null;
+				if (cursor.moveToNext()) {
+					row = cursor.getRow();
+				}
+				cursor.close();
+				if (row == null) {
+					continue;
+				}
+
+				// Repeated inserts of the same columns reuse a statement
+				statementCache.resetCounts();
+				for (int i = 0; i < 3; i++) {
+					FeatureRow copy = copyRow(dao, row);
+					long id = dao.insert(copy);
+					TestCase.assertTrue(id > 0);
+				}
+				TestCase.assertTrue(statementCache.getMissCount() <= 1);
+				TestCase.assertEquals(3, statementCache.getHitCount()
+						+ statementCache.getMissCount());
+				TestCase.assertEquals(count + 3, dao.count());
+
+				// Repeated updates reuse a statement with fresh parameters
+				statementCache.resetCounts();
+				for (int i = 0; i < 3; i++) {
+					TestCase.assertEquals(1, dao.update(row));
+				}
+				TestCase.assertTrue(statementCache.getMissCount() <= 1);
+				TestCase.assertEquals(3, statementCache.getHitCount()
+						+ statementCache.getMissCount());
+				TestCase.assertTrue(statementCache.size() > 0);
+				TestCase.assertTrue(statementCache.size() <= statementCache
+						.getMaxSize());
+			}
+
+			// Clearing closes the cached statements
+			statementCache.clear();
+			TestCase.assertEquals(0, statementCache.size());
+		}
+	}
+
+	/**
+	 * Test batch inserts
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testInsertBatch(GeoPackage geoPackage)
+			throws SQLException {
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+
+		if (geometryColumnsDao.isTableExists()) {
+			List<GeometryColumns> results = geometryColumnsDao.queryForAll();
+
+			for (GeometryColumns geometryColumns : results) {
+
+				FeatureDao dao = geoPackage.getFeatureDao(geometryColumns);
+				TestCase.assertNotNull(dao);
+				int count = dao.count();
+
+				FeatureResultSet cursor = dao.queryForAll();
+				FeatureRow row = null;
+				if (cursor.moveToNext()) {
+					row = cursor.getRow();
+				}
+				cursor.close();
+				if (row == null) {
+					continue;
+				}
+
+				// Batch insert across multiple executions, setting ids
+				int batchSize = dao.getBatchSize();
+				dao.setBatchSize(3);
+				List<FeatureRow> rows = new ArrayList<FeatureRow>();
+				for (int i = 0; i < 10; i++) {
+					rows.add(copyRow(dao, row));
+				}
+				TestCase.assertEquals(10, dao.insertBatch(rows, true));
+				TestCase.assertEquals(count + 10, dao.count());
+				Set<Long> ids = new HashSet<Long>();
+				long firstId = rows.get(0).getId();
+				for (FeatureRow insertedRow : rows) {
+					long id = insertedRow.getId();
+					TestCase.assertEquals(firstId + ids.size(), id);
+					TestCase.assertTrue(ids.add(id));
+					FeatureRow queryRow = dao.queryForIdRow(id);
+					TestCase.assertNotNull(queryRow);
+					GeoPackageGeometryData geometryData = row.getGeometry();
+					GeoPackageGeometryData queryGeometryData = queryRow
+							.getGeometry();
+					if (geometryData == null) {
+						TestCase.assertNull(queryGeometryData);
+					} else if (geometryData.getGeometry() != null) {
+						TestCase.assertNotNull(queryGeometryData);
+						TestCase.assertEquals(geometryData.getGeometry()
+								.getGeometryType(), queryGeometryData
+								.getGeometry().getGeometryType());
+					}
+				}
+
+				// Batch insert committing each execution, without ids
+				dao.setCommitBatches(true);
+				rows.clear();
+				for (int i = 0; i < 5; i++) {
+					rows.add(copyRow(dao, row));
+				}
+				TestCase.assertEquals(5, dao.insertBatch(rows.iterator()));
+				TestCase.assertEquals(count + 15, dao.count());
+				TestCase.assertTrue(dao.getConnection().getAutoCommit());
+
+				dao.setCommitBatches(false);
+				dao.setBatchSize(batchSize);
+
+				// A failing row iterator rolls back the uncommitted rows
+				final List<FeatureRow> failingRows = new ArrayList<FeatureRow>();
+				for (int i = 0; i < 5; i++) {
+					failingRows.add(copyRow(dao, row));
+				}
+				Iterator<FeatureRow> failingIterator = new Iterator<FeatureRow>() {
+
+					private int index = 0;
+
+					@Override
+					public boolean hasNext() {
+						return true;
+					}
+
+					@Override
+					public FeatureRow next() {
+						if (index == failingRows.size()) {
+							throw new IllegalStateException("Row failure");
+						}
+						return failingRows.get(index++);
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+
+				};
+				try {
+					dao.insertBatch(failingIterator, true);
+					TestCase.fail("Failing row iterator did not throw");
+				} catch (IllegalStateException e) {
+					// expected
+				}
+				TestCase.assertEquals(count + 15, dao.count());
+				TestCase.assertTrue(dao.getConnection().getAutoCommit());
+			}
+		}
+	}
+
+	/**
+	 * Test recycling rows while iterating results
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testRecycleRows(GeoPackage geoPackage)
+			throws SQLException {
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+
+		if (geometryColumnsDao.isTableExists()) {
+			List<GeometryColumns> results = geometryColumnsDao.queryForAll();
+
+			for (GeometryColumns geometryColumns : results) {
+
+				FeatureDao dao = geoPackage.getFeatureDao(geometryColumns);
+				TestCase.assertNotNull(dao);
+
+				FeatureResultSet cursor = dao.queryForAll();
+				FeatureResultSet recycleCursor = dao.queryForAll();
+				recycleCursor.setRecycleRows(true);
+				TestCase.assertTrue(recycleCursor.isRecycleRows());
+
+				FeatureRow recycledRow = null;
+				while (cursor.moveToNext()) {
+					TestCase.assertTrue(recycleCursor.moveToNext());
+					FeatureRow row = cursor.getRow();
+					FeatureRow recycleRow = recycleCursor.getRow();
+					if (recycledRow == null) {
+						recycledRow = recycleRow;
+					} else {
+						TestCase.assertSame(recycledRow, recycleRow);
+					}
+					TestCase.assertSame(recycleRow,
+							recycleCursor.getRow(recycleRow));
+					TestCase.assertEquals(row.getId(), recycleRow.getId());
+					for (int i = 0; i < row.columnCount(); i++) {
+						TestCase.assertEquals(row.getRowColumnType(i),
+								recycleRow.getRowColumnType(i));
+						if (i == row.getGeometryColumnIndex()) {
+							GeoPackageGeometryData geometryData = row
+									.getGeometry();
+							GeoPackageGeometryData recycleGeometryData = recycleRow
+									.getGeometry();
+							if (geometryData == null) {
+								TestCase.assertNull(recycleGeometryData);
+							} else {
+								TestCase.assertTrue(Arrays.equals(
+										geometryData.getBytes(),
+										recycleGeometryData.getBytes()));
+							}
+						} else {
+							Object value = row.getValue(i);
+							Object recycleValue = recycleRow.getValue(i);
+							if (value instanceof byte[]) {
+								TestCase.assertTrue(Arrays.equals(
+										(byte[]) value, (byte[]) recycleValue));
+							} else {
+								TestCase.assertEquals(value, recycleValue);
+							}
+						}
+					}
+				}
+				TestCase.assertFalse(recycleCursor.moveToNext());
+
+				cursor.close();
+				recycleCursor.close();
+			}
+		}
+	}
+
+	/**
+	 * Test reprojecting feature tables
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testReproject(GeoPackage geoPackage)
+			throws SQLException {
+
+		for (String featureTable : geoPackage.getFeatureTables()) {
+
+			FeatureDao dao = geoPackage.getFeatureDao(featureTable);
+			Projection projection = dao.getProjection();
+			long epsg = projection.getEpsg();
+			if (epsg <= 0) {
+				continue;
+			}
+			long toEpsg = ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM;
+			if (epsg == toEpsg) {
+				toEpsg = ProjectionConstants.EPSG_WEB_MERCATOR;
+			}
+			ProjectionTransform transform = projection
+					.getTransformation(toEpsg);
+
+			// Expected reprojected geometries
+			Map<Long, Geometry> expected = new HashMap<Long, Geometry>();
+			List<Long> emptyIds = new ArrayList<>();
+			FeatureResultSet cursor = dao.queryForAll();
+			while (cursor.moveToNext()) {
+				GeoPackageGeometryData geometryData = cursor.getGeometry();
+				if (geometryData != null) {
+					if (geometryData.getGeometry() != null) {
+						expected.put(cursor.getRow().getId(), transform
+								.transform(geometryData.getGeometry()));
+					} else {
+						emptyIds.add(cursor.getRow().getId());
+					}
+				}
+			}
+			cursor.close();
+			int reprojected = expected.size() + emptyIds.size();
+			int count = dao.count();
+
+			// Cancelled reprojections are rolled back
+			FeatureTableReprojector reprojector = new FeatureTableReprojector(
+					geoPackage, dao);
+			TestGeoPackageProgress progress = new TestGeoPackageProgress();
+			progress.cancel();
+			reprojector.setProgress(progress);
+			TestCase.assertEquals(0, reprojector.reproject(toEpsg));
+			TestCase.assertEquals(epsg, geoPackage.getFeatureDao(featureTable)
+					.getProjection().getEpsg());
+
+			// Cancelling while chunks are pending stops the pipeline
+			progress = new TestGeoPackageProgress() {
+				@Override
+				public void addProgress(int progress) {
+					super.addProgress(progress);
+					cancel();
+				}
+			};
+			reprojector.setThreads(2);
+			reprojector.setChunkSize(1);
+			reprojector.setProgress(progress);
+			TestCase.assertEquals(0, reprojector.reproject(toEpsg));
+			TestUtils.validateNoPipelineProducers();
+			TestCase.assertEquals(epsg, geoPackage.getFeatureDao(featureTable)
+					.getProjection().getEpsg());
+			TestCase.assertEquals(count, dao.count());
+
+			// Parallel reprojection in small chunks
+			reprojector = new FeatureTableReprojector(geoPackage, dao);
+			reprojector.setThreads(3);
+			reprojector.setChunkSize(3);
+			TestCase.assertEquals(reprojected, reprojector.reproject(toEpsg));
+
+			FeatureDao reprojectedDao = geoPackage.getFeatureDao(featureTable);
+			TestCase.assertEquals(toEpsg, reprojectedDao.getProjection()
+					.getEpsg());
+			long srsId = reprojectedDao.getGeometryColumns().getSrsId();
+			TestCase.assertEquals(srsId, reprojectedDao.getGeometryColumns()
+					.getContents().getSrsId().longValue());
+			TestCase.assertEquals(count, reprojectedDao.count());
+			for (Map.Entry<Long, Geometry> entry : expected.entrySet()) {
+				GeoPackageGeometryData geometryData = reprojectedDao
+						.queryForIdRow(entry.getKey()).getGeometry();
+				TestCase.assertEquals(srsId, geometryData.getSrsId());
+				TestCase.assertNotNull(geometryData.getEnvelope());
+				GeoPackageGeometryDataUtils.compareGeometries(
+						entry.getValue(), geometryData.getGeometry(),
+						.0000001);
+			}
+
+			// Empty geometries are written with the new srs id
+			for (long emptyId : emptyIds) {
+				GeoPackageGeometryData geometryData = reprojectedDao
+						.queryForIdRow(emptyId).getGeometry();
+				TestCase.assertEquals(srsId, geometryData.getSrsId());
+				TestCase.assertNull(geometryData.getGeometry());
+			}
+
+			// Reproject back on the calling thread
+			reprojector = new FeatureTableReprojector(geoPackage,
+					reprojectedDao);
+			reprojector.setThreads(1);
+			TestCase.assertEquals(reprojected, reprojector.reproject(epsg));
+			TestCase.assertEquals(epsg, geoPackage.getFeatureDao(featureTable)
+					.getProjection().getEpsg());
+			TestCase.assertEquals(0, reprojector.reproject(epsg));
+		}
+	}
+
+	/**
+	 * Test querying for keyset pages
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testQueryForPage(GeoPackage geoPackage)
+			throws SQLException {
+
+		for (String featureTable : geoPackage.getFeatureTables()) {
+
+			FeatureDao dao = geoPackage.getFeatureDao(featureTable);
+			String pkColumn = dao.getTable().getPkColumn().getName();
+
+			List<Long> ids = new ArrayList<Long>();
+			FeatureResultSet cursor = dao.query(null, null, null, null,
+					pkColumn);
+			while (cursor.moveToNext()) {
+				ids.add(cursor.getRow().getId());
+			}
+			cursor.close();
+
+			// Page through all rows
+			List<Long> pageIds = new ArrayList<Long>();
+			String token = null;
+			do {
+				UserPage<FeatureRow> page = dao.queryForPage(token, 3);
+				TestCase.assertTrue(page.size() <= 3);
+				if (page.hasMore()) {
+					TestCase.assertEquals(3, page.size());
+				}
+				for (FeatureRow row : page.getRows()) {
+					pageIds.add(row.getId());
+				}
+				token = page.getContinuationToken();
+			} while (token != null);
+			TestCase.assertEquals(ids, pageIds);
+
+			if (ids.isEmpty()) {
+				continue;
+			}
+
+			// Continuation tokens return the same page when repeated
+			UserPage<FeatureRow> first = dao.queryForPage(null, 1);
+			if (first.hasMore()) {
+				UserPage<FeatureRow> second = dao.queryForPage(
+						first.getContinuationToken(), 1);
+				UserPage<FeatureRow> repeated = dao.queryForPage(
+						first.getContinuationToken(), 1);
+				TestCase.assertEquals(ids.get(1).longValue(), second.getRows()
+						.get(0).getId());
+				TestCase.assertEquals(second.getRows().get(0).getId(),
+						repeated.getRows().get(0).getId());
+			}
+
+			// Where clause
+			int middle = ids.size() / 2;
+			UserPage<FeatureRow> wherePage = dao.queryForPage(pkColumn
+					+ " <= ?", new String[] { ids.get(middle).toString() },
+					null, ids.size());
+			TestCase.assertEquals(middle + 1, wherePage.size());
+			TestCase.assertFalse(wherePage.hasMore());
+
+			try {
+				dao.queryForPage("invalid", 3);
+				TestCase.fail("Invalid continuation token did not fail");
+			} catch (GeoPackageException e) {
+				// Expected
+			}
+
+			// Spatial filter through the geometry index
+			GeometryEnvelope boundingBox = dao.getBoundingBox();
+			if (boundingBox != null) {
+				FeatureTableIndex featureTableIndex = new FeatureTableIndex(
+						geoPackage, dao);
+				featureTableIndex.index();
+				int count = 0;
+				token = null;
+				do {
+					UserPage<FeatureRow> page = dao.queryForPage(boundingBox,
+							token, 2);
+					count += page.size();
+					token = page.getContinuationToken();
+				} while (token != null);
+				TestCase.assertEquals(featureTableIndex.count(boundingBox),
+						count);
+			}
+		}
+	}
+
+	/**
+	 * Test projected column queries
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testQueryProjected(GeoPackage geoPackage)
+			throws SQLException {
+
+		for (String featureTable : geoPackage.getFeatureTables()) {
+
+			FeatureDao dao = geoPackage.getFeatureDao(featureTable);
+			FeatureTable table = dao.getTable();
+			String pkColumn = table.getPkColumn().getName();
+
+			// Project the geometry, id, and the last non geometry column
+			String attributeColumn = null;
+			for (FeatureColumn column : table.getColumns()) {
+				if (!column.isPrimaryKey() && !column.isGeometry()) {
+					attributeColumn = column.getName();
+				}
+			}
+			List<String> columns = new ArrayList<String>();
+			columns.add(dao.getGeometryColumnName());
+			columns.add(pkColumn);
+			if (attributeColumn != null) {
+				columns.add(attributeColumn);
+			}
+
+			FeatureResultSet cursor = dao.query(null, null, null, null,
+					pkColumn);
+			FeatureProjectedResultSet projected = dao.queryProjected(
+					columns.toArray(new String[columns.size()]), null, null,
+					pkColumn, null);
+			TestCase.assertEquals(columns.size(), projected.columnCount());
+			TestCase.assertTrue(projected.hasGeometry());
+			TestCase.assertEquals(1, projected.getColumnIndex(pkColumn));
+
+			while (cursor.moveToNext()) {
+				TestCase.assertTrue(projected.moveToNext());
+				FeatureRow row = cursor.getRow();
+				TestCase.assertEquals(row.getId(), projected.getId());
+				GeoPackageGeometryData geometryData = row.getGeometry();
+				GeoPackageGeometryData projectedGeometryData = projected
+						.getGeometry();
+				if (geometryData == null) {
+					TestCase.assertNull(projectedGeometryData);
+				} else {
+					TestCase.assertTrue(Arrays.equals(geometryData.getBytes(),
+							projectedGeometryData.getBytes()));
+				}
+
+				UserProjectedRow<FeatureColumn> projectedRow = projected
+						.getRow();
+				TestCase.assertEquals(columns.size(),
+						projectedRow.columnCount());
+				TestCase.assertEquals(row.getId(), projectedRow.getId());
+				TestCase.assertEquals(pkColumn, projectedRow.getColumnName(1));
+				if (attributeColumn != null) {
+					Object value = row.getValue(attributeColumn);
+					Object projectedValue = projectedRow
+							.getValue(attributeColumn);
+					if (value instanceof byte[]) {
+						TestCase.assertTrue(Arrays.equals((byte[]) value,
+								(byte[]) projectedValue));
+					} else if (value instanceof Number) {
+						TestCase.assertEquals(((Number) value).doubleValue(),
+								((Number) projectedValue).doubleValue());
+					} else {
+						TestCase.assertEquals(value, projectedValue);
+					}
+				}
+			}
+			TestCase.assertFalse(projected.moveToNext());
+			cursor.close();
+			projected.close();
+
+			// Projections without the id or geometry
+			projected = dao.queryProjected(new String[] { pkColumn });
+			TestCase.assertFalse(projected.hasGeometry());
+			int count = 0;
+			while (projected.moveToNext()) {
+				projected.getLong(0);
+				TestCase.assertFalse(projected.wasNull());
+				count++;
+			}
+			projected.close();
+			TestCase.assertEquals(dao.count(), count);
+
+			try {
+				dao.queryProjected(new String[] { "no_such_column" });
+				TestCase.fail("Unknown projected column did not fail");
+			} catch (GeoPackageException e) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * Copy the feature row values into a new row without a primary key
+	 * 
+	 * @param dao
+	 * @param row
+	 * @return new row
+	 */
+	private static FeatureRow copyRow(FeatureDao dao, FeatureRow row) {
+		FeatureRow copy = dao.newRow();
+		for (int column = 0; column < row.columnCount(); column++) {
+			if (column != row.getPkColumnIndex()) {
+				copy.setValue(column, row.getValue(column));
+			}
+		}
+		return copy;
+	}
+
 }
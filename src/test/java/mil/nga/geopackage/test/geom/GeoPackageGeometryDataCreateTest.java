@@ -34,6 +34,19 @@ public class GeoPackageGeometryDataCreateTest extends CreateGeoPackageTestCase {
 
 	}
 
+	/**
+	 * Test reading geometry headers and lazy geometry data
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testGeometryHeader() throws SQLException, IOException {
+
+		GeoPackageGeometryDataUtils.testGeometryHeader(geoPackage);
+
+	}
+
 	/**
 	 * Test geometry projection transform
 	 * 
@@ -48,4 +61,16 @@ public class GeoPackageGeometryDataCreateTest extends CreateGeoPackageTestCase {
 
 	}
 
+	/**
+	 * Test the projection transform cache
+	 * 
+	 * @throws SQLException
+	 */
+	@Test
+	public void testProjectionTransformCache() throws SQLException {
+
+		GeoPackageGeometryDataUtils.testProjectionTransformCache(geoPackage);
+
+	}
+
 }
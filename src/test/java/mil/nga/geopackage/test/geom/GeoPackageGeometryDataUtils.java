@@ -15,6 +15,9 @@ import mil.nga.geopackage.features.columns.GeometryColumnsDao;
 import mil.nga.geopackage.features.user.FeatureDao;
 import mil.nga.geopackage.features.user.FeatureResultSet;
 import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.geom.LazyGeoPackageGeometryData;
+import mil.nga.geopackage.geom.ProjectionTransformCache;
 import mil.nga.sf.projection.Projection;
 import mil.nga.sf.projection.ProjectionConstants;
 import mil.nga.sf.projection.ProjectionFactory;
@@ -25,6 +28,7 @@ import mil.nga.sf.CompoundCurve;
 import mil.nga.sf.Curve;
 import mil.nga.sf.CurvePolygon;
 import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
 import mil.nga.sf.SimpleGeometryCollection;
 import mil.nga.sf.GeometryType;
 import mil.nga.sf.LineString;
@@ -139,6 +143,196 @@ public class GeoPackageGeometryDataUtils {
 
 	}
 
+	/**
+	 * Test reading geometry headers and lazily parsed geometry data
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testGeometryHeader(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		GeometryColumnsDao geometryColumnsDao = geoPackage
+				.getGeometryColumnsDao();
+
+		if (geometryColumnsDao.isTableExists()) {
+			List<GeometryColumns> results = geometryColumnsDao.queryForAll();
+
+			for (GeometryColumns geometryColumns : results) {
+
+				FeatureDao dao = geoPackage.getFeatureDao(geometryColumns);
+				TestCase.assertNotNull(dao);
+
+				FeatureResultSet cursor = dao.queryForAll();
+
+				while (cursor.moveToNext()) {
+
+					TestCase.assertFalse(cursor.isLazyGeometry());
+					GeoPackageGeometryData geometryData = cursor.getGeometry();
+					GeoPackageGeometryHeader header = cursor
+							.getGeometryHeader();
+					if (geometryData == null) {
+						TestCase.assertNull(header);
+						continue;
+					}
+					TestCase.assertNotNull(header);
+
+					// Compare the header values with the parsed geometry data
+					TestCase.assertEquals(geometryData.isExtended(),
+							header.isExtended());
+					TestCase.assertEquals(geometryData.isEmpty(),
+							header.isEmpty());
+					TestCase.assertEquals(geometryData.getByteOrder(),
+							header.getByteOrder());
+					TestCase.assertEquals(geometryData.getSrsId(),
+							header.getSrsId());
+					TestCase.assertEquals(geometryData.getEnvelope(),
+							header.getEnvelope());
+					TestCase.assertEquals(geometryData.getWkbGeometryIndex(),
+							header.getWkbGeometryIndex());
+
+					Geometry geometry = geometryData.getGeometry();
+					if (geometry != null) {
+						TestCase.assertEquals(geometry.getGeometryType(),
+								header.getGeometryType());
+						TestCase.assertEquals(geometry.getGeometryType(),
+								cursor.getGeometryType());
+						TestCase.assertNotNull(cursor.getGeometryEnvelope());
+					}
+					if (header.hasEnvelope()) {
+						TestCase.assertEquals(header.getEnvelope(),
+								cursor.getGeometryEnvelope());
+					}
+
+					// Lazily parsed geometry data does not read the geometry
+					// until requested
+					cursor.setLazyGeometry(true);
+					GeoPackageGeometryData lazyData = cursor.getGeometry();
+					TestCase.assertTrue(lazyData instanceof LazyGeoPackageGeometryData);
+					LazyGeoPackageGeometryData lazyGeometryData = (LazyGeoPackageGeometryData) lazyData;
+					TestCase.assertFalse(lazyGeometryData.isGeometryRead());
+					TestCase.assertEquals(geometryData.getEnvelope(),
+							lazyGeometryData.getEnvelope());
+					compareByteArrays(geometryData.getBytes(),
+							lazyGeometryData.toBytes());
+					TestCase.assertFalse(lazyGeometryData.isGeometryRead());
+					compareGeometryData(geometryData, lazyGeometryData);
+					TestCase.assertTrue(lazyGeometryData.isGeometryRead());
+
+					// Modified lazy geometry data is rewritten
+					lazyGeometryData = (LazyGeoPackageGeometryData) cursor
+							.getGeometry();
+					lazyGeometryData.setByteOrder(lazyGeometryData
+							.getByteOrder() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN
+							: ByteOrder.BIG_ENDIAN);
+					GeoPackageGeometryData geometryDataFromBytes = new GeoPackageGeometryData(
+							lazyGeometryData.toBytes());
+					compareGeometries(geometryData.getGeometry(),
+							geometryDataFromBytes.getGeometry());
+					cursor.setLazyGeometry(false);
+				}
+				cursor.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Test the projection transform cache
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 */
+	public static void testProjectionTransformCache(GeoPackage geoPackage)
+			throws SQLException {
+
+		for (String featureTable : geoPackage.getFeatureTables()) {
+
+			FeatureDao dao = geoPackage.getFeatureDao(featureTable);
+			Projection projection = dao.getProjection();
+			long toEpsg = ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM;
+			if (projection.getEpsg() == toEpsg) {
+				toEpsg = ProjectionConstants.EPSG_WEB_MERCATOR;
+			}
+			Projection toProjection = ProjectionFactory.getProjection(toEpsg);
+
+			TestCase.assertNull(ProjectionTransformCache.getTransform(
+					projection, projection));
+			ProjectionTransform cached = ProjectionTransformCache
+					.getTransform(projection, toProjection);
+			TestCase.assertNotNull(cached);
+			TestCase.assertSame(cached, ProjectionTransformCache.getTransform(
+					projection, toProjection));
+
+			// Other threads use their own transforms
+			final Projection threadFrom = projection;
+			final Projection threadTo = toProjection;
+			final ProjectionTransform[] threadTransform = new ProjectionTransform[1];
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					threadTransform[0] = ProjectionTransformCache.getTransform(
+							threadFrom, threadTo);
+				}
+			});
+			thread.start();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				TestCase.fail("Interrupted waiting for the transform thread");
+			}
+			TestCase.assertNotNull(threadTransform[0]);
+			TestCase.assertNotSame(cached, threadTransform[0]);
+
+			// Clearing replaces the cached transforms
+			TestCase.assertTrue(ProjectionTransformCache.size() > 0);
+			ProjectionTransformCache.clear();
+			TestCase.assertEquals(0, ProjectionTransformCache.size());
+			TestCase.assertNotSame(cached, ProjectionTransformCache
+					.getTransform(projection, toProjection));
+			ProjectionTransform transform = projection
+					.getTransformation(toProjection);
+
+			GeometryEnvelope envelope = dao.getBoundingBox();
+			if (envelope == null || projection.getEpsg() <= 0) {
+				continue;
+			}
+			GeometryEnvelope transformed = ProjectionTransformCache.transform(
+					projection, toProjection, envelope);
+			GeometryEnvelope expected = transform.transform(envelope);
+			TestCase.assertEquals(expected.getMinX(), transformed.getMinX(),
+					.0000001);
+			TestCase.assertEquals(expected.getMaxY(), transformed.getMaxY(),
+					.0000001);
+
+			// Bulk coordinates match the single coordinate transforms
+			double[] coordinates = new double[] { envelope.getMinX(),
+					envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY() };
+			ProjectionTransformCache.transformCoordinates(projection,
+					toProjection, coordinates);
+			double[] min = transform.transform(envelope.getMinX(),
+					envelope.getMinY());
+			double[] max = transform.transform(envelope.getMaxX(),
+					envelope.getMaxY());
+			TestCase.assertEquals(min[0], coordinates[0], .0000001);
+			TestCase.assertEquals(min[1], coordinates[1], .0000001);
+			TestCase.assertEquals(max[0], coordinates[2], .0000001);
+			TestCase.assertEquals(max[1], coordinates[3], .0000001);
+
+			// Bulk envelopes contain the transformed corners
+			double[] envelopes = new double[] { envelope.getMinX(),
+					envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY() };
+			ProjectionTransformCache.transformEnvelopes(projection,
+					toProjection, envelopes);
+			TestCase.assertTrue(envelopes[0] <= Math.min(min[0], max[0]));
+			TestCase.assertTrue(envelopes[1] <= Math.min(min[1], max[1]));
+			TestCase.assertTrue(envelopes[2] >= Math.max(min[0], max[0]));
+			TestCase.assertTrue(envelopes[3] >= Math.max(min[1], max[1]));
+		}
+
+	}
+
 	/**
 	 * Test transforming geometries between projections
 	 * 
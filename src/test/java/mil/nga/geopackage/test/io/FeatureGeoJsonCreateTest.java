@@ -0,0 +1,76 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.CreateGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test Feature GeoJSON writing and importing from a created database
+ * 
+ * @author osbornb
+ */
+public class FeatureGeoJsonCreateTest extends CreateGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public FeatureGeoJsonCreateTest() {
+
+	}
+
+	/**
+	 * Test writing GeoJSON
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWrite() throws SQLException, IOException {
+
+		FeatureGeoJsonUtils.testWrite(geoPackage);
+
+	}
+
+	/**
+	 * Test writing GeoJSON with an unsupported geometry collection member
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWriteUnsupportedMember() throws SQLException, IOException {
+
+		FeatureGeoJsonUtils.testWriteUnsupportedMember(geoPackage);
+
+	}
+
+	/**
+	 * Test writing GeoJSON with null numeric and boolean properties
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWriteNulls() throws SQLException, IOException {
+
+		FeatureGeoJsonUtils.testWriteNulls(geoPackage);
+
+	}
+
+	/**
+	 * Test importing GeoJSON
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testImport() throws SQLException, IOException {
+
+		FeatureGeoJsonUtils.testImport(geoPackage);
+
+	}
+
+}
@@ -0,0 +1,50 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.ImportGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test Feature GeoJSON writing and importing from an imported database
+ * 
+ * @author osbornb
+ */
+public class FeatureGeoJsonImportTest extends ImportGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public FeatureGeoJsonImportTest() {
+
+	}
+
+	/**
+	 * Test writing GeoJSON
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWrite() throws SQLException, IOException {
+
+		FeatureGeoJsonUtils.testWrite(geoPackage);
+
+	}
+
+	/**
+	 * Test importing GeoJSON
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testImport() throws SQLException, IOException {
+
+		FeatureGeoJsonUtils.testImport(geoPackage);
+
+	}
+
+}
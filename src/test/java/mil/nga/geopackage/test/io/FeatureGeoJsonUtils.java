@@ -0,0 +1,444 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.CoreSQLUtils;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.extension.index.FeatureTableIndex;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.geom.GeoPackageGeometryHeader;
+import mil.nga.geopackage.geom.LazyGeoPackageGeometryData;
+import mil.nga.geopackage.io.FeatureGeoJsonImporter;
+import mil.nga.geopackage.io.FeatureGeoJsonWriter;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.Point;
+import mil.nga.sf.projection.ProjectionConstants;
+import mil.nga.sf.projection.ProjectionFactory;
+
+/**
+ * Feature GeoJSON Utility test methods
+ * 
+ * @author osbornb
+ */
+public class FeatureGeoJsonUtils {
+
+	/**
+	 * Feature start text
+	 */
+	private static final String FEATURE_START = "{\"type\":\"Feature\"";
+
+	/**
+	 * Test writing GeoJSON
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testWrite(GeoPackage geoPackage) throws SQLException,
+			IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			int count = featureDao.count();
+
+			// Feature collection
+			FeatureGeoJsonWriter writer = new FeatureGeoJsonWriter(featureDao,
+					128);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			TestCase.assertEquals(count, writer.write(out));
+			String geoJson = new String(out.toByteArray(),
+					StandardCharsets.UTF_8);
+			TestCase.assertTrue(geoJson
+					.startsWith("{\"type\":\"FeatureCollection\",\"features\":["));
+			TestCase.assertTrue(geoJson.endsWith("]}"));
+			TestCase.assertEquals(count, occurrences(geoJson, FEATURE_START));
+
+			// The reused buffer writes the same output again
+			out.reset();
+			TestCase.assertEquals(count, writer.write(out));
+			TestCase.assertEquals(geoJson, new String(out.toByteArray(),
+					StandardCharsets.UTF_8));
+
+			// Newline delimited
+			writer.setDelimited(true);
+			out.reset();
+			TestCase.assertEquals(count, writer.write(out));
+			String delimited = new String(out.toByteArray(),
+					StandardCharsets.UTF_8);
+			String[] lines = delimited.isEmpty() ? new String[0] : delimited
+					.split("\n");
+			TestCase.assertEquals(count, lines.length);
+			for (String line : lines) {
+				TestCase.assertTrue(line.startsWith(FEATURE_START));
+				TestCase.assertTrue(line.endsWith("}"));
+			}
+
+			// Reprojected
+			writer.setProjection(ProjectionFactory
+					.getProjection(ProjectionConstants.EPSG_WEB_MERCATOR));
+			out.reset();
+			TestCase.assertEquals(count, writer.write(out));
+			writer.setProjection(null);
+			TestCase.assertNull(writer.getProjectionTransform());
+
+			// Bounding box filtered through the index and by header scan
+			FeatureTableIndex featureTableIndex = new FeatureTableIndex(
+					geoPackage, featureDao);
+			featureTableIndex.index();
+			GeometryEnvelope envelope = featureTableIndex.getPackedRTree()
+					.getEnvelope();
+			if (envelope != null) {
+				GeometryEnvelope boundingBox = new GeometryEnvelope(
+						envelope.getMinX(), envelope.getMinY(),
+						(envelope.getMinX() + envelope.getMaxX()) / 2.0,
+						(envelope.getMinY() + envelope.getMaxY()) / 2.0);
+				writer.setBoundingBox(boundingBox);
+				out.reset();
+				int scanCount = writer.write(out);
+				TestCase.assertTrue(scanCount <= count);
+
+				writer.setFeatureIndex(featureTableIndex);
+				out.reset();
+				int indexCount = writer.write(out);
+				TestCase.assertEquals(featureTableIndex.count(boundingBox),
+						indexCount);
+				TestCase.assertEquals(indexCount, occurrences(new String(
+						out.toByteArray(), StandardCharsets.UTF_8),
+						FEATURE_START));
+			}
+			featureTableIndex.close();
+		}
+
+	}
+
+	/**
+	 * Test writing GeoJSON for a geometry collection with an unsupported
+	 * member geometry type, which is written as a null geometry
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testWriteUnsupportedMember(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			FeatureResultSet resultSet = featureDao.queryForAll();
+			FeatureRow row = null;
+			try {
+				if (resultSet.moveToNext()) {
+					row = resultSet.getRow();
+				}
+			} finally {
+				resultSet.close();
+			}
+			if (row == null) {
+				continue;
+			}
+
+			// Geometry collection of a point and an empty circular string
+			long srsId = featureDao.getGeometryColumns().getSrsId();
+			GeoPackageGeometryData pointData = new GeoPackageGeometryData(
+					srsId);
+			pointData.setGeometry(new Point(1.0, 2.0));
+			byte[] pointBytes = pointData.toBytes();
+			int wkbIndex = new GeoPackageGeometryHeader(pointBytes)
+					.getWkbGeometryIndex();
+			ByteBuffer geometryBytes = ByteBuffer.allocate(wkbIndex + 39)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			geometryBytes.put(pointBytes, 0, wkbIndex);
+			geometryBytes.put((byte) 1).putInt(7).putInt(2);
+			geometryBytes.put((byte) 1).putInt(1).putDouble(1.0)
+					.putDouble(2.0);
+			geometryBytes.put((byte) 1).putInt(8).putInt(0);
+
+			FeatureRow collectionRow = featureDao.newRow();
+			for (int column = 0; column < row.columnCount(); column++) {
+				if (column != row.getPkColumnIndex()) {
+					collectionRow.setValue(column, row.getValue(column));
+				}
+			}
+			collectionRow.setGeometry(new LazyGeoPackageGeometryData(
+					geometryBytes.array()));
+			featureDao.insert(collectionRow);
+			int count = featureDao.count();
+
+			// The feature is written completely with a null geometry
+			FeatureGeoJsonWriter writer = new FeatureGeoJsonWriter(featureDao);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			TestCase.assertEquals(count, writer.write(out));
+			String geoJson = new String(out.toByteArray(),
+					StandardCharsets.UTF_8);
+			TestCase.assertTrue(geoJson.endsWith("]}"));
+			TestCase.assertEquals(count, occurrences(geoJson, FEATURE_START));
+			TestCase.assertTrue(geoJson.contains("\"geometry\":null"));
+			TestCase.assertFalse(geoJson.contains("GeometryCollection"));
+
+			// The written document is complete and imports every feature
+			String importTable = featureTable + "_unsupported";
+			FeatureGeoJsonImporter importer = new FeatureGeoJsonImporter(
+					geoPackage);
+			importer.setSrsId(srsId);
+			TestCase.assertEquals(count, importer.importFeatures(
+					new ByteArrayInputStream(out.toByteArray()), importTable));
+			geoPackage.deleteTable(importTable);
+		}
+
+	}
+
+	/**
+	 * Test writing GeoJSON for a feature with null numeric and boolean
+	 * properties, which are written as null and imported as null
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testWriteNulls(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			FeatureResultSet resultSet = featureDao.queryForAll();
+			FeatureRow row = null;
+			try {
+				if (resultSet.moveToNext()) {
+					row = resultSet.getRow();
+				}
+			} finally {
+				resultSet.close();
+			}
+			if (row == null) {
+				continue;
+			}
+
+			// Copy of the row with null numeric and boolean values
+			List<String> nullColumns = new ArrayList<>();
+			FeatureRow nullRow = featureDao.newRow();
+			for (FeatureColumn column : featureDao.getTable().getColumns()) {
+				int index = column.getIndex();
+				if (column.isPrimaryKey()) {
+					continue;
+				}
+				if (!column.isNotNull() && isNumericOrBoolean(column)) {
+					nullColumns.add(column.getName());
+				} else {
+					nullRow.setValue(index, row.getValue(index));
+				}
+			}
+			if (nullColumns.isEmpty()) {
+				continue;
+			}
+			long id = featureDao.insert(nullRow);
+			int count = featureDao.count();
+
+			FeatureGeoJsonWriter writer = new FeatureGeoJsonWriter(featureDao);
+			writer.setDelimited(true);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			TestCase.assertEquals(count, writer.write(out));
+			String nullFeature = null;
+			for (String line : new String(out.toByteArray(),
+					StandardCharsets.UTF_8).split("\n")) {
+				if (line.startsWith(FEATURE_START + ",\"id\":" + id + ",")) {
+					nullFeature = line;
+				}
+			}
+			TestCase.assertNotNull(nullFeature);
+			for (String nullColumn : nullColumns) {
+				TestCase.assertTrue(nullFeature.contains("\"" + nullColumn
+						+ "\":null"));
+			}
+
+			// The null values are imported as null
+			String importTable = featureTable + "_nulls";
+			FeatureGeoJsonImporter importer = new FeatureGeoJsonImporter(
+					geoPackage);
+			importer.setSrsId(featureDao.getGeometryColumns().getSrsId());
+			TestCase.assertEquals(count, importer.importFeatures(
+					new ByteArrayInputStream(out.toByteArray()), importTable));
+			FeatureDao importDao = geoPackage.getFeatureDao(importTable);
+			for (String nullColumn : nullColumns) {
+				String where = CoreSQLUtils.quoteWrap(nullColumn)
+						+ " IS NULL";
+				int nulls = featureDao.count(where, null);
+				TestCase.assertTrue(nulls > 0);
+				TestCase.assertEquals(nulls, importDao.count(where, null));
+			}
+			geoPackage.deleteTable(importTable);
+		}
+
+	}
+
+	/**
+	 * Determine if the column is a numeric or boolean column
+	 * 
+	 * @param column
+	 *            feature column
+	 * @return true if numeric or boolean
+	 */
+	private static boolean isNumericOrBoolean(FeatureColumn column) {
+		boolean numeric = false;
+		GeoPackageDataType dataType = column.getDataType();
+		if (dataType != null) {
+			switch (dataType) {
+			case BOOLEAN:
+			case TINYINT:
+			case SMALLINT:
+			case MEDIUMINT:
+			case INT:
+			case INTEGER:
+			case FLOAT:
+			case DOUBLE:
+			case REAL:
+				numeric = true;
+				break;
+			default:
+			}
+		}
+		return numeric;
+	}
+
+	/**
+	 * Test importing GeoJSON
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testImport(GeoPackage geoPackage) throws SQLException,
+			IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			int count = featureDao.count();
+			long srsId = featureDao.getGeometryColumns().getSrsId();
+
+			FeatureGeoJsonWriter writer = new FeatureGeoJsonWriter(featureDao);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			TestCase.assertEquals(count, writer.write(out));
+
+			// Feature collection with a sample smaller than the table
+			String collectionTable = featureTable + "_geojson";
+			FeatureGeoJsonImporter importer = new FeatureGeoJsonImporter(
+					geoPackage);
+			importer.setSrsId(srsId);
+			importer.setSampleSize(2);
+			importer.setBatchSize(3);
+			importer.setTransactionSize(5);
+			TestCase.assertEquals(count, importer.importFeatures(
+					new ByteArrayInputStream(out.toByteArray()),
+					collectionTable));
+			TestCase.assertTrue(geoPackage.getFeatureTables().contains(
+					collectionTable));
+			FeatureDao collectionDao = geoPackage
+					.getFeatureDao(collectionTable);
+			TestCase.assertEquals(count, collectionDao.count());
+			TestCase.assertEquals(srsId, collectionDao.getGeometryColumns()
+					.getSrsId());
+
+			// The imported table exports the same number of features
+			out.reset();
+			TestCase.assertEquals(count,
+					new FeatureGeoJsonWriter(collectionDao).write(out));
+
+			// Newline delimited with the default sizes
+			writer.setDelimited(true);
+			out.reset();
+			TestCase.assertEquals(count, writer.write(out));
+			String delimitedTable = featureTable + "_geojsonseq";
+			importer = new FeatureGeoJsonImporter(geoPackage);
+			importer.setSrsId(srsId);
+			TestCase.assertEquals(count, importer.importFeatures(
+					new ByteArrayInputStream(out.toByteArray()),
+					delimitedTable));
+			TestCase.assertEquals(count, geoPackage.getFeatureDao(delimitedTable)
+					.count());
+
+			// Existing tables are not replaced
+			try {
+				importer.importFeatures(
+						new ByteArrayInputStream(out.toByteArray()),
+						delimitedTable);
+				TestCase.fail("Imported into an existing table");
+			} catch (GeoPackageException e) {
+				// Expected
+			}
+
+			// A failed import after committed transactions deletes the table
+			if (count > 1) {
+				out.reset();
+				writer.setDelimited(false);
+				TestCase.assertEquals(count, writer.write(out));
+				byte[] truncated = Arrays.copyOf(out.toByteArray(),
+						out.size() - 20);
+				String failedTable = featureTable + "_geojson_failed";
+				importer = new FeatureGeoJsonImporter(geoPackage);
+				importer.setSrsId(srsId);
+				importer.setSampleSize(1);
+				importer.setBatchSize(1);
+				importer.setTransactionSize(1);
+				try {
+					importer.importFeatures(
+							new ByteArrayInputStream(truncated), failedTable);
+					TestCase.fail("Imported a truncated feature collection");
+				} catch (IOException | GeoPackageException e) {
+					// Expected
+				}
+				TestCase.assertFalse(geoPackage.isTableExists(failedTable));
+				TestCase.assertNull(geoPackage.getContentsDao().queryForId(
+						failedTable));
+				TestCase.assertFalse(geoPackage.getFeatureTables().contains(
+						failedTable));
+			}
+
+			geoPackage.deleteTable(collectionTable);
+			geoPackage.deleteTable(delimitedTable);
+		}
+
+	}
+
+	/**
+	 * Count the occurrences of the text
+	 * 
+	 * @param value
+	 *            value
+	 * @param text
+	 *            text to count
+	 * @return occurrences
+	 */
+	private static int occurrences(String value, String text) {
+		int count = 0;
+		int index = value.indexOf(text);
+		while (index >= 0) {
+			count++;
+			index = value.indexOf(text, index + text.length());
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,37 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.ImportGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test Feature GeoParquet writing and importing from an imported database
+ * 
+ * @author osbornb
+ */
+public class FeatureParquetImportTest extends ImportGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public FeatureParquetImportTest() {
+
+	}
+
+	/**
+	 * Test writing GeoParquet and importing it back
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWriteImport() throws SQLException, IOException {
+
+		FeatureParquetUtils.testWriteImport(geoPackage);
+
+	}
+
+}
@@ -0,0 +1,155 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.io.FeatureParquetImporter;
+import mil.nga.geopackage.io.FeatureParquetWriter;
+import mil.nga.geopackage.io.ParquetCompression;
+import mil.nga.sf.GeometryEnvelope;
+
+/**
+ * Feature GeoParquet Utility test methods
+ * 
+ * @author osbornb
+ */
+public class FeatureParquetUtils {
+
+	/**
+	 * Test writing GeoParquet and importing it back into new tables
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testWriteImport(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			int count = featureDao.count();
+			String pkColumn = featureDao.getTable().getPkColumn().getName();
+
+			for (ParquetCompression compression : ParquetCompression.values()) {
+
+				File file = File.createTempFile(featureTable, ".parquet");
+				try {
+
+					// Small row groups encoded on multiple threads
+					FeatureParquetWriter writer = new FeatureParquetWriter(
+							featureDao);
+					writer.setRowGroupSize(3);
+					writer.setThreads(2);
+					writer.setCompression(compression);
+					TestCase.assertEquals(count, writer.write(file));
+					TestCase.assertTrue(file.length() > 0);
+
+					String parquetTable = featureTable + "_parquet";
+					FeatureParquetImporter importer = new FeatureParquetImporter(
+							geoPackage);
+					importer.setIdColumnName(pkColumn);
+					importer.setBatchSize(2);
+					importer.setTransactionSize(5);
+					importer.setThreads(2);
+					TestCase.assertEquals(count,
+							importer.importFeatures(file, parquetTable));
+
+					FeatureDao parquetDao = geoPackage
+							.getFeatureDao(parquetTable);
+					TestCase.assertEquals(count, parquetDao.count());
+					long epsg = featureDao.getProjection().getEpsg();
+					if (epsg > 0) {
+						TestCase.assertEquals(epsg, parquetDao.getProjection()
+								.getEpsg());
+					}
+					TestCase.assertEquals(featureDao.getTable().getColumns()
+							.size(), parquetDao.getTable().getColumns().size());
+
+					// Contents bounding box carried over
+					Contents contents = featureDao.getGeometryColumns()
+							.getContents();
+					if (contents.getMinX() != null
+							&& contents.getMinY() != null
+							&& contents.getMaxX() != null
+							&& contents.getMaxY() != null) {
+						GeometryEnvelope boundingBox = featureDao
+								.getBoundingBox();
+						Contents parquetContents = parquetDao
+								.getGeometryColumns().getContents();
+						TestCase.assertEquals(boundingBox.getMinX(),
+								parquetContents.getMinX(), 0.0);
+						TestCase.assertEquals(boundingBox.getMinY(),
+								parquetContents.getMinY(), 0.0);
+						TestCase.assertEquals(boundingBox.getMaxX(),
+								parquetContents.getMaxX(), 0.0);
+						TestCase.assertEquals(boundingBox.getMaxY(),
+								parquetContents.getMaxY(), 0.0);
+					}
+
+					// Ids and Well-Known Binary geometries carried over
+					FeatureResultSet resultSet = featureDao.queryForAll();
+					try {
+						while (resultSet.moveToNext()) {
+							FeatureRow row = resultSet.getRow();
+							FeatureRow parquetRow = parquetDao
+									.queryForIdRow(row.getId());
+							TestCase.assertNotNull(parquetRow);
+							GeoPackageGeometryData geometryData = row
+									.getGeometry();
+							GeoPackageGeometryData parquetGeometryData = parquetRow
+									.getGeometry();
+							if (geometryData == null) {
+								TestCase.assertNull(parquetGeometryData);
+							} else {
+								TestCase.assertTrue(Arrays.equals(
+										geometryData.getWkbBytes(),
+										parquetGeometryData.getWkbBytes()));
+							}
+
+							// Text values of each row group
+							for (FeatureColumn column : featureDao.getTable()
+									.getColumns()) {
+								Object value = row.getValue(column.getIndex());
+								if (value instanceof String) {
+									TestCase.assertEquals(value, parquetRow
+											.getValue(column.getName()));
+								}
+							}
+						}
+					} finally {
+						resultSet.close();
+					}
+
+					// Existing tables are not replaced
+					try {
+						importer.importFeatures(file, parquetTable);
+						TestCase.fail("Imported into an existing table");
+					} catch (GeoPackageException e) {
+						// Expected
+					}
+
+					geoPackage.deleteTable(parquetTable);
+
+				} finally {
+					file.delete();
+				}
+			}
+		}
+
+	}
+
+}
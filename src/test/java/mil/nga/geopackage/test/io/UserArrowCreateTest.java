@@ -0,0 +1,37 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.CreateGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test User Arrow writing from a created database
+ * 
+ * @author osbornb
+ */
+public class UserArrowCreateTest extends CreateGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public UserArrowCreateTest() {
+
+	}
+
+	/**
+	 * Test writing Arrow IPC streams and files
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWrite() throws SQLException, IOException {
+
+		UserArrowUtils.testWrite(geoPackage);
+
+	}
+
+}
@@ -0,0 +1,37 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.ImportGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test User Arrow writing from an imported database
+ * 
+ * @author osbornb
+ */
+public class UserArrowImportTest extends ImportGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public UserArrowImportTest() {
+
+	}
+
+	/**
+	 * Test writing Arrow IPC streams and files
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testWrite() throws SQLException, IOException {
+
+		UserArrowUtils.testWrite(geoPackage);
+
+	}
+
+}
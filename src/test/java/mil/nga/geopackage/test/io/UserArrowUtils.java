@@ -0,0 +1,508 @@
+package mil.nga.geopackage.test.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.attributes.AttributesColumn;
+import mil.nga.geopackage.attributes.AttributesDao;
+import mil.nga.geopackage.attributes.AttributesResultSet;
+import mil.nga.geopackage.attributes.AttributesRow;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.io.UserArrowWriter;
+import mil.nga.geopackage.user.UserColumn;
+import mil.nga.geopackage.user.UserColumnVectorType;
+import mil.nga.geopackage.user.UserDao;
+import mil.nga.geopackage.user.UserResultSet;
+import mil.nga.geopackage.user.UserRow;
+
+/**
+ * User Arrow Utility test methods
+ * 
+ * @author osbornb
+ */
+public class UserArrowUtils {
+
+	/**
+	 * Arrow file magic
+	 */
+	private static final byte[] MAGIC = "ARROW1"
+			.getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Record batch message header type
+	 */
+	private static final int HEADER_RECORD_BATCH = 3;
+
+	/**
+	 * Non ASCII text value
+	 */
+	private static final String UTF8_VALUE = "\u00dcn\u00ef\u2713\u65e5";
+
+	/**
+	 * Test writing Arrow IPC streams and files
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testWrite(GeoPackage geoPackage) throws SQLException,
+			IOException {
+
+		List<UserDao<?, ?, ?, ?>> daos = new ArrayList<>();
+		for (String featureTable : geoPackage.getFeatureTables()) {
+			daos.add(geoPackage.getFeatureDao(featureTable));
+		}
+		boolean inserted = false;
+		for (String attributesTable : geoPackage.getAttributesTables()) {
+			AttributesDao attributesDao = geoPackage
+					.getAttributesDao(attributesTable);
+			inserted = insertTextRows(attributesDao) || inserted;
+			daos.add(attributesDao);
+		}
+
+		// Decoded null, non ASCII UTF-8, and WKB values
+		int[] decoded = new int[3];
+		boolean geometries = false;
+
+		for (UserDao<?, ?, ?, ?> dao : daos) {
+
+			int count = dao.count();
+			int batchSize = 5;
+
+			UserArrowWriter writer = new UserArrowWriter(dao);
+			writer.setBatchSize(batchSize);
+
+			// Stream
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			TestCase.assertEquals(count, writer.writeStream(out));
+			ByteBuffer stream = ByteBuffer.wrap(out.toByteArray()).order(
+					ByteOrder.LITTLE_ENDIAN);
+			List<Long> batches = readMessages(stream, 0);
+			TestCase.assertEquals(stream.capacity(), stream.position());
+			TestCase.assertEquals((count + batchSize - 1) / batchSize,
+					batches.size());
+			TestCase.assertEquals(count, sum(batches));
+			validateColumns(dao, stream, decoded);
+			geometries = geometries
+					|| (dao instanceof FeatureDao && count > 0);
+
+			// File
+			out.reset();
+			TestCase.assertEquals(count, writer.writeFile(out));
+			byte[] fileBytes = out.toByteArray();
+			ByteBuffer file = ByteBuffer.wrap(fileBytes).order(
+					ByteOrder.LITTLE_ENDIAN);
+			for (int i = 0; i < MAGIC.length; i++) {
+				TestCase.assertEquals(MAGIC[i], fileBytes[i]);
+				TestCase.assertEquals(MAGIC[i], fileBytes[fileBytes.length
+						- MAGIC.length + i]);
+			}
+			TestCase.assertEquals(batches, readMessages(file, 8));
+			int footerLength = file.getInt(fileBytes.length - MAGIC.length
+					- 4);
+			TestCase.assertEquals(fileBytes.length - MAGIC.length - 4
+					- footerLength, file.position());
+
+			// Projected columns
+			String pkColumn = dao.getTable().getPkColumn().getName();
+			writer.setColumnNames(pkColumn);
+			out.reset();
+			TestCase.assertEquals(count, writer.writeStream(out));
+			stream = ByteBuffer.wrap(out.toByteArray()).order(
+					ByteOrder.LITTLE_ENDIAN);
+			TestCase.assertEquals(count, sum(readMessages(stream, 0)));
+
+			// Geometries written as GeoArrow WKB
+			if (dao instanceof FeatureDao && count > 0) {
+				writer.setColumnNames();
+				out.reset();
+				writer.writeStream(out);
+				String bytes = new String(out.toByteArray(),
+						StandardCharsets.ISO_8859_1);
+				TestCase.assertTrue(bytes
+						.contains(UserArrowWriter.GEOARROW_WKB));
+			}
+		}
+
+		if (inserted) {
+			TestCase.assertTrue(decoded[0] > 0);
+			TestCase.assertTrue(decoded[1] > 0);
+		}
+		if (geometries) {
+			TestCase.assertTrue(decoded[2] > 0);
+		}
+
+	}
+
+	/**
+	 * Insert copies of the first attributes row with a non ASCII value and a
+	 * null value in the first nullable text column without a default
+	 * 
+	 * @param dao
+	 *            attributes DAO
+	 * @return true if rows were inserted
+	 */
+	private static boolean insertTextRows(AttributesDao dao) {
+
+		AttributesRow source = null;
+		AttributesResultSet resultSet = dao.queryForAll();
+		try {
+			if (resultSet.moveToNext()) {
+				source = resultSet.getRow();
+			}
+		} finally {
+			resultSet.close();
+		}
+
+		boolean inserted = false;
+		if (source != null) {
+			List<AttributesColumn> columns = dao.getTable().getColumns();
+			for (AttributesColumn column : columns) {
+				if (column.getDataType() == GeoPackageDataType.TEXT
+						&& !column.isNotNull()
+						&& column.getDefaultValue() == null) {
+					for (String value : new String[] { UTF8_VALUE, null }) {
+						AttributesRow row = dao.newRow();
+						for (AttributesColumn copyColumn : columns) {
+							if (!copyColumn.isPrimaryKey()) {
+								row.setValue(copyColumn.getIndex(),
+										source.getValue(copyColumn.getIndex()));
+							}
+						}
+						row.setValue(column.getIndex(), value);
+						TestCase.assertTrue(dao.insert(row) > 0);
+					}
+					inserted = true;
+					break;
+				}
+			}
+		}
+
+		return inserted;
+	}
+
+	/**
+	 * Decode the record batches of the stream, validating the validity
+	 * bitmaps, offsets, and values of each column against the table rows
+	 * 
+	 * @param dao
+	 *            user DAO
+	 * @param buffer
+	 *            little endian stream buffer
+	 * @param decoded
+	 *            counts of decoded null, non ASCII UTF-8, and WKB values to
+	 *            add to
+	 */
+	private static void validateColumns(UserDao<?, ?, ?, ?> dao,
+			ByteBuffer buffer, int[] decoded) {
+
+		List<? extends UserColumn> columns = dao.getTable().getColumns();
+		UserResultSet<?, ?, ?> resultSet = dao.queryForAll();
+		try {
+			buffer.position(0);
+			while (true) {
+				TestCase.assertEquals(0xFFFFFFFF, buffer.getInt());
+				int metadataLength = buffer.getInt();
+				if (metadataLength == 0) {
+					break;
+				}
+				int message = buffer.position();
+				int root = message + buffer.getInt(message);
+				long bodyLength = tableLong(buffer, root, 3);
+				int body = message + metadataLength;
+				if (tableByte(buffer, root, 1) == HEADER_RECORD_BATCH) {
+
+					int header = tableOffset(buffer, root, 2);
+					int rows = (int) tableLong(buffer, header, 0);
+					int nodes = tableOffset(buffer, header, 1);
+					int buffers = tableOffset(buffer, header, 2);
+					TestCase.assertEquals(columns.size(), buffer.getInt(nodes));
+
+					List<UserRow<?, ?>> batchRows = new ArrayList<>();
+					for (int row = 0; row < rows; row++) {
+						TestCase.assertTrue(resultSet.moveToNext());
+						batchRows.add(resultSet.getRow());
+					}
+
+					int bufferIndex = 0;
+					for (int i = 0; i < columns.size(); i++) {
+
+						UserColumn column = columns.get(i);
+						int node = nodes + 4 + i * 16;
+						TestCase.assertEquals(rows, buffer.getLong(node));
+						long nullCount = buffer.getLong(node + 8);
+
+						// Validity bitmap, omitted without nulls
+						int[] validity = bodyBuffer(buffer, buffers,
+								bufferIndex++, body);
+						int nulls = 0;
+						for (int row = 0; row < rows; row++) {
+							boolean valid = validity[1] == 0
+									|| isBitSet(buffer, validity[0], row);
+							TestCase.assertEquals(
+									batchRows.get(row).getValue(i) != null,
+									valid);
+							if (!valid) {
+								nulls++;
+							}
+						}
+						TestCase.assertEquals(nullCount, nulls);
+						decoded[0] += nulls;
+
+						boolean geometry = column instanceof FeatureColumn
+								&& ((FeatureColumn) column).isGeometry();
+						UserColumnVectorType type = geometry ? UserColumnVectorType.BLOB
+								: UserColumnVectorType.fromDataType(column
+										.getDataType());
+						int[] values = bodyBuffer(buffer, buffers,
+								bufferIndex++, body);
+						int[] data = null;
+						if (type == UserColumnVectorType.STRING
+								|| type == UserColumnVectorType.BLOB) {
+							data = bodyBuffer(buffer, buffers, bufferIndex++,
+									body);
+							TestCase.assertEquals((rows + 1) * 4, values[1]);
+							TestCase.assertEquals(0, buffer.getInt(values[0]));
+							TestCase.assertEquals(data[1],
+									buffer.getInt(values[0] + rows * 4));
+						}
+
+						for (int row = 0; row < rows; row++) {
+							Object value = batchRows.get(row).getValue(i);
+							byte[] bytes = null;
+							if (data != null) {
+								int start = buffer.getInt(values[0] + row * 4);
+								int end = buffer.getInt(values[0] + (row + 1)
+										* 4);
+								TestCase.assertTrue(end >= start);
+								bytes = new byte[end - start];
+								for (int b = 0; b < bytes.length; b++) {
+									bytes[b] = buffer.get(data[0] + start + b);
+								}
+							}
+							if (value == null) {
+								if (bytes != null) {
+									TestCase.assertEquals(0, bytes.length);
+								}
+								continue;
+							}
+							switch (type) {
+							case LONG:
+								if (column.getDataType() == GeoPackageDataType.BOOLEAN) {
+									TestCase.assertEquals(
+											((Boolean) value).booleanValue(),
+											isBitSet(buffer, values[0], row));
+								} else {
+									TestCase.assertEquals(
+											((Number) value).longValue(),
+											buffer.getLong(values[0] + row * 8));
+								}
+								break;
+							case DOUBLE:
+								TestCase.assertEquals(
+										((Number) value).doubleValue(),
+										buffer.getDouble(values[0] + row * 8),
+										0.0);
+								break;
+							case STRING:
+								String text = new String(bytes,
+										StandardCharsets.UTF_8);
+								if (value instanceof String) {
+									TestCase.assertEquals(value, text);
+									if (bytes.length > text.length()) {
+										decoded[1]++;
+									}
+								}
+								break;
+							default:
+								if (geometry) {
+									TestCase.assertTrue(Arrays.equals(
+											((GeoPackageGeometryData) value)
+													.getWkbBytes(), bytes));
+									decoded[2]++;
+								} else {
+									TestCase.assertTrue(Arrays.equals(
+											(byte[]) value, bytes));
+								}
+							}
+						}
+					}
+					TestCase.assertEquals(bufferIndex, buffer.getInt(buffers));
+				} else {
+					TestCase.assertEquals(0, bodyLength);
+				}
+				buffer.position((int) (body + bodyLength));
+			}
+			TestCase.assertFalse(resultSet.moveToNext());
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Determine if the row bit of a bitmap is set
+	 * 
+	 * @param buffer
+	 *            buffer
+	 * @param bitmap
+	 *            bitmap position
+	 * @param row
+	 *            row
+	 * @return true if set
+	 */
+	private static boolean isBitSet(ByteBuffer buffer, int bitmap, int row) {
+		return (buffer.get(bitmap + (row >>> 3)) & (1 << (row & 7))) != 0;
+	}
+
+	/**
+	 * Get the position and length of a record batch body buffer
+	 * 
+	 * @param buffer
+	 *            buffer
+	 * @param buffers
+	 *            body buffers vector position
+	 * @param index
+	 *            buffer index
+	 * @param body
+	 *            body position
+	 * @return buffer position and length
+	 */
+	private static int[] bodyBuffer(ByteBuffer buffer, int buffers,
+			int index, int body) {
+		int element = buffers + 4 + index * 16;
+		return new int[] { body + (int) buffer.getLong(element),
+				(int) buffer.getLong(element + 8) };
+	}
+
+	/**
+	 * Read the encapsulated messages through the end of stream marker,
+	 * returning the record batch row counts
+	 * 
+	 * @param buffer
+	 *            little endian buffer
+	 * @param position
+	 *            first message position
+	 * @return record batch row counts
+	 */
+	private static List<Long> readMessages(ByteBuffer buffer, int position) {
+		List<Long> batches = new ArrayList<>();
+		buffer.position(position);
+		while (true) {
+			TestCase.assertEquals(0, buffer.position() % 8);
+			TestCase.assertEquals(0xFFFFFFFF, buffer.getInt());
+			int metadataLength = buffer.getInt();
+			if (metadataLength == 0) {
+				break;
+			}
+			int message = buffer.position();
+			TestCase.assertEquals(0, metadataLength % 8);
+			int root = message + buffer.getInt(message);
+			long bodyLength = tableLong(buffer, root, 3);
+			if (tableByte(buffer, root, 1) == HEADER_RECORD_BATCH) {
+				int header = tableOffset(buffer, root, 2);
+				batches.add(tableLong(buffer, header, 0));
+			} else {
+				TestCase.assertEquals(0, bodyLength);
+			}
+			buffer.position((int) (message + metadataLength + bodyLength));
+		}
+		return batches;
+	}
+
+	/**
+	 * Get the position of a flat buffer table field
+	 * 
+	 * @param buffer
+	 *            buffer
+	 * @param table
+	 *            table position
+	 * @param field
+	 *            field index
+	 * @return field position, -1 when absent
+	 */
+	private static int field(ByteBuffer buffer, int table, int field) {
+		int vtable = table - buffer.getInt(table);
+		int vtableLength = buffer.getShort(vtable);
+		int entry = 4 + field * 2;
+		int offset = entry < vtableLength ? buffer.getShort(vtable + entry)
+				: 0;
+		return offset != 0 ? table + offset : -1;
+	}
+
+	/**
+	 * Get a flat buffer table long field
+	 * 
+	 * @param buffer
+	 *            buffer
+	 * @param table
+	 *            table position
+	 * @param field
+	 *            field index
+	 * @return long value, 0 when absent
+	 */
+	private static long tableLong(ByteBuffer buffer, int table, int field) {
+		int position = field(buffer, table, field);
+		return position >= 0 ? buffer.getLong(position) : 0;
+	}
+
+	/**
+	 * Get a flat buffer table byte field
+	 * 
+	 * @param buffer
+	 *            buffer
+	 * @param table
+	 *            table position
+	 * @param field
+	 *            field index
+	 * @return byte value, 0 when absent
+	 */
+	private static int tableByte(ByteBuffer buffer, int table, int field) {
+		int position = field(buffer, table, field);
+		return position >= 0 ? buffer.get(position) : 0;
+	}
+
+	/**
+	 * Get a flat buffer table referenced table position
+	 * 
+	 * @param buffer
+	 *            buffer
+	 * @param table
+	 *            table position
+	 * @param field
+	 *            field index
+	 * @return referenced table position
+	 */
+	private static int tableOffset(ByteBuffer buffer, int table, int field) {
+		int position = field(buffer, table, field);
+		TestCase.assertTrue(position >= 0);
+		return position + buffer.getInt(position);
+	}
+
+	/**
+	 * Sum the record batch row counts
+	 * 
+	 * @param batches
+	 *            record batch row counts
+	 * @return total rows
+	 */
+	private static long sum(List<Long> batches) {
+		long sum = 0;
+		for (long rows : batches) {
+			sum += rows;
+		}
+		return sum;
+	}
+
+}
@@ -1,14 +1,32 @@
 package mil.nga.geopackage.test.manager;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageConnection;
+import mil.nga.geopackage.db.GeoPackageConnectionPool;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
 import mil.nga.geopackage.manager.GeoPackageManager;
+import mil.nga.geopackage.manager.GeoPackageOpenOptions;
 import mil.nga.geopackage.test.BaseTestCase;
 import mil.nga.geopackage.test.TestConstants;
 import mil.nga.geopackage.test.TestUtils;
@@ -217,4 +235,177 @@ public class GeoPackageManagerTest extends BaseTestCase {
 		}
 	}
 
+	/**
+	 * Test opening a database with a read connection pool and querying from
+	 * multiple threads
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testOpenConnectionPool() throws Exception {
+
+		File testFolder = folder.newFolder();
+		File dbFile = new File(testFolder, TestConstants.IMPORT_DB_FILE_NAME);
+		Files.copy(TestUtils.getImportDbFile().toPath(), dbFile.toPath());
+
+		// Expected counts from a single connection
+		final Map<String, Integer> expectedCounts = new HashMap<>();
+		GeoPackage geoPackage = GeoPackageManager.open(dbFile);
+		for (String featureTable : geoPackage.getFeatureTables()) {
+			expectedCounts.put(featureTable,
+					countRows(geoPackage.getFeatureDao(featureTable)));
+		}
+		geoPackage.close();
+
+		GeoPackage pooledGeoPackage = GeoPackageManager.open(dbFile, 3);
+		assertNotNull("Failed to open database", pooledGeoPackage);
+		GeoPackageConnection connection = (GeoPackageConnection) pooledGeoPackage
+				.getDatabase();
+		assertTrue(connection.isWriteAheadLogging());
+		GeoPackageConnectionPool connectionPool = connection
+				.getConnectionPool();
+		assertNotNull(connectionPool);
+		assertEquals(3, connectionPool.getMaxSize());
+
+		// Share the feature DAOs across the query threads
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (final String featureTable : expectedCounts.keySet()) {
+			final FeatureDao featureDao = pooledGeoPackage
+					.getFeatureDao(featureTable);
+			for (int i = 0; i < 32; i++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						return expectedCounts.get(featureTable) == countRows(featureDao);
+					}
+				}));
+			}
+		}
+		for (Future<Boolean> result : results) {
+			assertTrue(result.get());
+		}
+		executor.shutdown();
+
+		assertTrue(connectionPool.size() <= connectionPool.getMaxSize());
+		assertEquals(connectionPool.size(), connectionPool.getIdleCount());
+
+		// A thread holding every read connection queries on the writer
+		// connection instead of waiting on itself
+		for (Map.Entry<String, Integer> expected : expectedCounts.entrySet()) {
+			FeatureDao featureDao = pooledGeoPackage.getFeatureDao(expected
+					.getKey());
+			List<FeatureResultSet> held = new ArrayList<>();
+			try {
+				for (int i = 0; i < connectionPool.getMaxSize(); i++) {
+					held.add(featureDao.queryForAll());
+				}
+				assertEquals(0, connectionPool.getIdleCount());
+				assertEquals(expected.getValue().intValue(),
+						countRows(featureDao));
+			} finally {
+				for (FeatureResultSet resultSet : held) {
+					resultSet.close();
+				}
+			}
+			assertEquals(connectionPool.size(), connectionPool.getIdleCount());
+		}
+
+		// Connections released after closing the pool are closed
+		Connection readConnection = connectionPool.acquire();
+		assertNotNull(readConnection);
+		connectionPool.close();
+		connectionPool.release(readConnection);
+		assertTrue(readConnection.isClosed());
+		assertEquals(0, connectionPool.getIdleCount());
+
+		pooledGeoPackage.close();
+	}
+
+	/**
+	 * Test opening a database read only with memory mapping and pragmas
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testOpenReadOnly() throws Exception {
+
+		File testFolder = folder.newFolder();
+		File dbFile = new File(testFolder, TestConstants.IMPORT_DB_FILE_NAME);
+		Files.copy(TestUtils.getImportDbFile().toPath(), dbFile.toPath());
+
+		// Expected counts from a writable connection
+		Map<String, Integer> expectedCounts = new HashMap<>();
+		GeoPackage geoPackage = GeoPackageManager.open(dbFile);
+		for (String featureTable : geoPackage.getFeatureTables()) {
+			expectedCounts.put(featureTable,
+					countRows(geoPackage.getFeatureDao(featureTable)));
+		}
+		geoPackage.close();
+
+		GeoPackageOpenOptions options = GeoPackageOpenOptions.immutable();
+		options.setMmapSize(64L * 1024 * 1024);
+		options.setCacheSize(-8000);
+		options.setTempStoreMemory(true);
+		options.setQueryOnly(true);
+		options.setReadConnections(2);
+
+		GeoPackage readOnlyGeoPackage = GeoPackageManager.open(dbFile, options);
+		assertNotNull("Failed to open database", readOnlyGeoPackage);
+		assertFalse(readOnlyGeoPackage.isWritable());
+		GeoPackageConnection connection = (GeoPackageConnection) readOnlyGeoPackage
+				.getDatabase();
+		assertFalse(connection.isWriteAheadLogging());
+		assertEquals(
+				Integer.valueOf(1),
+				connection.querySingleIntResult("PRAGMA query_only", null));
+		assertEquals(Integer.valueOf(-8000),
+				connection.querySingleIntResult("PRAGMA cache_size", null));
+
+		for (Map.Entry<String, Integer> expected : expectedCounts.entrySet()) {
+			assertEquals(expected.getValue().intValue(),
+					countRows(readOnlyGeoPackage.getFeatureDao(expected
+							.getKey())));
+		}
+
+		try {
+			connection.execSQL("CREATE TABLE read_only_test (id INTEGER)");
+			fail("Write to a read only GeoPackage did not fail");
+		} catch (GeoPackageException e) {
+			// Expected
+		}
+
+		readOnlyGeoPackage.close();
+
+		try {
+			GeoPackageManager.open(new File(folder.newFolder(),
+					TestConstants.TEST_DB_FILE_NAME), GeoPackageOpenOptions
+					.readOnly());
+			fail("Opened a missing read only GeoPackage");
+		} catch (GeoPackageException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * Count the rows by iterating all feature results
+	 * 
+	 * @param featureDao
+	 *            feature dao
+	 * @return row count
+	 */
+	private static int countRows(FeatureDao featureDao) {
+		int count = 0;
+		FeatureResultSet resultSet = featureDao.queryForAll();
+		try {
+			while (resultSet.moveToNext()) {
+				resultSet.getRow();
+				count++;
+			}
+		} finally {
+			resultSet.close();
+		}
+		return count;
+	}
+
 }
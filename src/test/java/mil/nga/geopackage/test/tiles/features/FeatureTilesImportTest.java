@@ -0,0 +1,37 @@
+package mil.nga.geopackage.test.tiles.features;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.ImportGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test Feature Tiles from an imported database
+ * 
+ * @author osbornb
+ */
+public class FeatureTilesImportTest extends ImportGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public FeatureTilesImportTest() {
+
+	}
+
+	/**
+	 * Test drawing cached feature tiles
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testDrawTiles() throws SQLException, IOException {
+
+		FeatureTilesUtils.testDrawTiles(geoPackage);
+
+	}
+
+}
@@ -0,0 +1,167 @@
+package mil.nga.geopackage.test.tiles.features;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.features.user.FeatureChangeListener;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.geopackage.tiles.features.FeatureTiles;
+import mil.nga.sf.GeometryEnvelope;
+
+/**
+ * Feature Tiles Utility test methods
+ * 
+ * @author osbornb
+ */
+public class FeatureTilesUtils {
+
+	/**
+	 * Test drawing cached feature tiles and invalidating them through the
+	 * feature table change listeners
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testDrawTiles(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			if (featureDao.getProjection().getEpsg() <= 0) {
+				continue;
+			}
+
+			FeatureTiles featureTiles = new FeatureTiles(geoPackage,
+					featureDao);
+			try {
+				featureTiles.getFeatureIndex().index();
+				TestCase.assertEquals(256, featureTiles.getTileWidth());
+				TestCase.assertEquals(256, featureTiles.getTileHeight());
+				TestCase.assertEquals("png", featureTiles.getCompressFormat());
+				TestCase.assertTrue(featureTiles.isFillPolygon());
+
+				// Drawn tiles are cached, including tiles without features
+				TestCase.assertFalse(featureTiles.isCached(0, 0, 0));
+				byte[] tile = featureTiles.drawTileBytes(0, 0, 0);
+				TestCase.assertTrue(featureTiles.isCached(0, 0, 0));
+				TestCase.assertSame(tile, featureTiles.drawTileBytes(0, 0, 0));
+				BufferedImage image = featureTiles.drawTile(0, 0, 0);
+				if (tile == null) {
+					TestCase.assertNull(image);
+					TestCase.assertEquals(0, featureTiles.getCacheSize());
+				} else {
+					TestCase.assertNotNull(image);
+					BufferedImage tileImage = ImageIO
+							.read(new ByteArrayInputStream(tile));
+					TestCase.assertEquals(256, tileImage.getWidth());
+					TestCase.assertEquals(256, tileImage.getHeight());
+					TestCase.assertEquals(tile.length,
+							featureTiles.getCacheSize());
+				}
+				for (int x = 0; x < 2; x++) {
+					for (int y = 0; y < 2; y++) {
+						featureTiles.drawTileBytes(x, y, 1);
+						TestCase.assertTrue(featureTiles.isCached(x, y, 1));
+					}
+				}
+				TestCase.assertEquals(5, featureTiles.getCacheCount());
+
+				// Updating a feature invalidates the tiles containing it
+				FeatureRow updateRow = null;
+				FeatureResultSet resultSet = featureDao.queryForAll();
+				try {
+					while (updateRow == null && resultSet.moveToNext()) {
+						FeatureRow row = resultSet.getRow();
+						GeoPackageGeometryData geometryData = row
+								.getGeometry();
+						if (geometryData != null && !geometryData.isEmpty()
+								&& geometryData.getGeometry() != null) {
+							updateRow = row;
+						}
+					}
+				} finally {
+					resultSet.close();
+				}
+				if (updateRow != null) {
+					TestCase.assertEquals(1, featureDao.update(updateRow));
+					TestCase.assertFalse(featureTiles.isCached(0, 0, 0));
+					TestCase.assertTrue(featureTiles.getCacheCount() < 5);
+					featureTiles.drawTileBytes(0, 0, 0);
+					TestCase.assertTrue(featureTiles.isCached(0, 0, 0));
+
+					// Listeners are registered per table, surviving DAO
+					// cache invalidation
+					geoPackage.clearDaoCache(featureTable);
+					FeatureDao otherDao = geoPackage
+							.getFeatureDao(featureTable);
+					TestCase.assertNotSame(featureDao, otherDao);
+					TestCase.assertEquals(1, otherDao.update(updateRow));
+					TestCase.assertFalse(featureTiles.isCached(0, 0, 0));
+
+					// Changes in a transaction are notified once at commit
+					final int[] notifications = new int[1];
+					FeatureChangeListener listener = new FeatureChangeListener() {
+						@Override
+						public void featuresChanged(FeatureDao dao,
+								GeometryEnvelope envelope) {
+							notifications[0]++;
+						}
+					};
+					geoPackage.addFeatureChangeListener(featureTable,
+							listener);
+					featureTiles.drawTileBytes(0, 0, 0);
+					geoPackage.beginTransaction();
+					try {
+						TestCase.assertEquals(1, otherDao.update(updateRow));
+						TestCase.assertEquals(1, featureDao.update(updateRow));
+						TestCase.assertTrue(featureTiles.isCached(0, 0, 0));
+						TestCase.assertEquals(0, notifications[0]);
+					} finally {
+						geoPackage.commit();
+					}
+					TestCase.assertFalse(featureTiles.isCached(0, 0, 0));
+					TestCase.assertEquals(1, notifications[0]);
+
+					// Rolled back changes are not notified
+					featureTiles.drawTileBytes(0, 0, 0);
+					geoPackage.beginTransaction();
+					try {
+						TestCase.assertEquals(1, otherDao.update(updateRow));
+					} finally {
+						geoPackage.rollback();
+					}
+					TestCase.assertTrue(featureTiles.isCached(0, 0, 0));
+					TestCase.assertEquals(1, notifications[0]);
+					TestCase.assertTrue(geoPackage.removeFeatureChangeListener(
+							featureTable, listener));
+				}
+
+				// Disabled caching
+				featureTiles.setMaxCacheSize(0);
+				TestCase.assertEquals(0, featureTiles.getCacheCount());
+				featureTiles.drawTileBytes(0, 0, 0);
+				TestCase.assertFalse(featureTiles.isCached(0, 0, 0));
+			} finally {
+				featureTiles.close();
+			}
+
+			// Closing clears the cache
+			TestCase.assertEquals(0, featureTiles.getCacheCount());
+		}
+
+	}
+
+}
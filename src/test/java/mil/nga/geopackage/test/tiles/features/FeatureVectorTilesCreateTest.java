@@ -0,0 +1,50 @@
+package mil.nga.geopackage.test.tiles.features;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.CreateGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test Feature Vector Tiles from a created database
+ * 
+ * @author osbornb
+ */
+public class FeatureVectorTilesCreateTest extends CreateGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public FeatureVectorTilesCreateTest() {
+
+	}
+
+	/**
+	 * Test drawing vector tiles
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testDrawTiles() throws SQLException, IOException {
+
+		FeatureVectorTilesUtils.testDrawTiles(geoPackage);
+
+	}
+
+	/**
+	 * Test drawing vector tiles with null attributes
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testDrawNullAttributes() throws SQLException, IOException {
+
+		FeatureVectorTilesUtils.testDrawNullAttributes(geoPackage);
+
+	}
+
+}
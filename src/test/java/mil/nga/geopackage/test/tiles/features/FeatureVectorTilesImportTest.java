@@ -0,0 +1,37 @@
+package mil.nga.geopackage.test.tiles.features;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import mil.nga.geopackage.test.ImportGeoPackageTestCase;
+
+import org.junit.Test;
+
+/**
+ * Test Feature Vector Tiles from an imported database
+ * 
+ * @author osbornb
+ */
+public class FeatureVectorTilesImportTest extends ImportGeoPackageTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public FeatureVectorTilesImportTest() {
+
+	}
+
+	/**
+	 * Test drawing vector tiles
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	@Test
+	public void testDrawTiles() throws SQLException, IOException {
+
+		FeatureVectorTilesUtils.testDrawTiles(geoPackage);
+
+	}
+
+}
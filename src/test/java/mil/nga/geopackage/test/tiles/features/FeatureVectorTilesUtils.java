@@ -0,0 +1,368 @@
+package mil.nga.geopackage.test.tiles.features;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageException;
+import mil.nga.geopackage.db.GeoPackageDataType;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.test.io.TestGeoPackageProgress;
+import mil.nga.geopackage.tiles.features.FeatureVectorTiles;
+import mil.nga.geopackage.tiles.features.VectorTileHandler;
+
+/**
+ * Feature Vector Tiles Utility test methods
+ * 
+ * @author osbornb
+ */
+public class FeatureVectorTilesUtils {
+
+	/**
+	 * Test drawing vector tiles across a zoom range
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testDrawTiles(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			if (featureDao.getProjection().getEpsg() <= 0) {
+				continue;
+			}
+
+			FeatureVectorTiles vectorTiles = new FeatureVectorTiles(
+					geoPackage, featureDao);
+			vectorTiles.getFeatureIndex().index();
+			TestCase.assertEquals(featureTable, vectorTiles.getLayerName());
+
+			// Parallel querying and encoding
+			vectorTiles.setThreads(2);
+			final List<int[]> tileIds = new ArrayList<>();
+			final List<byte[]> tiles = new ArrayList<>();
+			int count = vectorTiles.drawTiles(0, 3, new VectorTileHandler() {
+
+				@Override
+				public void handleTile(int zoom, int x, int y, byte[] tile)
+						throws IOException {
+					tileIds.add(new int[] { zoom, x, y });
+					tiles.add(tile);
+				}
+
+			});
+			TestCase.assertEquals(tiles.size(), count);
+
+			int previousZoom = 0;
+			for (int i = 0; i < count; i++) {
+				int[] tileId = tileIds.get(i);
+				byte[] tile = tiles.get(i);
+				TestCase.assertTrue(tileId[0] >= previousZoom);
+				previousZoom = tileId[0];
+				TestCase.assertTrue(tileId[1] >= 0
+						&& tileId[1] < (1 << tileId[0]));
+				TestCase.assertTrue(tileId[2] >= 0
+						&& tileId[2] < (1 << tileId[0]));
+
+				// Single layer field, length delimited
+				TestCase.assertTrue(tile.length > 2);
+				TestCase.assertEquals(0x1A, tile[0]);
+
+				// Encoded the same on the calling thread
+				TestCase.assertTrue(Arrays.equals(tile, vectorTiles.drawTile(
+						tileId[1], tileId[2], tileId[0])));
+			}
+
+			// Tiles within parent tiles without features are skipped, while
+			// still counted as progress
+			final List<int[]> zoomTileIds = new ArrayList<>();
+			int zoomCount = vectorTiles.drawTiles(3, 3, new VectorTileHandler() {
+
+				@Override
+				public void handleTile(int zoom, int x, int y, byte[] tile)
+						throws IOException {
+					zoomTileIds.add(new int[] { zoom, x, y });
+				}
+
+			});
+			int index = 0;
+			for (int[] tileId : tileIds) {
+				if (tileId[0] == 3) {
+					TestCase.assertTrue(index < zoomCount);
+					TestCase.assertTrue(Arrays.equals(tileId,
+							zoomTileIds.get(index++)));
+				}
+			}
+			TestCase.assertEquals(zoomCount, index);
+
+			TestGeoPackageProgress progress = new TestGeoPackageProgress();
+			vectorTiles.setProgress(progress);
+			TestCase.assertEquals(count, vectorTiles.drawTiles(0, 3,
+					new VectorTileHandler() {
+
+						@Override
+						public void handleTile(int zoom, int x, int y,
+								byte[] tile) throws IOException {
+						}
+
+					}));
+			TestCase.assertNotNull(progress.getMax());
+			TestCase.assertEquals(progress.getMax().intValue(),
+					progress.getProgress());
+			vectorTiles.setProgress(null);
+
+			// Serial encoding to a tile directory
+			vectorTiles.setThreads(1);
+			File directory = Files.createTempDirectory(featureTable).toFile();
+			try {
+				TestCase.assertEquals(count,
+						vectorTiles.drawTiles(0, 3, directory));
+				for (int i = 0; i < count; i++) {
+					int[] tileId = tileIds.get(i);
+					File file = new File(directory, tileId[0] + File.separator
+							+ tileId[1] + File.separator + tileId[2] + "."
+							+ FeatureVectorTiles.TILE_EXTENSION);
+					TestCase.assertTrue(file.exists());
+					TestCase.assertTrue(Arrays.equals(tiles.get(i),
+							Files.readAllBytes(file.toPath())));
+				}
+			} finally {
+				delete(directory);
+			}
+
+			try {
+				vectorTiles.drawTiles(3, 2, directory);
+				TestCase.fail("Drew tiles with an invalid zoom range");
+			} catch (GeoPackageException e) {
+				// Expected
+			}
+		}
+
+	}
+
+	/**
+	 * Test drawing a vector tile with a feature of null numeric and boolean
+	 * attributes, which are left out of the feature tags
+	 * 
+	 * @param geoPackage
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public static void testDrawNullAttributes(GeoPackage geoPackage)
+			throws SQLException, IOException {
+
+		List<String> featureTables = geoPackage.getFeatureTables();
+		for (String featureTable : featureTables) {
+
+			FeatureDao featureDao = geoPackage.getFeatureDao(featureTable);
+			if (featureDao.getProjection().getEpsg() <= 0) {
+				continue;
+			}
+
+			List<String> nullColumns = new ArrayList<>();
+			for (FeatureColumn column : featureDao.getTable().getColumns()) {
+				if (!column.isPrimaryKey() && !column.isGeometry()
+						&& !column.isNotNull() && isNumericOrBoolean(column)) {
+					nullColumns.add(column.getName());
+				}
+			}
+			if (nullColumns.isEmpty()) {
+				continue;
+			}
+
+			FeatureVectorTiles vectorTiles = new FeatureVectorTiles(
+					geoPackage, featureDao);
+			vectorTiles.getFeatureIndex().index();
+			vectorTiles.setColumns(nullColumns.toArray(new String[nullColumns
+					.size()]));
+			byte[] tile = vectorTiles.drawTile(0, 0, 0);
+			if (tile == null) {
+				continue;
+			}
+			Map<Long, Integer> featureTags = decodeFeatureTags(tile);
+			if (featureTags.isEmpty()) {
+				continue;
+			}
+
+			// Copy of a drawn feature with null attribute values
+			FeatureRow row = featureDao.queryForIdRow(featureTags.keySet()
+					.iterator().next());
+			FeatureRow nullRow = featureDao.newRow();
+			for (FeatureColumn column : featureDao.getTable().getColumns()) {
+				if (!column.isPrimaryKey()
+						&& !nullColumns.contains(column.getName())) {
+					int index = column.getIndex();
+					nullRow.setValue(index, row.getValue(index));
+				}
+			}
+			long id = featureDao.insert(nullRow);
+			vectorTiles.getFeatureIndex().index(nullRow);
+
+			featureTags = decodeFeatureTags(vectorTiles.drawTile(0, 0, 0));
+			TestCase.assertEquals(Integer.valueOf(0), featureTags.get(id));
+
+			vectorTiles.getFeatureIndex().deleteIndex(id);
+			featureDao.deleteById(id);
+			vectorTiles.getFeatureIndex().close();
+		}
+
+	}
+
+	/**
+	 * Determine if the column is a numeric or boolean column
+	 * 
+	 * @param column
+	 *            feature column
+	 * @return true if numeric or boolean
+	 */
+	private static boolean isNumericOrBoolean(FeatureColumn column) {
+		boolean numeric = false;
+		GeoPackageDataType dataType = column.getDataType();
+		if (dataType != null) {
+			switch (dataType) {
+			case BOOLEAN:
+			case TINYINT:
+			case SMALLINT:
+			case MEDIUMINT:
+			case INT:
+			case INTEGER:
+			case FLOAT:
+			case DOUBLE:
+			case REAL:
+				numeric = true;
+				break;
+			default:
+			}
+		}
+		return numeric;
+	}
+
+	/**
+	 * Decode the number of tag indices of each feature in the vector tile
+	 * 
+	 * @param tile
+	 *            vector tile bytes
+	 * @return tag index counts by feature id
+	 */
+	private static Map<Long, Integer> decodeFeatureTags(byte[] tile) {
+		Map<Long, Integer> featureTags = new HashMap<>();
+		ByteBuffer tileBuffer = ByteBuffer.wrap(tile);
+		while (tileBuffer.hasRemaining()) {
+			long tag = readVarint(tileBuffer);
+			ByteBuffer layer = readField(tileBuffer, tag);
+			if (tag >>> 3 != 3 || layer == null) {
+				continue;
+			}
+			while (layer.hasRemaining()) {
+				long layerTag = readVarint(layer);
+				ByteBuffer feature = readField(layer, layerTag);
+				if (layerTag >>> 3 != 2 || feature == null) {
+					continue;
+				}
+				Long id = null;
+				int tags = 0;
+				while (feature.hasRemaining()) {
+					long featureTag = readVarint(feature);
+					if (featureTag >>> 3 == 1) {
+						id = readVarint(feature);
+					} else {
+						ByteBuffer field = readField(feature, featureTag);
+						if (featureTag >>> 3 == 2) {
+							while (field.hasRemaining()) {
+								readVarint(field);
+								tags++;
+							}
+						}
+					}
+				}
+				if (id != null) {
+					featureTags.put(id, tags);
+				}
+			}
+		}
+		return featureTags;
+	}
+
+	/**
+	 * Read a field value after its tag, returning length delimited values
+	 * 
+	 * @param buffer
+	 *            message buffer
+	 * @param tag
+	 *            field tag
+	 * @return length delimited value, null for other wire types
+	 */
+	private static ByteBuffer readField(ByteBuffer buffer, long tag) {
+		ByteBuffer value = null;
+		switch ((int) (tag & 0x7)) {
+		case 0:
+			readVarint(buffer);
+			break;
+		case 1:
+			buffer.position(buffer.position() + 8);
+			break;
+		case 2:
+			int length = (int) readVarint(buffer);
+			value = buffer.slice();
+			value.limit(length);
+			buffer.position(buffer.position() + length);
+			break;
+		case 5:
+			buffer.position(buffer.position() + 4);
+			break;
+		default:
+			TestCase.fail("Unexpected wire type: " + (tag & 0x7));
+		}
+		return value;
+	}
+
+	/**
+	 * Read a varint
+	 * 
+	 * @param buffer
+	 *            message buffer
+	 * @return value
+	 */
+	private static long readVarint(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Delete a file or directory and its contents
+	 * 
+	 * @param file
+	 */
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}